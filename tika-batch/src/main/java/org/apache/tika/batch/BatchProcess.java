@@ -32,6 +32,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.tika.io.CheckpointLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -100,6 +101,8 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
 
     private boolean alreadyExecuted = false;
 
+    private CheckpointLog checkpointLog = null;
+
     public BatchProcess(FileResourceCrawler fileResourceCrawler,
                         ConsumersManager consumersManager,
                         StatusReporter reporter,
@@ -167,6 +170,7 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
             result = shutdown(ex, completionService, timeoutChecker, state);
         } finally {
             shutdownConsumersManager();
+            closeCheckpointLog();
         }
         LOG.trace("finishing up");
         return result;
@@ -398,6 +402,21 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
         }
     }
 
+    private void closeCheckpointLog() {
+        if (checkpointLog == null) {
+            return;
+        }
+        try {
+            checkpointLog.close();
+        } catch (IOException e) {
+            LOG.warn("couldn't close checkpoint log", e);
+        }
+        if (fileResourceCrawler.getSkippedCompleted() > 0) {
+            LOG.info("skipped {} files that were completed in an earlier run",
+                    fileResourceCrawler.getSkippedCompleted());
+        }
+    }
+
     private void shutdownConsumersManager() {
         if (consumersManagerMaxMillis < 0) {
             consumersManager.shutdown();
@@ -553,6 +572,16 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
         this.maxAliveTimeSeconds = maxAliveTimeSeconds;
     }
 
+    /**
+     * Log of completed resource ids shared by the crawler and the consumers.
+     * This process closes the log when it finishes.
+     *
+     * @param checkpointLog checkpoint log
+     */
+    public void setCheckpointLog(CheckpointLog checkpointLog) {
+        this.checkpointLog = checkpointLog;
+    }
+
     private class TimeoutChecker implements Callable<IFileProcessorFutureResult> {
         @Override
         public TimeoutFutureResult call() throws Exception {
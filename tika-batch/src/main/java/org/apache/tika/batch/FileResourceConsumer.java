@@ -29,6 +29,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.tika.io.CheckpointLog;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
@@ -80,6 +81,8 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
 
     private final int consumerId;
 
+    private CheckpointLog checkpointLog = null;
+
     //used to lock checks on state to prevent
     private final Object lock = new Object();
 
@@ -189,9 +192,25 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
         //if anything is thrown from processFileResource, then the fileStarted
         //will remain what it was right before the exception was thrown.
         currentFile = null;
+        if (consumed && checkpointLog != null) {
+            try {
+                checkpointLog.markCompleted(fileResource.getResourceId());
+            } catch (IOException e) {
+                LOG.warn("couldn't record {} in checkpoint log", fileResource.getResourceId(), e);
+            }
+        }
         return consumed;
     }
 
+    /**
+     * If set, the ids of successfully processed resources are recorded in this log.
+     *
+     * @param checkpointLog log of completed resource ids
+     */
+    public void setCheckpointLog(CheckpointLog checkpointLog) {
+        this.checkpointLog = checkpointLog;
+    }
+
     /**
      * This politely asks the consumer to shutdown.
      * Before processing another file, the consumer will check to see
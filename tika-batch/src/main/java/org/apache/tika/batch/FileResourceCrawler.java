@@ -23,6 +23,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.tika.extractor.DocumentSelector;
+import org.apache.tika.io.CheckpointLog;
 import org.apache.tika.metadata.Metadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,11 +52,14 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
 
     private long maxConsecWaitInMillis = 300000;//300,000ms = 5 minutes
     private DocumentSelector documentSelector = null;
+    private CheckpointLog checkpointLog = null;
 
     //number of files added to queue
     private int added = 0;
     //number of files considered including those that were rejected by documentSelector
     private int considered = 0;
+    //number of files that were skipped because the checkpoint log records them as completed
+    private int skippedCompleted = 0;
 
     /**
      * @param queue        shared queue
@@ -103,16 +107,38 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
      */
     protected int tryToAdd(FileResource fileResource) throws InterruptedException {
 
-        if (maxFilesToAdd > -1 && added >= maxFilesToAdd) {
+        if (isAtLimit()) {
             return STOP_NOW;
         }
+        return tryToAdd(fileResource, select(fileResource.getMetadata()));
+    }
 
-        if (maxFilesToConsider > -1 && considered > maxFilesToConsider) {
+    /**
+     * Use this if the {@link DocumentSelector} has already been applied
+     * to the resource, e.g. by a crawler's worker threads.  This must only
+     * be called from the crawler's own thread.
+     *
+     * @param fileResource resource to add
+     * @param selected whether or not the resource was selected
+     * @return int status of the attempt (SKIPPED, ADDED, STOP_NOW) to add the resource to the queue.
+     * @throws InterruptedException
+     */
+    protected int tryToAdd(FileResource fileResource, boolean selected) throws InterruptedException {
+
+        if (isAtLimit()) {
             return STOP_NOW;
         }
 
+        if (selected && checkpointLog != null &&
+                checkpointLog.isCompleted(fileResource.getResourceId())) {
+            LOG.debug("skipping completed: {}", fileResource.getResourceId());
+            skippedCompleted++;
+            considered++;
+            return SKIPPED;
+        }
+
         boolean isAdded = false;
-        if (select(fileResource.getMetadata())) {
+        if (selected) {
             long start = System.currentTimeMillis();
             while (queue.offer(fileResource, PAUSE_INCREMENT_MILLIS, TimeUnit.MILLISECONDS) == false) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -140,6 +166,25 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
         return (isAdded)?ADDED:SKIPPED;
     }
 
+    /**
+     * Records that resources were considered but not selected by a
+     * {@link DocumentSelector} that was applied outside of {@link #tryToAdd(FileResource)}.
+     *
+     * @param numSkipped number of resources that were rejected
+     * @return STOP_NOW if the crawler has hit {@link #maxFilesToConsider}, SKIPPED otherwise
+     */
+    protected int skipped(int numSkipped) {
+        considered += numSkipped;
+        return isAtLimit() ? STOP_NOW : SKIPPED;
+    }
+
+    private boolean isAtLimit() {
+        if (maxFilesToAdd > -1 && added >= maxFilesToAdd) {
+            return true;
+        }
+        return maxFilesToConsider > -1 && considered > maxFilesToConsider;
+    }
+
     //Warning! Depending on the value of maxConsecWaitInMillis
     //this could try forever in vain to add poison to the queue.
     private void shutdown() throws InterruptedException{
@@ -188,6 +233,24 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
         this.documentSelector = documentSelector;
     }
 
+    /**
+     * If set, resources that are recorded as completed in the log
+     * are not added to the queue.
+     *
+     * @param checkpointLog log of completed resource ids
+     */
+    public void setCheckpointLog(CheckpointLog checkpointLog) {
+        this.checkpointLog = checkpointLog;
+    }
+
+    /**
+     *
+     * @return number of files that were skipped because they were completed in an earlier run
+     */
+    public int getSkippedCompleted() {
+        return skippedCompleted;
+    }
+
     public int getConsidered() {
         return considered;
     }
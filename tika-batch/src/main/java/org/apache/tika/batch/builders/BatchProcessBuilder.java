@@ -20,6 +20,7 @@ package org.apache.tika.batch.builders;
 import javax.xml.parsers.DocumentBuilder;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,10 +29,12 @@ import java.util.concurrent.ArrayBlockingQueue;
 import org.apache.tika.batch.BatchProcess;
 import org.apache.tika.batch.ConsumersManager;
 import org.apache.tika.batch.FileResource;
+import org.apache.tika.batch.FileResourceConsumer;
 import org.apache.tika.batch.FileResourceCrawler;
 import org.apache.tika.batch.Interrupter;
 import org.apache.tika.batch.StatusReporter;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.CheckpointLog;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.util.ClassLoaderUtil;
 import org.apache.tika.util.XMLDOMUtil;
@@ -51,6 +54,7 @@ public class BatchProcessBuilder {
     public final static int DEFAULT_MAX_QUEUE_SIZE = 1000;
     public final static String MAX_QUEUE_SIZE_KEY = "maxQueueSize";
     public final static String NUM_CONSUMERS_KEY = "numConsumers";
+    public final static String CHECKPOINT_FILE_KEY = "checkpointFile";
 
     /**
      * Builds a BatchProcess from runtime arguments and a
@@ -140,6 +144,15 @@ public class BatchProcessBuilder {
         BatchProcess proc = new BatchProcess(
                 crawler, consumersManager, reporter, interrupter);
 
+        CheckpointLog checkpointLog = buildCheckpointLog(docElement, runtimeAttributes);
+        if (checkpointLog != null) {
+            crawler.setCheckpointLog(checkpointLog);
+            for (FileResourceConsumer consumer : consumersManager.getConsumers()) {
+                consumer.setCheckpointLog(checkpointLog);
+            }
+            proc.setCheckpointLog(checkpointLog);
+        }
+
         if (timeoutThresholdMillis > -1) {
             proc.setTimeoutThresholdMillis(timeoutThresholdMillis);
         }
@@ -155,6 +168,25 @@ public class BatchProcessBuilder {
         return proc;
     }
 
+    //tries to get checkpointFile from the runtime attributes and then from the main element
+    private CheckpointLog buildCheckpointLog(Node docElement, Map<String, String> runtimeAttributes) {
+        String checkpointFile = runtimeAttributes.get(CHECKPOINT_FILE_KEY);
+        if (checkpointFile == null) {
+            Node node = docElement.getAttributes().getNamedItem(CHECKPOINT_FILE_KEY);
+            if (node != null) {
+                checkpointFile = node.getNodeValue();
+            }
+        }
+        if (checkpointFile == null || checkpointFile.trim().length() == 0) {
+            return null;
+        }
+        try {
+            return new CheckpointLog(Paths.get(checkpointFile.trim()));
+        } catch (IOException e) {
+            throw new RuntimeException("Couldn't open checkpoint file: " + checkpointFile, e);
+        }
+    }
+
     private Interrupter buildInterrupter(Node node, long pauseOnEarlyTermination, Map<String, String> runtimeAttributes) {
         Map<String, String> attrs = XMLDOMUtil.mapifyAttrs(node, runtimeAttributes);
         String className = attrs.get("builderClass");
@@ -69,6 +69,17 @@ public class FSFileResource implements FileResource {
      * a child of inputRoot
      */
     public FSFileResource(Path inputRoot, Path fullPath) {
+        this(inputRoot, fullPath, size(fullPath));
+    }
+
+    /**
+     * Constructor for crawlers that have read the file's size already
+     *
+     * @param inputRoot the input root for the file
+     * @param fullPath the full path to the file
+     * @param sz size of the file, or -1 if unknown
+     */
+    FSFileResource(Path inputRoot, Path fullPath, long sz) {
         this.fullPath = fullPath;
         this.metadata = new Metadata();
         //child path must actually be a child
@@ -78,16 +89,19 @@ public class FSFileResource implements FileResource {
         //need to set these now so that the filter can determine
         //whether or not to crawl this file
         metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fullPath.getFileName().toString());
-        long sz = -1;
+        metadata.set(Metadata.CONTENT_LENGTH, Long.toString(sz));
+        metadata.set(FSProperties.FS_REL_PATH, relativePath);
+        metadata.set(FileResource.FILE_EXTENSION, getExtension(fullPath));
+    }
+
+    private static long size(Path fullPath) {
         try {
-            sz = Files.size(fullPath);
+            return Files.size(fullPath);
         } catch (IOException e) {
             //swallow
             //not existent file will be handled downstream
+            return -1;
         }
-        metadata.set(Metadata.CONTENT_LENGTH, Long.toString(sz));
-        metadata.set(FSProperties.FS_REL_PATH, relativePath);
-        metadata.set(FileResource.FILE_EXTENSION, getExtension(fullPath));
     }
 
     /**
@@ -0,0 +1,291 @@
+package org.apache.tika.batch.fs;
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tika.batch.FileResource;
+import org.apache.tika.batch.FileResourceCrawler;
+
+/**
+ * Crawler that splits the directory traversal of one or more roots
+ * across a pool of walker threads.
+ * <p/>
+ * Each directory is listed by its own task, and its subdirectories are
+ * submitted as new tasks so that any idle walker can pick them up.  The
+ * {@link org.apache.tika.extractor.DocumentSelector} is applied by the walkers
+ * during the walk, and the selected {@link FileResource}s are handed to the
+ * crawler's thread in batches, which then adds them to the shared queue.  This
+ * keeps the handoffs between the walkers and the queue to one per batch
+ * rather than one per file.  The walkers are plain threads rather than
+ * fork/join workers because they block while the handoff queue is full.
+ * <p/>
+ * Symbolic links are followed, but each directory is only walked once, so
+ * links that form a cycle don't make the walk endless.
+ * <p/>
+ * There is no guarantee about the order in which files are added.
+ * <p/>
+ * If there is more than one root, the resource ids are relative to each root's
+ * parent so that the root's name distinguishes files with the same
+ * relative path in different roots.
+ */
+public class FSParallelDirectoryCrawler extends FileResourceCrawler {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    //how long the crawler thread waits for a batch before checking whether the walkers are done
+    private static final long POLL_MILLIS = 100;
+
+    private final List<Path> roots;
+    private final int numThreads;
+    private final int batchSize;
+    private final LinkedBlockingQueue<Batch> batches;
+    //file keys (or real paths) of the directories that have been walked
+    private final Set<Object> visited = ConcurrentHashMap.newKeySet();
+    //directories that have been submitted, but not walked yet
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private ExecutorService walkers;
+    private volatile boolean stopped = false;
+    public FSParallelDirectoryCrawler(ArrayBlockingQueue<FileResource> fileQueue,
+                                      int numConsumers, List<Path> roots, int numThreads) {
+        this(fileQueue, numConsumers, roots, numThreads, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param fileQueue    shared queue
+     * @param numConsumers number of consumers
+     * @param roots        directories to crawl
+     * @param numThreads   number of threads to use to walk the directories
+     * @param batchSize    maximum number of resources that a walker hands off at once
+     */
+    public FSParallelDirectoryCrawler(ArrayBlockingQueue<FileResource> fileQueue,
+                                      int numConsumers, List<Path> roots,
+                                      int numThreads, int batchSize) {
+        super(fileQueue, numConsumers);
+        if (roots.size() == 0) {
+            throw new IllegalArgumentException("Must specify at least one root directory");
+        }
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("numThreads must be > 0");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be > 0");
+        }
+        for (Path root : roots) {
+            if (!Files.isDirectory(root)) {
+                throw new RuntimeException("Crawler couldn't find this directory:" +
+                        root.toAbsolutePath());
+            }
+        }
+        this.roots = new ArrayList<>(roots);
+        this.numThreads = numThreads;
+        this.batchSize = batchSize;
+        //bound the handoff queue so that the walkers can't get too far ahead
+        //of the consumers
+        this.batches = new LinkedBlockingQueue<>(numThreads * 4);
+    }
+
+    @Override
+    public void start() throws InterruptedException {
+        walkers = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread t = new Thread(r, "tika-batch-directory-walker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (Path root : roots) {
+                Path idRoot = root;
+                if (roots.size() > 1 && root.toAbsolutePath().getParent() != null) {
+                    idRoot = root.toAbsolutePath().getParent();
+                }
+                walk(idRoot.toAbsolutePath(), root.toAbsolutePath());
+            }
+            while (true) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("parallel directory crawler interrupted");
+                }
+                //check for completion before polling so that
+                //the last batches are not lost
+                boolean done = pending.get() == 0;
+                Batch batch = batches.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    if (handle(batch) == STOP_NOW) {
+                        return;
+                    }
+                } else if (done) {
+                    return;
+                }
+            }
+        } finally {
+            stopped = true;
+            walkers.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits the directory to the walkers, unless it has been walked already
+     * through another path, e.g. a symbolic link.
+     */
+    private void walk(Path idRoot, Path directory) {
+        if (stopped || !visited.add(directoryKey(directory))) {
+            return;
+        }
+        pending.incrementAndGet();
+        try {
+            walkers.execute(new DirectoryWalker(idRoot, directory));
+        } catch (RejectedExecutionException e) {
+            //stopped
+            pending.decrementAndGet();
+        }
+    }
+
+    private static Object directoryKey(Path directory) {
+        try {
+            Object key = Files.readAttributes(directory, BasicFileAttributes.class).fileKey();
+            return key != null ? key : directory.toRealPath();
+        } catch (IOException e) {
+            //will fail when it is listed
+            return directory.toAbsolutePath().normalize();
+        }
+    }
+
+    private int handle(Batch batch) throws InterruptedException {
+        for (FileResource fileResource : batch.selected) {
+            int added = tryToAdd(fileResource, true);
+            if (added == STOP_NOW) {
+                LOG.debug("crawler has hit a limit: {}", fileResource.getResourceId());
+                return STOP_NOW;
+            }
+        }
+        return skipped(batch.skipped);
+    }
+
+    private static class Batch {
+        private final List<FileResource> selected;
+        private final int skipped;
+
+        Batch(List<FileResource> selected, int skipped) {
+            this.selected = selected;
+            this.skipped = skipped;
+        }
+    }
+
+    private class DirectoryWalker implements Runnable {
+
+        private final Path idRoot;
+        private final Path directory;
+
+        private List<FileResource> selected;
+        private int skipped = 0;
+
+        DirectoryWalker(Path idRoot, Path directory) {
+            this.idRoot = idRoot;
+            this.directory = directory;
+        }
+
+        @Override
+        public void run() {
+            try {
+                listDirectory();
+            } catch (RuntimeException e) {
+                LOG.warn("FSParallelDirectoryCrawler couldn't walk {}", directory, e);
+            } finally {
+                pending.decrementAndGet();
+            }
+        }
+
+        private void listDirectory() {
+            selected = new ArrayList<>(batchSize);
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(directory)) {
+                for (Path p : ds) {
+                    if (stopped) {
+                        return;
+                    }
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                    } catch (IOException e) {
+                        //e.g. a broken symbolic link
+                        LOG.warn("Skipping -- {} -- couldn't read its attributes: {}", p,
+                                e.getMessage());
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        walk(idRoot, p);
+                        continue;
+                    }
+                    if (!Files.isReadable(p)) {
+                        LOG.warn("Skipping -- {} -- file/directory is not readable", p);
+                        continue;
+                    }
+                    FSFileResource fileResource = new FSFileResource(idRoot, p, attrs.size());
+                    if (select(fileResource.getMetadata())) {
+                        selected.add(fileResource);
+                    } else {
+                        LOG.debug("crawler did not select: {}", fileResource.getResourceId());
+                        skipped++;
+                    }
+                    if (selected.size() + skipped >= batchSize) {
+                        handOff();
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                LOG.warn("FSParallelDirectoryCrawler couldn't read {}: {}", directory,
+                        e.getMessage(), e);
+            } catch (InterruptedException e) {
+                stopped = true;
+                return;
+            }
+            try {
+                handOff();
+            } catch (InterruptedException e) {
+                stopped = true;
+            }
+        }
+
+        private void handOff() throws InterruptedException {
+            if (selected.size() == 0 && skipped == 0) {
+                return;
+            }
+            Batch batch = new Batch(selected, skipped);
+            while (!batches.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (stopped) {
+                    return;
+                }
+            }
+            selected = new ArrayList<>(batchSize);
+            skipped = 0;
+        }
+    }
+}
@@ -18,12 +18,15 @@ package org.apache.tika.batch.fs.builders;
  */
 
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -36,16 +39,24 @@ import org.apache.tika.batch.builders.ICrawlerBuilder;
 import org.apache.tika.batch.fs.FSDirectoryCrawler;
 import org.apache.tika.batch.fs.FSDocumentSelector;
 import org.apache.tika.batch.fs.FSListCrawler;
+import org.apache.tika.batch.fs.FSParallelDirectoryCrawler;
 import org.apache.tika.extractor.DocumentSelector;
 import org.apache.tika.util.PropsUtil;
 import org.apache.tika.util.XMLDOMUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.w3c.dom.Node;
 
 /**
- * Builds either an FSDirectoryCrawler or an FSListCrawler.
+ * Builds an FSDirectoryCrawler, an FSParallelDirectoryCrawler or an FSListCrawler.
+ * <p/>
+ * The FSParallelDirectoryCrawler is used if "inputDirs" (a list of directories separated
+ * by the platform's path separator) is specified or if "crawlerThreads" is &gt; 1.
  */
 public class FSCrawlerBuilder implements ICrawlerBuilder {
 
+    private static final Logger LOG = LoggerFactory.getLogger(FSCrawlerBuilder.class);
+
     private final static String MAX_CONSEC_WAIT_MILLIS = "maxConsecWaitMillis";
     private final static String MAX_FILES_TO_ADD_ATTR = "maxFilesToAdd";
     private final static String MAX_FILES_TO_CONSIDER_ATTR = "maxFilesToConsider";
@@ -53,6 +64,9 @@ public class FSCrawlerBuilder implements ICrawlerBuilder {
 
     private final static String CRAWL_ORDER = "crawlOrder";
     private final static String INPUT_DIR_ATTR = "inputDir";
+    private final static String INPUT_DIRS_ATTR = "inputDirs";
+    private final static String CRAWLER_THREADS_ATTR = "crawlerThreads";
+    private final static String CRAWLER_BATCH_SIZE_ATTR = "crawlerBatchSize";
     private final static String INPUT_START_DIR_ATTR = "startDir";
     private final static String MAX_FILE_SIZE_BYTES_ATTR = "maxFileSizeBytes";
     private final static String MIN_FILE_SIZE_BYTES_ATTR = "minFileSizeBytes";
@@ -92,6 +106,28 @@ public class FSCrawlerBuilder implements ICrawlerBuilder {
             } catch (IOException e) {
                 throw new RuntimeException("IOException while trying to open fileList: " + e.getMessage(), e);
             }
+        } else if (attributes.containsKey(INPUT_DIRS_ATTR) ||
+                PropsUtil.getInt(attributes.get(CRAWLER_THREADS_ATTR), 1) > 1) {
+            if (attributes.get(CRAWL_ORDER) != null) {
+                LOG.warn("crawlOrder attribute is ignored by FSParallelDirectoryCrawler");
+            }
+            List<Path> roots = new ArrayList<>();
+            String inputDirs = attributes.get(INPUT_DIRS_ATTR);
+            if (inputDirs == null || inputDirs.trim().length() == 0) {
+                roots.add(inputDir);
+            } else {
+                for (String dir : inputDirs.split(Pattern.quote(File.pathSeparator))) {
+                    if (dir.trim().length() > 0) {
+                        roots.add(Paths.get(dir.trim()));
+                    }
+                }
+            }
+            int numThreads = PropsUtil.getInt(attributes.get(CRAWLER_THREADS_ATTR),
+                    Runtime.getRuntime().availableProcessors());
+            int batchSize = PropsUtil.getInt(attributes.get(CRAWLER_BATCH_SIZE_ATTR),
+                    FSParallelDirectoryCrawler.DEFAULT_BATCH_SIZE);
+            crawler = new FSParallelDirectoryCrawler(queue, numConsumers, roots,
+                    numThreads, batchSize);
         } else {
             FSDirectoryCrawler.CRAWL_ORDER crawlOrder = getCrawlOrder(attributes.get(CRAWL_ORDER));
             Path startDir = PropsUtil.getPath(attributes.get(INPUT_START_DIR_ATTR), null);
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.batch.fs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.regex.Pattern;
+
+import org.apache.tika.batch.FileResource;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FSParallelDirectoryCrawlerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testMultipleRoots() throws Exception {
+        Path rootA = tmp.newFolder("a").toPath();
+        Path rootB = tmp.newFolder("b").toPath();
+        int expected = 0;
+        for (Path root : Arrays.asList(rootA, rootB)) {
+            for (int i = 0; i < 5; i++) {
+                Path dir = root.resolve("dir" + i).resolve("sub");
+                Files.createDirectories(dir);
+                for (int j = 0; j < 7; j++) {
+                    Files.write(dir.resolve("file" + j + ".txt"),
+                            "hello".getBytes(StandardCharsets.UTF_8));
+                    Files.write(dir.resolve("file" + j + ".skip"),
+                            "hello".getBytes(StandardCharsets.UTF_8));
+                    expected++;
+                }
+            }
+        }
+
+        ArrayBlockingQueue<FileResource> queue = new ArrayBlockingQueue<>(1000);
+        FSParallelDirectoryCrawler crawler = new FSParallelDirectoryCrawler(queue, 2,
+                Arrays.asList(rootA, rootB), 3, 4);
+        crawler.setDocumentSelector(new FSDocumentSelector(null,
+                Pattern.compile("\\.skip$"), -1, -1));
+        crawler.call();
+
+        Set<String> ids = new HashSet<>();
+        for (FileResource r : queue) {
+            if (r instanceof FSFileResource) {
+                ids.add(r.getResourceId());
+            }
+        }
+        assertEquals(expected, ids.size());
+        assertEquals(expected, crawler.getAdded());
+        assertEquals(expected * 2, crawler.getConsidered());
+        assertTrue(ids.contains(Paths.get("a", "dir0", "sub", "file0.txt").toString()));
+        assertTrue(ids.contains(Paths.get("b", "dir4", "sub", "file6.txt").toString()));
+    }
+
+    @Test
+    public void testSymbolicLinkCycle() throws Exception {
+        Path root = tmp.newFolder("root").toPath();
+        Path dir = Files.createDirectories(root.resolve("dir"));
+        Files.write(dir.resolve("file.txt"), "hello".getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.createSymbolicLink(dir.resolve("loop"), root);
+        } catch (UnsupportedOperationException | IOException e) {
+            Assume.assumeNoException(e);
+        }
+        ArrayBlockingQueue<FileResource> queue = new ArrayBlockingQueue<>(1000);
+        FSParallelDirectoryCrawler crawler = new FSParallelDirectoryCrawler(queue, 2,
+                Arrays.asList(root), 2, 7);
+        crawler.setDocumentSelector(new FSDocumentSelector(null, null, -1, -1));
+        crawler.call();
+        assertEquals(1, crawler.getAdded());
+    }
+
+    @Test
+    public void testMaxFilesToAdd() throws Exception {
+        Path root = tmp.newFolder("root").toPath();
+        for (int i = 0; i < 50; i++) {
+            Files.write(root.resolve("file" + i + ".txt"),
+                    "hello".getBytes(StandardCharsets.UTF_8));
+        }
+        ArrayBlockingQueue<FileResource> queue = new ArrayBlockingQueue<>(1000);
+        FSParallelDirectoryCrawler crawler = new FSParallelDirectoryCrawler(queue, 2,
+                Arrays.asList(root), 2, 7);
+        crawler.setDocumentSelector(new FSDocumentSelector(null, null, -1, -1));
+        crawler.setMaxFilesToAdd(10);
+        crawler.call();
+        assertEquals(10, crawler.getAdded());
+    }
+}
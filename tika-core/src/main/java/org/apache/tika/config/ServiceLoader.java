@@ -309,13 +309,34 @@ public class ServiceLoader {
      * Returns the defined static service providers of the given type, without
      * attempting to load them.
      * The providers are loaded using the service provider mechanism using
-     * the configured class loader (if any).
+     * the configured class loader (if any), or are taken from the
+     * {@link ServiceSnapshot#getDefault() service snapshot} if one is configured.
      *
      * @since Apache Tika 1.6
      * @param iface service provider interface
      * @return static list of uninitialised service providers
      */
     protected <T> List<String> identifyStaticServiceProviders(Class<T> iface) {
+        if (loader != null) {
+            ServiceSnapshot snapshot = ServiceSnapshot.getDefault();
+            if (snapshot != null) {
+                List<String> names = snapshot.getProviders(iface);
+                if (names != null) {
+                    return new ArrayList<>(names);
+                }
+            }
+        }
+        return scanStaticServiceProviders(iface);
+    }
+
+    /**
+     * Scans the classpath for the static service providers of the given type,
+     * ignoring any {@link ServiceSnapshot}.
+     *
+     * @param iface service provider interface
+     * @return static list of uninitialised service providers
+     */
+    <T> List<String> scanStaticServiceProviders(Class<T> iface) {
         List<String> names = new ArrayList<String>();
 
         if (loader != null) {
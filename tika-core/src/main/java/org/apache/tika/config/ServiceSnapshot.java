@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tika.detect.Detector;
+import org.apache.tika.detect.EncodingDetector;
+import org.apache.tika.extractor.EmbeddedStreamTranslator;
+import org.apache.tika.language.detect.LanguageDetector;
+import org.apache.tika.language.translate.Translator;
+import org.apache.tika.metadata.filter.MetadataFilter;
+import org.apache.tika.parser.Parser;
+
+/**
+ * Binary snapshot of the static service provider lists (the
+ * <code>META-INF/services</code> entries) of a classpath.
+ * <p>
+ * If the system property {@value #SNAPSHOT_PROPERTY} points to a snapshot,
+ * the {@link ServiceLoader} takes the names of the static service providers
+ * of the interfaces in the snapshot from it, instead of scanning the classpath.
+ * The snapshot must have been written with the same classpath, e.g. by running
+ * {@link #main(String[])} as part of building a deployment.
+ *
+ * @since Apache Tika 2.0
+ */
+public class ServiceSnapshot {
+
+    /**
+     * System property with the path of the snapshot to use
+     */
+    public static final String SNAPSHOT_PROPERTY = "tika.service.snapshot";
+
+    private static final int MAGIC = 0x54535653; // "TSVS"
+    private static final int VERSION = 1;
+
+    private static final Class<?>[] DEFAULT_INTERFACES = new Class<?>[]{
+            Parser.class, Detector.class, EncodingDetector.class,
+            LanguageDetector.class, Translator.class, MetadataFilter.class,
+            EmbeddedStreamTranslator.class
+    };
+
+    private static volatile ServiceSnapshot DEFAULT_SNAPSHOT = null;
+    private static volatile String DEFAULT_SNAPSHOT_PATH = null;
+
+    private final Map<String, List<String>> providers;
+
+    public ServiceSnapshot(Map<String, List<String>> providers) {
+        this.providers = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> e : providers.entrySet()) {
+            this.providers.put(e.getKey(),
+                    Collections.unmodifiableList(new ArrayList<>(e.getValue())));
+        }
+    }
+
+    /**
+     * @param iface service provider interface
+     * @return names of the static service providers, or <code>null</code> if
+     * the snapshot doesn't include the interface
+     */
+    public List<String> getProviders(Class<?> iface) {
+        return providers.get(iface.getName());
+    }
+
+    /**
+     * @return the snapshot named by the {@value #SNAPSHOT_PROPERTY} system property,
+     * or <code>null</code> if the property isn't set or the snapshot can't be read
+     */
+    public static ServiceSnapshot getDefault() {
+        String path = System.getProperty(SNAPSHOT_PROPERTY);
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+        ServiceSnapshot snapshot = DEFAULT_SNAPSHOT;
+        if (snapshot != null && path.equals(DEFAULT_SNAPSHOT_PATH)) {
+            return snapshot;
+        }
+        synchronized (ServiceSnapshot.class) {
+            try (InputStream is = Files.newInputStream(Paths.get(path.trim()))) {
+                snapshot = read(is);
+            } catch (IOException e) {
+                //fall back to scanning the classpath
+                return null;
+            }
+            DEFAULT_SNAPSHOT = snapshot;
+            DEFAULT_SNAPSHOT_PATH = path;
+            return snapshot;
+        }
+    }
+
+    /**
+     * Collects the static service providers of the given interfaces.
+     *
+     * @param loader     loader to collect them with
+     * @param interfaces service provider interfaces
+     * @return snapshot
+     */
+    public static ServiceSnapshot collect(ServiceLoader loader, Class<?>... interfaces) {
+        Map<String, List<String>> providers = new LinkedHashMap<>();
+        for (Class<?> iface : interfaces) {
+            providers.put(iface.getName(), loader.scanStaticServiceProviders(iface));
+        }
+        return new ServiceSnapshot(providers);
+    }
+
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(os));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(providers.size());
+        for (Map.Entry<String, List<String>> e : providers.entrySet()) {
+            data.writeUTF(e.getKey());
+            data.writeInt(e.getValue().size());
+            for (String name : e.getValue()) {
+                data.writeUTF(name);
+            }
+        }
+        data.flush();
+    }
+
+    public static ServiceSnapshot read(InputStream is) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(is));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a service snapshot");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported service snapshot version: " + version);
+        }
+        int numInterfaces = data.readInt();
+        Map<String, List<String>> providers = new LinkedHashMap<>();
+        for (int i = 0; i < numInterfaces; i++) {
+            String iface = data.readUTF();
+            int numProviders = data.readInt();
+            List<String> names = new ArrayList<>(numProviders);
+            for (int j = 0; j < numProviders; j++) {
+                names.add(data.readUTF());
+            }
+            providers.put(iface, names);
+        }
+        return new ServiceSnapshot(providers);
+    }
+
+    /**
+     * Writes the snapshot of the current classpath for Tika's service provider
+     * interfaces and any additional interfaces given by class name.
+     * <p>
+     * Usage: <code>ServiceSnapshot &lt;outputFile&gt; [interface ...]</code>
+     *
+     * @param args arguments
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ServiceSnapshot <outputFile> [interface ...]");
+            return;
+        }
+        List<Class<?>> interfaces = new ArrayList<>(Arrays.asList(DEFAULT_INTERFACES));
+        for (int i = 1; i < args.length; i++) {
+            interfaces.add(Class.forName(args[i]));
+        }
+        Path out = Paths.get(args[0]);
+        try (OutputStream os = Files.newOutputStream(out)) {
+            collect(new ServiceLoader(), interfaces.toArray(new Class<?>[0])).write(os);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.external.ExternalParser;
+import org.apache.tika.utils.PersistentProcessPool;
 import org.apache.tika.utils.ProcessUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +36,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -50,6 +52,14 @@ import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
  * up to {@link #maxBytes} to disk and then run the detector.
  *
  * As with all detectors, mark must be supported.
+ *
+ * By default, a new 'file' process is started for each document.  With
+ * {@link #setUsePersistentProcess(boolean)}, a pool of long-lived
+ * <code>file -f -</code> processes is used instead: paths are written to their
+ * stdin, and each response is matched to its path.  A process that times out
+ * is killed, and it is restarted on the next request.  The processes are
+ * stopped by {@link #close()}, e.g. by the application that configured this
+ * detector, and otherwise when the JVM shuts down.
  */
 public class FileCommandDetector implements Detector {
 
@@ -64,6 +74,9 @@ public class FileCommandDetector implements Detector {
     private String fileCommandPath = DEFAULT_FILE_COMMAND_PATH;
     private int maxBytes = 1_000_000;
     private long timeoutMs = DEFAULT_TIMEOUT_MS;
+    private boolean usePersistentProcess = false;
+    private int numProcesses = 1;
+    private transient PersistentProcessPool processPool;
 
     public static boolean checkHasFile() {
         return checkHasFile(DEFAULT_FILE_COMMAND_PATH);
@@ -116,11 +129,15 @@ public class FileCommandDetector implements Detector {
     }
 
     private MediaType detectOnPath(Path path) throws IOException {
+        String absolutePath = path.toAbsolutePath().toString();
+        if (usePersistentProcess && absolutePath.indexOf('\n') < 0 && absolutePath.indexOf('\r') < 0) {
+            return detectWithProcessPool(absolutePath);
+        }
 
         String[] args = new String[]{
                 ProcessUtils.escapeCommandLine(fileCommandPath),
                 "-b", "--mime-type",
-                ProcessUtils.escapeCommandLine(path.toAbsolutePath().toString())
+                ProcessUtils.escapeCommandLine(absolutePath)
         };
         ProcessBuilder builder = new ProcessBuilder(args);
         Process process = builder.start();
@@ -157,12 +174,47 @@ public class FileCommandDetector implements Detector {
         }
     }
 
+    private MediaType detectWithProcessPool(String absolutePath) throws IOException {
+        //with -r, the path is echoed as is, followed by ':'
+        String prefix = absolutePath + ":";
+        String response = getProcessPool().request(absolutePath,
+                line -> line.startsWith(prefix), timeoutMs);
+        MediaType mt = MediaType.parse(response.substring(prefix.length()).trim());
+        if (mt == null) {
+            return MediaType.OCTET_STREAM;
+        } else {
+            return mt;
+        }
+    }
+
+    private synchronized PersistentProcessPool getProcessPool() {
+        if (processPool == null) {
+            //-n flushes after each file, -r prints the path without escaping
+            processPool = new PersistentProcessPool(Arrays.asList(
+                    ProcessUtils.escapeCommandLine(fileCommandPath),
+                    "-n", "-r", "--mime-type", "-f", "-"), numProcesses);
+        }
+        return processPool;
+    }
+
+    /**
+     * Stops the processes, if {@link #setUsePersistentProcess(boolean)} is
+     * used.  They are restarted if this detector is used again.
+     */
+    public synchronized void close() {
+        if (processPool != null) {
+            processPool.close();
+            processPool = null;
+        }
+    }
+
     @Field
     public void setFilePath(String fileCommandPath) {
         //this opens up a potential command vulnerability.
         //Don't ever let an untrusted user set this.
         this.fileCommandPath = fileCommandPath;
         checkHasFile(this.fileCommandPath);
+        close();
     }
 
     /**
@@ -182,6 +234,29 @@ public class FileCommandDetector implements Detector {
         this.timeoutMs = timeoutMs;
     }
 
+    /**
+     * Whether to keep long-lived 'file' processes that detect one path
+     * after another, rather than starting a process per document.
+     * Default is <code>false</code>.
+     *
+     * @param usePersistentProcess
+     */
+    @Field
+    public void setUsePersistentProcess(boolean usePersistentProcess) {
+        this.usePersistentProcess = usePersistentProcess;
+    }
+
+    /**
+     * Number of long-lived 'file' processes, if
+     * {@link #setUsePersistentProcess(boolean)} is used.  Default is 1.
+     *
+     * @param numProcesses
+     */
+    @Field
+    public void setNumProcesses(int numProcesses) {
+        this.numProcesses = numProcesses;
+    }
+
     private static class StringStreamGobbler implements Runnable {
 
         //plagiarized from org.apache.oodt's StreamGobbler
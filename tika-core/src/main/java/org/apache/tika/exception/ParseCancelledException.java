@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.exception;
+
+/**
+ * Thrown when a parse is stopped because its
+ * {@link org.apache.tika.parser.ParseDeadline} has passed or was cancelled.
+ * Whatever was written to the content handler and metadata before
+ * the exception is a valid, partial result.
+ * <p>
+ * Content handlers and streams can't throw a TikaException, so this is
+ * usually the cause of a SAXException or IOException; use {@link #find(Throwable)}
+ * to check for it.
+ *
+ * @since Apache Tika 2.0
+ */
+public class ParseCancelledException extends TikaException {
+
+    public ParseCancelledException(String msg) {
+        super(msg);
+    }
+
+    /**
+     * @param t exception thrown by a parse
+     * @return the ParseCancelledException that caused the exception, or
+     * <code>null</code> if the parse wasn't cancelled
+     */
+    public static ParseCancelledException find(Throwable t) {
+        //guard against cycles in the causes
+        for (int i = 0; t != null && i < 100; i++) {
+            if (t instanceof ParseCancelledException) {
+                return (ParseCancelledException) t;
+            }
+            t = t.getCause();
+        }
+        return null;
+    }
+}
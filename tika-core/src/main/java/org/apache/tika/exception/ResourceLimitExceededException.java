@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.exception;
+
+import org.apache.tika.parser.ResourceBudget;
+
+/**
+ * Thrown when a parse uses more of a resource than the hard limit of its
+ * {@link ResourceBudget}.  Like any other {@link ParseCancelledException},
+ * whatever was extracted before the limit was reached is a valid, partial result.
+ *
+ * @since Apache Tika 2.0
+ */
+public class ResourceLimitExceededException extends ParseCancelledException {
+
+    private final ResourceBudget.Resource resource;
+
+    public ResourceLimitExceededException(ResourceBudget.Resource resource, long usage,
+                                          long limit) {
+        super("Hard limit for " + resource.getName() + " exceeded: " + usage + " > " + limit);
+        this.resource = resource;
+    }
+
+    /**
+     * @return the resource whose limit was exceeded
+     */
+    public ResourceBudget.Resource getResource() {
+        return resource;
+    }
+}
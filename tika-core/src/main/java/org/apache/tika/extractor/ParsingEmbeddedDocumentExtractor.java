@@ -23,6 +23,7 @@ import java.io.InputStream;
 
 import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.tika.exception.EncryptedDocumentException;
+import org.apache.tika.exception.ParseCancelledException;
 import org.apache.tika.exception.CorruptedFileException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TemporaryResources;
@@ -32,6 +33,9 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.DelegatingParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.ParseInstrumentation;
+import org.apache.tika.parser.RequestedOutputs;
+import org.apache.tika.parser.ResourceBudget;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.EmbeddedContentHandler;
 import org.xml.sax.ContentHandler;
@@ -59,6 +63,10 @@ public class ParsingEmbeddedDocumentExtractor implements EmbeddedDocumentExtract
     }
 
     public boolean shouldParseEmbedded(Metadata metadata) {
+        if (!RequestedOutputs.get(context).isEmbeddedRequested()) {
+            return false;
+        }
+
         DocumentSelector selector = context.get(DocumentSelector.class);
         if (selector != null) {
             return selector.select(metadata);
@@ -93,7 +101,19 @@ public class ParsingEmbeddedDocumentExtractor implements EmbeddedDocumentExtract
         }
 
         // Use the delegate parser to parse this entry
-        try (TemporaryResources tmp = new TemporaryResources()) {
+        ResourceBudget budget = context.get(ResourceBudget.class);
+        RequestedOutputs requested = RequestedOutputs.get(context);
+        boolean budgetStarted = false;
+        boolean requestedStarted = false;
+        try (TemporaryResources tmp = new TemporaryResources();
+             ParseInstrumentation.Span span = ParseInstrumentation.start(
+                     context, ParseInstrumentation.EMBEDDED, metadata)) {
+            if (budget != null) {
+                budget.startEmbedded();
+                budgetStarted = true;
+            }
+            requested.startEmbedded();
+            requestedStarted = true;
             final TikaInputStream newStream = TikaInputStream.get(new CloseShieldInputStream(stream), tmp);
             if (stream instanceof TikaInputStream) {
                 final Object container = ((TikaInputStream) stream).getOpenContainer();
@@ -110,9 +130,21 @@ public class ParsingEmbeddedDocumentExtractor implements EmbeddedDocumentExtract
             // For now, just skip the content
         } catch (CorruptedFileException e) {
             throw new IOException(e);
+        } catch (ParseCancelledException e) {
+            //stop the container too
+            throw new SAXException(e);
         } catch (TikaException e) {
             // TODO: can we log a warning somehow?
             // Could not parse the entry, just skip the content
+        } finally {
+            // only end what was started, so that a limit exceeded on
+            // the way in doesn't unbalance the depths
+            if (requestedStarted) {
+                requested.endEmbedded();
+            }
+            if (budgetStarted) {
+                budget.endEmbedded();
+            }
         }
 
         if(outputHtml) {
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Read-only {@link SeekableByteChannel} over a sequence of byte buffers,
+ * e.g. pooled direct buffers or the memory mapped regions of a file.
+ * The buffers are shared, not copied, so any number of channels and
+ * streams can read the same content independently.  Closing a channel
+ * doesn't release the buffers; their owner does.
+ */
+class ByteBufferChannel implements SeekableByteChannel {
+
+    //regions of at most 1GB, so that each fits a MappedByteBuffer
+    private static final long MAX_MAP_REGION = 1L << 30;
+
+    private final ByteBuffer[] buffers;
+    //offset of each buffer in the content
+    private final long[] offsets;
+    private final long size;
+    private long position = 0;
+    private boolean open = true;
+
+    /**
+     * @param buffers buffers, each holding content between position 0 and its limit
+     */
+    ByteBufferChannel(ByteBuffer[] buffers) {
+        this.buffers = buffers;
+        this.offsets = new long[buffers.length];
+        long total = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            offsets[i] = total;
+            total += buffers[i].limit();
+        }
+        this.size = total;
+    }
+
+    /**
+     * Maps a file into memory, read-only.  The mapping is released by the
+     * garbage collector once no channel uses it any more.
+     */
+    static ByteBuffer[] map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            long size = channel.size();
+            int regions = (int) Math.max(1, (size + MAX_MAP_REGION - 1) / MAX_MAP_REGION);
+            ByteBuffer[] buffers = new ByteBuffer[regions];
+            for (int i = 0; i < regions; i++) {
+                long offset = i * MAX_MAP_REGION;
+                buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(MAX_MAP_REGION, size - offset));
+            }
+            return buffers;
+        }
+    }
+
+    /**
+     * @return a stream that reads the content from the start
+     */
+    InputStream newInputStream() {
+        return new InputStream() {
+            private final byte[] one = new byte[1];
+
+            @Override
+            public int read() throws IOException {
+                int n = read(one, 0, 1);
+                return n == -1 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                return ByteBufferChannel.this.read(ByteBuffer.wrap(b, off, len));
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = Math.max(0, Math.min(n, size - position));
+                position += skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(Integer.MAX_VALUE, size - position);
+            }
+        };
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(offsets, position);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        int read = 0;
+        while (dst.hasRemaining() && i < buffers.length) {
+            //duplicate, so that concurrent readers don't share the buffer's position
+            ByteBuffer src = buffers[i].duplicate();
+            src.position((int) (position - offsets[i]));
+            int n = Math.min(src.remaining(), dst.remaining());
+            src.limit(src.position() + n);
+            dst.put(src);
+            position += n;
+            read += n;
+            i++;
+        }
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("position must be >= 0: " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
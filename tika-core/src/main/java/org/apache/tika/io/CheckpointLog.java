@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact, append-only log of the ids of work items (files, fetch keys)
+ * that have been completed.  This allows a crawler or fetch iterator to skip
+ * finished work when a run is restarted.
+ * <p>
+ * Each completed id is recorded as a fixed-width 64-bit hash, so the log takes
+ * eight bytes per item no matter how long the ids are.  A partial record left
+ * by a crash is ignored when the log is reopened.  On open, the hashes are loaded
+ * into an open-addressing hash set so that {@link #isCompleted(String)} is O(1).
+ * <p>
+ * Because only hashes are stored, there is a vanishingly small chance
+ * (roughly n<sup>2</sup>/2<sup>65</sup> for n ids) that an id will be reported as completed
+ * when it was not.
+ * <p>
+ * Writes are buffered and the log is fsync'd every {@link #getSyncEvery()}
+ * records, every {@link #getSyncIntervalMillis()} milliseconds and on {@link #close()}.
+ * <p>
+ * This class is thread safe.
+ */
+public class CheckpointLog implements Closeable {
+
+    public static final int DEFAULT_SYNC_EVERY = 1000;
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10000;
+
+    private static final int RECORD_LENGTH = 8;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final LongHashSet completed;
+    private final int syncEvery;
+    private final long syncIntervalMillis;
+    private final int loaded;
+
+    private int unsynced = 0;
+    private long lastSync = System.currentTimeMillis();
+    private boolean closed = false;
+
+    /**
+     * Opens or creates a checkpoint log with the default sync settings.
+     *
+     * @param path file for the log
+     * @throws IOException if the log can't be read or opened for writing
+     */
+    public CheckpointLog(Path path) throws IOException {
+        this(path, DEFAULT_SYNC_EVERY, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param path               file for the log
+     * @param syncEvery          maximum number of records to write before forcing them to disk
+     * @param syncIntervalMillis maximum number of milliseconds to wait before forcing
+     *                           records to disk
+     * @throws IOException if the log can't be read or opened for writing
+     */
+    public CheckpointLog(Path path, int syncEvery, long syncIntervalMillis) throws IOException {
+        if (syncEvery < 1) {
+            throw new IllegalArgumentException("syncEvery must be > 0");
+        }
+        this.path = path;
+        this.syncEvery = syncEvery;
+        this.syncIntervalMillis = syncIntervalMillis;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long complete = channel.size() - (channel.size() % RECORD_LENGTH);
+        if (complete > Integer.MAX_VALUE * (long) RECORD_LENGTH) {
+            channel.close();
+            throw new IOException("Checkpoint log is too large: " + path);
+        }
+        this.loaded = (int) (complete / RECORD_LENGTH);
+        this.completed = new LongHashSet(Math.max(1024, loaded * 2));
+        load(complete);
+        //drop any torn record from a crash and append from there
+        channel.truncate(complete);
+        channel.position(complete);
+        this.buffer = ByteBuffer.allocate(RECORD_LENGTH * 512).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void load(long length) throws IOException {
+        ByteBuffer readBuffer = ByteBuffer.allocate(RECORD_LENGTH * 8192)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long pos = 0;
+        while (pos < length) {
+            readBuffer.clear();
+            if (length - pos < readBuffer.capacity()) {
+                readBuffer.limit((int) (length - pos));
+            }
+            while (readBuffer.hasRemaining()) {
+                int read = channel.read(readBuffer, pos + readBuffer.position());
+                if (read < 0) {
+                    throw new IOException("Unexpected end of checkpoint log: " + path);
+                }
+            }
+            readBuffer.flip();
+            while (readBuffer.remaining() >= RECORD_LENGTH) {
+                completed.add(readBuffer.getLong());
+            }
+            pos += readBuffer.limit();
+        }
+    }
+
+    /**
+     * @param id id of a work item
+     * @return whether this id has been marked as completed in this or an earlier run
+     */
+    public synchronized boolean isCompleted(String id) {
+        return completed.contains(hash(id));
+    }
+
+    /**
+     * Records that an item has been completed.  This is a no-op if the item
+     * was already recorded.
+     *
+     * @param id id of a work item
+     * @throws IOException if the record couldn't be written
+     */
+    public synchronized void markCompleted(String id) throws IOException {
+        if (closed) {
+            throw new IOException("Checkpoint log has already been closed: " + path);
+        }
+        long h = hash(id);
+        if (!completed.add(h)) {
+            return;
+        }
+        if (!buffer.hasRemaining()) {
+            flushBuffer();
+        }
+        buffer.putLong(h);
+        unsynced++;
+        if (unsynced >= syncEvery ||
+                (syncIntervalMillis > -1 &&
+                        System.currentTimeMillis() - lastSync > syncIntervalMillis)) {
+            sync();
+        }
+    }
+
+    /**
+     * Writes buffered records and forces them to disk.
+     *
+     * @throws IOException
+     */
+    public synchronized void sync() throws IOException {
+        if (closed) {
+            return;
+        }
+        flushBuffer();
+        channel.force(false);
+        unsynced = 0;
+        lastSync = System.currentTimeMillis();
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return number of ids that were loaded from an earlier run
+     */
+    public int getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return number of ids that are recorded as completed
+     */
+    public synchronized int size() {
+        return completed.size();
+    }
+
+    public int getSyncEvery() {
+        return syncEvery;
+    }
+
+    public long getSyncIntervalMillis() {
+        return syncIntervalMillis;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            sync();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes of the id followed by
+     * the murmur3 finalizer to spread the bits.
+     */
+    static long hash(String id) {
+        byte[] bytes = id.getBytes(UTF_8);
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Minimal open-addressing set of longs with linear probing.
+     * Zero is used as the empty marker and is tracked separately.
+     */
+    private static class LongHashSet {
+        private long[] table;
+        private int size = 0;
+        private boolean hasZero = false;
+
+        LongHashSet(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected) - 1) << 1;
+            table = new long[capacity];
+        }
+
+        boolean contains(long v) {
+            if (v == 0) {
+                return hasZero;
+            }
+            int mask = table.length - 1;
+            int i = (int) v & mask;
+            while (table[i] != 0) {
+                if (table[i] == v) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        boolean add(long v) {
+            if (v == 0) {
+                if (hasZero) {
+                    return false;
+                }
+                hasZero = true;
+                size++;
+                return true;
+            }
+            if ((size + 1) * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+            int mask = table.length - 1;
+            int i = (int) v & mask;
+            while (table[i] != 0) {
+                if (table[i] == v) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = v;
+            size++;
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void rehash(int capacity) {
+            long[] old = table;
+            table = new long[capacity];
+            int mask = capacity - 1;
+            for (long v : old) {
+                if (v != 0) {
+                    int i = (int) v & mask;
+                    while (table[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = v;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.io;
+
+import java.io.Serializable;
+
+/**
+ * Decides how {@link TikaInputStream#getSeekableByteChannel()} provides
+ * random access to a stream that isn't backed by a file.  Streams of at most
+ * {@link #getMemoryThreshold()} bytes are held in pooled direct buffers, so
+ * that small embedded documents don't go through the file system; larger
+ * ones are spooled to a temporary file as by {@link TikaInputStream#getPath()}.
+ * Files, including the temporary ones, are memory mapped if
+ * {@link #isMapFiles()} is set.
+ * <p>
+ * Set one in the {@link org.apache.tika.parser.ParseContext} to configure the
+ * streams that the {@link org.apache.tika.parser.CompositeParser} parses, or
+ * call {@link TikaInputStream#setSpoolingStrategy(SpoolingStrategy)};
+ * other streams use the defaults.
+ *
+ * @since Apache Tika 2.0
+ */
+public class SpoolingStrategy implements Serializable {
+
+    private static final long serialVersionUID = -7003839128740328816L;
+
+    public static final long DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    private long memoryThreshold = DEFAULT_MEMORY_THRESHOLD;
+
+    private boolean mapFiles = false;
+
+    private transient ByteBufferPool bufferPool;
+
+    public long getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    /**
+     * @param memoryThreshold streams up to this length are held in memory,
+     *                        or 0 to always use temporary files
+     */
+    public void setMemoryThreshold(long memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    public boolean isMapFiles() {
+        return mapFiles;
+    }
+
+    /**
+     * Memory mapping is off by default: mapped files can't be deleted
+     * on Windows until the mapping has been garbage collected, which
+     * would leave temporary files behind.
+     *
+     * @param mapFiles whether channels on files should be memory mapped
+     */
+    public void setMapFiles(boolean mapFiles) {
+        this.mapFiles = mapFiles;
+    }
+
+    /**
+     * @return the pool that memory is taken from, the shared default if none was set
+     */
+    public ByteBufferPool getBufferPool() {
+        return bufferPool == null ? ByteBufferPool.getDefault() : bufferPool;
+    }
+
+    /**
+     * The pool isn't serialized; a forked process uses its own default pool.
+     */
+    public void setBufferPool(ByteBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+}
@@ -86,7 +86,7 @@ public class TemporaryResources implements Closeable {
         addResource(new Closeable() {
             public void close() throws IOException {
                 try {
-                    Files.delete(path);
+                    Files.deleteIfExists(path);
                 } catch (IOException e) {
                     // delete when exit if current delete fail
                     LOG.warn("delete tmp file fail, will delete it on exit");
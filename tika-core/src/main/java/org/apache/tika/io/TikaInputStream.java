@@ -16,8 +16,6 @@
  */
 package org.apache.tika.io;
 
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
-
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
@@ -26,20 +24,30 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Blob;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.commons.io.input.TaggedInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ParseDeadline;
+import org.apache.tika.parser.ParseInstrumentation;
+import org.apache.tika.parser.ResourceBudget;
 import org.apache.tika.parser.Parser;
 
 /**
@@ -522,6 +530,50 @@ public class TikaInputStream extends TaggedInputStream {
     private int consecutiveEOFs = 0;
 
     private byte[] skipBuffer;
+
+    /**
+     * Number of bytes read between two checks of the deadline's clock.
+     * Cancellation is checked on every read.
+     */
+    private static final int DEADLINE_CHECK_BYTES = 64 * 1024;
+
+    /**
+     * Deadline of the parse that reads this stream, if any.
+     */
+    private ParseDeadline deadline = null;
+
+    private long bytesUntilDeadlineCheck = 0;
+
+    /**
+     * Resource budget of the parse that reads this stream, if any.
+     */
+    private ResourceBudget budget = null;
+
+    /**
+     * Instrumentation of the parse that reads this stream, if any,
+     * and the metadata of the document to record spooling against.
+     */
+    private ParseInstrumentation instrumentation = null;
+    private Metadata instrumentationMetadata = null;
+
+    private static final SpoolingStrategy DEFAULT_SPOOLING_STRATEGY = new SpoolingStrategy();
+
+    /**
+     * How {@link #getSeekableByteChannel()} spools the stream, if not the default.
+     */
+    private SpoolingStrategy spoolingStrategy = null;
+
+    /**
+     * The contents of this stream, if {@link #getSeekableByteChannel()}
+     * has spooled them to memory, or <code>null</code>.
+     */
+    private ByteBuffer[] memoryBuffers;
+
+    /**
+     * The memory mapped contents of {@link #path}, or <code>null</code>.
+     */
+    private ByteBuffer[] mappedBuffers;
+
     /**
      * Creates a TikaInputStream instance. This private constructor is used
      * by the static factory methods based on the available information.
@@ -674,11 +726,12 @@ public class TikaInputStream extends TaggedInputStream {
         if (path == null) {
             if (position > 0) {
                 throw new IOException("Stream is already being read");
-            } else {
+            }
+            try (ParseInstrumentation.Span span = startSpool()) {
                 Path tmpFile = tmp.createTempFile();
                 if (maxBytes > -1) {
                     try (InputStream lookAhead = new LookaheadInputStream(this, maxBytes)) {
-                        Files.copy(lookAhead, tmpFile, REPLACE_EXISTING);
+                        spool(lookAhead, tmpFile);
                         if (Files.size(tmpFile) >= maxBytes) {
                             //tmpFile will be cleaned up when this TikaInputStream is closed
                             return null;
@@ -686,36 +739,177 @@ public class TikaInputStream extends TaggedInputStream {
                     }
                 } else {
                     // Spool the entire stream into a temporary file
-                    Files.copy(this, tmpFile, REPLACE_EXISTING);
+                    spool(this, tmpFile);
                 }
-                //successful so far, set tis' path to tmpFile
-                path = tmpFile;
-
-                // Create a new input stream and make sure it'll get closed
-                InputStream newStream = Files.newInputStream(path);
-                tmp.addResource(newStream);
-
-                // Replace the spooled stream with the new stream in a way
-                // that still ends up closing the old stream if or when the
-                // close() method is called. The closing of the new stream
-                // is already being handled as noted above.
-                final InputStream oldStream = in;
-                in = new BufferedInputStream(newStream) {
-                    @Override
-                    public void close() throws IOException {
-                        oldStream.close();
-                    }
-                };
-
-                // Update length to file size. Update position, mark
-                length = Files.size(path);
-                position = 0;
-                mark = -1;
+                setSpooledPath(tmpFile);
             }
         }
         return path;
     }
 
+    /**
+     * Copies the given stream into the temporary file, charging every buffer
+     * to the resource budget (if any) as it is written so that a hard limit
+     * stops the copy before the whole stream ends up on disk.  The partially
+     * written file is deleted if the copy fails.
+     */
+    private void spool(InputStream stream, Path tmpFile) throws IOException {
+        try (OutputStream out = Files.newOutputStream(tmpFile)) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = stream.read(buffer)) != -1) {
+                if (budget != null) {
+                    budget.addTempFileBytesIO(n);
+                }
+                out.write(buffer, 0, n);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Switches this stream over to reading the temporary file that
+     * its contents have been spooled to.
+     */
+    private void setSpooledPath(Path tmpFile) throws IOException {
+        //successful so far, set tis' path to tmpFile
+        path = tmpFile;
+
+        // Create a new input stream and make sure it'll get closed
+        InputStream newStream = Files.newInputStream(path);
+        tmp.addResource(newStream);
+
+        // Replace the spooled stream with the new stream in a way
+        // that still ends up closing the old stream if or when the
+        // close() method is called. The closing of the new stream
+        // is already being handled as noted above.
+        replaceStream(newStream);
+
+        // Update length to file size. Update position, mark
+        length = Files.size(path);
+    }
+
+    private void replaceStream(InputStream newStream) {
+        final InputStream oldStream = in;
+        in = new BufferedInputStream(newStream) {
+            @Override
+            public void close() throws IOException {
+                oldStream.close();
+            }
+        };
+        position = 0;
+        mark = -1;
+    }
+
+    /**
+     * Returns a read-only channel for random access to the contents of
+     * this stream, which must not have been read yet.  How that happens
+     * depends on the {@link SpoolingStrategy}:
+     * <ul>
+     *     <li>a stream that isn't backed by a file and is at most
+     *     {@link SpoolingStrategy#getMemoryThreshold()} bytes long is read
+     *     into pooled direct buffers, without touching the file system</li>
+     *     <li>other streams are spooled to a temporary file as by {@link #getPath()}</li>
+     *     <li>files are memory mapped if {@link SpoolingStrategy#isMapFiles()} is set,
+     *     and opened as a {@link FileChannel} otherwise</li>
+     * </ul>
+     * This stream can still be read from the start after this, and every call returns
+     * a new, independent channel.  The channels must not be used after this stream
+     * has been closed.
+     *
+     * @return channel positioned at the start of the contents
+     * @throws IOException if the stream could not be read
+     * @since Apache Tika 2.0
+     */
+    public SeekableByteChannel getSeekableByteChannel() throws IOException {
+        SpoolingStrategy strategy = spoolingStrategy == null ?
+                DEFAULT_SPOOLING_STRATEGY : spoolingStrategy;
+        if (path == null && memoryBuffers == null) {
+            if (position > 0) {
+                throw new IOException("Stream is already being read");
+            }
+            long threshold = strategy.getMemoryThreshold();
+            if (threshold > 0 && (length == -1 || length <= threshold)) {
+                try (ParseInstrumentation.Span span = startSpool()) {
+                    spoolToMemory(strategy);
+                }
+            }
+        }
+        if (memoryBuffers != null) {
+            return new ByteBufferChannel(memoryBuffers);
+        }
+        Path p = getPath();
+        if (strategy.isMapFiles()) {
+            if (mappedBuffers == null) {
+                mappedBuffers = ByteBufferChannel.map(p);
+            }
+            return new ByteBufferChannel(mappedBuffers);
+        }
+        return getFileChannel();
+    }
+
+    /**
+     * Reads the stream into buffers from the strategy's pool.  If it turns
+     * out to be longer than the memory threshold, what has been read and the
+     * rest of the stream are spooled to a temporary file instead.
+     */
+    private void spoolToMemory(SpoolingStrategy strategy) throws IOException {
+        ByteBufferPool pool = strategy.getBufferPool();
+        long threshold = strategy.getMemoryThreshold();
+        List<ByteBuffer> buffers = new ArrayList<>();
+        long total = 0;
+        try {
+            byte[] chunk = new byte[8192];
+            ByteBuffer current = null;
+            while (total <= threshold) {
+                int n = read(chunk);
+                if (n == -1) {
+                    break;
+                }
+                total += n;
+                for (int off = 0; off < n; ) {
+                    if (current == null || !current.hasRemaining()) {
+                        current = pool.acquire();
+                        buffers.add(current);
+                    }
+                    int len = Math.min(current.remaining(), n - off);
+                    current.put(chunk, off, len);
+                    off += len;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            release(pool, buffers);
+            throw e;
+        }
+        ByteBuffer[] contents = new ByteBuffer[buffers.size()];
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = (ByteBuffer) buffers.get(i).flip();
+        }
+        if (total > threshold) {
+            Path tmpFile = tmp.createTempFile();
+            try (InputStream head = new ByteBufferChannel(contents).newInputStream()) {
+                spool(new SequenceInputStream(head, new CloseShieldInputStream(this)), tmpFile);
+            } finally {
+                release(pool, buffers);
+            }
+            setSpooledPath(tmpFile);
+            return;
+        }
+        memoryBuffers = contents;
+        tmp.addResource(() -> release(pool, buffers));
+        replaceStream(new ByteBufferChannel(contents).newInputStream());
+        length = total;
+    }
+
+    private static void release(ByteBufferPool pool, List<ByteBuffer> buffers) {
+        for (ByteBuffer buffer : buffers) {
+            pool.release(buffer);
+        }
+        buffers.clear();
+    }
+
     /**
      * @see #getPath()
      */
@@ -804,6 +998,8 @@ public class TikaInputStream extends TaggedInputStream {
     public void close() throws IOException {
         path = null;
         mark = -1;
+        memoryBuffers = null;
+        mappedBuffers = null;
 
         // The close method was explicitly called, so we indeed
         // are expected to close the input stream. Handle that
@@ -814,6 +1010,94 @@ public class TikaInputStream extends TaggedInputStream {
         tmp.close();
     }
 
+    /**
+     * Sets the deadline of the parse that reads this stream.  Once it has
+     * expired, reads fail with an IOException caused by a
+     * {@link org.apache.tika.exception.ParseCancelledException}.
+     *
+     * @param deadline deadline, or <code>null</code> for none
+     * @since Apache Tika 2.0
+     */
+    public void setParseDeadline(ParseDeadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return the deadline of the parse that reads this stream, or <code>null</code>
+     * @since Apache Tika 2.0
+     */
+    public ParseDeadline getParseDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Sets the resource budget of the parse that reads this stream.  The
+     * bytes spooled to a temporary file by {@link #getPath()} are counted
+     * against it, and if that exceeds its hard limit, {@link #getPath()} fails with an
+     * IOException caused by a {@link org.apache.tika.exception.ResourceLimitExceededException}.
+     *
+     * @param budget budget, or <code>null</code> for none
+     * @since Apache Tika 2.0
+     */
+    public void setResourceBudget(ResourceBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @return the resource budget of the parse that reads this stream, or <code>null</code>
+     * @since Apache Tika 2.0
+     */
+    public ResourceBudget getResourceBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the instrumentation of the parse that reads this stream.  The time
+     * taken to spool it is recorded as {@link ParseInstrumentation#SPOOL}.
+     *
+     * @param instrumentation instrumentation, or <code>null</code> for none
+     * @param metadata        metadata of the document the stream holds
+     * @since Apache Tika 2.0
+     */
+    public void setParseInstrumentation(ParseInstrumentation instrumentation, Metadata metadata) {
+        this.instrumentation = instrumentation;
+        this.instrumentationMetadata = metadata;
+    }
+
+    private ParseInstrumentation.Span startSpool() {
+        return instrumentation == null ? ParseInstrumentation.Span.NOOP :
+                instrumentation.start(ParseInstrumentation.SPOOL, instrumentationMetadata);
+    }
+
+    /**
+     * Sets how {@link #getSeekableByteChannel()} spools this stream.
+     *
+     * @param spoolingStrategy strategy, or <code>null</code> for the defaults
+     * @since Apache Tika 2.0
+     */
+    public void setSpoolingStrategy(SpoolingStrategy spoolingStrategy) {
+        this.spoolingStrategy = spoolingStrategy;
+    }
+
+    /**
+     * @return how this stream is spooled, or <code>null</code> for the defaults
+     * @since Apache Tika 2.0
+     */
+    public SpoolingStrategy getSpoolingStrategy() {
+        return spoolingStrategy;
+    }
+
+    @Override
+    protected void beforeRead(int n) throws IOException {
+        if (deadline != null) {
+            if (deadline.isCancelled() || bytesUntilDeadlineCheck <= 0) {
+                deadline.checkIO();
+                bytesUntilDeadlineCheck = DEADLINE_CHECK_BYTES;
+            }
+            bytesUntilDeadlineCheck -= n;
+        }
+    }
+
     @Override
     protected void afterRead(int n) throws IOException {
         if (n != -1) {
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.language;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.tika.language.detect.LanguageConfidence;
+import org.apache.tika.language.detect.LanguageDetector;
+import org.apache.tika.language.detect.LanguageResult;
+
+/**
+ * LanguageDetector that compares the ngram profile of the text with the
+ * profiles in a shared, read-only {@link NgramProfileStore}.
+ * <p>
+ * This computes the same distance as {@link LanguageIdentifier}, but
+ * the profiles are not copied into each detector's heap, and the ngrams
+ * of the text are packed into keys directly from the char buffer
+ * in {@link #addText(char[], int, int)}.
+ * <p>
+ * This class is not thread safe, but any number of instances can share a store.
+ *
+ * @since Apache Tika 2.0
+ */
+public class NgramProfileLanguageDetector extends LanguageDetector {
+
+    private static final int MAX_NGRAMS_FOR_DETECTION = 20000;
+    private static final int MAX_NGRAMS_FOR_SHORT_DETECTION = 200;
+    private static final double CERTAINTY_LIMIT = 0.022;
+    private static final char SEPARATOR = '_';
+
+    private final NgramProfileStore store;
+    private final long keyMask;
+
+    private boolean[] enabled;
+
+    //per-document statistics
+    private final double[] dotProducts;
+    private final DocumentCounts counts = new DocumentCounts();
+    private long total = 0;
+    private long sumOfSquaredCounts = 0;
+    private long key;
+    private int n;
+
+    /**
+     * Uses {@link NgramProfileStore#getDefault()}.
+     */
+    public NgramProfileLanguageDetector() throws IOException {
+        this(NgramProfileStore.getDefault());
+    }
+
+    public NgramProfileLanguageDetector(NgramProfileStore store) {
+        this.store = store;
+        this.keyMask = (store.getNgramLength() == 4) ? -1L : (1L << (16 * store.getNgramLength())) - 1;
+        this.dotProducts = new double[store.getNumLanguages()];
+        this.enabled = new boolean[store.getNumLanguages()];
+        Arrays.fill(enabled, true);
+        reset();
+    }
+
+    @Override
+    public LanguageDetector loadModels() {
+        Arrays.fill(enabled, true);
+        return this;
+    }
+
+    @Override
+    public LanguageDetector loadModels(Set<String> languages) {
+        Set<String> normalized = new HashSet<>();
+        for (String language : languages) {
+            normalized.add(language.trim());
+        }
+        for (int i = 0; i < enabled.length; i++) {
+            enabled[i] = normalized.contains(store.getLanguage(i));
+        }
+        return this;
+    }
+
+    @Override
+    public boolean hasModel(String language) {
+        return store.getLanguageIndex(language) > -1;
+    }
+
+    /**
+     * Priors are only used to select which languages to consider.
+     */
+    @Override
+    public LanguageDetector setPriors(Map<String, Float> languageProbabilities) {
+        return loadModels(languageProbabilities.keySet());
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(dotProducts, 0.0);
+        counts.clear();
+        total = 0;
+        sumOfSquaredCounts = 0;
+        key = SEPARATOR;
+        n = 1;
+    }
+
+    @Override
+    public void addText(char[] cbuf, int off, int len) {
+        for (int i = 0; i < len; i++) {
+            char c = Character.toLowerCase(cbuf[off + i]);
+            if (Character.isLetter(c)) {
+                addChar(c);
+            } else {
+                addSeparator();
+            }
+        }
+    }
+
+    private void addSeparator() {
+        if (n == 1 && (key & 0xFFFF) == SEPARATOR) {
+            //collapse runs of separators
+            return;
+        }
+        addChar(SEPARATOR);
+        n = 1;
+    }
+
+    private void addChar(char c) {
+        key = ((key << 16) | c) & keyMask;
+        n++;
+        if (n >= store.getNgramLength()) {
+            addNgram(key);
+        }
+    }
+
+    private void addNgram(long ngram) {
+        int count = counts.increment(ngram);
+        //(c+1)^2 - c^2
+        sumOfSquaredCounts += 2L * (count - 1) + 1;
+        total++;
+        int slot = store.findSlot(ngram);
+        if (slot < 0) {
+            return;
+        }
+        int postings = store.getPostingsLength(slot);
+        for (int i = 0; i < postings; i++) {
+            int lang = store.getPostingLanguage(slot, i);
+            dotProducts[lang] += store.getPostingCount(slot, i);
+        }
+    }
+
+    @Override
+    public boolean hasEnoughText() {
+        int limit = shortText ? MAX_NGRAMS_FOR_SHORT_DETECTION : MAX_NGRAMS_FOR_DETECTION;
+        if (mixedLanguages) {
+            limit *= 2;
+        }
+        return total >= limit;
+    }
+
+    /**
+     * @param languageIndex index of the language in the store
+     * @return distance between the text and the language's profile,
+     * as calculated by {@link LanguageProfile#distance(LanguageProfile)}
+     */
+    double distance(int languageIndex) {
+        double thisCount = Math.max(total, 1.0);
+        double thatCount = Math.max(store.getTotalCount(languageIndex), 1.0);
+        double sumOfSquares = sumOfSquaredCounts / (thisCount * thisCount)
+                + store.getSumOfSquares(languageIndex)
+                - 2 * dotProducts[languageIndex] / (thisCount * thatCount);
+        return Math.sqrt(Math.max(0.0, sumOfSquares));
+    }
+
+    @Override
+    public List<LanguageResult> detectAll() {
+        List<LanguageResult> results = new ArrayList<>();
+        if (total == 0) {
+            results.add(LanguageResult.NULL);
+            return results;
+        }
+        List<double[]> distances = new ArrayList<>();
+        for (int i = 0; i < enabled.length; i++) {
+            if (enabled[i]) {
+                distances.add(new double[]{distance(i), i});
+            }
+        }
+        distances.sort((a, b) -> Double.compare(a[0], b[0]));
+        for (double[] d : distances) {
+            LanguageConfidence confidence = d[0] < CERTAINTY_LIMIT ?
+                    LanguageConfidence.HIGH : (d[0] < 2 * CERTAINTY_LIMIT ?
+                    LanguageConfidence.MEDIUM : LanguageConfidence.LOW);
+            results.add(new LanguageResult(store.getLanguage((int) d[1]), confidence,
+                    (float) Math.max(0.0, 1.0 - d[0])));
+        }
+        if (results.isEmpty()) {
+            results.add(LanguageResult.NULL);
+        }
+        return results;
+    }
+
+    /**
+     * Counts of the ngrams in the current document, keyed by packed ngram.
+     */
+    private static class DocumentCounts {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int size = 0;
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(keys, 0L);
+                Arrays.fill(values, 0);
+                size = 0;
+            }
+        }
+
+        int increment(long k) {
+            int mask = keys.length - 1;
+            int i = mix(k) & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == k) {
+                    return ++values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = k;
+            values[i] = 1;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+            return 1;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != 0) {
+                    int i = mix(oldKeys[j]) & mask;
+                    while (keys[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.language;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.io.MappedBufferCleaner;
+
+/**
+ * Read-only store of the ngram counts of many language profiles in a compact
+ * binary format that can be memory-mapped and shared by all detectors
+ * (and, through the page cache, all JVMs) that use the same file.
+ * <p>
+ * An ngram of up to four characters is packed into a long (16 bits
+ * per char), which serves as its exact key.  The keys are stored in an
+ * open-addressing hash table, and each slot points to the ngram's postings:
+ * the (language, count) pairs for every language whose profile
+ * contains the ngram.  Lookups work directly on the packed key, so a detector
+ * can compute the key from its char buffer without creating any Strings.
+ * <p>
+ * Layout (little endian):
+ * <pre>
+ *   int magic, int version, int ngramLength, int numLanguages,
+ *   int tableSize, int numPostings
+ *   per language: int codeLength, UTF-8 code bytes, long totalCount,
+ *                 double sum of squared relative frequencies
+ *   (padding to a multiple of 8)
+ *   table: tableSize x (long key, int postingsOffset, int postingsLength)
+ *   postings: numPostings x (int languageIndex, int count)
+ * </pre>
+ * Use {@link #convert(Map, int, Path)} or {@link #main(String[])} to build
+ * a store from the existing <code>.ngp</code> profiles.
+ *
+ * @since Apache Tika 2.0
+ */
+public class NgramProfileStore implements Closeable {
+
+    /**
+     * System property that points to a store file to map for {@link #getDefault()}.
+     */
+    public static final String DEFAULT_STORE_PROPERTY = "tika.language.profileStore";
+
+    static final int MAGIC = 0x504e4754; // "TGNP"
+    static final int VERSION = 1;
+
+    private static final int SLOT_BYTES = 16;
+    private static final int POSTING_BYTES = 8;
+    private static final String PROFILE_SUFFIX = ".ngp";
+    private static final String PROPERTIES_FILE = "tika.language.properties";
+
+    private static final Map<Path, NgramProfileStore> MAPPED = new ConcurrentHashMap<>();
+    private static volatile NgramProfileStore DEFAULT_STORE = null;
+
+    private final ByteBuffer buffer;
+    private final boolean mapped;
+    //number of open() calls that haven't been closed yet, guarded by MAPPED
+    private int references = 0;
+    private final int ngramLength;
+    private final String[] languages;
+    private final long[] totalCounts;
+    private final double[] sumOfSquares;
+    private final int tableSize;
+    private final int tableOffset;
+    private final int postingsOffset;
+
+    private NgramProfileStore(ByteBuffer buffer, boolean mapped) throws IOException {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.mapped = mapped;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an ngram profile store");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported ngram profile store version: " + buffer.getInt(4));
+        }
+        ngramLength = buffer.getInt(8);
+        int numLanguages = buffer.getInt(12);
+        tableSize = buffer.getInt(16);
+        int numPostings = buffer.getInt(20);
+        languages = new String[numLanguages];
+        totalCounts = new long[numLanguages];
+        sumOfSquares = new double[numLanguages];
+        int pos = 24;
+        for (int i = 0; i < numLanguages; i++) {
+            int len = buffer.getInt(pos);
+            pos += 4;
+            byte[] code = new byte[len];
+            for (int j = 0; j < len; j++) {
+                code[j] = buffer.get(pos + j);
+            }
+            languages[i] = new String(code, UTF_8);
+            pos += len;
+            totalCounts[i] = buffer.getLong(pos);
+            sumOfSquares[i] = buffer.getDouble(pos + 8);
+            pos += 16;
+        }
+        tableOffset = align(pos);
+        postingsOffset = tableOffset + tableSize * SLOT_BYTES;
+        if (postingsOffset + (long) numPostings * POSTING_BYTES > buffer.capacity()) {
+            throw new IOException("Truncated ngram profile store");
+        }
+    }
+
+    /**
+     * Memory-maps a store file.  Stores are cached by path, so all callers
+     * share one read-only mapping.  Each call must be matched by one call to
+     * {@link #close()}; the mapping is released when the last caller closes it.
+     *
+     * @param path store file
+     * @return the shared store
+     * @throws IOException
+     */
+    public static NgramProfileStore open(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        synchronized (MAPPED) {
+            NgramProfileStore store = MAPPED.get(key);
+            if (store == null) {
+                try (FileChannel channel = FileChannel.open(key, StandardOpenOption.READ)) {
+                    store = new NgramProfileStore(
+                            channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), true);
+                }
+                MAPPED.put(key, store);
+            }
+            store.references++;
+            return store;
+        }
+    }
+
+    /**
+     * Returns the store named by the {@value #DEFAULT_STORE_PROPERTY} system property, or,
+     * if that isn't set, a store built in memory from the <code>.ngp</code> profiles
+     * bundled with Tika.
+     *
+     * @return shared default store
+     * @throws IOException
+     */
+    public static NgramProfileStore getDefault() throws IOException {
+        NgramProfileStore store = DEFAULT_STORE;
+        if (store != null) {
+            return store;
+        }
+        synchronized (NgramProfileStore.class) {
+            if (DEFAULT_STORE == null) {
+                String path = System.getProperty(DEFAULT_STORE_PROPERTY);
+                if (path != null && path.trim().length() > 0) {
+                    DEFAULT_STORE = open(Paths.get(path.trim()));
+                } else {
+                    DEFAULT_STORE = new NgramProfileStore(
+                            build(readBundledProfiles(), LanguageProfile.DEFAULT_NGRAM_LENGTH),
+                            false);
+                }
+            }
+            return DEFAULT_STORE;
+        }
+    }
+
+    /**
+     * Loads a store into memory from a stream.
+     *
+     * @param stream stream with the store bytes
+     * @return store
+     * @throws IOException
+     */
+    public static NgramProfileStore load(InputStream stream) throws IOException {
+        return new NgramProfileStore(ByteBuffer.wrap(IOUtils.toByteArray(stream)), false);
+    }
+
+    /**
+     * Converts ngram profiles into a store file.
+     *
+     * @param profiles    map of language code to the language's ngram counts
+     * @param ngramLength length of the ngrams (at most 4)
+     * @param out         file to write
+     * @throws IOException
+     */
+    public static void convert(Map<String, Map<String, Long>> profiles, int ngramLength,
+                               Path out) throws IOException {
+        ByteBuffer buffer = build(profiles, ngramLength);
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads a profile in the <code>.ngp</code> format ("ngram count" per line,
+     * lines starting with # are comments).
+     *
+     * @param reader reader
+     * @return ngram counts
+     * @throws IOException
+     */
+    public static Map<String, Long> readNgp(Reader reader) throws IOException {
+        Map<String, Long> ngrams = new LinkedHashMap<>();
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line = bufferedReader.readLine();
+        while (line != null) {
+            if (line.length() > 0 && !line.startsWith("#")) {
+                int space = line.indexOf(' ');
+                String ngram = line.substring(0, space);
+                long count = Long.parseLong(line.substring(space + 1));
+                ngrams.merge(ngram, count, Long::sum);
+            }
+            line = bufferedReader.readLine();
+        }
+        return ngrams;
+    }
+
+    /**
+     * Converts the <code>.ngp</code> profiles bundled with Tika, or the ones listed on
+     * the commandline, into a store file.
+     * <p>
+     * Usage: <code>NgramProfileStore &lt;outputFile&gt; [lang=profile.ngp ...]</code>
+     *
+     * @param args arguments
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: NgramProfileStore <outputFile> [lang=profile.ngp ...]");
+            return;
+        }
+        Map<String, Map<String, Long>> profiles;
+        if (args.length == 1) {
+            profiles = readBundledProfiles();
+        } else {
+            profiles = new TreeMap<>();
+            for (int i = 1; i < args.length; i++) {
+                int eq = args[i].indexOf('=');
+                if (eq < 1) {
+                    throw new IllegalArgumentException("Expected lang=profile.ngp, but got: " + args[i]);
+                }
+                try (Reader reader = Files.newBufferedReader(Paths.get(args[i].substring(eq + 1)),
+                        UTF_8)) {
+                    profiles.put(args[i].substring(0, eq), readNgp(reader));
+                }
+            }
+        }
+        convert(profiles, LanguageProfile.DEFAULT_NGRAM_LENGTH, Paths.get(args[0]));
+    }
+
+    /**
+     * Packs the characters of an ngram into a key.
+     *
+     * @param ngram ngram of at most four characters
+     * @return key
+     */
+    public static long pack(CharSequence ngram) {
+        long key = 0;
+        for (int i = 0; i < ngram.length(); i++) {
+            key = (key << 16) | ngram.charAt(i);
+        }
+        return key;
+    }
+
+    public int getNgramLength() {
+        return ngramLength;
+    }
+
+    public int getNumLanguages() {
+        return languages.length;
+    }
+
+    public String getLanguage(int index) {
+        return languages[index];
+    }
+
+    /**
+     * @param language language code
+     * @return index of the language or -1 if the store has no profile for it
+     */
+    public int getLanguageIndex(String language) {
+        for (int i = 0; i < languages.length; i++) {
+            if (languages[i].equals(language)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public List<String> getLanguages() {
+        List<String> list = new ArrayList<>(languages.length);
+        Collections.addAll(list, languages);
+        return list;
+    }
+
+    /**
+     * @param languageIndex index of the language
+     * @return sum of all ngram counts in the language's profile
+     */
+    public long getTotalCount(int languageIndex) {
+        return totalCounts[languageIndex];
+    }
+
+    /**
+     * @param languageIndex index of the language
+     * @return sum of the squared relative frequencies of the language's ngrams
+     */
+    public double getSumOfSquares(int languageIndex) {
+        return sumOfSquares[languageIndex];
+    }
+
+    /**
+     * @param key packed ngram (see {@link #pack(CharSequence)})
+     * @return slot of the ngram in the table or -1 if no profile contains it
+     */
+    public int findSlot(long key) {
+        int mask = tableSize - 1;
+        int i = mix(key) & mask;
+        while (true) {
+            int slot = tableOffset + i * SLOT_BYTES;
+            long k = buffer.getLong(slot);
+            if (k == key) {
+                return i;
+            }
+            if (k == 0) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * @param slot slot returned by {@link #findSlot(long)}
+     * @return number of languages whose profiles contain the ngram
+     */
+    public int getPostingsLength(int slot) {
+        return buffer.getInt(tableOffset + slot * SLOT_BYTES + 12);
+    }
+
+    /**
+     * @param slot    slot returned by {@link #findSlot(long)}
+     * @param posting index of the posting (&lt; {@link #getPostingsLength(int)})
+     * @return index of the language of the posting
+     */
+    public int getPostingLanguage(int slot, int posting) {
+        return buffer.getInt(postingPosition(slot, posting));
+    }
+
+    /**
+     * @param slot    slot returned by {@link #findSlot(long)}
+     * @param posting index of the posting (&lt; {@link #getPostingsLength(int)})
+     * @return count of the ngram in the posting's language
+     */
+    public int getPostingCount(int slot, int posting) {
+        return buffer.getInt(postingPosition(slot, posting) + 4);
+    }
+
+    /**
+     * @param language language code
+     * @param ngram    ngram
+     * @return count of the ngram in the language's profile
+     */
+    public long getCount(String language, String ngram) {
+        int lang = getLanguageIndex(language);
+        int slot = findSlot(pack(ngram));
+        if (lang < 0 || slot < 0) {
+            return 0;
+        }
+        for (int i = 0; i < getPostingsLength(slot); i++) {
+            if (getPostingLanguage(slot, i) == lang) {
+                return getPostingCount(slot, i);
+            }
+        }
+        return 0;
+    }
+
+    private int postingPosition(int slot, int posting) {
+        int offset = buffer.getInt(tableOffset + slot * SLOT_BYTES + 8);
+        return postingsOffset + (offset + posting) * POSTING_BYTES;
+    }
+
+    /**
+     * Releases one {@link #open(Path)} of a memory-mapped store, and unmaps
+     * it once all of them have been released.  The default store is never
+     * unmapped, and stores that were loaded into memory are left to the GC.
+     * The caller must not use the store after this is called.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (!mapped) {
+            return;
+        }
+        synchronized (MAPPED) {
+            if (this == DEFAULT_STORE || references == 0) {
+                return;
+            }
+            if (--references > 0) {
+                return;
+            }
+            MAPPED.values().remove(this);
+        }
+        if (MappedBufferCleaner.UNMAP_SUPPORTED) {
+            MappedBufferCleaner.freeBuffer(buffer);
+        }
+    }
+
+    private static Map<String, Map<String, Long>> readBundledProfiles() throws IOException {
+        Properties props = new Properties();
+        try (InputStream stream = NgramProfileStore.class.getResourceAsStream(PROPERTIES_FILE)) {
+            if (stream == null) {
+                throw new IOException("Couldn't find " + PROPERTIES_FILE);
+            }
+            props.load(stream);
+        }
+        Map<String, Map<String, Long>> profiles = new TreeMap<>();
+        for (String language : props.getProperty("languages").split(",")) {
+            language = language.trim();
+            try (InputStream stream =
+                         NgramProfileStore.class.getResourceAsStream(language + PROFILE_SUFFIX)) {
+                if (stream == null) {
+                    throw new IOException("Couldn't find profile for " + language);
+                }
+                profiles.put(language, readNgp(new InputStreamReader(stream, UTF_8)));
+            }
+        }
+        return profiles;
+    }
+
+    private static ByteBuffer build(Map<String, Map<String, Long>> profiles, int ngramLength)
+            throws IOException {
+        if (ngramLength < 1 || ngramLength > 4) {
+            throw new IllegalArgumentException("ngramLength must be between 1 and 4");
+        }
+        List<String> languages = new ArrayList<>(profiles.keySet());
+        //key -> postings (language index, count), in language order
+        TreeMap<Long, List<long[]>> postings = new TreeMap<>();
+        long[] totals = new long[languages.size()];
+        double[] sumsOfSquares = new double[languages.size()];
+        for (int lang = 0; lang < languages.size(); lang++) {
+            Map<String, Long> ngrams = profiles.get(languages.get(lang));
+            for (Map.Entry<String, Long> e : ngrams.entrySet()) {
+                if (e.getKey().length() != ngramLength) {
+                    throw new IllegalArgumentException("Unable to add an ngram of incorrect length: " +
+                            e.getKey().length() + " != " + ngramLength);
+                }
+                if (e.getValue() > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("count too large for " + e.getKey());
+                }
+                totals[lang] += e.getValue();
+                postings.computeIfAbsent(pack(e.getKey()), k -> new ArrayList<>())
+                        .add(new long[]{lang, e.getValue()});
+            }
+            double total = Math.max(totals[lang], 1.0);
+            for (long count : ngrams.values()) {
+                double f = count / total;
+                sumsOfSquares[lang] += f * f;
+            }
+        }
+        int tableSize = Integer.highestOneBit(Math.max(16, postings.size() * 2) - 1) << 1;
+        int numPostings = 0;
+        for (List<long[]> p : postings.values()) {
+            numPostings += p.size();
+        }
+        int headerLength = 24;
+        List<byte[]> codes = new ArrayList<>();
+        for (String language : languages) {
+            byte[] code = language.getBytes(UTF_8);
+            codes.add(code);
+            headerLength += 4 + code.length + 16;
+        }
+        int tableOffset = align(headerLength);
+        long length = tableOffset + (long) tableSize * SLOT_BYTES + (long) numPostings * POSTING_BYTES;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Too many ngrams for a profile store");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(ngramLength).putInt(languages.size())
+                .putInt(tableSize).putInt(numPostings);
+        for (int i = 0; i < languages.size(); i++) {
+            buffer.putInt(codes.get(i).length);
+            buffer.put(codes.get(i));
+            buffer.putLong(totals[i]);
+            buffer.putDouble(sumsOfSquares[i]);
+        }
+        int postingsOffset = tableOffset + tableSize * SLOT_BYTES;
+        int mask = tableSize - 1;
+        int offset = 0;
+        for (Map.Entry<Long, List<long[]>> e : postings.entrySet()) {
+            long key = e.getKey();
+            int i = mix(key) & mask;
+            while (buffer.getLong(tableOffset + i * SLOT_BYTES) != 0) {
+                i = (i + 1) & mask;
+            }
+            int slot = tableOffset + i * SLOT_BYTES;
+            buffer.putLong(slot, key);
+            buffer.putInt(slot + 8, offset);
+            buffer.putInt(slot + 12, e.getValue().size());
+            for (long[] posting : e.getValue()) {
+                int p = postingsOffset + offset * POSTING_BYTES;
+                buffer.putInt(p, (int) posting[0]);
+                buffer.putInt(p + 4, (int) posting[1]);
+                offset++;
+            }
+        }
+        buffer.position(0);
+        buffer.limit((int) length);
+        return buffer;
+    }
+
+    private static int align(int pos) {
+        return (pos + 7) & ~7;
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -56,6 +56,16 @@ public abstract class LanguageDetector {
 	// True if the text is expected to be 'short' (typically less than 100 chars), and
 	// thus a different algorithm and/or set of profiles should be used.
 	protected boolean shortText = false;
+
+	// Minimum difference between the raw scores of the best and second best
+	// languages for the adaptive mode to stop sampling text. Zero disables
+	// the adaptive mode.
+	protected float confidenceMargin = 0.0f;
+
+	// Number of characters in each span of text sampled in adaptive mode.
+	protected int sampleSpanLength = DEFAULT_SAMPLE_SPAN_LENGTH;
+
+	public static final int DEFAULT_SAMPLE_SPAN_LENGTH = 1000;
 	
 	public static LanguageDetector getDefaultLanguageDetector() {
 		List<LanguageDetector> detectors = getLanguageDetectors();
@@ -94,6 +104,41 @@ public abstract class LanguageDetector {
 		return this;
 	}
 	
+	public float getConfidenceMargin() {
+		return confidenceMargin;
+	}
+
+	/**
+	 * Enables the adaptive mode, in which a {@link LanguageWriter} (and thus a
+	 * {@link LanguageHandler}) only feeds spans of {@link #getSampleSpanLength()} characters,
+	 * sampled from the start, across the middle and from the end of the document, and
+	 * stops feeding text once {@link #isConfident()}.
+	 *
+	 * @param confidenceMargin minimum difference between the raw scores of the best
+	 *                         and the second best language, or 0 to disable the adaptive mode
+	 * @return this
+	 */
+	public LanguageDetector setConfidenceMargin(float confidenceMargin) {
+		this.confidenceMargin = confidenceMargin;
+		return this;
+	}
+
+	public boolean isAdaptive() {
+		return confidenceMargin > 0.0f;
+	}
+
+	public int getSampleSpanLength() {
+		return sampleSpanLength;
+	}
+
+	public LanguageDetector setSampleSpanLength(int sampleSpanLength) {
+		if (sampleSpanLength < 1) {
+			throw new IllegalArgumentException("sampleSpanLength must be > 0");
+		}
+		this.sampleSpanLength = sampleSpanLength;
+		return this;
+	}
+
 	/**
 	 * Load (or re-load) all available language models. This must
 	 * be called after any settings that would impact the models
@@ -187,6 +232,32 @@ public abstract class LanguageDetector {
 		return false;
 	}
 	
+	/**
+	 * Tell the caller whether the language of the current document has been
+	 * decided with the {@link #getConfidenceMargin()} so that no more text needs to
+	 * be added.  This is checked by the adaptive mode after each sampled span.
+	 * <p>
+	 * The default implementation returns true if {@link #hasEnoughText()}, or if the
+	 * raw score of the best language exceeds the second best by at least the margin.
+	 * Implementations can override this if they have a cheaper way to decide.
+	 *
+	 * @return true if the best language is known with the requested margin
+	 */
+	public boolean isConfident() {
+		if (hasEnoughText()) {
+			return true;
+		}
+		if (! isAdaptive()) {
+			return false;
+		}
+		List<LanguageResult> results = detectAll();
+		if (results.isEmpty() || results.get(0).isUnknown()) {
+			return false;
+		}
+		float second = results.size() > 1 ? results.get(1).getRawScore() : 0.0f;
+		return results.get(0).getRawScore() - second >= confidenceMargin;
+	}
+
 	/**
 	 * Detect languages based on previously submitted text (via addText calls).
 	 * 
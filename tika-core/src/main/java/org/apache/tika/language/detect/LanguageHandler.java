@@ -19,10 +19,16 @@ package org.apache.tika.language.detect;
 import java.io.IOException;
 
 import org.apache.tika.sax.WriteOutContentHandler;
+import org.xml.sax.SAXException;
 
 /**
  * SAX content handler that updates a language detector based on all the
  * received character content.
+ * <p>
+ * If the detector is in adaptive mode (see
+ * {@link LanguageDetector#setConfidenceMargin(float)}), only sampled spans
+ * of the content are passed to the detector, and character events are
+ * dropped as soon as the language has been decided.
  *
  * @since Apache Tika 0.10
  */
@@ -55,6 +61,30 @@ public class LanguageHandler extends WriteOutContentHandler {
         return writer.getDetector();
     }
 
+    /**
+     * @return true if the detector is in adaptive mode and has decided the
+     * language, so that any further content is ignored
+     */
+    public boolean isDecided() {
+        return writer.isDecided();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (writer.isDecided()) {
+            return;
+        }
+        super.characters(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        if (writer.isDecided()) {
+            return;
+        }
+        super.ignorableWhitespace(ch, start, length);
+    }
+
     /**
      * Returns the detected language based on text handled thus far.
      * 
@@ -21,6 +21,15 @@ import java.io.Writer;
 
 /**
  * Writer that builds a language profile based on all the written content.
+ * <p>
+ * If the detector is in adaptive mode (see
+ * {@link LanguageDetector#setConfidenceMargin(float)}), only spans of the
+ * written content are passed to the detector: the first span, then spans with
+ * doubling gaps between them so that the middle of long documents is sampled
+ * with a number of spans that grows only logarithmically with its length,
+ * and finally the last span that was written when the language is requested.
+ * Once the detector {@link LanguageDetector#isConfident() is confident}, the
+ * rest of the content is ignored.
  *
  * @since Apache Tika 0.10
  */
@@ -28,9 +37,20 @@ public class LanguageWriter extends Writer {
 
     private final LanguageDetector detector;
 
+    //state of the adaptive mode
+    private long written = 0;
+    private long nextSpanStart = 0;
+    private long gap = 0;
+    private int spanRemaining = 0;
+    private boolean decided = false;
+    //last characters that were skipped, fed as the "end" sample
+    private char[] tail = null;
+    private int tailPos = 0;
+    private int tailLength = 0;
+
     public LanguageWriter(LanguageDetector detector) {
         this.detector = detector;
-        detector.reset();
+        reset();
     }
 
     /**
@@ -50,12 +70,96 @@ public class LanguageWriter extends Writer {
      * @return LanguageResult
      */
     public LanguageResult getLanguage() {
+        if (detector.isAdaptive() && ! decided) {
+            addTail();
+        }
     	return detector.detect();
     }
-    
+
+    /**
+     * @return true if the detector is in adaptive mode and has decided the
+     * language, so that any further content is ignored
+     */
+    public boolean isDecided() {
+        return decided;
+    }
+
     @Override
     public void write(char[] cbuf, int off, int len) {
-    	detector.addText(cbuf, off, len);
+        if (! detector.isAdaptive()) {
+            detector.addText(cbuf, off, len);
+            return;
+        }
+        if (spanRemaining == 0 && written == 0) {
+            spanRemaining = detector.getSampleSpanLength();
+            gap = spanRemaining;
+        }
+        while (len > 0 && ! decided) {
+            if (written < nextSpanStart) {
+                int skip = (int) Math.min(len, nextSpanStart - written);
+                addToTail(cbuf, off, skip);
+                written += skip;
+                off += skip;
+                len -= skip;
+            } else {
+                int take = Math.min(len, spanRemaining);
+                detector.addText(cbuf, off, take);
+                written += take;
+                off += take;
+                len -= take;
+                spanRemaining -= take;
+                if (spanRemaining == 0) {
+                    endSpan();
+                }
+            }
+        }
+    }
+
+    private void endSpan() {
+        if (detector.isConfident()) {
+            decided = true;
+            tail = null;
+            return;
+        }
+        nextSpanStart = written + gap;
+        gap *= 2;
+        spanRemaining = detector.getSampleSpanLength();
+        //skipped characters before this span are no longer the end of the document
+        tailLength = 0;
+    }
+
+    private void addToTail(char[] cbuf, int off, int len) {
+        int span = detector.getSampleSpanLength();
+        if (tail == null || tail.length != span) {
+            tail = new char[span];
+            tailPos = 0;
+            tailLength = 0;
+        }
+        if (len >= span) {
+            System.arraycopy(cbuf, off + len - span, tail, 0, span);
+            tailPos = 0;
+            tailLength = span;
+            return;
+        }
+        int first = Math.min(len, span - tailPos);
+        System.arraycopy(cbuf, off, tail, tailPos, first);
+        System.arraycopy(cbuf, off + first, tail, 0, len - first);
+        tailPos = (tailPos + len) % span;
+        tailLength = Math.min(span, tailLength + len);
+    }
+
+    private void addTail() {
+        if (tailLength == 0) {
+            return;
+        }
+        int start = (tailPos - tailLength + tail.length) % tail.length;
+        int first = Math.min(tailLength, tail.length - start);
+        detector.addText(tail, start, first);
+        if (first < tailLength) {
+            detector.addText(tail, 0, tailLength - first);
+        }
+        tailLength = 0;
+        decided = detector.isConfident();
     }
 
     /**
@@ -74,5 +178,12 @@ public class LanguageWriter extends Writer {
 
     public void reset() {
     	detector.reset();
+        written = 0;
+        nextSpanStart = 0;
+        gap = 0;
+        spanRemaining = 0;
+        decided = false;
+        tailPos = 0;
+        tailLength = 0;
     }
 }
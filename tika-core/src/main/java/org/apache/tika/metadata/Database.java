@@ -23,4 +23,8 @@ public interface Database {
     Property ROW_COUNT = Property.externalInteger(PREFIX+"row_count");
     Property COLUMN_COUNT = Property.externalInteger(PREFIX+"column_count");
     Property COLUMN_NAME = Property.externalTextBag(PREFIX+"column_name");
+    /**
+     * Tables whose rows weren't all extracted because of a row limit
+     */
+    Property TRUNCATED_TABLE_NAME = Property.externalTextBag(PREFIX+"truncated_table_name");
 }
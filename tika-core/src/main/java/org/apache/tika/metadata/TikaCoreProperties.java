@@ -112,6 +112,44 @@ public interface TikaCoreProperties {
     Property EMBEDDED_RESOURCE_LIMIT_REACHED =
             Property.internalBoolean(TIKA_META_EXCEPTION_PREFIX + "embedded_resource_limit_reached");
 
+    /**
+     * Set if the parse was stopped by its {@link org.apache.tika.parser.ParseDeadline}
+     * or {@link org.apache.tika.parser.ResourceBudget};
+     * the content and metadata extracted until then are kept.
+     */
+    Property PARSE_CANCELLED =
+            Property.internalBoolean(TIKA_META_EXCEPTION_PREFIX + "parse_cancelled");
+
+    /**
+     * Prefix of the time, in milliseconds, of each stage of a parse recorded by a
+     * {@link org.apache.tika.parser.MetadataTimingInstrumentation}; the name of the stage follows.
+     */
+    String TIKA_TIMING_PREFIX = TIKA_META_PREFIX + "timing" + NAMESPACE_PREFIX_DELIMITER;
+
+    /**
+     * Prefix of the resource usage recorded by a {@link org.apache.tika.parser.ResourceBudget}.
+     */
+    String TIKA_BUDGET_PREFIX = TIKA_META_PREFIX + "budget" + NAMESPACE_PREFIX_DELIMITER;
+
+    Property BUDGET_TEMP_FILE_BYTES = Property.internalText(TIKA_BUDGET_PREFIX + "temp_file_bytes");
+    Property BUDGET_EMBEDDED_DOCUMENTS =
+            Property.internalText(TIKA_BUDGET_PREFIX + "embedded_documents");
+    Property BUDGET_EMBEDDED_DEPTH = Property.internalText(TIKA_BUDGET_PREFIX + "embedded_depth");
+    Property BUDGET_CHARACTERS = Property.internalText(TIKA_BUDGET_PREFIX + "characters");
+    Property BUDGET_ALLOCATED_BYTES = Property.internalText(TIKA_BUDGET_PREFIX + "allocated_bytes");
+
+    /**
+     * Names of the resources whose soft limit was exceeded.
+     */
+    Property BUDGET_SOFT_LIMIT_EXCEEDED =
+            Property.internalTextBag(TIKA_BUDGET_PREFIX + "soft_limit_exceeded");
+
+    /**
+     * Name of the resource whose hard limit stopped the parse.
+     */
+    Property BUDGET_HARD_LIMIT_EXCEEDED =
+            Property.internalText(TIKA_BUDGET_PREFIX + "hard_limit_exceeded");
+
     /**
      * Use this to store exceptions caught during a parse that are
      * non-fatal, e.g. if a parser is in lenient mode and more
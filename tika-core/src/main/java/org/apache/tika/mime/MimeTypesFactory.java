@@ -185,7 +185,31 @@ public class MimeTypesFactory {
             URL externalURL = externalFile.toURI().toURL();
             urls.add(externalURL);
         }
-        
+
+        // Replay the pre-built snapshot of the core mimetypes instead of
+        //  parsing the XML, if it was built from the same XML
+        URL snapshotURL = null;
+        if (coreURL != null && "tika-mimetypes.xml".equals(coreFilePath)) {
+            snapshotURL = classLoader.getResource(classPrefix + MimeTypesSnapshot.DEFAULT_SNAPSHOT);
+        }
+        if (snapshotURL != null) {
+            MimeTypes mimeTypes = new MimeTypes();
+            MimeTypesReader reader = new MimeTypesReader(mimeTypes);
+            boolean replayed;
+            try (InputStream is = snapshotURL.openStream()) {
+                replayed = MimeTypesSnapshot.replay(is, MimeTypesSnapshot.fingerprint(coreURL), reader);
+            }
+            if (replayed) {
+                for (URL url : urls.subList(1, urls.size())) {
+                    try (InputStream is = url.openStream()) {
+                        reader.read(is);
+                    }
+                }
+                mimeTypes.init();
+                return mimeTypes;
+            }
+        }
+
         return create(urls.toArray(new URL[0]));
     }
 }
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Pre-built binary snapshot of a mime types XML file, so that a JVM can load
+ * the registry without running an XML parser over tika-mimetypes.xml.
+ * <p>
+ * The snapshot is the XML's elements, attributes and text, already tokenized
+ * and with every distinct string stored once.  Replaying it into a
+ * {@link MimeTypesReader} builds exactly the same registry as reading the XML,
+ * and custom mimetypes can still be read into the same registry afterwards.
+ * <p>
+ * The snapshot of tika-mimetypes.xml is written to
+ * <code>org/apache/tika/mime/{@value #DEFAULT_SNAPSHOT}</code> when tika-core is built
+ * (see {@link #main(String[])}), and {@link MimeTypesFactory#create(String, String, ClassLoader)}
+ * uses it instead of the XML.  The snapshot records a checksum of the XML it was built from,
+ * and it is ignored if the XML has changed since.
+ *
+ * @since Apache Tika 2.0
+ */
+public class MimeTypesSnapshot {
+
+    /**
+     * Name of the snapshot of tika-mimetypes.xml, next to the XML
+     */
+    public static final String DEFAULT_SNAPSHOT = "tika-mimetypes.snapshot";
+
+    private static final int MAGIC = 0x544d5453; // "TMTS"
+    private static final int VERSION = 1;
+
+    private static final byte END_OF_DOCUMENT = 0;
+    private static final byte START_ELEMENT = 1;
+    private static final byte END_ELEMENT = 2;
+    private static final byte CHARACTERS = 3;
+
+    /**
+     * Tokenizes a mime types XML file and writes its snapshot.
+     *
+     * @param xml         mime types XML, not closed
+     * @param fingerprint checksum of the XML, see {@link #fingerprint(URL...)}
+     * @param os          stream to write to, not closed
+     * @throws IOException
+     * @throws MimeTypeException if the XML can't be parsed
+     */
+    public static void write(InputStream xml, long fingerprint, OutputStream os)
+            throws IOException, MimeTypeException {
+        Recorder recorder = new Recorder();
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(false);
+            factory.newSAXParser().parse(xml, recorder);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new MimeTypeException("Invalid type configuration", e);
+        }
+        recorder.flushCharacters();
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(os));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(fingerprint);
+        data.writeInt(recorder.strings.size());
+        for (String s : recorder.strings) {
+            data.writeUTF(s);
+        }
+        data.writeInt(recorder.events.size());
+        for (int[] event : recorder.events) {
+            data.writeByte(event[0]);
+            for (int i = 1; i < event.length; i++) {
+                data.writeInt(event[i]);
+            }
+        }
+        data.writeByte(END_OF_DOCUMENT);
+        data.flush();
+    }
+
+    /**
+     * Builds a registry from a snapshot.
+     *
+     * @param is                  stream to read from, not closed
+     * @param expectedFingerprint checksum of the XML that the snapshot should have been
+     *                            built from, or -1 to accept any snapshot
+     * @return the registry or <code>null</code> if the snapshot was built from another XML
+     * @throws IOException       if the stream is not a valid snapshot
+     * @throws MimeTypeException if the type configuration is invalid
+     */
+    public static MimeTypes read(InputStream is, long expectedFingerprint)
+            throws IOException, MimeTypeException {
+        MimeTypes types = new MimeTypes();
+        if (!replay(is, expectedFingerprint, new MimeTypesReader(types))) {
+            return null;
+        }
+        types.init();
+        return types;
+    }
+
+    /**
+     * Replays a snapshot into a reader, as if the reader had read the XML.
+     *
+     * @param is                  stream to read from, not closed
+     * @param expectedFingerprint checksum of the XML that the snapshot should have been
+     *                            built from, or -1 to accept any snapshot
+     * @param reader              reader to replay into
+     * @return <code>false</code> if the snapshot was built from another XML, in which case
+     * nothing has been replayed
+     * @throws IOException       if the stream is not a valid snapshot
+     * @throws MimeTypeException if the type configuration is invalid
+     */
+    static boolean replay(InputStream is, long expectedFingerprint, MimeTypesReader reader)
+            throws IOException, MimeTypeException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(is));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a mime types snapshot");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported mime types snapshot version: " + version);
+        }
+        long fingerprint = data.readLong();
+        if (expectedFingerprint != -1 && fingerprint != expectedFingerprint) {
+            return false;
+        }
+        String[] strings = new String[data.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = data.readUTF();
+        }
+        int numEvents = data.readInt();
+        AttributesImpl attributes = new AttributesImpl();
+        try {
+            for (int i = 0; i < numEvents; i++) {
+                byte op = data.readByte();
+                if (op == START_ELEMENT) {
+                    String qName = strings[data.readInt()];
+                    int numAttributes = data.readInt();
+                    attributes.clear();
+                    for (int j = 0; j < numAttributes; j++) {
+                        String name = strings[data.readInt()];
+                        attributes.addAttribute("", "", name, "CDATA", strings[data.readInt()]);
+                    }
+                    reader.startElement("", "", qName, attributes);
+                } else if (op == END_ELEMENT) {
+                    reader.endElement("", "", strings[data.readInt()]);
+                } else if (op == CHARACTERS) {
+                    char[] chars = strings[data.readInt()].toCharArray();
+                    reader.characters(chars, 0, chars.length);
+                } else {
+                    throw new IOException("Invalid mime types snapshot event: " + op);
+                }
+            }
+        } catch (SAXException e) {
+            throw new MimeTypeException("Invalid type configuration", e);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Invalid mime types snapshot", e);
+        }
+        if (data.readByte() != END_OF_DOCUMENT) {
+            throw new IOException("Invalid mime types snapshot: trailing events");
+        }
+        return true;
+    }
+
+    /**
+     * @param urls mime types XML files
+     * @return checksum of the bytes of the files
+     * @throws IOException
+     */
+    public static long fingerprint(URL... urls) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        for (URL url : urls) {
+            try (InputStream is = url.openStream()) {
+                for (int n = is.read(buffer); n > -1; n = is.read(buffer)) {
+                    crc.update(buffer, 0, n);
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the snapshot of the built-in tika-mimetypes.xml.
+     * <p>
+     * Usage: <code>MimeTypesSnapshot &lt;outputFile&gt;</code>
+     *
+     * @param args arguments
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: MimeTypesSnapshot <outputFile>");
+            return;
+        }
+        URL xml = MimeTypesSnapshot.class.getResource("tika-mimetypes.xml");
+        if (xml == null) {
+            throw new IOException("Couldn't find tika-mimetypes.xml");
+        }
+        Path out = Paths.get(args[0]);
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        try (InputStream is = xml.openStream();
+             OutputStream os = Files.newOutputStream(out)) {
+            write(is, fingerprint(xml), os);
+        }
+    }
+
+    /**
+     * Records the SAX events with an index of distinct strings.
+     * Adjacent character events are merged, and whitespace between
+     * elements is dropped, as {@link MimeTypesReader} trims all text.
+     */
+    private static class Recorder extends DefaultHandler {
+
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<int[]> events = new ArrayList<>();
+        private final StringBuilder characters = new StringBuilder();
+
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId) {
+            return new InputSource(new ByteArrayInputStream(new byte[0]));
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                                 Attributes attributes) {
+            flushCharacters();
+            int[] event = new int[3 + 2 * attributes.getLength()];
+            event[0] = START_ELEMENT;
+            event[1] = indexOf(qName);
+            event[2] = attributes.getLength();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                event[3 + 2 * i] = indexOf(attributes.getQName(i));
+                event[4 + 2 * i] = indexOf(attributes.getValue(i));
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            flushCharacters();
+            events.add(new int[]{END_ELEMENT, indexOf(qName)});
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            characters.append(ch, start, length);
+        }
+
+        void flushCharacters() {
+            if (characters.toString().trim().length() > 0) {
+                events.add(new int[]{CHARACTERS, indexOf(characters.toString())});
+            }
+            characters.setLength(0);
+        }
+
+        private int indexOf(String s) {
+            Integer i = index.get(s);
+            if (i == null) {
+                i = strings.size();
+                index.put(s, i);
+                strings.add(s);
+            }
+            return i;
+        }
+    }
+}
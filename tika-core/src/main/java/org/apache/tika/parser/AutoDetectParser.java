@@ -113,8 +113,11 @@ public class AutoDetectParser extends CompositeParser {
             TikaInputStream tis = TikaInputStream.get(stream, tmp);
 
             // Automatically detect the MIME type of the document
-            MediaType type = detector.detect(tis, metadata);
-            metadata.set(Metadata.CONTENT_TYPE, type.toString());
+            try (ParseInstrumentation.Span span =
+                         ParseInstrumentation.start(context, ParseInstrumentation.DETECT, metadata)) {
+                MediaType type = detector.detect(tis, metadata);
+                metadata.set(Metadata.CONTENT_TYPE, type.toString());
+            }
             //check for zero-byte inputstream
             if (tis.getOpenContainer() == null) {
                 tis.mark(1);
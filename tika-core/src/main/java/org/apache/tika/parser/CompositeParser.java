@@ -16,14 +16,18 @@
  */
 package org.apache.tika.parser;
 
+import org.apache.tika.exception.ParseCancelledException;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.SpoolingStrategy;
 import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.sax.ContentHandlerDecorator;
 import org.apache.tika.sax.TaggedContentHandler;
 import org.apache.tika.utils.ParserUtils;
+import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
@@ -268,30 +272,219 @@ public class CompositeParser extends AbstractParser {
             throws IOException, SAXException, TikaException {
         Parser parser = getParser(metadata, context);
         TemporaryResources tmp = new TemporaryResources();
+        ResourceBudget budget = context.get(ResourceBudget.class);
+        boolean outermost = budget != null && budget.start();
         try {
             TikaInputStream taggedStream = TikaInputStream.get(stream, tmp);
             TaggedContentHandler taggedHandler = 
                 handler != null ? new TaggedContentHandler(handler) : null;
             ParserUtils.recordParserDetails(parser, metadata);
+            ParseDeadline deadline = context.get(ParseDeadline.class);
+            if (deadline != null) {
+                deadline.check();
+                taggedStream.setParseDeadline(deadline);
+            }
+            if (budget != null) {
+                taggedStream.setResourceBudget(budget);
+            }
+            SpoolingStrategy spoolingStrategy = context.get(SpoolingStrategy.class);
+            if (spoolingStrategy != null) {
+                taggedStream.setSpoolingStrategy(spoolingStrategy);
+            }
+            ParseInstrumentation instrumentation = context.get(ParseInstrumentation.class);
+            TimingContentHandler timingHandler = null;
+            ParseInstrumentation.Span span = ParseInstrumentation.Span.NOOP;
+            if (instrumentation != null) {
+                taggedStream.setParseInstrumentation(instrumentation, metadata);
+                //nested composite parsers would count the same time twice
+                if (!(parser instanceof CompositeParser)) {
+                    if (taggedHandler != null) {
+                        timingHandler = new TimingContentHandler(taggedHandler);
+                    }
+                    span = instrumentation.start(ParseInstrumentation.PARSE, metadata);
+                }
+            }
+            ContentHandler parserHandler =
+                    timingHandler != null ? timingHandler : taggedHandler;
+            if ((deadline != null || budget != null) && parserHandler != null
+                    && !(parser instanceof CompositeParser)) {
+                parserHandler = new LimitingContentHandler(parserHandler, deadline, budget);
+            }
             try {
-                parser.parse(taggedStream, taggedHandler, metadata, context);
+                parser.parse(taggedStream, parserHandler, metadata, context);
             } catch (SecurityException e) {
                 //rethrow security exceptions
                 throw e;
             } catch (IOException e) {
+                throwIfCancelled(e);
                 taggedStream.throwIfCauseOf(e);
                 throw new TikaException(
                         "TIKA-198: Illegal IOException from " + parser, e);
             } catch (SAXException e) {
+                throwIfCancelled(e);
                 if (taggedHandler != null) taggedHandler.throwIfCauseOf(e);
                 throw new TikaException(
                         "TIKA-237: Illegal SAXException from " + parser, e);
             } catch (RuntimeException e) {
                 throw new TikaException(
                         "Unexpected RuntimeException from " + parser, e);
+            } finally {
+                span.stop();
+                if (timingHandler != null) {
+                    instrumentation.record(ParseInstrumentation.HANDLER, metadata,
+                            timingHandler.nanos);
+                }
             }
         } finally {
             tmp.dispose();
+            if (outermost) {
+                budget.writeUsage(metadata);
+            }
+        }
+    }
+
+    /**
+     * Rethrows a cancellation as itself, rather than as a parser failure,
+     * so that callers can tell a partial result from a broken document.
+     */
+    private static void throwIfCancelled(Exception e) throws ParseCancelledException {
+        ParseCancelledException cancelled = ParseCancelledException.find(e);
+        if (cancelled != null) {
+            throw cancelled;
+        }
+    }
+
+    /**
+     * Stops the parse once the deadline has expired or the parse has been
+     * cancelled, and counts the characters against the budget, whatever
+     * handler the parser writes its output with.
+     */
+    private static class LimitingContentHandler extends ContentHandlerDecorator {
+
+        /**
+         * Whether the characters that pass through the current thread are
+         * already being counted.  The output of an embedded document passes
+         * through the decorators of all its containers, and is counted once.
+         */
+        private static final ThreadLocal<boolean[]> COUNTING =
+                ThreadLocal.withInitial(() -> new boolean[1]);
+
+        /**
+         * Number of events between two checks of the deadline's clock.
+         * Cancellation is checked on every event.
+         */
+        private static final int DEADLINE_CHECK_EVENTS = 256;
+
+        private final ParseDeadline deadline;
+
+        private final ResourceBudget budget;
+
+        private int eventsUntilDeadlineCheck = 0;
+
+        private LimitingContentHandler(ContentHandler handler, ParseDeadline deadline,
+                                       ResourceBudget budget) {
+            super(handler);
+            this.deadline = deadline;
+            this.budget = budget;
+        }
+
+        private void checkDeadline() throws SAXException {
+            if (deadline == null) {
+                return;
+            }
+            if (deadline.isCancelled() || --eventsUntilDeadlineCheck < 0) {
+                deadline.checkSAX();
+                eventsUntilDeadlineCheck = DEADLINE_CHECK_EVENTS;
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String name, Attributes atts)
+                throws SAXException {
+            checkDeadline();
+            super.startElement(uri, localName, name, atts);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String name) throws SAXException {
+            checkDeadline();
+            super.endElement(uri, localName, name);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            checkDeadline();
+            boolean[] counting = budget == null ? null : COUNTING.get();
+            if (counting == null || counting[0]) {
+                super.characters(ch, start, length);
+                return;
+            }
+            budget.addCharacters(length);
+            counting[0] = true;
+            try {
+                super.characters(ch, start, length);
+            } finally {
+                counting[0] = false;
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            checkDeadline();
+            super.ignorableWhitespace(ch, start, length);
+        }
+    }
+
+    /**
+     * Adds up the time spent in the handlers below the parser.
+     */
+    private static class TimingContentHandler extends ContentHandlerDecorator {
+
+        private long nanos = 0;
+
+        private TimingContentHandler(ContentHandler handler) {
+            super(handler);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String name, Attributes atts)
+                throws SAXException {
+            long start = System.nanoTime();
+            try {
+                super.startElement(uri, localName, name, atts);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String name) throws SAXException {
+            long start = System.nanoTime();
+            try {
+                super.endElement(uri, localName, name);
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            long startNanos = System.nanoTime();
+            try {
+                super.characters(ch, start, length);
+            } finally {
+                nanos += System.nanoTime() - startNanos;
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            long startNanos = System.nanoTime();
+            try {
+                super.ignorableWhitespace(ch, start, length);
+            } finally {
+                nanos += System.nanoTime() - startNanos;
+            }
         }
     }
 
@@ -25,6 +25,8 @@ import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.digest.CompositeDigester;
+import org.apache.tika.parser.digest.DigestingInputStream;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
@@ -63,27 +65,79 @@ public class DigestingParser extends ParserDecorator {
     }
 
     private final Digester digester;
+    private final boolean digestWhileParsing;
+
     /**
      * Creates a decorator for the given parser.
      *
      * @param parser the parser instance to be decorated
      */
     public DigestingParser(Parser parser, Digester digester) {
+        this(parser, digester, false);
+    }
+
+    /**
+     * Creates a decorator for the given parser.
+     * <p>
+     * If <code>digestWhileParsing</code> is true and the digester is a
+     * {@link CompositeDigester#isSinglePass() single-pass} CompositeDigester, the
+     * bytes are digested as the parser reads them, instead of in a separate read
+     * before the parse.  Anything the parser leaves unread is digested afterwards,
+     * and the digests are added to the metadata after the parse, even if the parse fails.
+     * If the stream is a TikaInputStream that is already backed by a file,
+     * the file is digested before the parse.
+     *
+     * @param parser the parser instance to be decorated
+     * @param digester digester
+     * @param digestWhileParsing whether to digest the stream as it is parsed
+     */
+    public DigestingParser(Parser parser, Digester digester, boolean digestWhileParsing) {
         super(parser);
         this.digester = digester;
+        this.digestWhileParsing = digestWhileParsing;
     }
 
     @Override
     public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context) throws IOException, SAXException, TikaException {
+        if (digestWhileParsing && digester instanceof CompositeDigester &&
+                ((CompositeDigester) digester).isSinglePass()) {
+            TikaInputStream existing = TikaInputStream.cast(stream);
+            if (existing == null || ! existing.hasFile()) {
+                parseWhileDigesting(stream, handler, metadata, context);
+                return;
+            }
+        }
         TemporaryResources tmp = new TemporaryResources();
         TikaInputStream tis = TikaInputStream.get(stream, tmp);
         try {
             if (digester != null) {
-                digester.digest(tis, metadata, context);
+                try (ParseInstrumentation.Span span = ParseInstrumentation.start(
+                        context, ParseInstrumentation.DIGEST, metadata)) {
+                    digester.digest(tis, metadata, context);
+                }
             }
             super.parse(tis, handler, metadata, context);
         } finally {
             tmp.dispose();
         }
     }
+
+    private void parseWhileDigesting(InputStream stream, ContentHandler handler,
+                                     Metadata metadata, ParseContext context)
+            throws IOException, SAXException, TikaException {
+        //the TikaInputStream above the tee buffers or spools what
+        //the parser re-reads, so each byte is digested once
+        DigestingInputStream tee = ((CompositeDigester) digester).tee(stream);
+        TemporaryResources tmp = new TemporaryResources();
+        TikaInputStream tis = TikaInputStream.get(tee, tmp);
+        try {
+            super.parse(tis, handler, metadata, context);
+        } finally {
+            try {
+                tee.finish(metadata);
+            } finally {
+                tmp.dispose();
+            }
+        }
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.util.Locale;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+
+/**
+ * Default {@link ParseInstrumentation}: adds up the time of each stage in the
+ * document's metadata, in milliseconds, under {@link TikaCoreProperties#TIKA_TIMING_PREFIX}
+ * followed by the name of the stage, e.g. <code>X-TIKA:timing:parse</code>.
+ * <p>
+ * If a {@link TimingHistogramExporter} is given, each run of a stage is
+ * also added to its histograms.  The exporter is not serialized, so
+ * a forked process only records the timings in the metadata.
+ *
+ * @since Apache Tika 2.0
+ */
+public class MetadataTimingInstrumentation extends ParseInstrumentation {
+
+    private static final long serialVersionUID = 5262287416932155011L;
+
+    private final transient TimingHistogramExporter exporter;
+
+    public MetadataTimingInstrumentation() {
+        this(null);
+    }
+
+    /**
+     * @param exporter exporter to add the timings to, or <code>null</code>
+     */
+    public MetadataTimingInstrumentation(TimingHistogramExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    @Override
+    public void record(String stage, Metadata metadata, long nanos) {
+        if (metadata != null) {
+            String name = TikaCoreProperties.TIKA_TIMING_PREFIX + stage;
+            synchronized (metadata) {
+                double millis = nanos / 1_000_000.0;
+                String previous = metadata.get(name);
+                if (previous != null) {
+                    try {
+                        millis += Double.parseDouble(previous);
+                    } catch (NumberFormatException e) {
+                        //overwrite it
+                    }
+                }
+                metadata.set(name, String.format(Locale.ROOT, "%.3f", millis));
+            }
+        }
+        if (exporter != null) {
+            exporter.record(metadata == null ? null : metadata.get(Metadata.CONTENT_TYPE),
+                    stage, nanos);
+        }
+    }
+
+    /**
+     * @return the exporter, or <code>null</code>
+     */
+    public TimingHistogramExporter getExporter() {
+        return exporter;
+    }
+}
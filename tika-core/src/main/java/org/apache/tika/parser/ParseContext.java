@@ -96,6 +96,15 @@ public class ParseContext implements Serializable {
         }
     }
 
+    /**
+     * @return a new context with the same objects as this one
+     */
+    ParseContext copy() {
+        ParseContext copy = new ParseContext();
+        copy.context.putAll(context);
+        return copy;
+    }
+
     /**
      * Returns the XMLReader specified in this parsing context. If a reader
      * is not explicitly specified, then one is created using the specified
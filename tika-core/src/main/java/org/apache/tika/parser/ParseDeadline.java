@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.apache.tika.exception.ParseCancelledException;
+import org.xml.sax.SAXException;
+
+/**
+ * Deadline and cancellation token for a parse.  If one is set in the
+ * {@link ParseContext}, the {@link CompositeParser}, the {@link org.apache.tika.io.TikaInputStream}
+ * it parses, {@link org.apache.tika.sax.XHTMLContentHandler}s created with the context and
+ * the main loops of the parsers for large documents (pages, rows, entries, messages...)
+ * check it, and stop the parse with a {@link ParseCancelledException} once it
+ * has expired.  What had been extracted until then is kept, so a runaway
+ * document can be stopped without killing the thread or the JVM.
+ * <p>
+ * The checks are cooperative: a parser that is stuck in a third party library
+ * without reading input or writing output won't see the deadline.  External
+ * timeouts are still needed for those, but they should be rarer.
+ * <p>
+ * The deadline is wall clock time, so that it still applies when the context is
+ * serialized to a forked process; {@link #cancel()} only affects the current JVM.
+ * The same token can be shared by the parses of many documents to cancel them all.
+ *
+ * @since Apache Tika 2.0
+ */
+public class ParseDeadline implements Serializable {
+
+    private static final long serialVersionUID = 2217393740474394536L;
+
+    private final long deadlineMillis;
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param timeoutMillis time from now that the parse may take, or a value &lt;= 0
+     *                      for no time limit (only {@link #cancel()})
+     */
+    public ParseDeadline(long timeoutMillis) {
+        this.deadlineMillis = timeoutMillis > 0 ?
+                System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+    }
+
+    /**
+     * Stops the parses that use this token at their next check.  Can be
+     * called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return whether {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return whether the parse should stop, i.e. the token has been cancelled
+     * or the deadline has passed
+     */
+    public boolean isExpired() {
+        return cancelled || System.currentTimeMillis() > deadlineMillis;
+    }
+
+    /**
+     * @return milliseconds until the deadline, 0 if expired, or
+     * {@link Long#MAX_VALUE} if there is no time limit
+     */
+    public long getRemainingMillis() {
+        if (cancelled) {
+            return 0;
+        }
+        if (deadlineMillis == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadlineMillis - System.currentTimeMillis());
+    }
+
+    /**
+     * @throws ParseCancelledException if the parse should stop
+     */
+    public void check() throws ParseCancelledException {
+        if (isExpired()) {
+            throw new ParseCancelledException(cancelled ?
+                    "Parse was cancelled" : "Parse deadline exceeded");
+        }
+    }
+
+    /**
+     * Same as {@link #check()}, for use in content handlers.
+     *
+     * @throws SAXException caused by a {@link ParseCancelledException} if the parse should stop
+     */
+    public void checkSAX() throws SAXException {
+        if (isExpired()) {
+            try {
+                check();
+            } catch (ParseCancelledException e) {
+                throw new SAXException(e);
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #check()}, for use in streams.
+     *
+     * @throws IOException caused by a {@link ParseCancelledException} if the parse should stop
+     */
+    public void checkIO() throws IOException {
+        if (isExpired()) {
+            try {
+                check();
+            } catch (ParseCancelledException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Checks the deadline in the context, if there is one.
+     *
+     * @param context parse context
+     * @throws ParseCancelledException if the parse should stop
+     */
+    public static void check(ParseContext context) throws ParseCancelledException {
+        ParseDeadline deadline = context.get(ParseDeadline.class);
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.Serializable;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Start/stop hooks for timing the stages of a parse.  If an instrumentation is
+ * set in the {@link ParseContext}, the {@link AutoDetectParser} (detection), the
+ * {@link DigestingParser}, {@link org.apache.tika.io.TikaInputStream} spooling,
+ * the {@link CompositeParser} (the parser itself and the handler chain), the
+ * {@link org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor} and some
+ * parsers that run external processes report the time of each stage to it,
+ * against the metadata of the document being parsed.
+ * <p>
+ * The stages nest: the time of {@link #PARSE} includes the time of the
+ * {@link #HANDLER} chain and of {@link #EMBEDDED} documents, for example.
+ * When no instrumentation is set, {@link #start(ParseContext, String, Metadata)}
+ * returns a shared no-op span, so the hooks cost next to nothing.
+ * <p>
+ * Implementations must be thread safe if the same context is used for
+ * parsing several documents, or embedded documents, concurrently.
+ *
+ * @see MetadataTimingInstrumentation
+ * @since Apache Tika 2.0
+ */
+public abstract class ParseInstrumentation implements Serializable {
+
+    private static final long serialVersionUID = -4470520867212389946L;
+
+    /**
+     * Detection of the media type
+     */
+    public static final String DETECT = "detect";
+
+    /**
+     * Digesting the bytes of the document before the parse
+     */
+    public static final String DIGEST = "digest";
+
+    /**
+     * Spooling a stream to a temporary file or to memory
+     */
+    public static final String SPOOL = "spool";
+
+    /**
+     * The parser selected for the document's media type
+     */
+    public static final String PARSE = "parse";
+
+    /**
+     * Content handlers below the parser, e.g. writing the text
+     */
+    public static final String HANDLER = "handler";
+
+    /**
+     * Parsing an embedded document, from the container's point of view
+     */
+    public static final String EMBEDDED = "embedded";
+
+    /**
+     * OCR subprocesses
+     */
+    public static final String OCR = "ocr";
+
+    /**
+     * A request to tika-server, from the point of view of the server
+     */
+    public static final String SERVER = "server";
+
+    /**
+     * @param context  parse context
+     * @param stage    stage that starts
+     * @param metadata metadata of the document
+     * @return a span of the context's instrumentation, or {@link Span#NOOP} if
+     * there is none
+     */
+    public static Span start(ParseContext context, String stage, Metadata metadata) {
+        ParseInstrumentation instrumentation = context.get(ParseInstrumentation.class);
+        if (instrumentation == null) {
+            return Span.NOOP;
+        }
+        return instrumentation.start(stage, metadata);
+    }
+
+    /**
+     * @param stage    stage that starts
+     * @param metadata metadata of the document
+     * @return span to stop when the stage ends
+     */
+    public Span start(String stage, Metadata metadata) {
+        return new Span(this, stage, metadata);
+    }
+
+    /**
+     * Records the time taken by one run of a stage.  A stage can run several
+     * times in the parse of one document, e.g. once per spooled stream or per OCRed image.
+     *
+     * @param stage    stage
+     * @param metadata metadata of the document
+     * @param nanos    time the stage took, in nanoseconds
+     */
+    public abstract void record(String stage, Metadata metadata, long nanos);
+
+    /**
+     * One run of a stage; {@link #stop()} records it.  Use it with
+     * try-with-resources, or stop it in a finally block.
+     */
+    public static class Span implements AutoCloseable {
+
+        /**
+         * Span that records nothing
+         */
+        public static final Span NOOP = new Span(null, null, null);
+
+        private final ParseInstrumentation instrumentation;
+        private final String stage;
+        private final Metadata metadata;
+        private final long startNanos;
+        private boolean stopped = false;
+
+        private Span(ParseInstrumentation instrumentation, String stage, Metadata metadata) {
+            this.instrumentation = instrumentation;
+            this.stage = stage;
+            this.metadata = metadata;
+            this.startNanos = instrumentation == null ? 0 : System.nanoTime();
+        }
+
+        /**
+         * Records the time since the span was started.  Only the first call has an effect.
+         */
+        public void stop() {
+            if (instrumentation == null || stopped) {
+                return;
+            }
+            stopped = true;
+            instrumentation.record(stage, metadata, System.nanoTime() - startNanos);
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
+
+/**
+ * Part of a parse that a container parser runs on another thread, e.g. one
+ * of the messages of a mailbox.  The task is created in the thread of the
+ * parse, and runs:
+ * <ul>
+ *     <li>at the embedded depth of that thread, so that the
+ *     {@link RequestedOutputs} and {@link ResourceBudget} depth limits apply
+ *     as if the thread of the parse had run it</li>
+ *     <li>with its own copy of the {@link ParseContext}, which isn't thread
+ *     safe, and its own {@link ParsingEmbeddedDocumentExtractor} if the
+ *     context has one</li>
+ * </ul>
+ * Tasks run on an executor that is shared by all parses, so that the number
+ * of threads doesn't grow with the number of concurrent or nested parses.
+ * A container that is parsed within a task should be parsed in its own
+ * thread, see {@link #isRunningInTask()}, so that tasks never wait for the
+ * executor they run on.
+ *
+ * @since Apache Tika 2.0
+ */
+public abstract class ParseTask<T> implements Callable<T> {
+
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+
+    private static volatile ExecutorService EXECUTOR;
+
+    private static final ThreadLocal<Boolean> IN_TASK = new ThreadLocal<>();
+
+    private final ParseContext context;
+
+    private final int depth;
+
+    private final long budgetDepth;
+
+    private final AtomicInteger state = new AtomicInteger(NEW);
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private volatile Future<T> future;
+
+    /**
+     * @param context context of the parse; must be called in the thread of the parse
+     */
+    protected ParseTask(ParseContext context) {
+        this.context = context.copy();
+        EmbeddedDocumentExtractor extractor = context.get(EmbeddedDocumentExtractor.class);
+        if (extractor != null && extractor.getClass() == ParsingEmbeddedDocumentExtractor.class) {
+            this.context.set(EmbeddedDocumentExtractor.class,
+                    new ParsingEmbeddedDocumentExtractor(this.context));
+        }
+        this.depth = RequestedOutputs.get(context).getEmbeddedDepth();
+        ResourceBudget budget = context.get(ResourceBudget.class);
+        this.budgetDepth = budget == null ? 0 : budget.getEmbeddedDepth();
+    }
+
+    /**
+     * @return whether the current thread is running a task, in which case
+     * containers should be parsed in the current thread
+     */
+    public static boolean isRunningInTask() {
+        return IN_TASK.get() != null;
+    }
+
+    /**
+     * Returns the executor that tasks are submitted to.  Unless one has been
+     * set, this is a pool of daemon threads, one per available processor.
+     *
+     * @return the shared executor
+     */
+    public static ExecutorService getExecutor() {
+        ExecutorService executor = EXECUTOR;
+        if (executor == null) {
+            synchronized (ParseTask.class) {
+                executor = EXECUTOR;
+                if (executor == null) {
+                    int threads = Runtime.getRuntime().availableProcessors();
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                            r -> {
+                                Thread t = new Thread(r, "tika-parse-task");
+                                t.setDaemon(true);
+                                return t;
+                            });
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                    EXECUTOR = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Sets the executor that tasks are submitted to, e.g. one that is
+     * managed by the application.  The previous executor isn't shut down.
+     *
+     * @param executor executor, or <code>null</code> for the default
+     */
+    public static void setExecutor(ExecutorService executor) {
+        EXECUTOR = executor;
+    }
+
+    /**
+     * Submits this task to the {@link #getExecutor() shared executor}.
+     *
+     * @return future of the task
+     */
+    public Future<T> submit() {
+        future = getExecutor().submit(this);
+        return future;
+    }
+
+    /**
+     * @return future of this task, or <code>null</code> if it hasn't been submitted
+     */
+    public Future<T> getFuture() {
+        return future;
+    }
+
+    /**
+     * Keeps this task from starting if it hasn't started yet, interrupts it if
+     * it is running, and waits for it to finish.  Call this before closing the
+     * resources that the task uses.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    unit of the timeout
+     * @return whether the task isn't running anymore
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
+        if (state.compareAndSet(NEW, DONE)) {
+            done.countDown();
+        }
+        Future<T> f = future;
+        if (f != null) {
+            f.cancel(true);
+        }
+        return done.await(timeout, unit);
+    }
+
+    @Override
+    public final T call() throws Exception {
+        if (!state.compareAndSet(NEW, RUNNING)) {
+            //stopped before it started
+            return null;
+        }
+        RequestedOutputs requested = RequestedOutputs.get(context);
+        ResourceBudget budget = context.get(ResourceBudget.class);
+        int previousDepth = requested.getEmbeddedDepth();
+        long previousBudgetDepth = budget == null ? 0 : budget.getEmbeddedDepth();
+        Boolean previousInTask = IN_TASK.get();
+        requested.setEmbeddedDepth(depth);
+        if (budget != null) {
+            budget.setEmbeddedDepth(budgetDepth);
+        }
+        IN_TASK.set(Boolean.TRUE);
+        try {
+            return call(context);
+        } finally {
+            requested.setEmbeddedDepth(previousDepth);
+            if (budget != null) {
+                budget.setEmbeddedDepth(previousBudgetDepth);
+            }
+            if (previousInTask == null) {
+                IN_TASK.remove();
+            }
+            state.set(DONE);
+            done.countDown();
+        }
+    }
+
+    /**
+     * Runs the task.
+     *
+     * @param context the task's own copy of the context of the parse
+     * @return result of the task
+     * @throws Exception if the task fails
+     */
+    protected abstract T call(ParseContext context) throws Exception;
+}
@@ -18,6 +18,7 @@ package org.apache.tika.parser;
  */
 
 import org.apache.tika.exception.CorruptedFileException;
+import org.apache.tika.exception.ParseCancelledException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.ZeroByteFileException;
 import org.apache.tika.io.FilenameUtils;
@@ -150,6 +151,9 @@ public class RecursiveParserWrapper extends ParserDecorator {
                 throw e;
             }
             metadata.set(TikaCoreProperties.WRITE_LIMIT_REACHED, "true");
+        } catch (ParseCancelledException e) {
+            //keep what was extracted before the deadline
+            metadata.set(TikaCoreProperties.PARSE_CANCELLED, "true");
         } catch (Throwable e) {
             //try our best to record the problem in the metadata object
             //then rethrow
@@ -245,6 +249,11 @@ public class RecursiveParserWrapper extends ParserDecorator {
             try {
                 super.parse(stream, secureContentHandler, metadata, context);
             } catch (SAXException e) {
+                if (ParseCancelledException.find(e) != null) {
+                    //stop the container too
+                    metadata.set(TikaCoreProperties.PARSE_CANCELLED, "true");
+                    throw e;
+                }
                 boolean wlr = isWriteLimitReached(e);
                 if (wlr == true) {
                     metadata.add(TikaCoreProperties.WRITE_LIMIT_REACHED, "true");
@@ -257,6 +266,9 @@ public class RecursiveParserWrapper extends ParserDecorator {
                 }
             } catch(CorruptedFileException e) {
                 throw e;
+            } catch (ParseCancelledException e) {
+                metadata.set(TikaCoreProperties.PARSE_CANCELLED, "true");
+                throw e;
             } catch (TikaException e) {
                 if (context.get(ZeroByteFileException.IgnoreZeroByteFileException.class) != null
                         && e instanceof ZeroByteFileException) {
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Describes which outputs of a parse the caller will use, so that
+ * parsers can skip the work for the others.  If one is set in the
+ * {@link ParseContext}:
+ * <ul>
+ *     <li>parsers may skip text extraction, OCR and similar work when
+ *     {@link #isContentRequested() content} isn't requested, and still
+ *     emit a valid, empty XHTML document</li>
+ *     <li>parsers may skip extracting expensive metadata fields that
+ *     aren't {@link #isMetadataRequested(String...) requested}; fields
+ *     that are cheap to extract are extracted anyway, so callers still
+ *     have to filter the metadata</li>
+ *     <li>parsers that extract their cheap metadata first may skip the body
+ *     of the document if {@link #isBodyRequested(Metadata)} is false, i.e. if
+ *     neither content nor embedded documents are requested and the cheap
+ *     metadata already has all of the requested fields.  If no fields are
+ *     named, only the metadata that is cheap to extract is requested.</li>
+ *     <li>the {@link org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor}
+ *     doesn't parse embedded documents below the {@link #getMaxEmbeddedDepth()
+ *     maximum depth}, and parsers may skip looking for them if
+ *     {@link #isEmbeddedRequested()} is false</li>
+ * </ul>
+ * Parsers that don't know about this produce all outputs, as before.
+ * <p>
+ * The embedded depth is tracked per thread, so an instance can be shared
+ * between concurrent parses.
+ *
+ * @since Apache Tika 2.0
+ */
+public class RequestedOutputs implements Serializable {
+
+    private static final long serialVersionUID = -2658001741950385617L;
+
+    /**
+     * Everything; this is what parsers assume if nothing is set in the context.
+     */
+    public static final RequestedOutputs ALL = new RequestedOutputs(true, null, -1);
+
+    /**
+     * The metadata of the container document only.
+     */
+    public static final RequestedOutputs METADATA_ONLY = new RequestedOutputs(false, null, 0);
+
+    private final boolean content;
+    private final Set<String> metadataFields;
+    private final int maxEmbeddedDepth;
+
+    private transient volatile ThreadLocal<int[]> depth;
+
+    /**
+     * @param content          whether the text content is requested
+     * @param metadataFields   names of the requested metadata fields, or
+     *                         <code>null</code> for all fields
+     * @param maxEmbeddedDepth how deep embedded documents are requested,
+     *                         0 for none, or -1 for all
+     */
+    public RequestedOutputs(boolean content, Set<String> metadataFields, int maxEmbeddedDepth) {
+        this.content = content;
+        this.metadataFields = metadataFields == null ? null :
+                Collections.unmodifiableSet(new HashSet<>(metadataFields));
+        this.maxEmbeddedDepth = maxEmbeddedDepth;
+    }
+
+    /**
+     * @param context parse context
+     * @return the requested outputs in the context, or {@link #ALL}
+     */
+    public static RequestedOutputs get(ParseContext context) {
+        return context == null ? ALL : context.get(RequestedOutputs.class, ALL);
+    }
+
+    public boolean isContentRequested() {
+        return content;
+    }
+
+    /**
+     * @return names of the requested metadata fields, or <code>null</code> for all fields
+     */
+    public Set<String> getMetadataFields() {
+        return metadataFields;
+    }
+
+    public int getMaxEmbeddedDepth() {
+        return maxEmbeddedDepth;
+    }
+
+    /**
+     * @param prefixes names or prefixes of names, e.g. <code>"xmpMM:"</code>
+     * @return whether any requested metadata field starts with one of the prefixes
+     */
+    public boolean isMetadataRequested(String... prefixes) {
+        if (metadataFields == null) {
+            return true;
+        }
+        for (String field : metadataFields) {
+            for (String prefix : prefixes) {
+                if (field.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether documents embedded in the document that is being
+     * parsed in the current thread are requested
+     */
+    public boolean isEmbeddedRequested() {
+        return maxEmbeddedDepth < 0 || depth()[0] < maxEmbeddedDepth;
+    }
+
+    /**
+     * @return whether the content or embedded documents are requested, i.e.
+     * whether the body of the document has to be parsed at all
+     */
+    public boolean isBodyRequested() {
+        return content || isEmbeddedRequested();
+    }
+
+    /**
+     * Checks whether the body of the document has to be parsed, once the metadata
+     * that is cheap to extract is in <code>metadata</code>.  A requested field that
+     * is still missing may come from the body, so the body is parsed in that case.
+     *
+     * @param metadata the metadata extracted so far
+     * @return whether the content or embedded documents are requested, or
+     * a requested metadata field is missing from the metadata
+     */
+    public boolean isBodyRequested(Metadata metadata) {
+        if (isBodyRequested()) {
+            return true;
+        }
+        if (metadataFields == null) {
+            return false;
+        }
+        for (String field : metadataFields) {
+            if (metadata.get(field) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called before an embedded document is parsed in the current thread;
+     * must be followed by {@link #endEmbedded()}.
+     */
+    public void startEmbedded() {
+        depth()[0]++;
+    }
+
+    /**
+     * Called after an embedded document has been parsed in the current thread.
+     */
+    public void endEmbedded() {
+        int[] d = depth();
+        if (d[0] > 0) {
+            d[0]--;
+        }
+    }
+
+    /**
+     * @return embedded depth of the document that is being parsed in the current thread
+     */
+    public int getEmbeddedDepth() {
+        return depth()[0];
+    }
+
+    /**
+     * Sets the embedded depth of the current thread, e.g. for a {@link ParseTask}
+     * that continues a parse in another thread.
+     *
+     * @param embeddedDepth embedded depth
+     */
+    public void setEmbeddedDepth(int embeddedDepth) {
+        depth()[0] = embeddedDepth;
+    }
+
+    private int[] depth() {
+        ThreadLocal<int[]> local = depth;
+        if (local == null) {
+            synchronized (this) {
+                if (depth == null) {
+                    depth = ThreadLocal.withInitial(() -> new int[1]);
+                }
+                local = depth;
+            }
+        }
+        return local.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RequestedOutputs{content=" + content + ", metadataFields=" + metadataFields +
+                ", maxEmbeddedDepth=" + maxEmbeddedDepth + "}";
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.tika.exception.ResourceLimitExceededException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Property;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.xml.sax.SAXException;
+
+/**
+ * Accounts for the resources used by the parse of one document, including
+ * its embedded documents, and enforces soft and hard limits on them.
+ * If one is set in the {@link ParseContext}:
+ * <ul>
+ *     <li>{@link org.apache.tika.io.TikaInputStream}s parsed by the
+ *     {@link CompositeParser} count the bytes they spool to temporary files</li>
+ *     <li>the {@link org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor}
+ *     counts the embedded documents and their depth</li>
+ *     <li>{@link org.apache.tika.sax.XHTMLContentHandler}s created with the
+ *     context count the characters they emit, and every
+ *     {@value #ALLOCATION_SAMPLE_CHARS} characters, the heap allocated by
+ *     the threads that emit them</li>
+ * </ul>
+ * Exceeding a soft limit is recorded in {@link TikaCoreProperties#BUDGET_SOFT_LIMIT_EXCEEDED}
+ * and passed to {@link #onSoftLimitExceeded(Resource, long)}.  Exceeding a hard limit stops
+ * the parse with a {@link ResourceLimitExceededException}, keeping what had been extracted
+ * until then.  When the outermost parse is done, the usage is written to the
+ * X-TIKA:budget: properties of its metadata for capacity planning.
+ * <p>
+ * Heap allocation is an estimate, based on the allocation counters of the HotSpot
+ * {@link java.lang.management.ThreadMXBean}, and is 0 on JVMs that don't
+ * have them.  Subclasses can override {@link #getCurrentThreadAllocatedBytes()}
+ * to use another estimate, and the other hooks to plug in their own accounting.
+ * <p>
+ * A budget is for one document; create a new one for every parse.  It is thread safe,
+ * so that parsers that process embedded documents in parallel can share it.
+ *
+ * @since Apache Tika 2.0
+ */
+public class ResourceBudget implements Serializable {
+
+    private static final long serialVersionUID = -3311405812337318290L;
+
+    /**
+     * How many characters are emitted between samples of the allocated heap.
+     */
+    public static final int ALLOCATION_SAMPLE_CHARS = 65536;
+
+    /**
+     * Resources that are accounted for.
+     */
+    public enum Resource {
+        TEMP_FILE_BYTES("temp_file_bytes", TikaCoreProperties.BUDGET_TEMP_FILE_BYTES),
+        EMBEDDED_DOCUMENTS("embedded_documents", TikaCoreProperties.BUDGET_EMBEDDED_DOCUMENTS),
+        /**
+         * Maximum nesting depth of the embedded documents, rather than a total.
+         */
+        EMBEDDED_DEPTH("embedded_depth", TikaCoreProperties.BUDGET_EMBEDDED_DEPTH),
+        CHARACTERS("characters", TikaCoreProperties.BUDGET_CHARACTERS),
+        ALLOCATED_BYTES("allocated_bytes", TikaCoreProperties.BUDGET_ALLOCATED_BYTES);
+
+        private final String name;
+        private final Property property;
+
+        Resource(String name, Property property) {
+            this.name = name;
+            this.property = property;
+        }
+
+        /**
+         * @return name of the resource in the metadata
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return property that the usage is recorded in
+         */
+        public Property getProperty() {
+            return property;
+        }
+    }
+
+    private static final Resource[] RESOURCES = Resource.values();
+
+    private static final Method THREAD_ALLOCATED_BYTES = findThreadAllocatedBytes();
+
+    private final long[] softLimits = new long[RESOURCES.length];
+    private final long[] hardLimits = new long[RESOURCES.length];
+    private final AtomicLongArray usage = new AtomicLongArray(RESOURCES.length);
+
+    //bit masks of the resources whose limits have been exceeded
+    private final AtomicInteger softExceeded = new AtomicInteger();
+    private final AtomicInteger hardExceeded = new AtomicInteger();
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    //per thread: embedded depth, allocated bytes at the last sample,
+    //characters since the last sample
+    private transient volatile ThreadLocal<long[]> threadState;
+
+    public ResourceBudget() {
+        for (int i = 0; i < RESOURCES.length; i++) {
+            softLimits[i] = -1;
+            hardLimits[i] = -1;
+        }
+    }
+
+    /**
+     * @param resource resource
+     * @param limit    usage above which a warning is recorded, or -1 for none
+     * @return this budget
+     */
+    public ResourceBudget setSoftLimit(Resource resource, long limit) {
+        softLimits[resource.ordinal()] = limit;
+        return this;
+    }
+
+    /**
+     * @param resource resource
+     * @param limit    usage above which the parse is stopped, or -1 for none
+     * @return this budget
+     */
+    public ResourceBudget setHardLimit(Resource resource, long limit) {
+        hardLimits[resource.ordinal()] = limit;
+        return this;
+    }
+
+    public long getSoftLimit(Resource resource) {
+        return softLimits[resource.ordinal()];
+    }
+
+    public long getHardLimit(Resource resource) {
+        return hardLimits[resource.ordinal()];
+    }
+
+    /**
+     * @param resource resource
+     * @return usage so far
+     */
+    public long getUsage(Resource resource) {
+        return usage.get(resource.ordinal());
+    }
+
+    /**
+     * Starts the accounting, if it hasn't been started by an enclosing parse.
+     * This is called by the {@link CompositeParser}.
+     *
+     * @return <code>true</code> if the caller is the outermost parse, and should
+     * call {@link #writeUsage(Metadata)} when it is done
+     */
+    public boolean start() {
+        if (!started.compareAndSet(false, true)) {
+            return false;
+        }
+        //set the allocation baseline of the parse thread
+        state();
+        return true;
+    }
+
+    /**
+     * Adds bytes written to a temporary file.
+     */
+    public void addTempFileBytes(long bytes) throws ResourceLimitExceededException {
+        add(Resource.TEMP_FILE_BYTES, bytes);
+    }
+
+    /**
+     * Same as {@link #addTempFileBytes(long)}, for use in streams.
+     */
+    public void addTempFileBytesIO(long bytes) throws IOException {
+        try {
+            addTempFileBytes(bytes);
+        } catch (ResourceLimitExceededException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds characters emitted by a content handler, and samples the
+     * heap allocated by the current thread every {@value #ALLOCATION_SAMPLE_CHARS}
+     * characters.
+     *
+     * @throws SAXException caused by a {@link ResourceLimitExceededException}
+     *                      if a hard limit has been exceeded
+     */
+    public void addCharacters(int length) throws SAXException {
+        try {
+            add(Resource.CHARACTERS, length);
+            long[] state = state();
+            state[2] += length;
+            if (state[2] >= ALLOCATION_SAMPLE_CHARS) {
+                state[2] = 0;
+                sampleAllocatedBytes(state);
+            }
+        } catch (ResourceLimitExceededException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    /**
+     * Called before an embedded document is parsed in the current thread;
+     * must be followed by {@link #endEmbedded()} if this returns normally.
+     * If a limit is exceeded, the depth is left unchanged.
+     */
+    public void startEmbedded() throws ResourceLimitExceededException {
+        long[] state = state();
+        state[0]++;
+        boolean started = false;
+        try {
+            add(Resource.EMBEDDED_DOCUMENTS, 1);
+            long depth = state[0];
+            int i = Resource.EMBEDDED_DEPTH.ordinal();
+            long max = usage.get(i);
+            while (depth > max && !usage.compareAndSet(i, max, depth)) {
+                max = usage.get(i);
+            }
+            checkLimits(Resource.EMBEDDED_DEPTH, depth);
+            sampleAllocatedBytes(state);
+            started = true;
+        } finally {
+            if (!started) {
+                state[0]--;
+            }
+        }
+    }
+
+    /**
+     * Called after an embedded document has been parsed in the current thread.
+     */
+    public void endEmbedded() {
+        long[] state = state();
+        if (state[0] > 0) {
+            state[0]--;
+        }
+    }
+
+    /**
+     * @return embedded depth of the document that is being parsed in the current thread
+     */
+    public long getEmbeddedDepth() {
+        return state()[0];
+    }
+
+    /**
+     * Sets the embedded depth of the current thread, e.g. for a {@link ParseTask}
+     * that continues a parse in another thread.
+     *
+     * @param embeddedDepth embedded depth
+     */
+    public void setEmbeddedDepth(long embeddedDepth) {
+        state()[0] = embeddedDepth;
+    }
+
+    /**
+     * Adds the heap allocated by the current thread since the last sample.
+     */
+    public void sampleAllocatedBytes() throws ResourceLimitExceededException {
+        sampleAllocatedBytes(state());
+    }
+
+    /**
+     * Writes the usage and the exceeded limits to the metadata.
+     *
+     * @param metadata metadata of the outermost document
+     */
+    public void writeUsage(Metadata metadata) {
+        for (Resource resource : RESOURCES) {
+            metadata.set(resource.getProperty(), Long.toString(getUsage(resource)));
+        }
+        metadata.remove(TikaCoreProperties.BUDGET_SOFT_LIMIT_EXCEEDED.getName());
+        int soft = softExceeded.get();
+        int hard = hardExceeded.get();
+        for (Resource resource : RESOURCES) {
+            int bit = 1 << resource.ordinal();
+            if ((soft & bit) != 0) {
+                metadata.add(TikaCoreProperties.BUDGET_SOFT_LIMIT_EXCEEDED, resource.getName());
+            }
+            if ((hard & bit) != 0) {
+                metadata.set(TikaCoreProperties.BUDGET_HARD_LIMIT_EXCEEDED, resource.getName());
+            }
+        }
+    }
+
+    /**
+     * Called once per resource when its soft limit is first exceeded.
+     * This does nothing by default; the metadata records it anyway.
+     *
+     * @param resource resource
+     * @param usage    usage when the limit was exceeded
+     */
+    protected void onSoftLimitExceeded(Resource resource, long usage) {
+    }
+
+    /**
+     * @return bytes allocated on the heap by the current thread since it
+     * started, or -1 if that isn't known
+     */
+    protected long getCurrentThreadAllocatedBytes() {
+        if (THREAD_ALLOCATED_BYTES == null) {
+            return -1;
+        }
+        try {
+            return (Long) THREAD_ALLOCATED_BYTES.invoke(ManagementFactory.getThreadMXBean(),
+                    Thread.currentThread().getId());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private void sampleAllocatedBytes(long[] state) throws ResourceLimitExceededException {
+        long allocated = getCurrentThreadAllocatedBytes();
+        if (allocated < 0) {
+            return;
+        }
+        long delta = allocated - state[1];
+        state[1] = allocated;
+        if (delta > 0) {
+            add(Resource.ALLOCATED_BYTES, delta);
+        }
+    }
+
+    private void add(Resource resource, long delta) throws ResourceLimitExceededException {
+        checkLimits(resource, usage.addAndGet(resource.ordinal(), delta));
+    }
+
+    private void checkLimits(Resource resource, long value)
+            throws ResourceLimitExceededException {
+        int i = resource.ordinal();
+        int bit = 1 << i;
+        if (softLimits[i] > -1 && value > softLimits[i]) {
+            int old = softExceeded.getAndUpdate(b -> b | bit);
+            if ((old & bit) == 0) {
+                onSoftLimitExceeded(resource, value);
+            }
+        }
+        if (hardLimits[i] > -1 && value > hardLimits[i]) {
+            hardExceeded.getAndUpdate(b -> b | bit);
+            throw new ResourceLimitExceededException(resource, value, hardLimits[i]);
+        }
+    }
+
+    private long[] state() {
+        ThreadLocal<long[]> local = threadState;
+        if (local == null) {
+            synchronized (this) {
+                if (threadState == null) {
+                    threadState = new ThreadLocal<>();
+                }
+                local = threadState;
+            }
+        }
+        long[] state = local.get();
+        if (state == null) {
+            state = new long[3];
+            //only count what the thread allocates from now on
+            state[1] = Math.max(0, getCurrentThreadAllocatedBytes());
+            local.set(state);
+        }
+        return state;
+    }
+
+    private static Method findThreadAllocatedBytes() {
+        try {
+            //HotSpot extension of the ThreadMXBean, looked up reflectively
+            //because it isn't part of the portable API
+            Class<?> c = Class.forName("com.sun.management.ThreadMXBean");
+            if (!c.isInstance(ManagementFactory.getThreadMXBean())) {
+                return null;
+            }
+            return c.getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.tika.mime.MediaType;
+
+/**
+ * Histograms of the time taken by each stage of a parse, per media type,
+ * fed by a {@link MetadataTimingInstrumentation}.  {@link #write(Writer)}
+ * writes them in the Prometheus text format, so that a scraper or a
+ * person can tell which stage the time goes to for which kind of document.
+ * <p>
+ * This class is thread safe; a single exporter is usually shared by all
+ * the parses of a process.
+ *
+ * @since Apache Tika 2.0
+ */
+public class TimingHistogramExporter {
+
+    /**
+     * Upper bounds of the buckets, in milliseconds.  The last
+     * bucket holds everything above the last bound.
+     */
+    private static final long[] BOUNDS_MILLIS = new long[]{
+            1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000, 300000
+    };
+
+    private static final String METRIC = "tika_parse_stage_seconds";
+
+    private final Map<Key, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * @param contentType content type of the document, or <code>null</code> if it is
+     *                    not known (yet); parameters, e.g. the charset, are dropped
+     * @param stage       stage, see {@link ParseInstrumentation}
+     * @param nanos       time the stage took
+     */
+    public void record(String contentType, String stage, long nanos) {
+        histograms.computeIfAbsent(new Key(getMediaType(contentType), stage),
+                k -> new Histogram()).add(nanos);
+    }
+
+    /**
+     * @return the histogram of the stage for the media type, or <code>null</code>
+     * if nothing has been recorded for them
+     */
+    public Histogram getHistogram(String mediaType, String stage) {
+        return histograms.get(new Key(mediaType, stage));
+    }
+
+    /**
+     * Writes the histograms in the Prometheus text format, sorted
+     * by media type and stage.
+     *
+     * @param writer writer to write to; it is not closed
+     * @throws IOException if the writer fails
+     */
+    public void write(Writer writer) throws IOException {
+        Map<String, Histogram> sorted = new TreeMap<>();
+        for (Map.Entry<Key, Histogram> e : histograms.entrySet()) {
+            sorted.put("media_type=\"" + escape(e.getKey().mediaType) + "\",stage=\"" +
+                    escape(e.getKey().stage) + "\"", e.getValue());
+        }
+        writer.write("# HELP " + METRIC + " Time taken by the stages of a parse, by media type\n");
+        writer.write("# TYPE " + METRIC + " histogram\n");
+        for (Map.Entry<String, Histogram> e : sorted.entrySet()) {
+            String labels = e.getKey();
+            Histogram histogram = e.getValue();
+            long cumulative = 0;
+            for (int i = 0; i <= BOUNDS_MILLIS.length; i++) {
+                cumulative += histogram.counts.get(i);
+                String le = i < BOUNDS_MILLIS.length ?
+                        String.format(Locale.ROOT, "%.3f", BOUNDS_MILLIS[i] / 1000.0) : "+Inf";
+                writer.write(METRIC + "_bucket{" + labels + ",le=\"" + le + "\"} " +
+                        cumulative + "\n");
+            }
+            writer.write(METRIC + "_sum{" + labels + "} " +
+                    String.format(Locale.ROOT, "%.6f", histogram.getSumNanos() / 1e9) + "\n");
+            writer.write(METRIC + "_count{" + labels + "} " + cumulative + "\n");
+        }
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        histograms.clear();
+    }
+
+    private static String getMediaType(String contentType) {
+        MediaType type = contentType == null ? null : MediaType.parse(contentType);
+        return type == null ? MediaType.OCTET_STREAM.toString() : type.getBaseType().toString();
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Counts of the runs of one stage for one media type
+     */
+    public static class Histogram {
+
+        private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+        private final LongAdder sumNanos = new LongAdder();
+
+        private void add(long nanos) {
+            long millis = nanos / 1_000_000;
+            int i = 0;
+            while (i < BOUNDS_MILLIS.length && millis >= BOUNDS_MILLIS[i]) {
+                i++;
+            }
+            counts.incrementAndGet(i);
+            sumNanos.add(nanos);
+        }
+
+        /**
+         * @return number of runs recorded
+         */
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                count += counts.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * @return total time of the runs recorded
+         */
+        public long getSumNanos() {
+            return sumNanos.sum();
+        }
+
+        /**
+         * @param millis time in milliseconds
+         * @return number of runs in the buckets whose upper bound is at most
+         * <code>millis</code>, i.e. a lower bound of the runs that took less
+         */
+        public long getCountBelow(long millis) {
+            long count = 0;
+            for (int i = 0; i < BOUNDS_MILLIS.length && BOUNDS_MILLIS[i] <= millis; i++) {
+                count += counts.get(i);
+            }
+            return count;
+        }
+    }
+
+    private static class Key {
+        private final String mediaType;
+        private final String stage;
+
+        private Key(String mediaType, String stage) {
+            this.mediaType = mediaType;
+            this.stage = stage;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mediaType.equals(other.mediaType) && stage.equals(other.stage);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mediaType.hashCode() + stage.hashCode();
+        }
+    }
+}
@@ -17,23 +17,77 @@
 
 package org.apache.tika.parser.digest;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
 
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.BoundedInputStream;
 import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.DigestingParser;
 import org.apache.tika.parser.ParseContext;
 
-
+/**
+ * Runs several digesters against a stream.
+ * <p>
+ * If all of the digesters are {@link InputStreamDigester}s (as those built by
+ * the CommonsDigester and BouncyCastleDigester), the stream is read only once, and every
+ * byte is fed to all of the MessageDigests (single-pass mode).  The smallest
+ * mark limit of the digesters applies.  Otherwise the digesters are run one after the other.
+ * <p>
+ * In single-pass mode, the digests can also be computed while the stream is
+ * being parsed, see {@link #tee(InputStream)}.
+ */
 public class CompositeDigester implements DigestingParser.Digester {
 
+    private static final int BUFFER_SIZE = 8192;
+
     private final DigestingParser.Digester[] digesters;
+    //non-null if all digesters are InputStreamDigesters
+    private final InputStreamDigester[] streamDigesters;
+    private final int markLimit;
 
     public CompositeDigester(DigestingParser.Digester ... digesters) {
         this.digesters = digesters;
+        InputStreamDigester[] streamDigesters = new InputStreamDigester[digesters.length];
+        int markLimit = Integer.MAX_VALUE;
+        for (int i = 0; i < digesters.length; i++) {
+            if (! (digesters[i] instanceof InputStreamDigester)) {
+                streamDigesters = null;
+                break;
+            }
+            streamDigesters[i] = (InputStreamDigester) digesters[i];
+            markLimit = Math.min(markLimit, streamDigesters[i].getMarkLimit());
+        }
+        this.streamDigesters = streamDigesters;
+        this.markLimit = markLimit;
+    }
+
+    /**
+     * @return true if the stream is read only once for all digesters
+     */
+    public boolean isSinglePass() {
+        return streamDigesters != null && streamDigesters.length > 0;
+    }
+
+    /**
+     * Wraps a stream so that the digests are computed as the stream is read, e.g. by
+     * a parser.  Call {@link DigestingInputStream#finish(Metadata)} after the stream has
+     * been consumed to digest anything left unread and to set the digests in the metadata.
+     *
+     * @param is stream to digest
+     * @return digesting stream or <code>null</code> if this digester is not
+     * {@link #isSinglePass() single-pass}
+     */
+    public DigestingInputStream tee(InputStream is) {
+        if (! isSinglePass()) {
+            return null;
+        }
+        return new DigestingInputStream(is, streamDigesters);
     }
 
     @Override
@@ -41,6 +95,10 @@ public class CompositeDigester implements DigestingParser.Digester {
         TemporaryResources tmp = new TemporaryResources();
         TikaInputStream tis = TikaInputStream.get(is, tmp);
         try {
+            if (isSinglePass()) {
+                digestSinglePass(tis, m);
+                return;
+            }
             for (DigestingParser.Digester digester : digesters) {
                 digester.digest(tis, m, parseContext);
             }
@@ -52,4 +110,49 @@ public class CompositeDigester implements DigestingParser.Digester {
             }
         }
     }
+
+    private void digestSinglePass(TikaInputStream tis, Metadata m) throws IOException {
+        if (tis.hasFile() && tis.getLength() > markLimit) {
+            digestFile(tis.getFile(), m);
+            return;
+        }
+        //same as InputStreamDigester: try mark/reset, and if
+        //the bound is hit, spool to file and digest that
+        BoundedInputStream bis = new BoundedInputStream(markLimit, tis);
+        bis.mark(markLimit + 1);
+        MessageDigest[] messageDigests = update(bis);
+        boolean hitBound = bis.hasHitBound();
+        bis.reset();
+        if (hitBound) {
+            digestFile(tis.getFile(), m);
+            return;
+        }
+        setDigests(messageDigests, m);
+    }
+
+    private void digestFile(File file, Metadata m) throws IOException {
+        try (InputStream is = Files.newInputStream(file.toPath())) {
+            setDigests(update(is), m);
+        }
+    }
+
+    private MessageDigest[] update(InputStream is) throws IOException {
+        MessageDigest[] messageDigests = new MessageDigest[streamDigesters.length];
+        for (int i = 0; i < streamDigesters.length; i++) {
+            messageDigests[i] = streamDigesters[i].newMessageDigest();
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int read = is.read(buffer); read > -1; read = is.read(buffer)) {
+            for (MessageDigest messageDigest : messageDigests) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+        return messageDigests;
+    }
+
+    private void setDigests(MessageDigest[] messageDigests, Metadata m) {
+        for (int i = 0; i < streamDigesters.length; i++) {
+            streamDigesters[i].setDigest(messageDigests[i].digest(), m);
+        }
+    }
 }
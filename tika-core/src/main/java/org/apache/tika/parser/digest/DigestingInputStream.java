@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.digest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Stream that updates several MessageDigests with every byte that is read
+ * through it, so that any number of algorithms can be computed in one read
+ * of the underlying stream, e.g. while a parser consumes it.
+ * <p>
+ * Mark/reset is not supported; wrap this in a {@link org.apache.tika.io.TikaInputStream}
+ * (which buffers or spools what it reads) so that every byte of the underlying
+ * stream is digested exactly once.
+ *
+ * @see CompositeDigester#tee(InputStream)
+ */
+public class DigestingInputStream extends FilterInputStream {
+
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final InputStreamDigester[] digesters;
+    private final MessageDigest[] messageDigests;
+    private boolean finished = false;
+
+    DigestingInputStream(InputStream in, InputStreamDigester[] digesters) {
+        super(in);
+        this.digesters = digesters;
+        this.messageDigests = new MessageDigest[digesters.length];
+        for (int i = 0; i < digesters.length; i++) {
+            messageDigests[i] = digesters[i].newMessageDigest();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b > -1) {
+            for (MessageDigest messageDigest : messageDigests) {
+                messageDigest.update((byte) b);
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            for (MessageDigest messageDigest : messageDigests) {
+                messageDigest.update(b, off, n);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Skipped bytes are read so that they are digested too.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Reads and digests whatever the consumer left unread, and sets the
+     * digests in the metadata.  This has no effect if it has already been called.
+     *
+     * @param metadata metadata for reporting the digests
+     * @throws IOException
+     */
+    public void finish(Metadata metadata) throws IOException {
+        if (finished) {
+            return;
+        }
+        byte[] buffer = new byte[SKIP_BUFFER_SIZE];
+        while (read(buffer, 0, buffer.length) > -1) {
+            //digest the remainder
+        }
+        finished = true;
+        for (int i = 0; i < digesters.length; i++) {
+            digesters[i].setDigest(messageDigests[i].digest(), metadata);
+        }
+    }
+}
@@ -69,7 +69,7 @@ public class InputStreamDigester implements DigestingParser.Digester {
         }
     }
 
-    private MessageDigest newMessageDigest() {
+    MessageDigest newMessageDigest() {
         try {
             Provider provider = getProvider();
             if (provider == null) {
@@ -153,6 +153,20 @@ public class InputStreamDigester implements DigestingParser.Digester {
         }
     }
 
+    int getMarkLimit() {
+        return markLimit;
+    }
+
+    /**
+     * Encodes the digest and sets it in the metadata
+     *
+     * @param digestBytes result of the MessageDigest
+     * @param metadata    metadata for reporting the digest
+     */
+    void setDigest(byte[] digestBytes, Metadata metadata) {
+        metadata.set(getMetadataKey(), encoder.encode(digestBytes));
+    }
+
     private String getMetadataKey() {
         return TikaCoreProperties.TIKA_META_PREFIX +
                 "digest" + TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER +
@@ -183,7 +197,7 @@ public class InputStreamDigester implements DigestingParser.Digester {
                 return false;
             }
         }
-        metadata.set(getMetadataKey(), encoder.encode(digestBytes));
+        setDigest(digestBytes, metadata);
         return true;
     }
 
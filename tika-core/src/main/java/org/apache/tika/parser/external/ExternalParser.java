@@ -25,10 +25,22 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,6 +53,7 @@ import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.XHTMLContentHandler;
+import org.apache.tika.utils.PersistentProcessPool;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
@@ -50,6 +63,15 @@ import static org.apache.commons.io.output.NullOutputStream.NULL_OUTPUT_STREAM;
 /**
  * Parser that uses an external program (like catdoc or pdf2txt) to extract
  * text content and metadata from a given document.
+ * <p>
+ * The standard streams of the external processes are pumped by a shared
+ * executor, see {@link #setIOExecutor(ExecutorService)}, rather than by
+ * new threads for each document.
+ * <p>
+ * Programs that have a batch mode can be kept running with
+ * {@link #setPersistentProcess(boolean)}: for each document, a request line
+ * is written to the program's stdin, and its response is read from stdout up to
+ * the {@link #setResponseTerminator(String) terminator line}.
  */
 public class ExternalParser extends AbstractParser {
 
@@ -79,6 +101,14 @@ public class ExternalParser extends AbstractParser {
 
     private static final long serialVersionUID = -1079128990650687037L;
 
+    /**
+     * Maximum number of pooled threads in the default I/O executor,
+     * if the JVM doesn't provide virtual threads
+     */
+    public static final int DEFAULT_MAX_IO_THREADS = 64;
+
+    private static volatile IOPool IO_POOL;
+
     /**
      * The token, which if present in the Command string, will
      * be replaced with the input filename.
@@ -115,6 +145,114 @@ public class ExternalParser extends AbstractParser {
      */
     private LineConsumer ignoredLineConsumer = LineConsumer.NULL;
 
+    private boolean persistentProcess = false;
+
+    private String requestTemplate = INPUT_FILE_TOKEN;
+
+    private String responseTerminator = null;
+
+    private int numProcesses = 1;
+
+    private long timeoutMs = 60000;
+
+    private transient PersistentProcessPool processPool;
+
+    /**
+     * Returns the executor that pumps the standard streams of external
+     * processes.  Unless one has been set, this is a virtual thread per task
+     * executor if the JVM provides one, or else a pool of
+     * {@link #DEFAULT_MAX_IO_THREADS} daemon threads.  As a process can't
+     * finish until all of its streams are pumped, the tasks of a document
+     * must never wait for a pooled thread; instead, a document waits before
+     * its process is started until there are enough idle threads for all
+     * of its streams.
+     *
+     * @return the shared I/O executor
+     * @since Apache Tika 2.0
+     */
+    public static ExecutorService getIOExecutor() {
+        return getIOPool().executor;
+    }
+
+    private static IOPool getIOPool() {
+        IOPool pool = IO_POOL;
+        if (pool == null) {
+            synchronized (ExternalParser.class) {
+                pool = IO_POOL;
+                if (pool == null) {
+                    pool = newIOPool();
+                    IO_POOL = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Sets the executor that pumps the standard streams of external processes.
+     * It must be able to run at least two tasks at once for each document
+     * that is parsed concurrently; the previous executor isn't shut down.
+     *
+     * @param executor executor, or <code>null</code> for the default
+     * @since Apache Tika 2.0
+     */
+    public static void setIOExecutor(ExecutorService executor) {
+        IO_POOL = executor == null ? null : new IOPool(executor, null);
+    }
+
+    private static IOPool newIOPool() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return new IOPool((ExecutorService) m.invoke(null), null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //no virtual threads before Java 21
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_MAX_IO_THREADS,
+                DEFAULT_MAX_IO_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "tika-external-io");
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return new IOPool(executor, new Semaphore(DEFAULT_MAX_IO_THREADS));
+    }
+
+    /**
+     * The I/O executor, and, if it has a bounded number of threads, the
+     * threads that haven't been claimed by a document.
+     */
+    private static class IOPool {
+        private final ExecutorService executor;
+        private final Semaphore idleThreads;
+
+        IOPool(ExecutorService executor, Semaphore idleThreads) {
+            this.executor = executor;
+            this.idleThreads = idleThreads;
+        }
+
+        /**
+         * Waits until the given number of threads are idle, and claims them.
+         */
+        void claim(int threads) throws TikaException {
+            if (idleThreads == null) {
+                return;
+            }
+            try {
+                idleThreads.acquire(threads);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TikaException("interrupted while waiting for an I/O thread", e);
+            }
+        }
+
+        void release(int threads) {
+            if (idleThreads != null) {
+                idleThreads.release(threads);
+            }
+        }
+    }
+
     public Set<MediaType> getSupportedTypes(ParseContext context) {
         return getSupportedTypes();
     }
@@ -177,6 +315,97 @@ public class ExternalParser extends AbstractParser {
     }
 
 
+    public boolean isPersistentProcess() {
+        return persistentProcess;
+    }
+
+    /**
+     * Whether to keep the external program running and send it one document
+     * after another.  The command must not contain {@link #INPUT_FILE_TOKEN} or
+     * {@link #OUTPUT_FILE_TOKEN}; instead, {@link #setRequestTemplate(String)}
+     * is written to stdin for each document, and the program must answer with
+     * the document's output, followed by {@link #setResponseTerminator(String)}
+     * on a line of its own.
+     * <p>
+     * Lines of the output that match the
+     * {@link #setMetadataExtractionPatterns(Map) metadata patterns} are
+     * extracted as metadata as they arrive; the other lines are the text content.
+     * Anything the program writes to stderr is logged.
+     *
+     * @param persistentProcess whether to use a persistent process
+     * @since Apache Tika 2.0
+     */
+    public void setPersistentProcess(boolean persistentProcess) {
+        this.persistentProcess = persistentProcess;
+    }
+
+    public String getRequestTemplate() {
+        return requestTemplate;
+    }
+
+    /**
+     * Sets the line that is sent to a persistent process for each document,
+     * in which {@link #INPUT_FILE_TOKEN} is replaced with the document's path.
+     * The default is just the path.
+     *
+     * @param requestTemplate request line
+     * @since Apache Tika 2.0
+     */
+    public void setRequestTemplate(String requestTemplate) {
+        this.requestTemplate = requestTemplate;
+    }
+
+    public String getResponseTerminator() {
+        return responseTerminator;
+    }
+
+    /**
+     * Sets the line with which a persistent process ends its output
+     * for a document, e.g. <code>{ready}</code> for exiftool's
+     * <code>-stay_open</code> mode.
+     *
+     * @param responseTerminator terminator line
+     * @since Apache Tika 2.0
+     */
+    public void setResponseTerminator(String responseTerminator) {
+        this.responseTerminator = responseTerminator;
+    }
+
+    /**
+     * Sets how many persistent processes are kept running. Default is 1.
+     *
+     * @param numProcesses number of processes
+     * @since Apache Tika 2.0
+     */
+    public void setNumProcesses(int numProcesses) {
+        this.numProcesses = numProcesses;
+    }
+
+    /**
+     * Sets how long to wait for a persistent process' response
+     * before it is killed; it is restarted for the next document.
+     * Default is 60 seconds.
+     *
+     * @param timeoutMs timeout in milliseconds
+     * @since Apache Tika 2.0
+     */
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Stops the persistent processes, if any.  They are restarted
+     * if this parser is used again.
+     *
+     * @since Apache Tika 2.0
+     */
+    public synchronized void close() {
+        if (processPool != null) {
+            processPool.close();
+            processPool = null;
+        }
+    }
+
     /**
      * Executes the configured external command and passes the given document
      * stream as a simple XHTML document to the given SAX content handler.
@@ -192,8 +421,13 @@ public class ExternalParser extends AbstractParser {
 
         TemporaryResources tmp = new TemporaryResources();
         try {
-            parse(TikaInputStream.get(stream, tmp),
-                    xhtml, metadata, tmp);
+            if (persistentProcess) {
+                parseWithPersistentProcess(TikaInputStream.get(stream, tmp),
+                        xhtml, metadata);
+            } else {
+                parse(TikaInputStream.get(stream, tmp),
+                        xhtml, metadata, tmp);
+            }
         } finally {
             tmp.dispose();
         }
@@ -210,13 +444,7 @@ public class ExternalParser extends AbstractParser {
         File output = null;
 
         // Build our command
-        String[] cmd;
-        if (command.length == 1) {
-            cmd = command[0].split(" ");
-        } else {
-            cmd = new String[command.length];
-            System.arraycopy(command, 0, cmd, 0, command.length);
-        }
+        String[] cmd = buildCommand();
         for (int i = 0; i < cmd.length; i++) {
             if (cmd[i].indexOf(INPUT_FILE_TOKEN) != -1) {
                 cmd[i] = cmd[i].replace(INPUT_FILE_TOKEN, stream.getFile().getPath());
@@ -229,6 +457,11 @@ public class ExternalParser extends AbstractParser {
             }
         }
 
+        //claim the threads that pump stdin and stderr before the process is started
+        IOPool ioPool = getIOPool();
+        int ioThreads = inputToStdIn ? 2 : 1;
+        ioPool.claim(ioThreads);
+
         // Execute
         Process process = null;
         try {
@@ -242,8 +475,9 @@ public class ExternalParser extends AbstractParser {
         }
 
         try {
+            Future<?> input = null;
             if (inputToStdIn) {
-                sendInput(process, stream);
+                input = sendInput(ioPool.executor, process, stream);
             } else {
                 process.getOutputStream().close();
             }
@@ -251,8 +485,10 @@ public class ExternalParser extends AbstractParser {
             InputStream out = process.getInputStream();
             InputStream err = process.getErrorStream();
 
+            //stderr is pumped by the I/O executor, stdout by this thread
+            Future<?> error;
             if (hasPatterns) {
-                extractMetadata(err, metadata);
+                error = ioPool.executor.submit(() -> extractMetadata(err, metadata));
 
                 if (outputFromStdOut) {
                     extractOutput(out, xhtml);
@@ -260,19 +496,22 @@ public class ExternalParser extends AbstractParser {
                     extractMetadata(out, metadata);
                 }
             } else {
-                ignoreStream(err);
+                error = ioPool.executor.submit(() -> ignoreStreamQuietly(err));
 
                 if (outputFromStdOut) {
                     extractOutput(out, xhtml);
                 } else {
-                    ignoreStream(out);
+                    ignoreStreamQuietly(out);
                 }
             }
+            await(input);
+            await(error);
         } finally {
             try {
                 process.waitFor();
             } catch (InterruptedException ignore) {
             }
+            ioPool.release(ioThreads);
         }
 
         // Grab the output if we haven't already
@@ -306,43 +545,53 @@ public class ExternalParser extends AbstractParser {
     }
 
     /**
-     * Starts a thread that sends the contents of the given input stream
-     * to the standard input stream of the given process. Potential
+     * Sends the contents of the given input stream to the standard input
+     * stream of the given process on the I/O executor. Potential
      * exceptions are ignored, and the standard input stream is closed
      * once fully processed. Note that the given input stream is <em>not</em>
      * closed by this method.
      *
-     * @param process process
-     * @param stream  input stream
+     * @param executor I/O executor
+     * @param process  process
+     * @param stream   input stream
+     * @return the task
      */
-    private void sendInput(final Process process, final InputStream stream) {
-        Thread t = new Thread() {
-            public void run() {
-                OutputStream stdin = process.getOutputStream();
-                try {
-                    IOUtils.copy(stream, stdin);
-                } catch (IOException e) {
-                }
+    private Future<?> sendInput(ExecutorService executor, final Process process,
+                                final InputStream stream) {
+        return executor.submit(() -> {
+            try (OutputStream stdin = process.getOutputStream()) {
+                IOUtils.copy(stream, stdin);
+            } catch (IOException e) {
             }
-        };
-        t.start();
+        });
+    }
+
+    private static void await(Future<?> future) {
+        if (future == null) {
+            return;
+        }
         try {
-            t.join();
-        } catch (InterruptedException ignore) {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            //ignore, as with the streams themselves
         }
     }
 
-
     /**
-     * Starts a thread that reads and discards the contents of the
-     * standard stream of the given process. Potential exceptions
-     * are ignored, and the stream is closed once fully processed.
-     * Note: calling this starts a new thread and blocks the current(caller) thread until the new thread dies
+     * Reads and discards the contents of the standard stream of a process.
+     * Potential exceptions are ignored, and the stream is closed once fully processed.
      *
      * @param stream stream to be ignored
      */
-    private static void ignoreStream(final InputStream stream) {
-        ignoreStream(stream, true);
+    private static void ignoreStreamQuietly(InputStream stream) {
+        try {
+            IOUtils.copy(stream, NULL_OUTPUT_STREAM);
+        } catch (IOException e) {
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
     }
 
     /**
@@ -376,42 +625,106 @@ public class ExternalParser extends AbstractParser {
     }
 
     private void extractMetadata(final InputStream stream, final Metadata metadata) {
-        Thread t = new Thread() {
-            public void run() {
-                BufferedReader reader;
-                reader = new BufferedReader(new InputStreamReader(stream, UTF_8));
-                try {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        boolean consumed = false;
-                        for (Pattern p : metadataPatterns.keySet()) {
-                            Matcher m = p.matcher(line);
-                            if (m.find()) {
-                                consumed = true;
-                                if (metadataPatterns.get(p) != null &&
-                                        !metadataPatterns.get(p).equals("")) {
-                                    metadata.add(metadataPatterns.get(p), m.group(1));
-                                } else {
-                                    metadata.add(m.group(1), m.group(2));
-                                }
-                            }
-                        }
-                        if (!consumed) {
-                            ignoredLineConsumer.consume(line);
-                        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!extractMetadata(line, metadata)) {
+                    ignoredLineConsumer.consume(line);
+                }
+            }
+        } catch (IOException e) {
+            // Ignore
+        } finally {
+            IOUtils.closeQuietly(reader);
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Applies the metadata patterns to a line.  stdout and stderr
+     * may be read concurrently, so the metadata is locked.
+     *
+     * @return whether any pattern matched
+     */
+    private boolean extractMetadata(String line, Metadata metadata) {
+        boolean consumed = false;
+        for (Map.Entry<Pattern, String> e : metadataPatterns.entrySet()) {
+            Matcher m = e.getKey().matcher(line);
+            if (m.find()) {
+                consumed = true;
+                synchronized (metadata) {
+                    if (e.getValue() != null && !e.getValue().equals("")) {
+                        metadata.add(e.getValue(), m.group(1));
+                    } else {
+                        metadata.add(m.group(1), m.group(2));
                     }
-                } catch (IOException e) {
-                    // Ignore
-                } finally {
-                    IOUtils.closeQuietly(reader);
-                    IOUtils.closeQuietly(stream);
                 }
             }
-        };
-        t.start();
+        }
+        return consumed;
+    }
+
+    private String[] buildCommand() {
+        String[] cmd;
+        if (command.length == 1) {
+            cmd = command[0].split(" ");
+        } else {
+            cmd = new String[command.length];
+            System.arraycopy(command, 0, cmd, 0, command.length);
+        }
+        return cmd;
+    }
+
+    private void parseWithPersistentProcess(
+            TikaInputStream stream, XHTMLContentHandler xhtml, Metadata metadata)
+            throws IOException, SAXException, TikaException {
+        if (responseTerminator == null) {
+            throw new TikaException("A persistent process needs a response terminator");
+        }
+        boolean hasPatterns = (metadataPatterns != null && !metadataPatterns.isEmpty());
+        String request = requestTemplate.replace(INPUT_FILE_TOKEN, stream.getFile().getPath());
+        xhtml.startDocument();
+        xhtml.startElement("p");
         try {
-            t.join();
-        } catch (InterruptedException ignore) {
+            getProcessPool().requestLines(request, line -> {
+                if (line.equals(responseTerminator)) {
+                    return true;
+                }
+                if (!hasPatterns || !extractMetadata(line, metadata)) {
+                    try {
+                        xhtml.characters(line);
+                        xhtml.newline();
+                    } catch (SAXException e) {
+                        throw new SAXRuntimeException(e);
+                    }
+                }
+                return false;
+            }, timeoutMs);
+        } catch (SAXRuntimeException e) {
+            throw (SAXException) e.getCause();
+        }
+        xhtml.endElement("p");
+        xhtml.endDocument();
+    }
+
+    private synchronized PersistentProcessPool getProcessPool() throws TikaException {
+        if (processPool == null) {
+            List<String> cmd = new ArrayList<>(Arrays.asList(buildCommand()));
+            for (String arg : cmd) {
+                if (arg.contains(INPUT_FILE_TOKEN) || arg.contains(OUTPUT_FILE_TOKEN)) {
+                    throw new TikaException("The command of a persistent process can't have file tokens: "
+                            + arg);
+                }
+            }
+            processPool = new PersistentProcessPool(cmd, numProcesses);
+        }
+        return processPool;
+    }
+
+    private static class SAXRuntimeException extends RuntimeException {
+        SAXRuntimeException(SAXException e) {
+            super(e);
         }
     }
 
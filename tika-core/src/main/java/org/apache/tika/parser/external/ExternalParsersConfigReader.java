@@ -99,6 +99,7 @@ public final class ExternalParsersConfigReader implements ExternalParsersConfigR
     */
    private static ExternalParser readParser(Element parserDef) throws TikaException {
       ExternalParser parser = new ExternalParser();
+      readPersistentProcess(parserDef, parser);
 
       NodeList children = parserDef.getChildNodes();
       for(int i=0; i<children.getLength(); i++) {
@@ -130,6 +131,37 @@ public final class ExternalParsersConfigReader implements ExternalParsersConfigR
       return parser;
    }
    
+   /**
+    * Reads the persistent process settings from the attributes of the
+    *  parser element, e.g.
+    *  <code>&lt;parser persistentProcess="true" responseTerminator="{ready}"&gt;</code>
+    */
+   private static void readPersistentProcess(Element parserDef, ExternalParser parser)
+         throws TikaException {
+      if (parserDef.hasAttribute(PERSISTENT_PROCESS_ATTR)) {
+         parser.setPersistentProcess(
+               Boolean.parseBoolean(parserDef.getAttribute(PERSISTENT_PROCESS_ATTR)));
+      }
+      if (parserDef.hasAttribute(REQUEST_TEMPLATE_ATTR)) {
+         parser.setRequestTemplate(parserDef.getAttribute(REQUEST_TEMPLATE_ATTR));
+      }
+      if (parserDef.hasAttribute(RESPONSE_TERMINATOR_ATTR)) {
+         parser.setResponseTerminator(parserDef.getAttribute(RESPONSE_TERMINATOR_ATTR));
+      }
+      try {
+         if (parserDef.hasAttribute(NUM_PROCESSES_ATTR)) {
+            parser.setNumProcesses(
+                  Integer.parseInt(parserDef.getAttribute(NUM_PROCESSES_ATTR).trim()));
+         }
+         if (parserDef.hasAttribute(TIMEOUT_MS_ATTR)) {
+            parser.setTimeoutMs(
+                  Long.parseLong(parserDef.getAttribute(TIMEOUT_MS_ATTR).trim()));
+         }
+      } catch (NumberFormatException e) {
+         throw new TikaException("Invalid parser configuration", e);
+      }
+   }
+
    private static Set<MediaType> readMimeTypes(Element mimeTypes) {
       Set<MediaType> types = new HashSet<MediaType>();
       
@@ -40,4 +40,14 @@ public interface ExternalParsersConfigReaderMetKeys {
     String METADATA_MATCH_TAG = "match";
     
     String METADATA_KEY_ATTR = "key";
+
+    String PERSISTENT_PROCESS_ATTR = "persistentProcess";
+
+    String REQUEST_TEMPLATE_ATTR = "requestTemplate";
+
+    String RESPONSE_TERMINATOR_ATTR = "responseTerminator";
+
+    String NUM_PROCESSES_ATTR = "numProcesses";
+
+    String TIMEOUT_MS_ATTR = "timeoutMs";
 }
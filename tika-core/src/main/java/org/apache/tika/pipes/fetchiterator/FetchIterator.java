@@ -21,9 +21,13 @@ import org.apache.tika.config.Initializable;
 import org.apache.tika.config.InitializableProblemHandler;
 import org.apache.tika.config.Param;
 import org.apache.tika.exception.TikaConfigException;
+import org.apache.tika.io.CheckpointLog;
+import org.apache.tika.pipes.fetcher.FetchId;
 import org.apache.tika.pipes.fetcher.FetchIdMetadataPair;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
@@ -35,6 +39,10 @@ import java.util.concurrent.TimeoutException;
  * issues.  Concrete classes implement the blocking {@link #enqueue()}.
  * <p>
  * This must be "called", obviously...
+ * <p>
+ * If a {@link #setCheckpointPath(String) checkpointPath} is specified,
+ * fetch ids that were marked as completed via {@link #markCompleted(FetchId)}
+ * in an earlier run are not added to the queue.
  */
 public abstract class FetchIterator implements Callable<Integer>, Initializable {
 
@@ -49,6 +57,10 @@ public abstract class FetchIterator implements Callable<Integer>, Initializable
     private int queueSize = DEFAULT_QUEUE_SIZE;
     private String fetcherName;
     private int added = 0;
+    private int skippedCompleted = 0;
+    private Path checkpointPath = null;
+    private CheckpointLog checkpointLog = null;
+
     public FetchIterator() {
 
     }
@@ -64,9 +76,62 @@ public abstract class FetchIterator implements Callable<Integer>, Initializable
     public ArrayBlockingQueue<FetchIdMetadataPair> init(int numConsumers) {
         this.queue = new ArrayBlockingQueue<>(queueSize);
         this.numConsumers = numConsumers;
+        if (checkpointPath != null && checkpointLog == null) {
+            try {
+                checkpointLog = new CheckpointLog(checkpointPath);
+            } catch (IOException e) {
+                throw new IllegalStateException("Couldn't open checkpoint log: " +
+                        checkpointPath.toAbsolutePath(), e);
+            }
+        }
         return queue;
     }
 
+    /**
+     * Path to the checkpoint log that records which fetch ids have
+     * been completed so that a restarted run can skip them.
+     *
+     * @param checkpointPath
+     */
+    @Field
+    public void setCheckpointPath(String checkpointPath) {
+        this.checkpointPath = Paths.get(checkpointPath);
+    }
+
+    /**
+     * Consumers should call this after a fetch id has been successfully
+     * processed.  This is a no-op if there is no checkpoint log.
+     *
+     * @param fetchId id to record as completed
+     * @throws IOException if the checkpoint log couldn't be written
+     */
+    public void markCompleted(FetchId fetchId) throws IOException {
+        if (checkpointLog != null) {
+            checkpointLog.markCompleted(getCheckpointKey(fetchId));
+        }
+    }
+
+    /**
+     * Forces the checkpoint log to disk and closes it.  Call this
+     * after all consumers have finished.
+     *
+     * @throws IOException
+     */
+    public void closeCheckpointLog() throws IOException {
+        if (checkpointLog != null) {
+            checkpointLog.close();
+        }
+    }
+
+    /**
+     *
+     * @return number of fetch ids that were skipped because they were
+     * completed in an earlier run
+     */
+    public int getSkippedCompleted() {
+        return skippedCompleted;
+    }
+
     @Field
     public void setFetcherName(String fetcherName) {
         this.fetcherName = fetcherName;
@@ -107,6 +172,11 @@ public abstract class FetchIterator implements Callable<Integer>, Initializable
 
     protected void tryToAdd(FetchIdMetadataPair p) throws InterruptedException, TimeoutException {
         if (p != COMPLETED_SEMAPHORE) {
+            if (checkpointLog != null &&
+                    checkpointLog.isCompleted(getCheckpointKey(p.getFetchId()))) {
+                skippedCompleted++;
+                return;
+            }
             added++;
         }
         boolean offered = queue.offer(p, maxWaitMs, TimeUnit.MILLISECONDS);
@@ -125,6 +195,10 @@ public abstract class FetchIterator implements Callable<Integer>, Initializable
         //no-op
     }
 
+    private static String getCheckpointKey(FetchId fetchId) {
+        return fetchId.getFetcherName() + ":" + fetchId.getFetchKey();
+    }
+
     protected static void mustNotBeEmpty(String paramName, String paramValue) {
         if (paramValue == null || paramValue.trim().equals("")) {
             throw new IllegalArgumentException("parameter '"+
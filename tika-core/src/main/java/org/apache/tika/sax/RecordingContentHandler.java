@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Records element and character events so that they can be replayed to
+ * another handler later.  Parsers that parse embedded documents concurrently
+ * record the output of each one, and replay them in document order.
+ * Other events, e.g. {@link #startDocument()}, are ignored.
+ *
+ * @since Apache Tika 2.0
+ */
+public class RecordingContentHandler extends DefaultHandler {
+
+    private static final int START = 0;
+    private static final int END = 1;
+    private static final int CHARACTERS = 2;
+    private static final int WHITESPACE = 3;
+
+    private final List<Object[]> events = new ArrayList<>();
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) {
+        events.add(new Object[]{START, uri, localName, qName, new AttributesImpl(atts)});
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        events.add(new Object[]{END, uri, localName, qName});
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        events.add(new Object[]{CHARACTERS, new String(ch, start, length)});
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        events.add(new Object[]{WHITESPACE, new String(ch, start, length)});
+    }
+
+    /**
+     * Writes the recorded events to the given handler, in the order they were recorded.
+     *
+     * @param handler handler to write to
+     * @throws SAXException if the handler fails
+     */
+    public void replay(ContentHandler handler) throws SAXException {
+        for (Object[] event : events) {
+            switch ((Integer) event[0]) {
+                case START:
+                    handler.startElement((String) event[1], (String) event[2],
+                            (String) event[3], (Attributes) event[4]);
+                    break;
+                case END:
+                    handler.endElement((String) event[1], (String) event[2], (String) event[3]);
+                    break;
+                case CHARACTERS:
+                    char[] chars = ((String) event[1]).toCharArray();
+                    handler.characters(chars, 0, chars.length);
+                    break;
+                default:
+                    char[] ws = ((String) event[1]).toCharArray();
+                    handler.ignorableWhitespace(ws, 0, ws.length);
+                    break;
+            }
+        }
+    }
+}
@@ -96,8 +96,43 @@ public class SafeContentHandler extends ContentHandlerDecorator {
         }
     };
 
+    /**
+     * Declaring class of {@link #isInvalid(int)}, per handler class.
+     */
+    private static final ClassValue<Class<?>> IS_INVALID_DECLARED_BY = new ClassValue<Class<?>>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("isInvalid", int.class);
+                    return c;
+                } catch (NoSuchMethodException e) {
+                    //keep looking
+                }
+            }
+            return SafeContentHandler.class;
+        }
+    };
+
+    /**
+     * Whether {@link #isInvalid(int)} is one of the definitions in this
+     * package, so that {@link #filter(char[], int, int, Output)} can evaluate
+     * it inline, one char at a time, instead of calling it for every code point.
+     */
+    private final boolean inlineValidation;
+
+    /**
+     * Whether the C1 control characters U+007F to U+009F are invalid too,
+     * as they are in {@link XHTMLContentHandler}.
+     */
+    private final boolean c1Invalid;
+
     public SafeContentHandler(ContentHandler handler) {
         super(handler);
+        Class<?> declaredBy = IS_INVALID_DECLARED_BY.get(getClass());
+        this.inlineValidation = declaredBy == SafeContentHandler.class
+                || declaredBy == XHTMLContentHandler.class;
+        this.c1Invalid = declaredBy == XHTMLContentHandler.class;
     }
 
     /**
@@ -114,6 +149,58 @@ public class SafeContentHandler extends ContentHandlerDecorator {
      */
     private void filter(char[] ch, int start, int length, Output output)
             throws SAXException {
+        if (!inlineValidation) {
+            filterCodePoints(ch, start, length, output);
+            return;
+        }
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            char c = ch[i];
+            if (c >= 0x20 && c < 0x7F) {
+                continue;
+            }
+            if (isInvalidChar(ch, i, end, c)) {
+                // Output any preceding valid characters and the replacement
+                if (i > start) {
+                    output.write(ch, start, i - start);
+                }
+                writeReplacement(output);
+                start = i + 1;
+            } else if (Character.isHighSurrogate(c)) {
+                //skip the low surrogate of the valid pair
+                i++;
+            }
+        }
+
+        // Output any remaining valid characters
+        output.write(ch, start, end - start);
+    }
+
+    /**
+     * Inline equivalent of {@link #isInvalid(int)} for the definitions in this package.
+     * A surrogate is valid if it is the high surrogate of a pair.
+     */
+    private boolean isInvalidChar(char[] ch, int i, int end, char c) {
+        if (c < 0x20) {
+            return c != 0x09 && c != 0x0A && c != 0x0D;
+        } else if (c < 0xA0) {
+            return c1Invalid;
+        } else if (c < 0xD800) {
+            return false;
+        } else if (c < 0xE000) {
+            return !(Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(ch[i + 1]));
+        } else {
+            return c > 0xFFFD;
+        }
+    }
+
+    /**
+     * Same as {@link #filter(char[], int, int, Output)}, calling
+     * {@link #isInvalid(int)} for every code point.
+     */
+    private void filterCodePoints(char[] ch, int start, int length, Output output)
+            throws SAXException {
         int end = start + length;
 
         int i = start;
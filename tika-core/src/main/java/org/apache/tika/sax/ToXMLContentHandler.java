@@ -35,6 +35,11 @@ import org.xml.sax.SAXException;
  */
 public class ToXMLContentHandler extends ToTextContentHandler {
 
+    private static final char[] LT = "&lt;".toCharArray();
+    private static final char[] GT = "&gt;".toCharArray();
+    private static final char[] AMP = "&amp;".toCharArray();
+    private static final char[] QUOT = "&quot;".toCharArray();
+
     private static class ElementInfo {
 
         private final ElementInfo parent;
@@ -84,6 +89,11 @@ public class ToXMLContentHandler extends ToTextContentHandler {
 
     private ElementInfo currentElement;
 
+    /**
+     * Reused for the markup written by {@link #write(char)} and {@link #write(String)}.
+     */
+    private char[] buffer = new char[64];
+
     /**
      * Creates an XML serializer that writes to the given byte stream
      * using the given character encoding.
@@ -216,7 +226,8 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @throws SAXException if the character could not be written
      */
     protected void write(char ch) throws SAXException {
-        super.characters(new char[] { ch }, 0, 1);
+        buffer[0] = ch;
+        super.characters(buffer, 0, 1);
     }
 
     /**
@@ -226,7 +237,12 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @throws SAXException if the character string could not be written
      */
     protected void write(String string) throws SAXException {
-        super.characters(string.toCharArray(), 0, string.length());
+        int length = string.length();
+        if (length > buffer.length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        string.getChars(0, length, buffer, 0);
+        super.characters(buffer, 0, length);
     }
 
     /**
@@ -235,22 +251,23 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @param ch character array
      * @param from start position in the array
      * @param to end position in the array
-     * @param entity entity code
+     * @param entity entity, including the leading '&amp;' and trailing ';'
      * @return next position in the array,
      *         after the characters plus one entity
      * @throws SAXException if the characters could not be written
      */
-    private int writeCharsAndEntity(char[] ch, int from, int to, String entity)
+    private int writeCharsAndEntity(char[] ch, int from, int to, char[] entity)
             throws SAXException {
-        super.characters(ch, from, to - from);
-        write('&');
-        write(entity);
-        write(';');
+        if (to > from) {
+            super.characters(ch, from, to - from);
+        }
+        super.characters(entity, 0, entity.length);
         return to + 1;
     }
 
     /**
      * Writes the given characters with XML meta characters escaped.
+     * Runs of characters that need no escaping are written in bulk.
      *
      * @param ch character array
      * @param from start position in the array
@@ -263,14 +280,18 @@ public class ToXMLContentHandler extends ToTextContentHandler {
             throws SAXException {
         int pos = from;
         while (pos < to) {
-            if (ch[pos] == '<') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "lt");
-            } else if (ch[pos] == '>') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "gt");
-            } else if (ch[pos] == '&') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "amp");
-            } else if (attribute && ch[pos] == '"') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "quot");
+            char c = ch[pos];
+            //all the meta characters are below '?', which most text is above
+            if (c > '>') {
+                pos++;
+            } else if (c == '<') {
+                from = pos = writeCharsAndEntity(ch, from, pos, LT);
+            } else if (c == '>') {
+                from = pos = writeCharsAndEntity(ch, from, pos, GT);
+            } else if (c == '&') {
+                from = pos = writeCharsAndEntity(ch, from, pos, AMP);
+            } else if (attribute && c == '"') {
+                from = pos = writeCharsAndEntity(ch, from, pos, QUOT);
             } else {
                 pos++;
             }
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small pool of long-lived external processes that answer requests
+ * line by line: a request is written as one line to a process' stdin,
+ * and its response is read from stdout, either as the next line that the
+ * caller's predicate accepts (lines that aren't accepted, e.g. late responses
+ * to requests that timed out, are skipped), or as all lines up to one that
+ * the caller's {@link LineHandler} recognizes as the end of the response.
+ * <p>
+ * Processes are started when they are first needed.  A process that
+ * doesn't respond within the timeout is killed, and a process that has
+ * died is restarted on the next request.  Anything the processes write
+ * to stderr is logged at debug level.
+ * <p>
+ * The processes are stopped by {@link #close()}.  Once a process has been
+ * started, a JVM shutdown hook also closes the pool, so that processes
+ * aren't left behind by owners that are never closed.
+ * <p>
+ * This class is thread safe; each process handles one request at a time.
+ *
+ * @since Apache Tika 2.0
+ */
+public class PersistentProcessPool implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PersistentProcessPool.class);
+
+    //marks the end of a process' stdout
+    private static final String EOF = new String("EOF");
+
+    private final List<String> command;
+    private final BlockingQueue<Worker> idle;
+    private final List<Worker> workers = new ArrayList<>();
+    private final AtomicInteger starts = new AtomicInteger();
+    private volatile boolean closed = false;
+    private Thread shutdownHook;
+
+    /**
+     * @param command command line of the processes
+     * @param size    number of processes
+     */
+    public PersistentProcessPool(List<String> command, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be > 0: " + size);
+        }
+        this.command = new ArrayList<>(command);
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            Worker worker = new Worker();
+            workers.add(worker);
+            idle.add(worker);
+        }
+    }
+
+    /**
+     * @param request    request, must not contain line breaks
+     * @param isResponse whether a line from stdout is the response to this request
+     * @param timeoutMs  how long to wait for a process and its response
+     * @return the response
+     * @throws IOException if the process couldn't be started, or it died or
+     *                     timed out (with a {@link TimeoutException} as the cause)
+     */
+    public String request(String request, Predicate<String> isResponse, long timeoutMs)
+            throws IOException {
+        String[] response = new String[1];
+        requestLines(request, line -> {
+            if (isResponse.test(line)) {
+                response[0] = line;
+                return true;
+            }
+            LOG.debug("skipping unexpected line: {}", line);
+            return false;
+        }, timeoutMs);
+        return response[0];
+    }
+
+    /**
+     * Sends a request whose response may span several lines.  Each line
+     * from stdout is handed to the handler as soon as it arrives, until
+     * the handler returns <code>true</code> for the last line of the response.
+     * If the handler throws an exception, the process is killed, because
+     * the rest of the response can't be told apart from the next one.
+     *
+     * @param request   request, must not contain line breaks
+     * @param handler   consumes a line and returns whether it completed the response
+     * @param timeoutMs how long to wait for a process and the complete response
+     * @throws IOException if the process couldn't be started, or it died or
+     *                     timed out (with a {@link TimeoutException} as the cause)
+     */
+    public void requestLines(String request, LineHandler handler, long timeoutMs)
+            throws IOException {
+        if (request.indexOf('\n') > -1 || request.indexOf('\r') > -1) {
+            throw new IllegalArgumentException("request must not contain line breaks");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Worker worker;
+        try {
+            worker = idle.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for a process");
+        }
+        if (worker == null) {
+            throw new IOException(new TimeoutException("timed out waiting for a process"));
+        }
+        try {
+            if (closed) {
+                throw new IOException("pool is closed");
+            }
+            worker.request(request, handler, deadline);
+        } finally {
+            idle.add(worker);
+        }
+    }
+
+    /**
+     * @return how many processes have been started, including restarts
+     */
+    public int getStarts() {
+        return starts.get();
+    }
+
+    /**
+     * Stops all processes.  Requests that are in progress fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Worker worker : workers) {
+            worker.destroy();
+        }
+        removeShutdownHook();
+    }
+
+    private synchronized void addShutdownHook() {
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(this::close, "tika-persistent-process-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    private synchronized void removeShutdownHook() {
+        if (shutdownHook == null) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            //the JVM is already shutting down
+        }
+        shutdownHook = null;
+    }
+
+    private class Worker {
+        private Process process;
+        private Writer stdin;
+        private BlockingQueue<String> lines;
+
+        private void request(String request, LineHandler handler, long deadline)
+                throws IOException {
+            startIfNotAlive();
+            try {
+                write(request);
+            } catch (IOException e) {
+                //the process may have died since the last request
+                LOG.debug("restarting process after failed write", e);
+                destroy();
+                start();
+                write(request);
+            }
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    destroy();
+                    throw new IOException(new TimeoutException("timed out"));
+                }
+                String line;
+                try {
+                    line = lines.poll(remaining, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    destroy();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted waiting for a response");
+                }
+                if (line == EOF) {
+                    destroy();
+                    throw new IOException("process exited before responding");
+                } else if (line != null) {
+                    boolean done;
+                    try {
+                        done = handler.handle(line);
+                    } catch (RuntimeException e) {
+                        destroy();
+                        throw e;
+                    }
+                    if (done) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void write(String request) throws IOException {
+            stdin.write(request);
+            stdin.write('\n');
+            stdin.flush();
+        }
+
+        private synchronized void startIfNotAlive() throws IOException {
+            if (process == null || !process.isAlive()) {
+                start();
+            }
+        }
+
+        /**
+         * Checks under the same lock as {@link #destroy()}, so that a process
+         * can't be started after {@link PersistentProcessPool#close()} has
+         * destroyed this worker's process.
+         */
+        private synchronized void start() throws IOException {
+            if (closed) {
+                throw new IOException("pool is closed");
+            }
+            addShutdownHook();
+            process = new ProcessBuilder(command).start();
+            starts.incrementAndGet();
+            stdin = new OutputStreamWriter(process.getOutputStream(), UTF_8);
+            lines = new LinkedBlockingQueue<>();
+            final BlockingQueue<String> queue = lines;
+            startDaemon("stdout", process.getInputStream(), queue::add, () -> queue.add(EOF));
+            startDaemon("stderr", process.getErrorStream(), line -> LOG.debug("{}: {}", command.get(0), line),
+                    () -> { });
+        }
+
+        private synchronized void destroy() {
+            if (process == null) {
+                return;
+            }
+            try {
+                stdin.close();
+            } catch (IOException e) {
+                //swallow
+            }
+            process.destroyForcibly();
+            process = null;
+        }
+    }
+
+    /**
+     * Consumes the lines of a response
+     */
+    public interface LineHandler {
+        /**
+         * @param line line from stdout
+         * @return whether this was the last line of the response
+         */
+        boolean handle(String line);
+    }
+
+    private void startDaemon(String name, InputStream is, Consumer<String> consumer, Runnable onEof) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    consumer.accept(line);
+                }
+            } catch (IOException e) {
+                //process was destroyed
+            } finally {
+                onEof.run();
+            }
+        }, "tika-persistent-process-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
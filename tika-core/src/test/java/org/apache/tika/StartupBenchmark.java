@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.config.ServiceLoader;
+import org.apache.tika.config.ServiceSnapshot;
+import org.apache.tika.detect.Detector;
+import org.apache.tika.mime.MimeTypes;
+import org.apache.tika.mime.MimeTypesFactory;
+import org.apache.tika.mime.MimeTypesSnapshot;
+import org.apache.tika.parser.Parser;
+
+/**
+ * Compares loading the media type registry and the service provider lists
+ * from tika-mimetypes.xml and META-INF/services with loading them from
+ * their binary snapshots.  The first round is reported separately, as
+ * that's what a freshly started (e.g. restarted forked) JVM pays.
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        URL xml = MimeTypes.class.getResource("tika-mimetypes.xml");
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (InputStream is = xml.openStream()) {
+            MimeTypesSnapshot.write(is, MimeTypesSnapshot.fingerprint(xml), bos);
+        }
+        byte[] snapshot = bos.toByteArray();
+
+        Path services = Files.createTempFile("tika-service-snapshot", "");
+        try {
+            try (java.io.OutputStream os = Files.newOutputStream(services)) {
+                ServiceSnapshot.collect(new ServiceLoader(), Parser.class, Detector.class).write(os);
+            }
+
+            long[] xmlTimes = new long[rounds];
+            long[] snapshotTimes = new long[rounds];
+            long[] scanTimes = new long[rounds];
+            long[] serviceSnapshotTimes = new long[rounds];
+            for (int i = 0; i < rounds; i++) {
+                //the snapshot goes first, so that it pays for loading the registry's classes
+                long start = System.nanoTime();
+                try (InputStream is = new ByteArrayInputStream(snapshot)) {
+                    MimeTypesSnapshot.read(is, MimeTypesSnapshot.fingerprint(xml));
+                }
+                snapshotTimes[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                MimeTypesFactory.create(xml);
+                xmlTimes[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                new ServiceLoader().loadStaticServiceProviders(Parser.class);
+                scanTimes[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                try (InputStream is = Files.newInputStream(services)) {
+                    ServiceSnapshot.read(is).getProviders(Parser.class);
+                }
+                serviceSnapshotTimes[i] = System.nanoTime() - start;
+            }
+            System.out.printf(Locale.ROOT, "snapshot size: %d bytes (xml: %d bytes)%n",
+                    snapshot.length, IOUtils.toByteArray(xml).length);
+            report("mimetypes from xml", xmlTimes);
+            report("mimetypes from snapshot", snapshotTimes);
+            report("load parsers from META-INF/services", scanTimes);
+            report("parser names from snapshot", serviceSnapshotTimes);
+        } finally {
+            Files.delete(services);
+        }
+    }
+
+    private static void report(String name, long[] times) {
+        long total = 0;
+        for (int i = 1; i < times.length; i++) {
+            total += times[i];
+        }
+        System.out.printf(Locale.ROOT, "%-40s first: %8.2f ms, then avg: %8.2f ms%n", name,
+                times[0] / 1e6, times.length > 1 ? total / 1e6 / (times.length - 1) : 0.0);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tika.detect.Detector;
+import org.apache.tika.parser.Parser;
+import org.junit.Test;
+
+public class ServiceSnapshotTest {
+
+    @Test
+    public void testSnapshotReplacesScan() throws Exception {
+        ServiceLoader loader = new ServiceLoader();
+        List<String> scanned = loader.scanStaticServiceProviders(Parser.class);
+
+        Map<String, List<String>> providers = new HashMap<>();
+        providers.put(Parser.class.getName(), Collections.singletonList(DummyParser.class.getName()));
+        Path path = Files.createTempFile("tika-service-snapshot", "");
+        String previous = System.getProperty(ServiceSnapshot.SNAPSHOT_PROPERTY);
+        try {
+            try (OutputStream os = Files.newOutputStream(path)) {
+                new ServiceSnapshot(providers).write(os);
+            }
+            System.setProperty(ServiceSnapshot.SNAPSHOT_PROPERTY, path.toString());
+            assertEquals(Collections.singletonList(DummyParser.class.getName()),
+                    loader.identifyStaticServiceProviders(Parser.class));
+            //interfaces that aren't in the snapshot are still scanned
+            assertEquals(loader.scanStaticServiceProviders(Detector.class),
+                    loader.identifyStaticServiceProviders(Detector.class));
+        } finally {
+            if (previous == null) {
+                System.clearProperty(ServiceSnapshot.SNAPSHOT_PROPERTY);
+            } else {
+                System.setProperty(ServiceSnapshot.SNAPSHOT_PROPERTY, previous);
+            }
+            Files.delete(path);
+        }
+        assertEquals(scanned, loader.identifyStaticServiceProviders(Parser.class));
+        assertNull(ServiceSnapshot.getDefault());
+    }
+}
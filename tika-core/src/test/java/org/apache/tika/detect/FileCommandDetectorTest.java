@@ -20,18 +20,45 @@ import org.apache.tika.config.TikaConfig;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.utils.SystemUtils;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
 import static org.junit.Assume.assumeTrue;
 
 public class FileCommandDetectorTest {
 
     private static Detector DETECTOR;
 
+    //stands in for file(1): answers each path on stdin with "path: text/x-stub",
+    //and hangs once if the .hang file exists
+    private static final String STUB =
+            "#!/bin/sh\n" +
+            "if [ \"$1\" = \"-v\" ]; then echo stub; exit 0; fi\n" +
+            "echo started >> \"$0.starts\"\n" +
+            "while IFS= read -r line; do\n" +
+            "  if [ -f \"$0.hang\" ]; then rm \"$0.hang\"; sleep 30; fi\n" +
+            "  echo \"$line: text/x-stub\"\n" +
+            "done\n";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @BeforeClass
     public static void setUp() throws Exception {
         try (InputStream is = TikaConfig.class.getResourceAsStream("FileCommandDetector.xml")) {
@@ -57,4 +84,40 @@ public class FileCommandDetectorTest {
             assertEquals(MediaType.text("xml"), DETECTOR.detect(is, new Metadata()));
         }
     }
+
+    @Test
+    public void testPersistentProcess() throws Exception {
+        assumeFalse(SystemUtils.IS_OS_WINDOWS);
+        Path stub = tmp.getRoot().toPath().resolve("file-stub");
+        Files.write(stub, STUB.getBytes(StandardCharsets.UTF_8));
+        Files.setPosixFilePermissions(stub, PosixFilePermissions.fromString("rwxr-xr-x"));
+        Path starts = tmp.getRoot().toPath().resolve("file-stub.starts");
+
+        FileCommandDetector detector = new FileCommandDetector();
+        detector.setFilePath(stub.toString());
+        detector.setUsePersistentProcess(true);
+        detector.setTimeoutMs(2000);
+        try {
+            for (int i = 0; i < 20; i++) {
+                assertEquals(MediaType.text("x-stub"), detector.detect(
+                        new ByteArrayInputStream(("doc " + i).getBytes(StandardCharsets.UTF_8)),
+                        new Metadata()));
+            }
+            assertEquals(1, Files.readAllLines(starts).size());
+
+            //the hung process is killed, and restarted for the next document
+            Files.createFile(tmp.getRoot().toPath().resolve("file-stub.hang"));
+            try {
+                detector.detect(new ByteArrayInputStream(new byte[10]), new Metadata());
+                fail("should have timed out");
+            } catch (IOException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            assertEquals(MediaType.text("x-stub"),
+                    detector.detect(new ByteArrayInputStream(new byte[10]), new Metadata()));
+            assertEquals(2, Files.readAllLines(starts).size());
+        } finally {
+            detector.close();
+        }
+    }
 }
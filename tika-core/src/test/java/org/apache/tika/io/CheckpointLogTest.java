@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+public class CheckpointLogTest {
+
+    @Test
+    public void testResume() throws Exception {
+        Path dir = Files.createTempDirectory("tika-checkpoint-test");
+        Path log = dir.resolve("checkpoint.log");
+        try {
+            try (CheckpointLog checkpointLog = new CheckpointLog(log, 7, -1)) {
+                for (int i = 0; i < 10000; i++) {
+                    checkpointLog.markCompleted("file-" + i);
+                }
+                //duplicates are not recorded twice
+                checkpointLog.markCompleted("file-0");
+                assertEquals(10000, checkpointLog.size());
+            }
+            assertEquals(10000 * 8, Files.size(log));
+
+            //simulate a torn write
+            Files.write(log, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+            try (CheckpointLog checkpointLog = new CheckpointLog(log)) {
+                assertEquals(10000, checkpointLog.getLoaded());
+                for (int i = 0; i < 10000; i++) {
+                    assertTrue(checkpointLog.isCompleted("file-" + i));
+                }
+                assertFalse(checkpointLog.isCompleted("file-10000"));
+                checkpointLog.markCompleted("file-10000");
+            }
+            try (CheckpointLog checkpointLog = new CheckpointLog(log)) {
+                assertEquals(10001, checkpointLog.getLoaded());
+                assertTrue(checkpointLog.isCompleted("file-10000"));
+            }
+        } finally {
+            Files.deleteIfExists(log);
+            Files.delete(dir);
+        }
+    }
+}
@@ -17,18 +17,24 @@
 package org.apache.tika.io;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.tika.metadata.Metadata;
@@ -139,4 +145,54 @@ public class TikaInputStreamTest {
                 metadata.get(Metadata.CONTENT_LENGTH));
     }
 
+    @Test
+    public void testSeekableByteChannelInMemory() throws Exception {
+        byte[] data = new byte[200000];
+        new Random(42).nextBytes(data);
+        ByteBufferPool pool = new ByteBufferPool(4096, 100);
+        SpoolingStrategy strategy = new SpoolingStrategy();
+        strategy.setBufferPool(pool);
+        TikaInputStream stream = TikaInputStream.get(new ByteArrayInputStream(data));
+        stream.setSpoolingStrategy(strategy);
+        try (SeekableByteChannel channel = stream.getSeekableByteChannel()) {
+            assertFalse(stream.hasFile());
+            assertEquals(data.length, channel.size());
+            ByteBuffer buffer = ByteBuffer.allocate(10000);
+            channel.position(123457);
+            assertEquals(10000, channel.read(buffer));
+            assertArrayEquals(Arrays.copyOfRange(data, 123457, 133457), buffer.array());
+        }
+        //the stream can still be read from the start
+        assertArrayEquals(data, IOUtils.toByteArray(stream));
+        assertEquals(0, pool.getPooled());
+        stream.close();
+        assertEquals(49, pool.getPooled());
+    }
+
+    @Test
+    public void testSeekableByteChannelOverThreshold() throws Exception {
+        byte[] data = new byte[200000];
+        new Random(42).nextBytes(data);
+        SpoolingStrategy strategy = new SpoolingStrategy();
+        strategy.setMemoryThreshold(100000);
+        strategy.setBufferPool(new ByteBufferPool(4096, 100));
+        for (boolean mapFiles : new boolean[]{false, true}) {
+            strategy.setMapFiles(mapFiles);
+            //length unknown, so it's only found to be too long while reading it into memory
+            try (TikaInputStream stream = TikaInputStream.get(new ByteArrayInputStream(data))) {
+                stream.setSpoolingStrategy(strategy);
+                try (SeekableByteChannel channel = stream.getSeekableByteChannel()) {
+                    assertTrue(stream.hasFile());
+                    assertEquals(data.length, channel.size());
+                    ByteBuffer buffer = ByteBuffer.allocate(data.length);
+                    while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                        //keep reading
+                    }
+                    assertArrayEquals(data, buffer.array());
+                }
+                assertArrayEquals(data, Files.readAllBytes(stream.getPath()));
+                assertArrayEquals(data, IOUtils.toByteArray(stream));
+            }
+        }
+    }
 }
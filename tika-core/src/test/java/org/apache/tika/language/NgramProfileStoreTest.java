@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.language;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.language.detect.LanguageResult;
+import org.junit.Test;
+
+public class NgramProfileStoreTest {
+
+    private static final String[] languages = new String[] {
+        "da", "de", "en", "es", "fi", "fr", "it", "lt", "nl", "pt", "sv"
+    };
+
+    @Test
+    public void testConvertAndMap() throws Exception {
+        Map<String, Long> english;
+        try (InputStream stream = LanguageIdentifier.class.getResourceAsStream("en.ngp")) {
+            english = NgramProfileStore.readNgp(new InputStreamReader(stream, UTF_8));
+        }
+        Path dir = Files.createTempDirectory("tika-ngram-store-test");
+        Path file = dir.resolve("profiles.bin");
+        try {
+            NgramProfileStore.main(new String[]{file.toString()});
+            NgramProfileStore store = NgramProfileStore.open(file);
+            try {
+                assertSame(store, NgramProfileStore.open(file));
+                //still mapped for the first caller
+                store.close();
+                for (Map.Entry<String, Long> e : english.entrySet()) {
+                    assertEquals(e.getKey(), e.getValue().longValue(),
+                            store.getCount("en", e.getKey()));
+                }
+                assertEquals(0, store.getCount("en", "qqq"));
+
+                for (String language : languages) {
+                    NgramProfileLanguageDetector detector = new NgramProfileLanguageDetector(store);
+                    ProfilingWriter writer = new ProfilingWriter();
+                    String text = getText(language);
+                    writer.write(text);
+                    detector.addText(text);
+                    LanguageResult result = detector.detect();
+                    assertEquals(language, result.getLanguage());
+
+                    //same distance as the in-heap profiles
+                    LanguageProfile profile = writer.getProfile();
+                    LanguageProfile languageProfile = new LanguageProfile();
+                    try (InputStream stream = LanguageIdentifier.class.getResourceAsStream(language + ".ngp")) {
+                        for (Map.Entry<String, Long> e : NgramProfileStore.readNgp(
+                                new InputStreamReader(stream, UTF_8)).entrySet()) {
+                            languageProfile.add(e.getKey(), e.getValue());
+                        }
+                    }
+                    assertEquals(profile.distance(languageProfile),
+                            detector.distance(store.getLanguageIndex(language)), 0.0001);
+                }
+            } finally {
+                store.close();
+            }
+            //unmapped and dropped from the cache once the last caller closed it
+            NgramProfileStore reopened = NgramProfileStore.open(file);
+            try {
+                assertNotSame(store, reopened);
+            } finally {
+                reopened.close();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void testRestrictLanguages() throws Exception {
+        NgramProfileLanguageDetector detector =
+                new NgramProfileLanguageDetector(NgramProfileStore.getDefault());
+        detector.loadModels(new HashSet<>(Collections.singletonList("de")));
+        detector.addText(getText("en"));
+        assertEquals("de", detector.detect().getLanguage());
+        detector.reset();
+        detector.loadModels();
+        detector.addText(getText("en"));
+        assertEquals("en", detector.detect().getLanguage());
+    }
+
+    private static String getText(String language) throws Exception {
+        try (InputStream stream = LanguageIdentifierTest.class.getResourceAsStream(language + ".test")) {
+            return IOUtils.toString(stream, UTF_8);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.language.detect;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.language.LanguageIdentifierTest;
+import org.apache.tika.language.NgramProfileLanguageDetector;
+import org.apache.tika.language.NgramProfileStore;
+import org.junit.Test;
+
+public class LanguageHandlerTest {
+
+    @Test
+    public void testAdaptiveStopsEarly() throws Exception {
+        String english = getText("en");
+        CountingDetector detector = new CountingDetector();
+        detector.setConfidenceMargin(0.01f).setSampleSpanLength(500);
+        LanguageHandler handler = new LanguageHandler(detector);
+        char[] chars = english.toCharArray();
+        for (int i = 0; i < 100; i++) {
+            handler.characters(chars, 0, chars.length);
+        }
+        assertTrue(handler.isDecided());
+        assertEquals("en", handler.getLanguage().getLanguage());
+        assertTrue("added " + detector.added, detector.added < 10 * chars.length);
+    }
+
+    @Test
+    public void testSamplesEndOfDocument() throws Exception {
+        char[] german = getText("de").substring(0, 150).toCharArray();
+        char[] english = getText("en").toCharArray();
+        CountingDetector detector = new CountingDetector();
+        //unreachable margin, so that sampling never stops early
+        detector.setConfidenceMargin(10.0f).setSampleSpanLength(100);
+        LanguageHandler handler = new LanguageHandler(detector);
+        handler.characters(german, 0, german.length);
+        for (int i = 0; i < 20; i++) {
+            handler.characters(english, 0, english.length);
+        }
+        assertFalse(handler.isDecided());
+        long before = detector.added;
+        assertEquals("en", handler.getLanguage().getLanguage());
+        //the end sample was fed
+        assertEquals(before + 100, detector.added);
+        assertTrue(detector.added < german.length + 20 * english.length);
+    }
+
+    @Test
+    public void testNonAdaptiveFeedsEverything() throws Exception {
+        char[] english = getText("en").toCharArray();
+        CountingDetector detector = new CountingDetector();
+        LanguageHandler handler = new LanguageHandler(detector);
+        for (int i = 0; i < 3; i++) {
+            handler.characters(english, 0, english.length);
+        }
+        assertFalse(handler.isDecided());
+        assertEquals(3 * english.length, detector.added);
+        assertEquals("en", handler.getLanguage().getLanguage());
+    }
+
+    private static String getText(String language) throws Exception {
+        try (InputStream stream = LanguageIdentifierTest.class.getResourceAsStream(language + ".test")) {
+            return IOUtils.toString(stream, UTF_8);
+        }
+    }
+
+    private static class CountingDetector extends NgramProfileLanguageDetector {
+        private long added = 0;
+
+        CountingDetector() throws Exception {
+            super(NgramProfileStore.getDefault());
+        }
+
+        @Override
+        public void addText(char[] cbuf, int off, int len) {
+            added += len;
+            super.addText(cbuf, off, len);
+        }
+
+        @Override
+        public boolean hasEnoughText() {
+            return false;
+        }
+    }
+}
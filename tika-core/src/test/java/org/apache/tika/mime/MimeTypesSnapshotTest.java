@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.junit.Test;
+
+public class MimeTypesSnapshotTest {
+
+    @Test
+    public void testSameRegistryAsXML() throws Exception {
+        URL xml = MimeTypes.class.getResource("tika-mimetypes.xml");
+        long fingerprint = MimeTypesSnapshot.fingerprint(xml);
+        byte[] snapshot = snapshot(xml, fingerprint);
+
+        MimeTypes fromXML = MimeTypesFactory.create(xml);
+        MimeTypes fromSnapshot;
+        try (InputStream is = new ByteArrayInputStream(snapshot)) {
+            fromSnapshot = MimeTypesSnapshot.read(is, fingerprint);
+        }
+        assertNotNull(fromSnapshot);
+
+        MediaTypeRegistry registry = fromXML.getMediaTypeRegistry();
+        assertEquals(registry.getTypes(), fromSnapshot.getMediaTypeRegistry().getTypes());
+        for (MediaType type : registry.getTypes()) {
+            MimeType expected = fromXML.forName(type.toString());
+            MimeType actual = fromSnapshot.forName(type.toString());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getAcronym(), actual.getAcronym());
+            assertEquals(expected.getUniformTypeIdentifier(), actual.getUniformTypeIdentifier());
+            assertEquals(expected.getLinks(), actual.getLinks());
+            assertEquals(expected.getExtensions(), actual.getExtensions());
+            assertEquals(expected.getMagics().toString(), actual.getMagics().toString());
+            assertEquals(registry.getAliases(type),
+                    fromSnapshot.getMediaTypeRegistry().getAliases(type));
+            assertEquals(registry.getSupertype(type),
+                    fromSnapshot.getMediaTypeRegistry().getSupertype(type));
+        }
+
+        assertDetect(fromSnapshot, "application/pdf", "%PDF-1.4", null);
+        assertDetect(fromSnapshot, "image/png", "\u0089PNG\r\n\u001a\n", null);
+        assertDetect(fromSnapshot, "application/msword", "", "x.doc");
+        assertDetect(fromSnapshot, "application/vnd.oasis.opendocument.text", "", "Y.ODT");
+        assertDetect(fromSnapshot, "image/svg+xml",
+                "<?xml version=\"1.0\"?><svg xmlns=\"http://www.w3.org/2000/svg\"></svg>", null);
+    }
+
+    @Test
+    public void testFingerprintMismatch() throws Exception {
+        URL xml = MimeTypes.class.getResource("tika-mimetypes.xml");
+        byte[] snapshot = snapshot(xml, 42);
+        try (InputStream is = new ByteArrayInputStream(snapshot)) {
+            assertNull(MimeTypesSnapshot.read(is, MimeTypesSnapshot.fingerprint(xml)));
+        }
+        try (InputStream is = new ByteArrayInputStream(snapshot)) {
+            assertNotNull(MimeTypesSnapshot.read(is, -1));
+        }
+    }
+
+    @Test
+    public void testCustomTypesOnTopOfSnapshot() throws Exception {
+        //custom-mimetypes.xml in the test resources is read after the core snapshot
+        MimeTypes types = MimeTypesFactory.create("tika-mimetypes.xml", "custom-mimetypes.xml");
+        assertNotNull(types.getRegisteredMimeType("hello/world"));
+        assertDetect(types, "application/pdf", "%PDF-1.4", null);
+    }
+
+    private static byte[] snapshot(URL xml, long fingerprint) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (InputStream is = xml.openStream()) {
+            MimeTypesSnapshot.write(is, fingerprint, bos);
+        }
+        return bos.toByteArray();
+    }
+
+    private static void assertDetect(MimeTypes types, String expected, String prefix,
+                                     String name) throws Exception {
+        Metadata metadata = new Metadata();
+        if (name != null) {
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, name);
+        }
+        try (InputStream is = new ByteArrayInputStream(prefix.getBytes(ISO_8859_1))) {
+            assertEquals(expected, types.detect(is, metadata).toString());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.tika.exception.ParseCancelledException;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.sax.BasicContentHandlerFactory;
+import org.apache.tika.sax.RecursiveParserWrapperHandler;
+import org.apache.tika.sax.ToTextContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.junit.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class ParseDeadlineTest {
+
+    @Test
+    public void testContentHandler() throws Exception {
+        ParseContext context = new ParseContext();
+        ParseDeadline deadline = new ParseDeadline(-1);
+        context.set(ParseDeadline.class, deadline);
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "application/x-cancelling");
+        ToTextContentHandler handler = new ToTextContentHandler();
+        try (InputStream is = new ByteArrayInputStream(new byte[0])) {
+            new CompositeParser(new MediaTypeRegistry(), new CancellingParser())
+                    .parse(is, handler, metadata, context);
+            fail("should have been cancelled");
+        } catch (ParseCancelledException e) {
+            //expected
+        }
+        assertTrue(handler.toString().contains("before"));
+        assertFalse(handler.toString().contains("after"));
+    }
+
+    @Test
+    public void testTikaInputStream() throws Exception {
+        ParseDeadline deadline = new ParseDeadline(-1);
+        try (TikaInputStream tis = TikaInputStream.get(new byte[100])) {
+            tis.setParseDeadline(deadline);
+            assertEquals(0, tis.read());
+            deadline.cancel();
+            try {
+                tis.read();
+                fail("should have been cancelled");
+            } catch (IOException e) {
+                assertNotNull(ParseCancelledException.find(e));
+            }
+        }
+    }
+
+    @Test
+    public void testTikaInputStreamDeadline() throws Exception {
+        ParseDeadline deadline = new ParseDeadline(500);
+        try (TikaInputStream tis = TikaInputStream.get(new byte[1000000])) {
+            tis.setParseDeadline(deadline);
+            assertEquals(0, tis.read());
+            Thread.sleep(1000);
+            byte[] buffer = new byte[1000];
+            while (tis.read(buffer) != -1) {
+                //the clock is only read every few kilobytes
+            }
+            fail("should have hit the deadline");
+        } catch (IOException e) {
+            assertNotNull(ParseCancelledException.find(e));
+        }
+    }
+
+    @Test
+    public void testPartialResult() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(ParseDeadline.class, new ParseDeadline(1000));
+        RecursiveParserWrapper wrapper = new RecursiveParserWrapper(
+                new CompositeParser(new MediaTypeRegistry(), new EndlessParser()));
+        RecursiveParserWrapperHandler handler = new RecursiveParserWrapperHandler(
+                new BasicContentHandlerFactory(BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1));
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "application/x-endless");
+        long start = System.currentTimeMillis();
+        try (InputStream is = new ByteArrayInputStream(new byte[0])) {
+            wrapper.parse(is, handler, metadata, context);
+        }
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        List<Metadata> metadataList = handler.getMetadataList();
+        assertEquals(1, metadataList.size());
+        assertEquals("true", metadataList.get(0).get(TikaCoreProperties.PARSE_CANCELLED));
+        assertTrue(metadataList.get(0).get(TikaCoreProperties.TIKA_CONTENT).contains("all work and no play"));
+    }
+
+    @Test
+    public void testCompositeParserRethrowsCancellation() throws Exception {
+        ParseContext context = new ParseContext();
+        ParseDeadline deadline = new ParseDeadline(-1);
+        deadline.cancel();
+        context.set(ParseDeadline.class, deadline);
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "application/x-endless");
+        try (InputStream is = new ByteArrayInputStream(new byte[0])) {
+            new CompositeParser(new MediaTypeRegistry(), new EndlessParser())
+                    .parse(is, new DefaultHandler(), metadata, context);
+            fail("should have been cancelled");
+        } catch (ParseCancelledException e) {
+            //expected
+        } catch (TikaException e) {
+            fail("cancellation should not be wrapped: " + e);
+        }
+    }
+
+    /**
+     * Cancels the deadline halfway through its output.
+     */
+    private static class CancellingParser extends AbstractParser {
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(MediaType.application("x-cancelling"));
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", "before");
+            context.get(ParseDeadline.class).cancel();
+            xhtml.element("p", "after");
+            xhtml.endDocument();
+        }
+    }
+
+    /**
+     * Slowly writes the same paragraph until the deadline stops it.
+     */
+    private static class EndlessParser extends AbstractParser {
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(MediaType.application("x-endless"));
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            while (true) {
+                xhtml.element("p", "all work and no play");
+                //stay below the zip bomb ratio of the RecursiveParserWrapper's handler
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    throw new TikaException("interrupted", e);
+                }
+            }
+        }
+    }
+}
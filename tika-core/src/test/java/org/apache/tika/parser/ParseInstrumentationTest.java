@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.junit.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+public class ParseInstrumentationTest {
+
+    @Test
+    public void testStagesRecorded() throws Exception {
+        TimingHistogramExporter exporter = new TimingHistogramExporter();
+        ParseContext context = new ParseContext();
+        context.set(ParseInstrumentation.class, new MetadataTimingInstrumentation(exporter));
+        Parser parser = new AutoDetectParser(new SpoolingTextParser());
+        Metadata metadata = new Metadata();
+        BodyContentHandler handler = new BodyContentHandler();
+        try (InputStream is = new ByteArrayInputStream(
+                "some plain text".getBytes(StandardCharsets.US_ASCII))) {
+            parser.parse(is, handler, metadata, context);
+        }
+        assertTrue(handler.toString().contains("some plain text"));
+
+        for (String stage : new String[]{ParseInstrumentation.DETECT,
+                ParseInstrumentation.SPOOL, ParseInstrumentation.PARSE,
+                ParseInstrumentation.HANDLER}) {
+            String millis = metadata.get(TikaCoreProperties.TIKA_TIMING_PREFIX + stage);
+            assertNotNull(stage, millis);
+            assertTrue(stage, Double.parseDouble(millis) >= 0.0);
+        }
+        //the parse includes the handler chain
+        assertTrue(Double.parseDouble(metadata.get(TikaCoreProperties.TIKA_TIMING_PREFIX + "parse")) >=
+                Double.parseDouble(metadata.get(TikaCoreProperties.TIKA_TIMING_PREFIX + "handler")));
+
+        TimingHistogramExporter.Histogram histogram =
+                exporter.getHistogram("text/plain", ParseInstrumentation.PARSE);
+        assertNotNull(histogram);
+        assertEquals(1, histogram.getCount());
+
+        StringWriter writer = new StringWriter();
+        exporter.write(writer);
+        assertTrue(writer.toString().contains(
+                "tika_parse_stage_seconds_count{media_type=\"text/plain\",stage=\"parse\"} 1"));
+        assertTrue(writer.toString().contains(
+                "tika_parse_stage_seconds_bucket{media_type=\"text/plain\",stage=\"parse\",le=\"+Inf\"} 1"));
+    }
+
+    @Test
+    public void testNoInstrumentation() throws Exception {
+        ParseContext context = new ParseContext();
+        assertSame(ParseInstrumentation.Span.NOOP,
+                ParseInstrumentation.start(context, ParseInstrumentation.PARSE, new Metadata()));
+        Metadata metadata = new Metadata();
+        Parser parser = new AutoDetectParser(new SpoolingTextParser());
+        try (InputStream is = new ByteArrayInputStream(
+                "some plain text".getBytes(StandardCharsets.US_ASCII))) {
+            parser.parse(is, new BodyContentHandler(), metadata, context);
+        }
+        for (String name : metadata.names()) {
+            assertTrue(name, !name.startsWith(TikaCoreProperties.TIKA_TIMING_PREFIX));
+        }
+    }
+
+    @Test
+    public void testHistogramBuckets() throws Exception {
+        TimingHistogramExporter exporter = new TimingHistogramExporter();
+        exporter.record("application/pdf; charset=UTF-8", ParseInstrumentation.OCR, 500_000L);
+        exporter.record("application/pdf", ParseInstrumentation.OCR, 7_000_000L);
+        exporter.record(null, ParseInstrumentation.SPOOL, 1L);
+        TimingHistogramExporter.Histogram histogram =
+                exporter.getHistogram("application/pdf", ParseInstrumentation.OCR);
+        assertEquals(2, histogram.getCount());
+        assertEquals(7_500_000L, histogram.getSumNanos());
+        assertEquals(1, histogram.getCountBelow(5));
+        assertEquals(2, histogram.getCountBelow(10));
+        assertEquals(1, exporter.getHistogram("application/octet-stream",
+                ParseInstrumentation.SPOOL).getCount());
+    }
+
+    private static class SpoolingTextParser extends AbstractParser {
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(MediaType.TEXT_PLAIN);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            TikaInputStream tis = TikaInputStream.get(stream);
+            byte[] bytes = Files.readAllBytes(tis.getPath());
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", new String(bytes, StandardCharsets.US_ASCII));
+            xhtml.endDocument();
+        }
+    }
+}
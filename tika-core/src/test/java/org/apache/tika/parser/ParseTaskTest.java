@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
+import org.junit.Test;
+
+public class ParseTaskTest {
+
+    @Test
+    public void testDepthAndContext() throws Exception {
+        RequestedOutputs requested = new RequestedOutputs(true, null, 2);
+        ResourceBudget budget = new ResourceBudget();
+        ParseContext context = new ParseContext();
+        context.set(RequestedOutputs.class, requested);
+        context.set(ResourceBudget.class, budget);
+        EmbeddedDocumentExtractor extractor = new ParsingEmbeddedDocumentExtractor(context);
+        context.set(EmbeddedDocumentExtractor.class, extractor);
+        requested.startEmbedded();
+        budget.startEmbedded();
+        try {
+            ParseTask<ParseContext> task = new ParseTask<ParseContext>(context) {
+                @Override
+                protected ParseContext call(ParseContext taskContext) {
+                    assertTrue(isRunningInTask());
+                    assertEquals(1, requested.getEmbeddedDepth());
+                    assertEquals(1, budget.getEmbeddedDepth());
+                    taskContext.set(String.class, "task");
+                    return taskContext;
+                }
+            };
+            ParseContext taskContext = task.submit().get();
+            assertNotSame(context, taskContext);
+            assertSame(requested, taskContext.get(RequestedOutputs.class));
+            assertNotSame(extractor, taskContext.get(EmbeddedDocumentExtractor.class));
+            assertNull(context.get(String.class));
+            assertFalse(ParseTask.isRunningInTask());
+        } finally {
+            requested.endEmbedded();
+            budget.endEmbedded();
+        }
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        ParseTask<Void> task = new ParseTask<Void>(new ParseContext()) {
+            @Override
+            protected Void call(ParseContext context) {
+                started.countDown();
+                try {
+                    Thread.sleep(60000);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                return null;
+            }
+        };
+        task.submit();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(task.stop(10, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+
+        AtomicBoolean ran = new AtomicBoolean(false);
+        ParseTask<Void> notStarted = new ParseTask<Void>(new ParseContext()) {
+            @Override
+            protected Void call(ParseContext context) {
+                ran.set(true);
+                return null;
+            }
+        };
+        assertTrue(notStarted.stop(0, TimeUnit.SECONDS));
+        notStarted.call();
+        assertFalse(ran.get());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.EmbeddedDocumentUtil;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.junit.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class RequestedOutputsTest {
+
+    private static final MediaType NESTING = MediaType.application("x-nesting");
+
+    @Test
+    public void testDefaults() {
+        assertSame(RequestedOutputs.ALL, RequestedOutputs.get(new ParseContext()));
+        assertTrue(RequestedOutputs.ALL.isContentRequested());
+        assertTrue(RequestedOutputs.ALL.isMetadataRequested("anything"));
+        assertTrue(RequestedOutputs.ALL.isEmbeddedRequested());
+        assertFalse(RequestedOutputs.METADATA_ONLY.isContentRequested());
+        assertFalse(RequestedOutputs.METADATA_ONLY.isEmbeddedRequested());
+        assertFalse(RequestedOutputs.METADATA_ONLY.isBodyRequested());
+    }
+
+    @Test
+    public void testMetadataFields() {
+        RequestedOutputs requested = new RequestedOutputs(false,
+                new HashSet<>(Arrays.asList("dc:title", "xmpMM:DocumentID")), 0);
+        assertTrue(requested.isMetadataRequested("dc:title"));
+        assertTrue(requested.isMetadataRequested("pdf:", "xmpMM:"));
+        assertFalse(requested.isMetadataRequested("pdf:"));
+    }
+
+    @Test
+    public void testBodyRequestedForMissingFields() {
+        RequestedOutputs requested = new RequestedOutputs(false,
+                new HashSet<>(Arrays.asList("dc:title", "pdf:hasXFA")), 0);
+        Metadata metadata = new Metadata();
+        metadata.set("dc:title", "title");
+        //pdf:hasXFA may come from the body
+        assertTrue(requested.isBodyRequested(metadata));
+        metadata.set("pdf:hasXFA", "false");
+        assertFalse(requested.isBodyRequested(metadata));
+        //no named fields: only the cheap metadata
+        assertFalse(RequestedOutputs.METADATA_ONLY.isBodyRequested(new Metadata()));
+        assertTrue(RequestedOutputs.ALL.isBodyRequested(metadata));
+    }
+
+    @Test
+    public void testEmbeddedDepth() throws Exception {
+        assertEquals(6, parseNested(RequestedOutputs.ALL));
+        assertEquals(1, parseNested(RequestedOutputs.METADATA_ONLY));
+        assertEquals(3, parseNested(new RequestedOutputs(true, null, 2)));
+    }
+
+    private int parseNested(RequestedOutputs requested) throws Exception {
+        AtomicInteger documents = new AtomicInteger();
+        ParseContext context = new ParseContext();
+        Parser parser = new CompositeParser(new MediaTypeRegistry(), new NestingParser(documents));
+        context.set(Parser.class, parser);
+        context.set(RequestedOutputs.class, requested);
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, NESTING.toString());
+        try (InputStream is = new ByteArrayInputStream(new byte[0])) {
+            parser.parse(is, new DefaultHandler(), metadata, context);
+        }
+        //the depth is back to 0 after the parse
+        assertEquals(requested.getMaxEmbeddedDepth() != 0, requested.isEmbeddedRequested());
+        return documents.get();
+    }
+
+    private static class NestingParser extends AbstractParser {
+
+        private final AtomicInteger documents;
+
+        private NestingParser(AtomicInteger documents) {
+            this.documents = documents;
+        }
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(NESTING);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            int count = documents.incrementAndGet();
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            EmbeddedDocumentExtractor extractor =
+                    EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
+            Metadata embedded = new Metadata();
+            embedded.set(Metadata.CONTENT_TYPE, NESTING.toString());
+            if (count < 6 && extractor.shouldParseEmbedded(embedded)) {
+                extractor.parseEmbedded(new ByteArrayInputStream(new byte[0]), xhtml, embedded, false);
+            }
+            xhtml.endDocument();
+        }
+    }
+}
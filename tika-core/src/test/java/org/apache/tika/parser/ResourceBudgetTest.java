@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.tika.exception.ResourceLimitExceededException;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.EmbeddedDocumentUtil;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.junit.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class ResourceBudgetTest {
+
+    private static final MediaType NESTING = MediaType.application("x-nesting");
+
+    private static final MediaType PARAGRAPHS = MediaType.application("x-paragraphs");
+
+    @Test
+    public void testEmbeddedDepthHardLimit() throws Exception {
+        ResourceBudget budget = new ResourceBudget()
+                .setHardLimit(ResourceBudget.Resource.EMBEDDED_DEPTH, 5);
+        ParseContext context = new ParseContext();
+        Parser parser = new CompositeParser(new MediaTypeRegistry(), new NestingParser());
+        context.set(Parser.class, parser);
+        context.set(ResourceBudget.class, budget);
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, NESTING.toString());
+        try (InputStream is = new ByteArrayInputStream(new byte[0])) {
+            parser.parse(is, new DefaultHandler(), metadata, context);
+            fail("should have hit the hard limit");
+        } catch (ResourceLimitExceededException e) {
+            assertEquals(ResourceBudget.Resource.EMBEDDED_DEPTH, e.getResource());
+        }
+        assertEquals("6", metadata.get(TikaCoreProperties.BUDGET_EMBEDDED_DEPTH));
+        assertEquals("6", metadata.get(TikaCoreProperties.BUDGET_EMBEDDED_DOCUMENTS));
+        assertEquals("embedded_depth", metadata.get(TikaCoreProperties.BUDGET_HARD_LIMIT_EXCEEDED));
+        //each of the six documents is counted once, not once per container
+        assertEquals("144", metadata.get(TikaCoreProperties.BUDGET_CHARACTERS));
+        //the depth is back to 0, so a sibling would be allowed again
+        budget.startEmbedded();
+        budget.endEmbedded();
+    }
+
+    @Test
+    public void testEmbeddedDepthStaysBalanced() throws Exception {
+        ResourceBudget budget = new ResourceBudget()
+                .setHardLimit(ResourceBudget.Resource.EMBEDDED_DEPTH, 1);
+        RequestedOutputs requested = new RequestedOutputs(true, null, 1);
+        ParseContext context = contextWith(budget);
+        context.set(RequestedOutputs.class, requested);
+        context.set(Parser.class, new EmptyParser());
+        //as if we were inside an embedded document already
+        budget.startEmbedded();
+        requested.startEmbedded();
+        try {
+            new ParsingEmbeddedDocumentExtractor(context).parseEmbedded(
+                    new ByteArrayInputStream(new byte[0]), new DefaultHandler(),
+                    new Metadata(), false);
+            fail("should have hit the hard limit");
+        } catch (SAXException e) {
+            assertNotNull(ResourceLimitExceededException.find(e));
+        }
+        //neither depth changed
+        assertFalse(requested.isEmbeddedRequested());
+        budget.endEmbedded();
+        requested.endEmbedded();
+        assertTrue(requested.isEmbeddedRequested());
+        budget.startEmbedded();
+        budget.endEmbedded();
+    }
+
+    @Test
+    public void testSoftLimits() throws Exception {
+        List<ResourceBudget.Resource> warned = new ArrayList<>();
+        ResourceBudget budget = new ResourceBudget() {
+            @Override
+            protected void onSoftLimitExceeded(Resource resource, long usage) {
+                warned.add(resource);
+            }
+        };
+        budget.setSoftLimit(ResourceBudget.Resource.CHARACTERS, 10)
+                .setSoftLimit(ResourceBudget.Resource.TEMP_FILE_BYTES, 100)
+                .setHardLimit(ResourceBudget.Resource.TEMP_FILE_BYTES, 1000);
+        assertTrue(budget.start());
+        assertTrue(!budget.start());
+
+        Metadata paragraphs = new Metadata();
+        paragraphs.set(Metadata.CONTENT_TYPE, PARAGRAPHS.toString());
+        try (InputStream is = new ByteArrayInputStream(new byte[0])) {
+            new CompositeParser(new MediaTypeRegistry(), new ParagraphsParser())
+                    .parse(is, new DefaultHandler(), paragraphs, contextWith(budget));
+        }
+        assertEquals(30, budget.getUsage(ResourceBudget.Resource.CHARACTERS));
+
+        try (TikaInputStream tis = TikaInputStream.get(new byte[500])) {
+            tis.setResourceBudget(budget);
+            tis.getPath();
+        }
+        assertEquals(500, budget.getUsage(ResourceBudget.Resource.TEMP_FILE_BYTES));
+        try (TikaInputStream tis = TikaInputStream.get(new byte[600])) {
+            tis.setResourceBudget(budget);
+            tis.getPath();
+            fail("should have hit the hard limit");
+        } catch (IOException e) {
+            assertNotNull(ResourceLimitExceededException.find(e));
+        }
+        //each soft limit is only reported once
+        assertEquals(2, warned.size());
+
+        Metadata metadata = new Metadata();
+        budget.writeUsage(metadata);
+        assertEquals("30", metadata.get(TikaCoreProperties.BUDGET_CHARACTERS));
+        assertEquals("1100", metadata.get(TikaCoreProperties.BUDGET_TEMP_FILE_BYTES));
+        assertEquals(2, metadata.getValues(TikaCoreProperties.BUDGET_SOFT_LIMIT_EXCEEDED).length);
+        assertEquals("temp_file_bytes", metadata.get(TikaCoreProperties.BUDGET_HARD_LIMIT_EXCEEDED));
+    }
+
+    @Test
+    public void testHardLimitStopsSpooling() throws Exception {
+        ResourceBudget budget = new ResourceBudget()
+                .setHardLimit(ResourceBudget.Resource.TEMP_FILE_BYTES, 10000);
+        assertTrue(budget.start());
+        int[] read = new int[1];
+        InputStream stream = new ByteArrayInputStream(new byte[1000000]) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int n = super.read(b, off, len);
+                read[0] += Math.max(n, 0);
+                return n;
+            }
+        };
+        try (TikaInputStream tis = TikaInputStream.get(stream)) {
+            tis.setResourceBudget(budget);
+            tis.getPath();
+            fail("should have hit the hard limit");
+        } catch (IOException e) {
+            assertNotNull(ResourceLimitExceededException.find(e));
+        }
+        assertTrue(read[0] < 100000);
+    }
+
+    @Test
+    public void testAllocatedBytes() throws Exception {
+        ResourceBudget budget = new ResourceBudget();
+        if (budget.getCurrentThreadAllocatedBytes() < 0) {
+            //not supported by this JVM
+            return;
+        }
+        budget.start();
+        List<byte[]> garbage = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            garbage.add(new byte[10000]);
+        }
+        budget.sampleAllocatedBytes();
+        assertTrue(garbage.size() > 0);
+        assertTrue(budget.getUsage(ResourceBudget.Resource.ALLOCATED_BYTES) >= 1000000);
+    }
+
+    @Test
+    public void testNoBudget() throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "text/plain");
+        try (InputStream is = new ByteArrayInputStream(new byte[0])) {
+            new CompositeParser(new MediaTypeRegistry(), new EmptyParser())
+                    .parse(is, new DefaultHandler(), metadata, new ParseContext());
+        }
+        assertNull(metadata.get(TikaCoreProperties.BUDGET_CHARACTERS));
+    }
+
+    private static ParseContext contextWith(ResourceBudget budget) {
+        ParseContext context = new ParseContext();
+        context.set(ResourceBudget.class, budget);
+        return context;
+    }
+
+    /**
+     * Writes five short paragraphs.
+     */
+    private static class ParagraphsParser extends AbstractParser {
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(PARAGRAPHS);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            for (int i = 0; i < 5; i++) {
+                xhtml.element("p", "abcdef");
+            }
+            xhtml.endDocument();
+        }
+    }
+
+    /**
+     * Writes a paragraph and then parses an embedded copy of itself.
+     */
+    private static class NestingParser extends AbstractParser {
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.singleton(NESTING);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", "turtles all the way down");
+            EmbeddedDocumentExtractor extractor =
+                    EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
+            Metadata embedded = new Metadata();
+            embedded.set(Metadata.CONTENT_TYPE, NESTING.toString());
+            extractor.parseEmbedded(new ByteArrayInputStream(new byte[0]), xhtml, embedded, false);
+            xhtml.endDocument();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.external;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.utils.SystemUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExternalParserTest {
+
+    //a batch mode tool: for each path on stdin, prints the name and
+    //contents of the file, followed by {ready}
+    private static final String BATCH_STUB =
+            "#!/bin/sh\n" +
+            "echo started >> \"$0.starts\"\n" +
+            "while IFS= read -r line; do\n" +
+            "  echo \"name: $(basename \"$line\")\"\n" +
+            "  cat \"$line\"\n" +
+            "  echo\n" +
+            "  echo \"{ready}\"\n" +
+            "done\n";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        assumeFalse(SystemUtils.IS_OS_WINDOWS);
+    }
+
+    @Test
+    public void testStdInAndStreams() throws Exception {
+        ExternalParser parser = new ExternalParser();
+        //more output than fits in a pipe's buffer, on both streams
+        parser.setCommand("sh", "-c", "cat; i=0; while [ $i -lt 5000 ]; do " +
+                "echo \"line$i: value$i\" 1>&2; i=$((i+1)); done");
+        parser.setMetadataExtractionPatterns(
+                Collections.singletonMap(Pattern.compile("^(line\\d+): (.*)"), ""));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("text ").append(i).append('\n');
+        }
+        Metadata metadata = new Metadata();
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        parser.parse(new ByteArrayInputStream(sb.toString().getBytes(UTF_8)),
+                handler, metadata, new ParseContext());
+        assertEquals(sb.toString().trim(), handler.toString().trim());
+        assertEquals("value0", metadata.get("line0"));
+        assertEquals("value4999", metadata.get("line4999"));
+    }
+
+    @Test
+    public void testPersistentProcess() throws Exception {
+        Path stub = tmp.getRoot().toPath().resolve("batch-stub");
+        Files.write(stub, BATCH_STUB.getBytes(UTF_8));
+        Files.setPosixFilePermissions(stub, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        ExternalParser parser = new ExternalParser();
+        parser.setCommand(stub.toString());
+        parser.setPersistentProcess(true);
+        parser.setResponseTerminator("{ready}");
+        parser.setTimeoutMs(10000);
+        parser.setMetadataExtractionPatterns(
+                Collections.singletonMap(Pattern.compile("^name: (.*)"), "stub:name"));
+        try {
+            for (int i = 0; i < 5; i++) {
+                Path doc = tmp.newFile("doc" + i + ".txt").toPath();
+                Files.write(doc, ("the quick brown fox " + i).getBytes(UTF_8));
+                Metadata metadata = new Metadata();
+                BodyContentHandler handler = new BodyContentHandler();
+                parser.parse(new ByteArrayInputStream(Files.readAllBytes(doc)),
+                        handler, metadata, new ParseContext());
+                assertEquals("the quick brown fox " + i, handler.toString().trim());
+                assertTrue(metadata.get("stub:name").startsWith("apache-tika-"));
+            }
+        } finally {
+            parser.close();
+        }
+        assertEquals(1, Files.readAllLines(stub.resolveSibling("batch-stub.starts")).size());
+    }
+
+    @Test
+    public void testPersistentProcessConfig() throws Exception {
+        String xml = "<external-parsers>" +
+                "<parser persistentProcess=\"true\" requestTemplate=\"-j ${INPUT}\"" +
+                " responseTerminator=\"{ready}\" numProcesses=\"2\" timeoutMs=\"10000\">" +
+                "<command>exiftool -stay_open True -@ -</command>" +
+                "<mime-types><mime-type>image/jpeg</mime-type></mime-types>" +
+                "</parser></external-parsers>";
+        List<ExternalParser> parsers = ExternalParsersConfigReader.read(
+                new ByteArrayInputStream(xml.getBytes(UTF_8)));
+        assertEquals(1, parsers.size());
+        ExternalParser parser = parsers.get(0);
+        assertTrue(parser.isPersistentProcess());
+        assertEquals("-j ${INPUT}", parser.getRequestTemplate());
+        assertEquals("{ready}", parser.getResponseTerminator());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.apache.tika.metadata.Metadata;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Measures the cost per character of the characters() path through the
+ * handler chains that parsers typically write to.  Each chain is measured
+ * with the inline validation of {@link SafeContentHandler} and, for
+ * comparison, with a subclass that forces the per code point
+ * {@link SafeContentHandler#isInvalid(int)} calls.
+ * <p>
+ * Usage: ContentHandlerChainBenchmark [rounds]
+ */
+public class ContentHandlerChainBenchmark {
+
+    private static final int CHUNK = 4096;
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        char[] text = sampleText(1 << 20);
+
+        for (boolean inline : new boolean[]{false, true}) {
+            String mode = inline ? "inline" : "code points";
+            //warm up and measure each chain
+            run(inline, text, rounds / 4, false, false);
+            report("xhtml -> nothing (" + mode + ")",
+                    run(inline, text, rounds, false, false), text, rounds);
+            run(inline, text, rounds / 4, true, false);
+            report("xhtml -> body -> xml (" + mode + ")",
+                    run(inline, text, rounds, true, false), text, rounds);
+            run(inline, text, rounds / 4, false, true);
+            report("xhtml -> body -> text (" + mode + ")",
+                    run(inline, text, rounds, false, true), text, rounds);
+        }
+    }
+
+    private static long run(boolean inline, char[] text, int rounds,
+                            boolean xml, boolean plainText) throws Exception {
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            ContentHandler sink;
+            if (xml) {
+                sink = new BodyContentHandler(new ToXMLContentHandler(NULL, "UTF-8"));
+            } else if (plainText) {
+                sink = new BodyContentHandler(new ToTextContentHandler(NULL, "UTF-8"));
+            } else {
+                sink = new DefaultHandler();
+            }
+            XHTMLContentHandler xhtml = inline ?
+                    new XHTMLContentHandler(sink, new Metadata()) :
+                    new CodePointXHTMLContentHandler(sink, new Metadata());
+            xhtml.startDocument();
+            xhtml.startElement("p");
+            for (int off = 0; off < text.length; off += CHUNK) {
+                xhtml.characters(text, off, Math.min(CHUNK, text.length - off));
+            }
+            xhtml.endElement("p");
+            xhtml.endDocument();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long nanos, char[] text, int rounds) {
+        System.out.printf(Locale.ROOT, "%-40s %6.3f ns/char%n",
+                name, (double) nanos / ((long) text.length * rounds));
+    }
+
+    /**
+     * Mostly ASCII prose, with some markup characters, accented letters,
+     * CJK, a supplementary character and an invalid control character.
+     */
+    private static char[] sampleText(int length) {
+        String sample = "The quick brown fox jumps over the lazy dog & cat <again>. " +
+                "Café crème brûlée, naïve résumé. " +
+                "東京都 😀 tab\tnewline\n\u0007\n";
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = sample.charAt(i % sample.length());
+        }
+        return chars;
+    }
+
+    private static final OutputStream NULL = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    /**
+     * Same validity rules, but overriding {@link #isInvalid(int)} turns off
+     * the inline validation, so that it is called for each code point.
+     */
+    private static class CodePointXHTMLContentHandler extends XHTMLContentHandler {
+
+        CodePointXHTMLContentHandler(ContentHandler handler, Metadata metadata) {
+            super(handler, metadata);
+        }
+
+        @Override
+        protected boolean isInvalid(int ch) {
+            return super.isInvalid(ch);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.apache.tika.sax;
 
 import static org.junit.Assert.assertEquals;
 
+import org.apache.tika.metadata.Metadata;
 import org.junit.Before;
 import org.junit.Test;
 import org.xml.sax.ContentHandler;
@@ -79,4 +80,42 @@ public class SafeContentHandlerTest {
         assertEquals("\ufffd\ubfff", output.toString());
     }
 
+    @Test
+    public void testInlineMatchesCodePoints() throws SAXException {
+        String text = "a\t\n\r\u0000\u001f \u007e\u007f\u0085\u009f\u00a0\ud7ff" +
+                "\ud800\udc00\ud800x\udc00\ue000\ufffd\ufffe\uffff\udbff\udfff\ud800";
+        char[] ch = text.toCharArray();
+        for (boolean xhtml : new boolean[]{false, true}) {
+            ContentHandler inlineOutput = new WriteOutContentHandler();
+            ContentHandler codePointOutput = new WriteOutContentHandler();
+            SafeContentHandler inline;
+            SafeContentHandler codePoints;
+            if (xhtml) {
+                inline = new XHTMLContentHandler(inlineOutput, new Metadata());
+                codePoints = new XHTMLContentHandler(codePointOutput, new Metadata()) {
+                    @Override
+                    protected boolean isInvalid(int c) {
+                        return super.isInvalid(c);
+                    }
+                };
+            } else {
+                inline = new SafeContentHandler(inlineOutput);
+                codePoints = new SafeContentHandler(codePointOutput) {
+                    @Override
+                    protected boolean isInvalid(int c) {
+                        return super.isInvalid(c);
+                    }
+                };
+            }
+            //every split of the buffer, so that pairs can be cut in half
+            for (int split = 0; split <= ch.length; split++) {
+                inline.characters(ch, 0, split);
+                inline.characters(ch, split, ch.length - split);
+                codePoints.characters(ch, 0, split);
+                codePoints.characters(ch, split, ch.length - split);
+            }
+            assertEquals(codePointOutput.toString(), inlineOutput.toString());
+        }
+    }
+
 }
@@ -19,11 +19,13 @@ package org.apache.tika.langdetect.optimaize;
 import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.tika.language.detect.LanguageConfidence;
 import org.apache.tika.language.detect.LanguageDetector;
@@ -50,6 +52,13 @@ public class OptimaizeLangDetector extends LanguageDetector {
 	private static final ImmutableSet<String> DEFAULT_LANGUAGES;
 	private static final com.optimaize.langdetect.LanguageDetector DEFAULT_DETECTOR;
 
+	// Detectors (and their models) are immutable, so instances that load the same
+	// languages with the same priors share one detector instead of each
+	// reading the profiles into its own heap.
+	private static final int MAX_CACHED_DETECTORS = 64;
+	private static final Map<List<Object>, com.optimaize.langdetect.LanguageDetector> DETECTOR_CACHE =
+			new ConcurrentHashMap<>();
+
 
 	static {
 		try {
@@ -89,7 +98,11 @@ public class OptimaizeLangDetector extends LanguageDetector {
 		languages = DEFAULT_LANGUAGES;
 
 		if (languageProbabilities != null) {
-			detector = createDetector(DEFAULT_LANGUAGE_PROFILES, languageProbabilities);
+			List<Object> key = cacheKey(null, languageProbabilities);
+			detector = DETECTOR_CACHE.get(key);
+			if (detector == null) {
+				detector = cache(key, createDetector(DEFAULT_LANGUAGE_PROFILES, languageProbabilities));
+			}
 		} else {
 			detector = DEFAULT_DETECTOR;
 		}
@@ -120,11 +133,30 @@ public class OptimaizeLangDetector extends LanguageDetector {
 			}
 		}
 		
-		detector = createDetector(new LanguageProfileReader().readBuiltIn(locales), languageProbabilities);
+		List<Object> key = cacheKey(this.languages, languageProbabilities);
+		detector = DETECTOR_CACHE.get(key);
+		if (detector == null) {
+			detector = cache(key,
+					createDetector(new LanguageProfileReader().readBuiltIn(locales), languageProbabilities));
+		}
 		
 		return this;
 	}
 
+	private static List<Object> cacheKey(Set<String> languages, Map<String, Float> languageProbabilities) {
+		return Arrays.asList(languages == null ? null : new HashSet<>(languages),
+				languageProbabilities == null ? null : new HashMap<>(languageProbabilities));
+	}
+
+	private static com.optimaize.langdetect.LanguageDetector cache(List<Object> key,
+			com.optimaize.langdetect.LanguageDetector detector) {
+		if (DETECTOR_CACHE.size() >= MAX_CACHED_DETECTORS) {
+			return detector;
+		}
+		com.optimaize.langdetect.LanguageDetector existing = DETECTOR_CACHE.putIfAbsent(key, detector);
+		return existing == null ? detector : existing;
+	}
+
 	private static com.optimaize.langdetect.LanguageDetector createDetector(List<LanguageProfile> languageProfiles, Map<String, Float> languageProbabilities) {
 		// FUTURE currently the short text algorithm doesn't normalize probabilities until the end, which
 		// means you can often get 0 probabilities. So we pick a very short length for this limit.
@@ -27,6 +27,7 @@ import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.CompositeParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.EmbeddedContentHandler;
 import org.apache.tika.sax.XHTMLContentHandler;
@@ -61,7 +62,9 @@ public abstract class AbstractImageParser extends AbstractParser {
         MediaType mediaType = normalizeMediaType(MediaType.parse(mediaTypeString));
         MediaType ocrMediaType = convertToOCRMediaType(mediaType);
         Parser ocrParser = EmbeddedDocumentUtil.getStatelessParser(context);
-        if (ocrParser == null || ! ocrParser.getSupportedTypes(context).contains(ocrMediaType)) {
+        //OCR only adds text, so don't spool the image and run it if the text wasn't requested
+        if (ocrParser == null || ! RequestedOutputs.get(context).isContentRequested() ||
+                ! ocrParser.getSupportedTypes(context).contains(ocrMediaType)) {
             extractMetadata(stream, handler, metadata, context);
             XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
             xhtml.startDocument();
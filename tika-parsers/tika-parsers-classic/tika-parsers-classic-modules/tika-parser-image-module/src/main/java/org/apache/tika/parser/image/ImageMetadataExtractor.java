@@ -18,27 +18,39 @@ package org.apache.tika.parser.image;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Locale;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.drew.imaging.heif.HeifMetadataReader;
 import com.drew.imaging.jpeg.JpegMetadataReader;
 import com.drew.imaging.jpeg.JpegProcessingException;
+import com.drew.imaging.jpeg.JpegSegmentData;
+import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentReader;
+import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.imaging.riff.RiffProcessingException;
 import com.drew.imaging.tiff.TiffMetadataReader;
 import com.drew.imaging.tiff.TiffProcessingException;
+import com.drew.imaging.tiff.TiffReader;
 import com.drew.imaging.webp.WebpMetadataReader;
 import com.drew.lang.ByteArrayReader;
 import com.drew.lang.GeoLocation;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.RandomAccessStreamReader;
 import com.drew.lang.Rational;
+import com.drew.lang.StreamReader;
 import com.drew.metadata.Directory;
 import com.drew.metadata.MetadataException;
 import com.drew.metadata.Tag;
@@ -46,6 +58,7 @@ import com.drew.metadata.exif.ExifDirectoryBase;
 import com.drew.metadata.exif.ExifIFD0Directory;
 import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.ExifTiffHandler;
 import com.drew.metadata.exif.ExifThumbnailDirectory;
 import com.drew.metadata.exif.GpsDirectory;
 import com.drew.metadata.icc.IccDirectory;
@@ -78,6 +91,9 @@ public class ImageMetadataExtractor {
     private static final ParseContext EMPTY_PARSE_CONTEXT = new ParseContext();
     private static final String GEO_DECIMAL_FORMAT_STRING = "#.######"; // 6 dp seems to be reasonable
 
+    private static final byte[] XMP_JPEG_PREAMBLE =
+            "http://ns.adobe.com/xap/1.0/".getBytes(StandardCharsets.US_ASCII);
+
     private static final String ICC_NS = "ICC" + TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER;
 
     private final Metadata metadata;
@@ -128,6 +144,43 @@ public class ImageMetadataExtractor {
         }
     }
 
+    /**
+     * Reads the metadata segments of a JPEG, and stops at the start of
+     * the image data, so that the stream doesn't have to be spooled to a file.
+     * <p>
+     * As the stream can't be read again, this also extracts the XMP
+     * from the APP1 segments.
+     *
+     * @param stream JPEG, positioned at the start of the image; not closed
+     */
+    public void parseJpeg(InputStream stream)
+            throws IOException, SAXException, TikaException {
+        try {
+            Set<JpegSegmentType> segmentTypes = new HashSet<>();
+            for (JpegSegmentMetadataReader reader : JpegMetadataReader.ALL_READERS) {
+                for (JpegSegmentType type : reader.getSegmentTypes()) {
+                    segmentTypes.add(type);
+                }
+            }
+            //this stops reading at the start of scan (SOS) segment
+            JpegSegmentData segments =
+                    JpegSegmentReader.readSegments(new StreamReader(stream), segmentTypes);
+            com.drew.metadata.Metadata jpegMetadata = new com.drew.metadata.Metadata();
+            JpegMetadataReader.processJpegSegmentData(
+                    jpegMetadata, JpegMetadataReader.ALL_READERS, segments);
+            handle(jpegMetadata);
+            for (byte[] segment : segments.getSegments(JpegSegmentType.APP1)) {
+                if (startsWith(segment, XMP_JPEG_PREAMBLE)) {
+                    new JempboxExtractor(metadata).parse(new ByteArrayInputStream(segment));
+                }
+            }
+        } catch (JpegProcessingException e) {
+            throw new TikaException("Can't read JPEG metadata", e);
+        } catch (MetadataException e) {
+            throw new TikaException("Can't read JPEG metadata", e);
+        }
+    }
+
     public void parseTiff(File file)
             throws IOException, SAXException, TikaException {
         try {
@@ -140,6 +193,61 @@ public class ImageMetadataExtractor {
         }
     }
 
+    /**
+     * Reads the IFDs of a TIFF from a stream, so that the stream doesn't have to
+     * be spooled to a file.  Only the bytes up to the furthest IFD or tag value are read
+     * (and buffered, as IFDs may point backwards), so strips or tiles after the
+     * IFDs are never read.
+     * <p>
+     * As the stream can't be read again, this also extracts the XMP
+     * from the XMP tag.
+     *
+     * @param stream TIFF, positioned at the start of the image; not closed
+     */
+    public void parseTiff(InputStream stream)
+            throws IOException, SAXException, TikaException {
+        parseTiff(stream, -1);
+    }
+
+    /**
+     * Like {@link #parseTiff(InputStream)}, but gives up once the IFDs or tag
+     * values lie beyond maxBufferedBytes, e.g. if the IFDs are written after
+     * the image data, rather than buffer the whole image in memory.
+     *
+     * @param stream           TIFF, positioned at the start of the image; not closed
+     * @param maxBufferedBytes maximum number of bytes to read and buffer, or -1 for no limit
+     * @return <code>false</code> if the metadata lies beyond maxBufferedBytes,
+     * in which case no metadata has been extracted
+     */
+    public boolean parseTiff(InputStream stream, int maxBufferedBytes)
+            throws IOException, SAXException, TikaException {
+        com.drew.metadata.Metadata tiffMetadata = new com.drew.metadata.Metadata();
+        XmpCapturingTiffHandler tiffHandler = new XmpCapturingTiffHandler(tiffMetadata);
+        BoundedStream bounded = new BoundedStream(stream, maxBufferedBytes);
+        try {
+            new TiffReader().processTiff(new RandomAccessStreamReader(bounded), tiffHandler, 0);
+        } catch (TiffProcessingException e) {
+            throw new TikaException("Can't read TIFF metadata", e);
+        } catch (IOException e) {
+            //metadata-extractor may have given up on a tag, or the whole TIFF
+            if (!bounded.exceeded) {
+                throw e;
+            }
+        }
+        if (bounded.exceeded) {
+            return false;
+        }
+        try {
+            handle(tiffMetadata);
+        } catch (MetadataException e) {
+            throw new TikaException("Can't read TIFF metadata", e);
+        }
+        if (tiffHandler.xmp != null) {
+            new JempboxExtractor(metadata).parse(new ByteArrayInputStream(tiffHandler.xmp));
+        }
+        return true;
+    }
+
     public void parseWebP(File file) throws IOException, TikaException {
 
         try {
@@ -155,6 +263,22 @@ public class ImageMetadataExtractor {
         }
     }
 
+    /**
+     * Reads the RIFF chunks of a WebP from a stream, skipping over the
+     * image data, so that the stream doesn't have to be spooled to a file.
+     *
+     * @param stream WebP, positioned at the start of the image; not closed
+     */
+    public void parseWebP(InputStream stream) throws IOException, TikaException {
+        try {
+            handle(WebpMetadataReader.readMetadata(stream));
+        } catch (RiffProcessingException e) {
+            throw new TikaException("Can't process Riff data", e);
+        } catch (MetadataException e) {
+            throw new TikaException("Can't process Riff data", e);
+        }
+    }
+
     public void parseHeif(InputStream is) throws IOException, TikaException {
         try {
             com.drew.metadata.Metadata heifMetadata = HeifMetadataReader.readMetadata(is);
@@ -214,6 +338,18 @@ public class ImageMetadataExtractor {
 
     }
 
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Copies extracted tags to tika metadata using registered handlers.
      *
@@ -624,4 +760,81 @@ public class ImageMetadataExtractor {
         }
     }
 
+    /**
+     * Stream that fails, and remembers that it failed, rather than let the
+     * reader buffer more than a maximum number of bytes.  It reads at most
+     * one byte more than that.
+     */
+    private static class BoundedStream extends FilterInputStream {
+
+        private final long maxBytes;
+
+        private long count = 0;
+
+        private boolean exceeded = false;
+
+        BoundedStream(InputStream stream, long maxBytes) {
+            super(stream);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (maxBytes > -1 && count >= maxBytes) {
+                if (in.read() == -1) {
+                    return -1;
+                }
+                exceeded = true;
+                throw new IOException("TIFF metadata lies beyond " + maxBytes + " bytes");
+            }
+            if (maxBytes > -1) {
+                len = (int) Math.min(len, maxBytes - count);
+            }
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            //the reader doesn't skip, but make sure that skipped bytes are counted too
+            return Math.max(0, read(new byte[(int) Math.min(n, 8192)]));
+        }
+    }
+
+    /**
+     * Keeps the value of the XMP tag of the first IFD, which metadata-extractor
+     * only hands to its own XMP reader.
+     */
+    private static class XmpCapturingTiffHandler extends ExifTiffHandler {
+
+        private byte[] xmp = null;
+
+        XmpCapturingTiffHandler(com.drew.metadata.Metadata metadata) {
+            super(metadata, null);
+        }
+
+        @Override
+        public boolean customProcessTag(int tagOffset, Set<Integer> processedIfdOffsets,
+                                        int tiffHeaderOffset, RandomAccessReader reader,
+                                        int tagId, int byteCount) throws IOException {
+            if (tagId == ExifDirectoryBase.TAG_APPLICATION_NOTES && xmp == null &&
+                    byteCount > 0) {
+                xmp = reader.getBytes(tagOffset, byteCount);
+            }
+            return super.customProcessTag(tagOffset, processedIfdOffsets, tiffHeaderOffset,
+                    reader, tagId, byteCount);
+        }
+    }
 }
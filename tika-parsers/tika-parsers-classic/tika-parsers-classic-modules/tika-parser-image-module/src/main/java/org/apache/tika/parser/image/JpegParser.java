@@ -22,7 +22,6 @@ import java.util.Collections;
 import java.util.Set;
 
 import org.apache.tika.exception.TikaException;
-import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
@@ -50,13 +49,13 @@ public class JpegParser extends AbstractImageParser {
     @Override
     void extractMetadata(InputStream stream, ContentHandler contentHandler,
                          Metadata metadata, ParseContext parseContext) throws IOException, SAXException, TikaException {
-        TemporaryResources tmp = new TemporaryResources();
-        try {
-            TikaInputStream tis = TikaInputStream.get(stream, tmp);
-            new ImageMetadataExtractor(metadata).parseJpeg(tis.getFile());
-            new JempboxExtractor(metadata).parse(tis);
-        } finally {
-            tmp.dispose();
+        TikaInputStream tis = TikaInputStream.cast(stream);
+        if (tis == null || !tis.hasFile()) {
+            //read just the metadata from the stream rather than spooling it to a file
+            new ImageMetadataExtractor(metadata).parseJpeg(stream);
+            return;
         }
+        new ImageMetadataExtractor(metadata).parseJpeg(tis.getFile());
+        new JempboxExtractor(metadata).parse(tis);
     }
 }
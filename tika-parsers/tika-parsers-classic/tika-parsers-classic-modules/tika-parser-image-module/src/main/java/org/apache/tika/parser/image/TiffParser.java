@@ -40,6 +40,12 @@ public class TiffParser extends AbstractImageParser {
      */
     private static final long serialVersionUID = -3941143576535464926L;
 
+    /**
+     * Streams whose metadata lies beyond this many bytes are spooled to a
+     * temporary file rather than buffered in memory
+     */
+    static final int MAX_STREAMED_BYTES = 4 * 1024 * 1024;
+
     private static final Set<MediaType> SUPPORTED_TYPES =
             Collections.singleton(MediaType.image("tiff"));
 
@@ -54,6 +60,15 @@ public class TiffParser extends AbstractImageParser {
         TemporaryResources tmp = new TemporaryResources();
         try {
             TikaInputStream tis = TikaInputStream.get(stream, tmp);
+            if (!tis.hasFile()) {
+                //read just the metadata from the stream rather than spooling it to a file,
+                //unless the metadata is written after (much of) the image data
+                tis.mark(MAX_STREAMED_BYTES + 1);
+                if (new ImageMetadataExtractor(metadata).parseTiff(tis, MAX_STREAMED_BYTES)) {
+                    return;
+                }
+                tis.reset();
+            }
             new ImageMetadataExtractor(metadata).parseTiff(tis.getFile());
             new JempboxExtractor(metadata).parse(tis);
         } finally {
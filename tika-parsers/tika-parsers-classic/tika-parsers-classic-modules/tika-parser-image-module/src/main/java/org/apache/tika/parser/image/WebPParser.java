@@ -22,7 +22,6 @@ import java.util.Collections;
 import java.util.Set;
 
 import org.apache.tika.exception.TikaException;
-import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
@@ -51,12 +50,12 @@ public class WebPParser extends AbstractParser {
             InputStream stream, ContentHandler handler,
             Metadata metadata, ParseContext context)
             throws IOException, SAXException, TikaException {
-        TemporaryResources tmp = new TemporaryResources();
-        try {
-            TikaInputStream tis = TikaInputStream.get(stream, tmp);
+        TikaInputStream tis = TikaInputStream.cast(stream);
+        if (tis != null && tis.hasFile()) {
             new ImageMetadataExtractor(metadata).parseWebP(tis.getFile());
-        } finally {
-            tmp.dispose();
+        } else {
+            //read just the metadata from the stream rather than spooling it to a file
+            new ImageMetadataExtractor(metadata).parseWebP(stream);
         }
 
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
@@ -23,6 +23,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
@@ -36,10 +39,15 @@ import com.drew.metadata.Tag;
 import com.drew.metadata.exif.ExifIFD0Directory;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.drew.metadata.jpeg.JpegCommentDirectory;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.xml.sax.helpers.DefaultHandler;
 
 public class ImageMetadataExtractorTest {
 
@@ -135,4 +143,57 @@ public class ImageMetadataExtractorTest {
         assertNull(metadata.get(TikaCoreProperties.DESCRIPTION));
     }
 
+    @Test
+    public void testStreamingMatchesFile() throws Exception {
+        assertStreamingMatchesFile(new JpegParser(), "testJPEG_EXIF.jpg", true);
+        assertStreamingMatchesFile(new JpegParser(), "testJPEG_GEO.jpg", true);
+        assertStreamingMatchesFile(new JpegParser(), "testJPEG_oddTagComponent.jpg", true);
+        assertStreamingMatchesFile(new TiffParser(), "testTIFF.tif", false);
+        assertStreamingMatchesFile(new WebPParser(), "testWEBP.webp", false);
+    }
+
+    @Test
+    public void testStreamingTiffLimit() throws Exception {
+        Metadata metadata = new Metadata();
+        try (InputStream is = getClass().getResourceAsStream("/test-documents/testTIFF.tif")) {
+            //the header alone is 8 bytes
+            assertFalse(new ImageMetadataExtractor(metadata).parseTiff(is, 16));
+        }
+        assertEquals(0, metadata.size());
+        try (InputStream is = getClass().getResourceAsStream("/test-documents/testTIFF.tif")) {
+            assertTrue(new ImageMetadataExtractor(metadata).parseTiff(is,
+                    TiffParser.MAX_STREAMED_BYTES));
+        }
+        assertTrue(metadata.size() > 0);
+    }
+
+    private void assertStreamingMatchesFile(Parser parser, String fileName,
+                                            boolean stopsBeforeImageData) throws Exception {
+        Path path = Paths.get(getClass().getResource("/test-documents/" + fileName).toURI());
+        String mediaType = parser.getSupportedTypes(new ParseContext()).iterator().next().toString();
+        Metadata fromFile = new Metadata();
+        fromFile.set(Metadata.CONTENT_TYPE, mediaType);
+        try (InputStream is = TikaInputStream.get(path)) {
+            parser.parse(is, new DefaultHandler(), fromFile, new ParseContext());
+        }
+        Metadata fromStream = new Metadata();
+        fromStream.set(Metadata.CONTENT_TYPE, mediaType);
+        long length;
+        try (CountingInputStream is = new CountingInputStream(
+                getClass().getResourceAsStream("/test-documents/" + fileName))) {
+            parser.parse(is, new DefaultHandler(), fromStream, new ParseContext());
+            length = is.getByteCount();
+        }
+        for (String name : fromFile.names()) {
+            //metadata-extractor adds the name, size and date of the file it reads
+            if (!name.startsWith("File ")) {
+                assertEquals(fileName + ": " + name, Arrays.asList(fromFile.getValues(name)),
+                        Arrays.asList(fromStream.getValues(name)));
+            }
+        }
+        if (stopsBeforeImageData) {
+            assertTrue(fileName + ": read " + length + " bytes",
+                    length < path.toFile().length());
+        }
+    }
 }
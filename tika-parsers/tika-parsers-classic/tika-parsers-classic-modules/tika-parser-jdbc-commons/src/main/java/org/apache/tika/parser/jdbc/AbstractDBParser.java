@@ -21,30 +21,62 @@ import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.tika.exception.CorruptedFileException;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
 import org.apache.tika.extractor.EmbeddedDocumentUtil;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
 import org.apache.tika.metadata.Database;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.CompositeParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseTask;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.RecordingContentHandler;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 
 /**
  * Abstract class that handles iterating through tables within a database.
+ * <p/>
+ * If {@link #setParseThreads(int)} is greater than 1, {@link #setMaxRowsPerTable(int)}
+ * is set, the subclass can open read-only connections (see
+ * {@link #getReadOnlyConnection(Metadata, ParseContext)}), and the blobs are parsed by the
+ * default {@link ParsingEmbeddedDocumentExtractor} with a {@link CompositeParser} in the
+ * ParseContext, tables are read concurrently as {@link ParseTask}s, each over its own
+ * connection, and written in order.  The output of each table is held in memory until it
+ * is written, which is why the number of rows has to be limited.  A database within a
+ * table is read one table at a time.
  */
 public abstract class AbstractDBParser extends AbstractParser {
 
     private final static byte[] EMPTY_BYTE_ARR = new byte[0];
 
+    /**
+     * Maximum time to wait for the tables that are being read when the parse
+     * of the database stops early, before the database is closed.
+     */
+    private static final long STOP_TIMEOUT_MILLIS = 30000;
+
     private Connection connection;
 
+    private int parseThreads = 1;
+
+    private int fetchSize = 0;
+
+    private int maxRowsPerTable = -1;
+
     @Override
     public Set<MediaType> getSupportedTypes(ParseContext context) {
         return null;
@@ -79,24 +111,20 @@ public abstract class AbstractDBParser extends AbstractParser {
         xHandler.startDocument();
 
         try {
-            for (String tableName : tableNames) {
-                JDBCTableReader tableReader = getTableReader(connection, tableName, embeddedDocumentUtil);
-                xHandler.startElement("table", "name", tableReader.getTableName());
-                xHandler.startElement("thead");
-                xHandler.startElement("tr");
-                for (String header : tableReader.getHeaders()) {
-                    xHandler.startElement("th");
-                    xHandler.characters(header);
-                    xHandler.endElement("th");
-                }
-                xHandler.endElement("tr");
-                xHandler.endElement("thead");
-                xHandler.startElement("tbody");
-                while (tableReader.nextRow(xHandler, context)) {
-                    //no-op
+            Connection readOnlyConnection = null;
+            if (parseThreads > 1 && maxRowsPerTable > -1 && tableNames.size() > 1
+                    && canParseConcurrently(context) && !ParseTask.isRunningInTask()) {
+                readOnlyConnection = getReadOnlyConnection(metadata, context);
+            }
+            if (readOnlyConnection != null) {
+                parseTablesConcurrently(tableNames, readOnlyConnection, xHandler, metadata, context);
+            } else {
+                for (String tableName : tableNames) {
+                    try (JDBCTableReader tableReader =
+                                 getTableReader(connection, tableName, embeddedDocumentUtil)) {
+                        parseTable(tableReader, xHandler, metadata, context);
+                    }
                 }
-                xHandler.endElement("tbody");
-                xHandler.endElement("table");
             }
         } finally {
             try {
@@ -110,6 +138,180 @@ public abstract class AbstractDBParser extends AbstractParser {
         }
     }
 
+    private void parseTable(JDBCTableReader tableReader, ContentHandler handler,
+                            Metadata metadata, ParseContext context)
+            throws IOException, SAXException {
+        writeTable(tableReader, handler, context);
+        if (tableReader.isTruncated()) {
+            metadata.add(Database.TRUNCATED_TABLE_NAME, tableReader.getTableName());
+        }
+    }
+
+    private void writeTable(JDBCTableReader tableReader, ContentHandler handler,
+                            ParseContext context) throws IOException, SAXException {
+        tableReader.setFetchSize(fetchSize);
+        tableReader.setMaxRows(maxRowsPerTable);
+        AttributesImpl attrs = new AttributesImpl();
+        attrs.addAttribute("", "name", "name", "CDATA", tableReader.getTableName());
+        startElement(handler, "table", attrs);
+        startElement(handler, "thead", new AttributesImpl());
+        startElement(handler, "tr", new AttributesImpl());
+        for (String header : tableReader.getHeaders()) {
+            startElement(handler, "th", new AttributesImpl());
+            char[] chars = header.toCharArray();
+            handler.characters(chars, 0, chars.length);
+            endElement(handler, "th");
+        }
+        endElement(handler, "tr");
+        endElement(handler, "thead");
+        startElement(handler, "tbody", new AttributesImpl());
+        while (tableReader.nextRow(handler, context)) {
+            //no-op
+        }
+        endElement(handler, "tbody");
+        endElement(handler, "table");
+    }
+
+    private static void startElement(ContentHandler handler, String name, AttributesImpl attrs)
+            throws SAXException {
+        handler.startElement(XHTMLContentHandler.XHTML, name, name, attrs);
+    }
+
+    private static void endElement(ContentHandler handler, String name) throws SAXException {
+        handler.endElement(XHTMLContentHandler.XHTML, name, name);
+    }
+
+    /**
+     * @param readOnlyConnection first read-only connection, which is used by one of the tables
+     */
+    private void parseTablesConcurrently(List<String> tableNames, Connection readOnlyConnection,
+                                         XHTMLContentHandler xHandler,
+                                         Metadata metadata, ParseContext context)
+            throws IOException, SAXException, TikaException {
+        ReadOnlyConnections connections = new ReadOnlyConnections(readOnlyConnection, metadata);
+        //tables being read concurrently, in order
+        Queue<TableTask> pending = new ArrayDeque<>();
+        try {
+            for (String tableName : tableNames) {
+                TableTask task = new TableTask(tableName, connections, context);
+                task.submit();
+                pending.add(task);
+                if (pending.size() >= 2 * parseThreads) {
+                    replay(pending.poll(), xHandler, metadata);
+                }
+            }
+            while (! pending.isEmpty()) {
+                replay(pending.poll(), xHandler, metadata);
+            }
+        } finally {
+            //no task may read once the database is closed
+            long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+            try {
+                for (TableTask task : pending) {
+                    task.stop(Math.max(0, deadline - System.currentTimeMillis()),
+                            TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            connections.close();
+        }
+    }
+
+    private static void replay(TableTask task, ContentHandler handler, Metadata metadata)
+            throws IOException, SAXException, TikaException {
+        TableResult result;
+        try {
+            result = task.getFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TikaException("interrupted while reading tables", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof TikaException) {
+                throw (TikaException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new TikaException("failed to read table", cause);
+        }
+        result.recorded.replay(handler);
+        if (result.truncated) {
+            metadata.add(Database.TRUNCATED_TABLE_NAME, result.tableName);
+        }
+    }
+
+    private static boolean canParseConcurrently(ParseContext context) {
+        EmbeddedDocumentExtractor extractor = EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
+        return extractor.getClass() == ParsingEmbeddedDocumentExtractor.class &&
+                context.get(Parser.class) instanceof CompositeParser;
+    }
+
+    /**
+     * Number of threads to read tables with, see the class documentation.
+     * Default is 1.
+     *
+     * @param parseThreads number of threads
+     */
+    public void setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+    }
+
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    /**
+     * Number of rows the driver should fetch from the database at a time
+     * (see {@link java.sql.Statement#setFetchSize(int)}).
+     * Default is 0: the driver's default.
+     *
+     * @param fetchSize number of rows
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Maximum number of rows to extract from each table.  The names of the tables
+     * with more rows are recorded in {@link Database#TRUNCATED_TABLE_NAME}.
+     * Default is -1: no limit, in which case tables aren't read concurrently.
+     *
+     * @param maxRowsPerTable maximum number of rows
+     */
+    public void setMaxRowsPerTable(int maxRowsPerTable) {
+        this.maxRowsPerTable = maxRowsPerTable;
+    }
+
+    public int getMaxRowsPerTable() {
+        return maxRowsPerTable;
+    }
+
+    /**
+     * Override this to allow tables to be read concurrently.  This is called
+     * after {@link #getConnection(InputStream, Metadata, ParseContext)}, once for
+     * each table, possibly from several threads.  The caller closes the connection.
+     *
+     * @param metadata metadata of the database
+     * @param context  parsecontext of the database
+     * @return a new read-only connection to the database, or <code>null</code>
+     * if they aren't supported, in which case the tables are read one after another
+     * @throws java.io.IOException
+     * @throws org.apache.tika.exception.TikaException
+     */
+    protected Connection getReadOnlyConnection(Metadata metadata, ParseContext context)
+            throws IOException, TikaException {
+        return null;
+    }
+
     /**
      * Override this for any special handling of closing the connection.
      *
@@ -205,4 +407,102 @@ public abstract class AbstractDBParser extends AbstractParser {
                                                       String tableName,
                                                       EmbeddedDocumentUtil embeddedDocumentUtil);
 
+    private static class TableResult {
+        private final String tableName;
+        private final RecordingContentHandler recorded;
+        private final boolean truncated;
+
+        TableResult(String tableName, RecordingContentHandler recorded, boolean truncated) {
+            this.tableName = tableName;
+            this.recorded = recorded;
+            this.truncated = truncated;
+        }
+    }
+
+    /**
+     * Read-only connections for the tasks of one parse.  No connection is
+     * opened once they are closed.
+     */
+    private class ReadOnlyConnections {
+        private final Metadata metadata;
+        private Connection unused;
+        private boolean closed = false;
+
+        /**
+         * @param first first read-only connection, which is used by one of the tables
+         */
+        ReadOnlyConnections(Connection first, Metadata metadata) {
+            this.unused = first;
+            this.metadata = metadata;
+        }
+
+        Connection take(ParseContext context) throws IOException, TikaException {
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("closed");
+                }
+                if (unused != null) {
+                    Connection connection = unused;
+                    unused = null;
+                    return connection;
+                }
+            }
+            Connection connection = getReadOnlyConnection(metadata, context);
+            if (connection == null) {
+                throw new TikaException("couldn't open a read-only connection");
+            }
+            synchronized (this) {
+                if (!closed) {
+                    return connection;
+                }
+            }
+            closeQuietly(connection);
+            throw new IOException("closed");
+        }
+
+        void close() {
+            Connection connection;
+            synchronized (this) {
+                closed = true;
+                connection = unused;
+                unused = null;
+            }
+            if (connection != null) {
+                closeQuietly(connection);
+            }
+        }
+
+        private void closeQuietly(Connection connection) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                //swallow
+            }
+        }
+    }
+
+    /**
+     * Reads a table over its own connection into a recording handler.
+     */
+    private class TableTask extends ParseTask<TableResult> {
+        private final String tableName;
+        private final ReadOnlyConnections connections;
+
+        TableTask(String tableName, ReadOnlyConnections connections, ParseContext context) {
+            super(context);
+            this.tableName = tableName;
+            this.connections = connections;
+        }
+
+        @Override
+        protected TableResult call(ParseContext context) throws Exception {
+            RecordingContentHandler recorder = new RecordingContentHandler();
+            try (Connection tableConnection = connections.take(context);
+                 JDBCTableReader tableReader = getTableReader(tableConnection, tableName,
+                         new EmbeddedDocumentUtil(context))) {
+                writeTable(tableReader, recorder, context);
+                return new TableResult(tableName, recorder, tableReader.isTruncated());
+            }
+        }
+    }
 }
@@ -20,6 +20,7 @@ package org.apache.tika.parser.jdbc;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.sql.Blob;
 import java.sql.Clob;
@@ -51,8 +52,12 @@ import org.xml.sax.helpers.AttributesImpl;
 
 /**
  * General base class to iterate through rows of a JDBC table
+ * <p/>
+ * Blobs are streamed to the embedded document parser through
+ * {@link Blob#getBinaryStream()}.  Close the reader when
+ * the table has been read.
  */
-public class JDBCTableReader {
+public class JDBCTableReader implements Closeable {
 
     private final static Attributes EMPTY_ATTRIBUTES = new AttributesImpl();
     private final Connection connection;
@@ -60,6 +65,9 @@ public class JDBCTableReader {
     int maxClobLength = 1000000;
     ResultSet results = null;
     int rows = 0;
+    private int fetchSize = 0;
+    private int maxRows = -1;
+    private boolean truncated = false;
     private final EmbeddedDocumentUtil embeddedDocumentUtil;
     public JDBCTableReader(Connection connection, String tableName, EmbeddedDocumentUtil embeddedDocumentUtil) {
         this.connection = connection;
@@ -73,6 +81,10 @@ public class JDBCTableReader {
             reset();
         }
         try {
+            if (maxRows > -1 && rows >= maxRows) {
+                truncated = results.next();
+                return false;
+            }
             if (!results.next()) {
                 return false;
             }
@@ -215,7 +227,7 @@ public class JDBCTableReader {
             if (blob == null) {
                 return;
             }
-            is = TikaInputStream.get(blob, m);
+            is = getBlobStream(blob, m);
             Attributes attrs = new AttributesImpl();
             ((AttributesImpl) attrs).addAttribute("", "type", "type", "CDATA", "blob");
             ((AttributesImpl) attrs).addAttribute("", "column_name", "column_name", "CDATA", columnName);
@@ -259,6 +271,24 @@ public class JDBCTableReader {
         return null;
     }
 
+    /**
+     * Streams the blob rather than reading it into memory.  The
+     * blob length (if available) is stored in the metadata.
+     *
+     * @param blob blob from {@link #getBlob(ResultSet, int, Metadata)}
+     * @param metadata metadata of the blob
+     * @return stream of the blob
+     * @throws SQLException
+     */
+    protected TikaInputStream getBlobStream(Blob blob, Metadata metadata) throws SQLException {
+        try {
+            metadata.set(Metadata.CONTENT_LENGTH, Long.toString(blob.length()));
+        } catch (SQLException e) {
+            //swallow
+        }
+        return TikaInputStream.get(blob.getBinaryStream());
+    }
+
     protected void handleDate(ResultSet resultSet, int columnIndex, ContentHandler handler) throws SAXException, SQLException {
         addAllCharacters(resultSet.getString(columnIndex), handler);
     }
@@ -277,22 +307,66 @@ public class JDBCTableReader {
 
     void reset() throws IOException {
 
-        if (results != null) {
-            try {
-                results.close();
-            } catch (SQLException e) {
-                //swallow
-            }
-        }
+        close();
 
         String sql = "SELECT * from " + tableName;
         try {
             Statement st = connection.createStatement();
+            if (fetchSize > 0) {
+                st.setFetchSize(fetchSize);
+            }
             results = st.executeQuery(sql);
         } catch (SQLException e) {
             throw new IOException(e);
         }
         rows = 0;
+        truncated = false;
+    }
+
+    /**
+     * Closes the result set and its statement, if they are open.
+     */
+    @Override
+    public void close() {
+        if (results != null) {
+            try {
+                Statement st = results.getStatement();
+                results.close();
+                if (st != null) {
+                    st.close();
+                }
+            } catch (SQLException e) {
+                //swallow
+            }
+            results = null;
+        }
+    }
+
+    /**
+     * Number of rows the driver should fetch from the database at a time.
+     * Default is 0: the driver's default.
+     *
+     * @param fetchSize number of rows
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Maximum number of rows to read from the table.
+     * Default is -1: no limit.
+     *
+     * @param maxRows maximum number of rows
+     */
+    public void setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * @return whether rows were left unread because of {@link #setMaxRows(int)}
+     */
+    public boolean isTruncated() {
+        return truncated;
     }
 
     public String getTableName() {
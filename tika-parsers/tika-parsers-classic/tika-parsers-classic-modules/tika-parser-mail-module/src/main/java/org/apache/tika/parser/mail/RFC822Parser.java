@@ -34,6 +34,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -89,9 +90,33 @@ public class RFC822Parser extends AbstractParser {
         MimeStreamParser parser = new MimeStreamParser(config, null, new DefaultBodyDescriptorBuilder());
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
 
-        MailContentHandler mch = new MailContentHandler(
-                xhtml, localDetector, metadata, context, config.isStrictParsing(),
-                extractAllAlternatives);
+        MailContentHandler mch;
+        if (RequestedOutputs.get(context).isBodyRequested()) {
+            mch = new MailContentHandler(
+                    xhtml, localDetector, metadata, context, config.isStrictParsing(),
+                    extractAllAlternatives);
+        } else {
+            //only the metadata was requested: stop after the message headers,
+            //unless a requested field is missing from them
+            mch = new MailContentHandler(
+                    xhtml, localDetector, metadata, context, config.isStrictParsing(),
+                    extractAllAlternatives) {
+                private boolean messageHeader = true;
+                private boolean stopped = false;
+
+                @Override
+                public void endHeader() throws MimeException {
+                    if (messageHeader &&
+                            !RequestedOutputs.get(context).isBodyRequested(metadata)) {
+                        stopped = true;
+                    }
+                    messageHeader = false;
+                    if (stopped) {
+                        parser.stop();
+                    }
+                }
+            };
+        }
         parser.setContentHandler(mch);
         parser.setContentDecoding(true);
         xhtml.startDocument();
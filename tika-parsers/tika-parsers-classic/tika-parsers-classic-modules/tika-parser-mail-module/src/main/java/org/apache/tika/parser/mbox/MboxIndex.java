@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.mbox;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.tika.exception.TikaException;
+
+/**
+ * Offsets and lengths of the messages in an mbox, so that a single message
+ * can be re-extracted without scanning the mbox again.
+ * <p>
+ * The index is saved as text, one "offset length" line per message.
+ * The same values are reported by the MboxParser in each message's metadata as
+ * {@link MboxParser#MBOX_MESSAGE_OFFSET} and {@link MboxParser#MBOX_MESSAGE_LENGTH}.
+ */
+public class MboxIndex {
+
+    private static final String HEADER = "#mbox-index 1";
+
+    private final long[] offsets;
+    private final long[] lengths;
+
+    private MboxIndex(long[] offsets, long[] lengths) {
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Scans an mbox and builds its index.
+     *
+     * @param mbox mbox file
+     * @return index
+     * @throws IOException
+     */
+    public static MboxIndex build(Path mbox) throws IOException {
+        long[] offsets = new long[16];
+        long[] lengths = new long[16];
+        int size = 0;
+        try (InputStream is = Files.newInputStream(mbox)) {
+            MboxSplitter splitter = new MboxSplitter(is, false, MboxParser.MAIL_MAX_SIZE);
+            for (MboxSplitter.Message message = splitter.next(); message != null;
+                 message = splitter.next()) {
+                if (size == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                    lengths = Arrays.copyOf(lengths, size * 2);
+                }
+                offsets[size] = message.getOffset();
+                lengths[size] = message.getLength();
+                size++;
+            }
+        }
+        return new MboxIndex(Arrays.copyOf(offsets, size), Arrays.copyOf(lengths, size));
+    }
+
+    /**
+     * @param indexFile file written by {@link #save(Path)}
+     * @return index
+     * @throws IOException
+     * @throws TikaException if the file is not an mbox index
+     */
+    public static MboxIndex load(Path indexFile) throws IOException, TikaException {
+        long[] offsets = new long[16];
+        long[] lengths = new long[16];
+        int size = 0;
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, US_ASCII)) {
+            String line = reader.readLine();
+            if (! HEADER.equals(line)) {
+                throw new TikaException("Not an mbox index: " + indexFile);
+            }
+            line = reader.readLine();
+            while (line != null) {
+                int space = line.indexOf(' ');
+                if (space < 0) {
+                    throw new TikaException("Bad line in mbox index: " + line);
+                }
+                if (size == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                    lengths = Arrays.copyOf(lengths, size * 2);
+                }
+                try {
+                    offsets[size] = Long.parseLong(line.substring(0, space));
+                    lengths[size] = Long.parseLong(line.substring(space + 1));
+                } catch (NumberFormatException e) {
+                    throw new TikaException("Bad line in mbox index: " + line, e);
+                }
+                size++;
+                line = reader.readLine();
+            }
+        }
+        return new MboxIndex(Arrays.copyOf(offsets, size), Arrays.copyOf(lengths, size));
+    }
+
+    public void save(Path indexFile) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(indexFile, US_ASCII)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (int i = 0; i < offsets.length; i++) {
+                writer.write(Long.toString(offsets[i]));
+                writer.write(' ');
+                writer.write(Long.toString(lengths[i]));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * @return number of messages
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    public long getOffset(int message) {
+        return offsets[message];
+    }
+
+    public long getLength(int message) {
+        return lengths[message];
+    }
+
+    /**
+     * Reads a single message from the mbox.
+     *
+     * @param mbox    mbox file that this index was built from
+     * @param message index of the message
+     * @return stream with the message bytes (without the "From " line)
+     * @throws IOException
+     */
+    public InputStream openMessage(Path mbox, int message) throws IOException {
+        long length = lengths[message];
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Message too long: " + length);
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) length);
+        try (FileChannel channel = FileChannel.open(mbox, StandardOpenOption.READ)) {
+            long position = offsets[message];
+            while (bytes.hasRemaining()) {
+                int read = channel.read(bytes, position);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of mbox at " + position);
+                }
+                position += read;
+            }
+        }
+        return new ByteArrayInputStream(bytes.array());
+    }
+}
@@ -16,34 +16,46 @@
  */
 package org.apache.tika.parser.mbox;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.tika.config.Field;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.extractor.EmbeddedDocumentExtractor;
 import org.apache.tika.extractor.EmbeddedDocumentUtil;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Message;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.CompositeParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseDeadline;
+import org.apache.tika.parser.ParseTask;
+import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.mailcommons.MailUtil;
+import org.apache.tika.sax.RecordingContentHandler;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -53,12 +65,37 @@ import static org.apache.tika.parser.mailcommons.MailDateParser.parseDate;
 /**
  * Mbox (mailbox) parser. This version extracts each mail from Mbox and uses the
  * DelegatingParser to process each mail.
+ * <p>
+ * The mbox is split on its bytes (see {@link MboxSplitter}).  If the stream is backed
+ * by a file, each message is read from its range of the file, otherwise each message's
+ * bytes are collected once and parsed from that buffer.  The offset and length of each
+ * message in the mbox are recorded in its metadata (see {@link MboxIndex}).
+ * <p>
+ * If {@link #setParseThreads(int)} is greater than 1, and the embedded documents are
+ * parsed by the default {@link ParsingEmbeddedDocumentExtractor} with a
+ * {@link CompositeParser} (e.g. the AutoDetectParser) in the ParseContext, messages are
+ * parsed concurrently and their output is written in mbox order.  Otherwise (e.g. with the
+ * RecursiveParserWrapper, which is not thread safe) messages are parsed one at a time.
+ * Messages are parsed as {@link ParseTask}s, on the executor that is shared by all parses.
  */
 public class MboxParser extends AbstractParser {
 
     public static final String MBOX_MIME_TYPE = "application/mbox";
     public static final String MBOX_RECORD_DIVIDER = "From ";
     public static final int MAIL_MAX_SIZE = 50000000;
+
+    /**
+     * Offset of a message in the mbox, after its "From " line
+     */
+    public static final String MBOX_MESSAGE_OFFSET =
+            TikaCoreProperties.TIKA_META_PREFIX + "mbox" + TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER + "offset";
+
+    /**
+     * Length of a message in the mbox
+     */
+    public static final String MBOX_MESSAGE_LENGTH =
+            TikaCoreProperties.TIKA_META_PREFIX + "mbox" + TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER + "length";
+
     /**
      * Serial version UID
      */
@@ -71,7 +108,13 @@ public class MboxParser extends AbstractParser {
     private static final String EMAIL_FROMLINE_METADATA = EMAIL_HEADER_METADATA_PREFIX + "from";
     private final Map<Integer, Metadata> trackingMetadata = new HashMap<Integer, Metadata>();
     private boolean tracking = false;
+    private int parseThreads = 1;
 
+    /**
+     * Maximum time to wait for the messages that are being parsed when the
+     * parse of the mbox stops early, before its file is closed.
+     */
+    private static final long STOP_TIMEOUT_MILLIS = 30000;
 
     public Set<MediaType> getSupportedTypes(ParseContext context) {
         return SUPPORTED_TYPES;
@@ -90,59 +133,226 @@ public class MboxParser extends AbstractParser {
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
         xhtml.startDocument();
 
-        InputStreamReader isr = new InputStreamReader(stream, charsetName);
-        try (BufferedReader reader = new BufferedReader(isr)) {
-            String curLine = reader.readLine();
-            int mailItem = 0;
-            do {
-                if (curLine.startsWith(MBOX_RECORD_DIVIDER)) {
-                    Metadata mailMetadata = new Metadata();
-                    Queue<String> multiline = new LinkedList<String>();
-                    mailMetadata.add(EMAIL_FROMLINE_METADATA, curLine.substring(MBOX_RECORD_DIVIDER.length()));
-                    mailMetadata.set(Metadata.CONTENT_TYPE, "message/rfc822");
-                    mailMetadata.set(TikaCoreProperties.CONTENT_TYPE_OVERRIDE, "message/rfc822");
-                    curLine = reader.readLine();
-                    if (curLine == null) {
-                        break;
-                    }
-                    ByteArrayOutputStream message = new ByteArrayOutputStream(100000);
-                    do {
-                        if (curLine.startsWith(" ") || curLine.startsWith("\t")) {
-                            String latestLine = multiline.poll();
-                            latestLine += " " + curLine.trim();
-                            multiline.add(latestLine);
-                        } else {
-                            multiline.add(curLine);
+        TikaInputStream tis = TikaInputStream.cast(stream);
+        FileChannel channel = null;
+        if (tis != null && tis.hasFile()) {
+            channel = FileChannel.open(tis.getPath(), StandardOpenOption.READ);
+        }
+        //messages of an mbox within a message are parsed in that message's thread,
+        //so that tasks never wait for the executor they run on
+        boolean concurrent = parseThreads > 1 && canParseConcurrently(extractor, context)
+                && !ParseTask.isRunningInTask();
+        //messages being parsed concurrently, in mbox order
+        Queue<MessageTask> pending = new ArrayDeque<>();
+        try {
+            MboxSplitter splitter = new MboxSplitter(stream, channel == null, MAIL_MAX_SIZE);
+            MboxSplitter.Message message = splitter.next();
+            while (message != null && !Thread.currentThread().isInterrupted()) {
+                ParseDeadline.check(context);
+                Metadata mailMetadata = getMailMetadata(message);
+                if (extractor.shouldParseEmbedded(mailMetadata)) {
+                    if (!concurrent) {
+                        try (InputStream messageStream = openMessage(message, channel)) {
+                            extractor.parseEmbedded(messageStream, xhtml, mailMetadata, true);
+                        }
+                    } else {
+                        MessageTask task = new MessageTask(message, channel, mailMetadata, context);
+                        task.submit();
+                        pending.add(task);
+                        if (pending.size() >= 2 * parseThreads) {
+                            replay(pending.poll(), xhtml);
                         }
-
-                        message.write(curLine.getBytes(charsetName));
-                        message.write(0x0A);
-                        curLine = reader.readLine();
                     }
-                    while (curLine != null && !curLine.startsWith(MBOX_RECORD_DIVIDER) && message.size() < MAIL_MAX_SIZE);
+                }
 
-                    for (String item : multiline) {
-                        saveHeaderInMetadata(mailMetadata, item);
-                    }
+                if (tracking) {
+                    getTrackingMetadata().put(message.getIndex(), mailMetadata);
+                }
+                message = splitter.next();
+            }
+            while (! pending.isEmpty()) {
+                replay(pending.poll(), xhtml);
+            }
+        } finally {
+            stop(pending);
+            if (channel != null) {
+                channel.close();
+            }
+        }
 
-                    ByteArrayInputStream messageStream = new ByteArrayInputStream(message.toByteArray());
-                    message = null;
+        xhtml.endDocument();
+    }
 
-                    if (extractor.shouldParseEmbedded(mailMetadata)) {
-                        extractor.parseEmbedded(messageStream, xhtml, mailMetadata, true);
-                    }
+    /**
+     * Number of threads to parse messages with, see the class documentation.
+     * Default is 1.
+     *
+     * @param parseThreads number of threads
+     */
+    @Field
+    public void setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+    }
 
-                    if (tracking) {
-                        getTrackingMetadata().put(mailItem++, mailMetadata);
-                    }
-                } else {
-                    curLine = reader.readLine();
-                }
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    private static boolean canParseConcurrently(EmbeddedDocumentExtractor extractor,
+                                                ParseContext context) {
+        return extractor.getClass() == ParsingEmbeddedDocumentExtractor.class &&
+                context.get(Parser.class) instanceof CompositeParser;
+    }
 
-            } while (curLine != null && !Thread.currentThread().isInterrupted());
+    private Metadata getMailMetadata(MboxSplitter.Message message) {
+        Metadata mailMetadata = new Metadata();
+        mailMetadata.add(EMAIL_FROMLINE_METADATA, message.getFromLine());
+        mailMetadata.set(Metadata.CONTENT_TYPE, "message/rfc822");
+        mailMetadata.set(TikaCoreProperties.CONTENT_TYPE_OVERRIDE, "message/rfc822");
+        mailMetadata.set(MBOX_MESSAGE_OFFSET, Long.toString(message.getOffset()));
+        mailMetadata.set(MBOX_MESSAGE_LENGTH, Long.toString(message.getLength()));
+
+        //unfold continuation lines into the header they continue
+        List<String> multiline = new ArrayList<>();
+        for (String curLine : message.getHeaderLines()) {
+            if ((curLine.startsWith(" ") || curLine.startsWith("\t")) && ! multiline.isEmpty()) {
+                int last = multiline.size() - 1;
+                multiline.set(last, multiline.get(last) + " " + curLine.trim());
+            } else {
+                multiline.add(curLine);
+            }
         }
+        for (String item : multiline) {
+            saveHeaderInMetadata(mailMetadata, item);
+        }
+        return mailMetadata;
+    }
 
-        xhtml.endDocument();
+    private static InputStream openMessage(MboxSplitter.Message message, FileChannel channel)
+            throws IOException {
+        if (channel == null) {
+            return message.getInputStream();
+        }
+        return new BufferedInputStream(
+                new ChannelRangeInputStream(channel, message.getOffset(), message.getLength()));
+    }
+
+    /**
+     * Stops the messages that are still being parsed, so that none of them
+     * reads from the channel once it is closed.  A message that doesn't stop
+     * in time fails on the closed channel, and its output is dropped.
+     */
+    private static void stop(Queue<MessageTask> pending) {
+        long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+        try {
+            for (MessageTask task : pending) {
+                task.stop(Math.max(0, deadline - System.currentTimeMillis()),
+                        TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void replay(MessageTask task, ContentHandler handler)
+            throws IOException, SAXException, TikaException {
+        RecordingContentHandler recorded;
+        try {
+            recorded = task.getFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TikaException("interrupted while parsing messages", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new TikaException("failed to parse message", cause);
+        }
+        recorded.replay(handler);
+    }
+
+    /**
+     * Parses a message into a recording handler.
+     */
+    private static class MessageTask extends ParseTask<RecordingContentHandler> {
+        private final MboxSplitter.Message message;
+        private final FileChannel channel;
+        private final Metadata metadata;
+
+        MessageTask(MboxSplitter.Message message, FileChannel channel, Metadata metadata,
+                    ParseContext context) {
+            super(context);
+            this.message = message;
+            this.channel = channel;
+            this.metadata = metadata;
+        }
+
+        @Override
+        protected RecordingContentHandler call(ParseContext context) throws Exception {
+            RecordingContentHandler recorder = new RecordingContentHandler();
+            EmbeddedDocumentExtractor extractor =
+                    EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
+            try (InputStream messageStream = openMessage(message, channel)) {
+                extractor.parseEmbedded(messageStream, recorder, metadata, true);
+            }
+            return recorder;
+        }
+    }
+
+    /**
+     * Stream over a message's range of the mbox file.  This reads with positional
+     * reads, so that messages can be read concurrently from one channel.
+     */
+    private static class ChannelRangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        ChannelRangeInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            int n = (int) Math.min(len, end - position);
+            n = channel.read(ByteBuffer.wrap(b, off, n), position);
+            if (n < 0) {
+                return -1;
+            }
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skip = Math.max(0, Math.min(n, end - position));
+            position += skip;
+            return skip;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
     }
 
     public boolean isTracking() {
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.mbox;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits an mbox into messages by scanning its bytes for lines that start with
+ * {@link MboxParser#MBOX_RECORD_DIVIDER "From "}, without decoding the mbox into characters.
+ * <p>
+ * Only the header lines of each message (up to the first empty line) are decoded.
+ * If requested, the bytes of each message are collected, and handed out as a stream over
+ * that buffer without further copies.  Each message records its offset and length in
+ * the mbox, so that it can be read again directly from the file (see {@link MboxIndex}).
+ * <p>
+ * This class is not thread safe.
+ */
+public class MboxSplitter {
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final byte[] DIVIDER = {'F', 'r', 'o', 'm', ' '};
+    static final Charset HEADER_CHARSET = Charset.forName("windows-1252");
+
+    private final InputStream in;
+    private final boolean keepBytes;
+    private final int maxMessageSize;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+    //offset in the mbox of buffer[pos]
+    private long position = 0;
+    private boolean eof = false;
+    private boolean started = false;
+    private int count = 0;
+
+    /**
+     * @param in             mbox stream
+     * @param keepBytes      whether to collect the bytes of each message; if false,
+     *                       messages only know their offsets
+     * @param maxMessageSize messages are truncated after the line that reaches this size
+     */
+    public MboxSplitter(InputStream in, boolean keepBytes, int maxMessageSize) {
+        this.in = in;
+        this.keepBytes = keepBytes;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * @return the next message or <code>null</code> if there are no more messages
+     * @throws IOException
+     */
+    public Message next() throws IOException {
+        if (! started) {
+            started = true;
+            //skip anything before the first divider
+            while (! atDivider() && ! atEnd()) {
+                consumeLine(null, null);
+            }
+        }
+        if (! atDivider()) {
+            return null;
+        }
+        long fromOffset = position;
+        ByteArrayOutputStream lineBytes = new ByteArrayOutputStream(128);
+        consumeLine(null, lineBytes);
+        String fromLine = decodeLine(lineBytes).substring(DIVIDER.length);
+
+        long offset = position;
+        long length = 0;
+        boolean truncated = false;
+        boolean inHeaders = true;
+        List<String> headerLines = new ArrayList<>();
+        Bytes bytes = keepBytes ? new Bytes() : null;
+        while (! atDivider() && ! atEnd()) {
+            if (length >= maxMessageSize) {
+                truncated = true;
+                consumeLine(null, null);
+                continue;
+            }
+            if (inHeaders) {
+                lineBytes.reset();
+                length += consumeLine(bytes, lineBytes);
+                String line = decodeLine(lineBytes);
+                if (line.isEmpty()) {
+                    inHeaders = false;
+                } else {
+                    headerLines.add(line);
+                }
+            } else {
+                length += consumeLine(bytes, null);
+            }
+        }
+        if (length == 0 && atEnd()) {
+            //a trailing "From " line without a message
+            return null;
+        }
+        return new Message(count++, fromOffset, offset, length, truncated, fromLine,
+                headerLines, bytes);
+    }
+
+    private boolean atEnd() throws IOException {
+        return pos == limit && ! fill();
+    }
+
+    private boolean atDivider() throws IOException {
+        while (limit - pos < DIVIDER.length && ! eof) {
+            fill();
+        }
+        if (limit - pos < DIVIDER.length) {
+            return false;
+        }
+        for (int i = 0; i < DIVIDER.length; i++) {
+            if (buffer[pos + i] != DIVIDER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consumes the current line, including its terminator.
+     *
+     * @return number of bytes consumed
+     */
+    private int consumeLine(Bytes sink, ByteArrayOutputStream line) throws IOException {
+        int consumed = 0;
+        while (true) {
+            if (pos == limit && ! fill()) {
+                return consumed;
+            }
+            int i = pos;
+            while (i < limit && buffer[i] != '\n') {
+                i++;
+            }
+            boolean found = i < limit;
+            int end = found ? i + 1 : limit;
+            int len = end - pos;
+            if (sink != null) {
+                sink.write(buffer, pos, len);
+            }
+            if (line != null) {
+                line.write(buffer, pos, len);
+            }
+            consumed += len;
+            position += len;
+            pos = end;
+            if (found) {
+                return consumed;
+            }
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer and reads more.
+     *
+     * @return true if any bytes were read
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        while (read == 0) {
+            read = in.read(buffer, limit, buffer.length - limit);
+        }
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private static String decodeLine(ByteArrayOutputStream lineBytes) {
+        byte[] bytes = lineBytes.toByteArray();
+        int len = bytes.length;
+        if (len > 0 && bytes[len - 1] == '\n') {
+            len--;
+        }
+        if (len > 0 && bytes[len - 1] == '\r') {
+            len--;
+        }
+        return new String(bytes, 0, len, HEADER_CHARSET);
+    }
+
+    /**
+     * Growable byte array whose contents can be read without a copy.
+     */
+    private static class Bytes extends ByteArrayOutputStream {
+        Bytes() {
+            super(100000);
+        }
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+    /**
+     * A message in an mbox.
+     */
+    public static class Message {
+        private final int index;
+        private final long fromLineOffset;
+        private final long offset;
+        private final long length;
+        private final boolean truncated;
+        private final String fromLine;
+        private final List<String> headerLines;
+        private final Bytes bytes;
+
+        private Message(int index, long fromLineOffset, long offset, long length,
+                        boolean truncated, String fromLine, List<String> headerLines, Bytes bytes) {
+            this.index = index;
+            this.fromLineOffset = fromLineOffset;
+            this.offset = offset;
+            this.length = length;
+            this.truncated = truncated;
+            this.fromLine = fromLine;
+            this.headerLines = Collections.unmodifiableList(headerLines);
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return index of the message in the mbox, starting at 0
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return offset of the "From " line of the message
+         */
+        public long getFromLineOffset() {
+            return fromLineOffset;
+        }
+
+        /**
+         * @return offset of the message (after the "From " line)
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * @return length of the message, or of its first part if it is truncated
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * @return whether the message was longer than the maximum message size
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * @return the "From " line without the divider
+         */
+        public String getFromLine() {
+            return fromLine;
+        }
+
+        /**
+         * @return the decoded header lines, without line terminators and without
+         * unfolding continuation lines
+         */
+        public List<String> getHeaderLines() {
+            return headerLines;
+        }
+
+        /**
+         * @return stream over the collected bytes of the message or <code>null</code>
+         * if the splitter didn't keep the bytes
+         */
+        public InputStream getInputStream() {
+            return bytes == null ? null : bytes.toInputStream();
+        }
+    }
+}
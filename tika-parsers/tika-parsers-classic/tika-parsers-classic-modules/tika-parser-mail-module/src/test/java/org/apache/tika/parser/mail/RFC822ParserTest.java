@@ -54,6 +54,7 @@ import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.parser.ocr.TesseractOCRParserTest;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.XHTMLContentHandler;
@@ -112,6 +113,22 @@ public class RFC822ParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testRequestedOutputs() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(RequestedOutputs.class, RequestedOutputs.METADATA_ONLY);
+        List<Metadata> metadataList = getRecursiveMetadata("testRFC822-multipart", context);
+        assertEquals(1, metadataList.size());
+        assertEquals("DigitalPebble", metadataList.get(0).get(Message.MESSAGE_FROM_NAME));
+        assertNotContained("This is a test for parsing multi-part mails",
+                metadataList.get(0).get(TikaCoreProperties.TIKA_CONTENT));
+
+        metadataList = getRecursiveMetadata("testRFC822-multipart", new ParseContext());
+        assertTrue(metadataList.size() > 1);
+        assertContains("This is a test for parsing multi-part mails",
+                metadataList.get(0).get(TikaCoreProperties.TIKA_CONTENT));
+    }
+
     @Test
     public void testExtendedToFromMetadata() throws Exception {
         Metadata m = getXML("testRFC822").metadata;
@@ -16,23 +16,34 @@
  */
 package org.apache.tika.parser.mbox;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.io.IOUtils;
+
 import org.apache.tika.TikaTest;
 import org.apache.tika.detect.TypeDetector;
+import org.apache.tika.exception.ParseCancelledException;
+import org.apache.tika.exception.ResourceLimitExceededException;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.ResourceBudget;
 import org.apache.tika.sax.BodyContentHandler;
 import org.junit.Before;
 import org.junit.Test;
 import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
 public class MboxParserTest extends TikaTest {
 
@@ -157,4 +168,78 @@ public class MboxParserTest extends TikaTest {
         assertContains("body 2", metadataList.get(1).get(TikaCoreProperties.TIKA_CONTENT));
         assertNotContained("body 1", metadataList.get(1).get(TikaCoreProperties.TIKA_CONTENT));
     }
+
+    @Test
+    public void testParallel() throws Exception {
+        String sequential;
+        try (InputStream stream = getResourceAsStream("/test-documents/complex.mbox")) {
+            ContentHandler handler = new BodyContentHandler();
+            mboxParser.parse(stream, handler, new Metadata(), recursingContext);
+            sequential = handler.toString();
+        }
+
+        MboxParser parallelParser = new MboxParser();
+        parallelParser.setTracking(true);
+        parallelParser.setParseThreads(3);
+        ContentHandler handler = new BodyContentHandler();
+        try (InputStream stream = getResourceAsStream("/test-documents/complex.mbox")) {
+            parallelParser.parse(stream, handler, new Metadata(), recursingContext);
+        }
+        assertEquals(sequential, handler.toString());
+        assertEquals("Re: question about when shuffle/sort start working",
+                parallelParser.getTrackingMetadata().get(0).get(TikaCoreProperties.SUBJECT));
+    }
+
+    @Test
+    public void testParallelKeepsEmbeddedDepth() throws Exception {
+        ResourceBudget budget = new ResourceBudget()
+                .setHardLimit(ResourceBudget.Resource.EMBEDDED_DEPTH, 1);
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, autoDetectParser);
+        context.set(ResourceBudget.class, budget);
+        MboxParser parallelParser = new MboxParser();
+        parallelParser.setParseThreads(3);
+        //as if the mbox were embedded in another document
+        budget.startEmbedded();
+        try (InputStream stream = getResourceAsStream("/test-documents/complex.mbox")) {
+            parallelParser.parse(stream, new BodyContentHandler(), new Metadata(), context);
+            fail("the messages are too deep");
+        } catch (SAXException e) {
+            ResourceLimitExceededException exceeded =
+                    (ResourceLimitExceededException) ParseCancelledException.find(e);
+            assertEquals(ResourceBudget.Resource.EMBEDDED_DEPTH, exceeded.getResource());
+        } finally {
+            budget.endEmbedded();
+        }
+    }
+
+    @Test
+    public void testOffsetIndex() throws Exception {
+        Path mbox = getResourceAsFile("/test-documents/simple.mbox").toPath();
+        MboxIndex index = MboxIndex.build(mbox);
+        assertEquals(2, index.size());
+
+        //file-backed stream, so the messages are mapped from the file
+        try (InputStream stream = TikaInputStream.get(mbox)) {
+            ContentHandler handler = new BodyContentHandler();
+            mboxParser.parse(stream, handler, new Metadata(), recursingContext);
+            assertContains("Test content 2", handler.toString());
+        }
+        Metadata mail2 = mboxParser.getTrackingMetadata().get(1);
+        assertEquals(Long.toString(index.getOffset(1)), mail2.get(MboxParser.MBOX_MESSAGE_OFFSET));
+        assertEquals(Long.toString(index.getLength(1)), mail2.get(MboxParser.MBOX_MESSAGE_LENGTH));
+
+        Path indexFile = Files.createTempFile("tika-mbox-index", ".txt");
+        try {
+            index.save(indexFile);
+            MboxIndex loaded = MboxIndex.load(indexFile);
+            try (InputStream message = loaded.openMessage(mbox, 1)) {
+                String text = IOUtils.toString(message, US_ASCII);
+                assertContains("Test content 2", text);
+                assertNotContained("Test content 1", text);
+            }
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
 }
@@ -133,6 +133,19 @@ public abstract class AbstractOfficeParser extends AbstractParser {
         return defaultOfficeParserConfig.isExtractAllAlternativesFromMSG();
     }
 
+    /**
+     * @see OfficeParserConfig#setPoifsMemoryThreshold(long)
+     * @since 2.0
+     */
+    @Field
+    public void setPoifsMemoryThreshold(long poifsMemoryThreshold) {
+        defaultOfficeParserConfig.setPoifsMemoryThreshold(poifsMemoryThreshold);
+    }
+
+    public long getPoifsMemoryThreshold() {
+        return defaultOfficeParserConfig.getPoifsMemoryThreshold();
+    }
+
     /**
      * <b>WARNING:</b> this sets a static variable in POI.
      * This allows users to override POI's protection of the allocation
@@ -72,6 +72,7 @@ import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseDeadline;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.SAXException;
 
@@ -225,6 +226,7 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
         private final NumberFormat format;
 
         private final OfficeParserConfig officeParserConfig;
+        private final ParseDeadline deadline;
         /**
          * Potential exception thrown by the content handler. When set to
          * non-<code>null</code>, causes all subsequent HSSF records to be
@@ -286,6 +288,7 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
             this.formatListener = new TikaFormatTrackingHSSFListener(this, locale);
             this.tikaExcelDataFormatter = new TikaExcelDataFormatter(locale);
             this.officeParserConfig = officeParserConfig;
+            this.deadline = extractor.context.get(ParseDeadline.class);
 
             this.tikaExcelDataFormatter.setDateFormatOverride(officeParserConfig.getDateFormatOverride());
         }
@@ -388,6 +391,9 @@ public class ExcelExtractor extends AbstractPOIFSExtractor {
         }
 
         private void internalProcessRecord(Record record) throws SAXException, TikaException, IOException {
+            if (deadline != null) {
+                deadline.check();
+            }
             switch (record.getSid()) {
                 case BOFRecord.sid: // start of workbook, worksheet etc. records
                     BOFRecord bof = (BOFRecord) record;
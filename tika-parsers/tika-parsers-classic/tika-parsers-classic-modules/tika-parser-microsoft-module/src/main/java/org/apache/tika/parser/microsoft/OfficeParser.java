@@ -47,10 +47,12 @@ import org.apache.tika.extractor.EmbeddedDocumentExtractor;
 import org.apache.tika.extractor.EmbeddedDocumentUtil;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.PasswordProvider;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.parser.microsoft.ooxml.OOXMLParser;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.EmbeddedContentHandler;
@@ -68,6 +70,33 @@ public class OfficeParser extends AbstractOfficeParser {
      */
     private static final long serialVersionUID = 7393462244028653479L;
 
+    /**
+     * How the POIFS file system of the document was loaded:
+     * {@link #POIFS_LOADING_MEMORY}, {@link #POIFS_LOADING_FILE} or {@link #POIFS_LOADING_CHANNEL}.
+     * Not set if the file system had already been opened, e.g. by the detector.
+     *
+     * @see OfficeParserConfig#setPoifsMemoryThreshold(long)
+     */
+    public static final Property POIFS_LOADING = Property.internalClosedChoise(
+            TikaCoreProperties.TIKA_META_PREFIX + "poifs:loading",
+            OfficeParser.POIFS_LOADING_MEMORY, OfficeParser.POIFS_LOADING_FILE,
+            OfficeParser.POIFS_LOADING_CHANNEL);
+
+    /**
+     * The document was read into memory
+     */
+    public static final String POIFS_LOADING_MEMORY = "memory";
+
+    /**
+     * The document was read from the file that the input stream was already backed by
+     */
+    public static final String POIFS_LOADING_FILE = "file";
+
+    /**
+     * The document was spooled to a temporary file and read through a read-only channel
+     */
+    public static final String POIFS_LOADING_CHANNEL = "channel";
+
     private static final Set<MediaType> SUPPORTED_TYPES =
             Collections.unmodifiableSet(new HashSet<MediaType>(Arrays.asList(
                     POIFSDocumentType.WORKBOOK.type,
@@ -109,6 +138,7 @@ public class OfficeParser extends AbstractOfficeParser {
         try {
             if (tstream == null) {
                 mustCloseFs = new POIFSFileSystem(new CloseShieldInputStream(stream));
+                metadata.set(POIFS_LOADING, POIFS_LOADING_MEMORY);
                 root = mustCloseFs.getRoot();
             } else {
                 final Object container = tstream.getOpenContainer();
@@ -120,8 +150,9 @@ public class OfficeParser extends AbstractOfficeParser {
                     POIFSFileSystem fs = null;
                     if (tstream.hasFile()) {
                         fs = new POIFSFileSystem(tstream.getFile(), true);
+                        metadata.set(POIFS_LOADING, POIFS_LOADING_FILE);
                     } else {
-                        fs = new POIFSFileSystem(new CloseShieldInputStream(tstream));
+                        fs = openFileSystem(tstream, context.get(OfficeParserConfig.class), metadata);
                     }
                     //tstream will close the fs, no need to close this below
                     tstream.setOpenContainer(fs);
@@ -132,7 +163,8 @@ public class OfficeParser extends AbstractOfficeParser {
             parse(root, context, metadata, xhtml);
             OfficeParserConfig officeParserConfig = context.get(OfficeParserConfig.class);
 
-            if (officeParserConfig.isExtractMacros()) {
+            if (officeParserConfig.isExtractMacros() &&
+                    RequestedOutputs.get(context).isEmbeddedRequested()) {
                 //now try to get macros.
                 //Note that macros are handled separately for ppt in HSLFExtractor.
 
@@ -148,6 +180,32 @@ public class OfficeParser extends AbstractOfficeParser {
         xhtml.endDocument();
     }
 
+    /**
+     * Opens the file system of a stream that isn't backed by a file.
+     * Streams longer than {@link OfficeParserConfig#getPoifsMemoryThreshold()}
+     * are read through a read-only channel on a temporary file; the channel is
+     * closed with the stream.  Shorter streams are read into memory once, by POI.
+     * If the length of the stream isn't known, the stream is spooled to the
+     * temporary file first rather than read ahead in memory, and short streams
+     * are read into memory from that file.
+     */
+    private static POIFSFileSystem openFileSystem(TikaInputStream tstream,
+            OfficeParserConfig config, Metadata metadata) throws IOException {
+        long threshold = config.getPoifsMemoryThreshold();
+        if (threshold > -1 && tstream.getPosition() == 0) {
+            if (!tstream.hasLength()) {
+                //sets the length
+                tstream.getPath();
+            }
+            if (tstream.getLength() > threshold) {
+                metadata.set(POIFS_LOADING, POIFS_LOADING_CHANNEL);
+                return new POIFSFileSystem(tstream.getFileChannel(), true);
+            }
+        }
+        metadata.set(POIFS_LOADING, POIFS_LOADING_MEMORY);
+        return new POIFSFileSystem(new CloseShieldInputStream(tstream));
+    }
+
     protected void parse(
             DirectoryNode root, ParseContext context, Metadata metadata, XHTMLContentHandler xhtml)
             throws IOException, SAXException, TikaException {
@@ -162,6 +220,13 @@ public class OfficeParser extends AbstractOfficeParser {
             setType(metadata, type.getType());
         }
 
+        if (!RequestedOutputs.get(context).isBodyRequested(metadata) &&
+                type != POIFSDocumentType.OUTLOOK && type != POIFSDocumentType.ENCRYPTED) {
+            // Only the summary metadata was requested; msg files keep their
+            //  headers in the body, and encrypted files have to be decrypted first
+            return;
+        }
+
         switch (type) {
             case SOLIDWORKS_PART:
             case SOLIDWORKS_ASSEMBLY:
@@ -21,6 +21,11 @@ import java.io.Serializable;
 
 public class OfficeParserConfig implements Serializable {
 
+    /**
+     * Default for {@link #setPoifsMemoryThreshold(long)}: 10MB
+     */
+    public static final long DEFAULT_POIFS_MEMORY_THRESHOLD = 10 * 1024 * 1024;
+
     private boolean extractMacros = false;
 
     private boolean includeDeletedContent = false;
@@ -38,6 +43,8 @@ public class OfficeParserConfig implements Serializable {
 
     private String dateOverrideFormat = null;
 
+    private long poifsMemoryThreshold = DEFAULT_POIFS_MEMORY_THRESHOLD;
+
     /**
      * Sets whether or not MSOffice parsers should extract macros.
      * As of Tika 1.15, the default is <code>false</code>.
@@ -262,6 +269,24 @@ public class OfficeParserConfig implements Serializable {
     public void setDateOverrideFormat(String format) {
         this.dateOverrideFormat = format;
     }
-}
 
+    /**
+     * OLE2 documents that aren't backed by a file yet and that are longer
+     * than this are spooled to a temporary file once, and the POIFS
+     * file system is opened over a read-only channel on that file, rather
+     * than read into memory.  Shorter documents stay in memory.
+     * <p>
+     * Set to 0 to always spool, or to -1 to always read OLE2 documents
+     * into memory.  The default is {@link #DEFAULT_POIFS_MEMORY_THRESHOLD}.
+     *
+     * @param poifsMemoryThreshold threshold in bytes
+     * @since 2.0
+     */
+    public void setPoifsMemoryThreshold(long poifsMemoryThreshold) {
+        this.poifsMemoryThreshold = poifsMemoryThreshold;
+    }
 
+    public long getPoifsMemoryThreshold() {
+        return poifsMemoryThreshold;
+    }
+}
@@ -46,7 +46,16 @@ public class ChmAssert {
         if ((data == null))
             throw new TikaException("data[] is null");
 
-        if ((data.length <= 0))
+        assertChmBlockSegment(data.length, resetTable, blockNumber, lzxcBlockOffset, lzxcBlockLength);
+    }
+
+    /**
+     * Checks the parameters of reading a block segment from chm data of the given length
+     */
+    public static final void assertChmBlockSegment(long dataLength,
+                                                   ChmLzxcResetTable resetTable, int blockNumber, long lzxcBlockOffset,
+                                                   long lzxcBlockLength) throws TikaException {
+        if ((dataLength <= 0))
             throw new TikaException("data[] length should be greater than zero");
 
         if (resetTable == null)
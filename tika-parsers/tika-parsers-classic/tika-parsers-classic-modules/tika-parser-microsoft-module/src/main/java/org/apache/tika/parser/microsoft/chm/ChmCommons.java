@@ -90,27 +90,44 @@ public class ChmCommons {
             int lzxcBlockLength) throws TikaException {
         ChmAssert.assertChmBlockSegment(data, resetTable, blockNumber,
                 lzxcBlockOffset, lzxcBlockLength);
-        int blockLength = -1;
-        // TODO add int_max_value checking
+        int blockLength = getChmBlockSegmentLength(resetTable, blockNumber, lzxcBlockLength);
+        byte[] t = ChmCommons
+                .copyOfRange(
+                        data,
+                        (int) (lzxcBlockOffset + resetTable.getBlockAddress()[blockNumber]),
+                        (int) (lzxcBlockOffset
+                                + resetTable.getBlockAddress()[blockNumber] + blockLength));
+        return (t != null) ? t : new byte[1];
+    }
+
+    /**
+     * Returns the compressed length of an lzx block
+     *
+     * @param resetTable lzxc reset table
+     * @param blockNumber block number
+     * @param lzxcBlockLength length of the compressed content
+     * @return length of the block
+     * @throws ChmParsingException if the length is negative or too long
+     */
+    static int getChmBlockSegmentLength(ChmLzxcResetTable resetTable, int blockNumber,
+                                        long lzxcBlockLength) throws ChmParsingException {
+        long blockLength;
         if (blockNumber < (resetTable.getBlockAddress().length - 1)) {
-            blockLength = (int) (resetTable.getBlockAddress()[blockNumber + 1] - resetTable
-                    .getBlockAddress()[blockNumber]);
+            blockLength = resetTable.getBlockAddress()[blockNumber + 1] - resetTable
+                    .getBlockAddress()[blockNumber];
         } else {
             /* new code */
             if (blockNumber >= resetTable.getBlockAddress().length)
                 blockLength = 0;
             else
                 /* end new code */
-                blockLength = (int) (lzxcBlockLength - resetTable
-                        .getBlockAddress()[blockNumber]);
+                blockLength = lzxcBlockLength - resetTable
+                        .getBlockAddress()[blockNumber];
         }
-        byte[] t = ChmCommons
-                .copyOfRange(
-                        data,
-                        (int) (lzxcBlockOffset + resetTable.getBlockAddress()[blockNumber]),
-                        (int) (lzxcBlockOffset
-                                + resetTable.getBlockAddress()[blockNumber] + blockLength));
-        return (t != null) ? t : new byte[1];
+        if (blockLength > Integer.MAX_VALUE) {
+            throw new ChmParsingException("lzx block is too long");
+        }
+        return (int) blockLength;
     }
 
     /**
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft.chm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+import org.apache.tika.exception.TikaException;
+
+/**
+ * Random access to the bytes of a chm file, either held in a byte array
+ * or read on demand from a channel, e.g. over a file or a memory mapped file.
+ */
+abstract class ChmData {
+
+    static ChmData of(byte[] data) {
+        return new ArrayData(data);
+    }
+
+    static ChmData of(SeekableByteChannel channel) throws IOException {
+        return new ChannelData(channel);
+    }
+
+    /**
+     * @return length of the chm file
+     */
+    abstract long length();
+
+    /**
+     * @param offset offset in the chm file
+     * @param length number of bytes
+     * @return the bytes
+     * @throws TikaException if the range is not within the file
+     */
+    abstract byte[] read(long offset, int length) throws TikaException;
+
+    /**
+     * @return offset of the first occurrence of the pattern, or -1
+     */
+    abstract long indexOf(byte[] pattern) throws TikaException;
+
+    /**
+     * Returns the compressed bytes of an lzx block, as
+     * {@link ChmCommons#getChmBlockSegment(byte[], ChmLzxcResetTable, int, int, int)}
+     */
+    byte[] getBlockSegment(ChmLzxcResetTable resetTable, int blockNumber,
+                           long lzxcBlockOffset, long lzxcBlockLength) throws TikaException {
+        ChmAssert.assertChmBlockSegment(length(), resetTable, blockNumber,
+                lzxcBlockOffset, lzxcBlockLength);
+        long blockLength = ChmCommons.getChmBlockSegmentLength(resetTable, blockNumber,
+                lzxcBlockLength);
+        return read(lzxcBlockOffset + resetTable.getBlockAddress()[blockNumber], (int) blockLength);
+    }
+
+    private static class ArrayData extends ChmData {
+        private final byte[] data;
+
+        private ArrayData(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        long length() {
+            return data.length;
+        }
+
+        @Override
+        byte[] read(long offset, int length) throws TikaException {
+            if (offset + length > Integer.MAX_VALUE) {
+                throw new TikaException("can't copy beyond array length");
+            }
+            return ChmCommons.copyOfRange(data, (int) offset, (int) offset + length);
+        }
+
+        @Override
+        long indexOf(byte[] pattern) throws TikaException {
+            return ChmCommons.indexOf(data, pattern);
+        }
+    }
+
+    private static class ChannelData extends ChmData {
+        private static final int SCAN_CHUNK = 65536;
+
+        private final SeekableByteChannel channel;
+        private final long length;
+
+        private ChannelData(SeekableByteChannel channel) throws IOException {
+            this.channel = channel;
+            this.length = channel.size();
+        }
+
+        @Override
+        long length() {
+            return length;
+        }
+
+        @Override
+        synchronized byte[] read(long offset, int length) throws TikaException {
+            if (offset < 0 || length < 0) {
+                throw new IllegalArgumentException(offset + " and " + length + " should be > 0");
+            }
+            if (offset + length > this.length) {
+                throw new TikaException("can't copy beyond array length");
+            }
+            byte[] bytes = new byte[length];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                channel.position(offset);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new TikaException("unexpected end of chm file");
+                    }
+                }
+            } catch (IOException e) {
+                throw new TikaException("can't read chm file", e);
+            }
+            return bytes;
+        }
+
+        @Override
+        long indexOf(byte[] pattern) throws TikaException {
+            //chunks overlap by the pattern length, so matches across them are found
+            for (long offset = 0; offset < length; offset += SCAN_CHUNK) {
+                int len = (int) Math.min(SCAN_CHUNK + pattern.length - 1, length - offset);
+                int i = ChmCommons.indexOf(read(offset, len), pattern);
+                if (i >= 0) {
+                    return offset + i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -36,7 +36,7 @@ public class ChmDirectoryListingSet {
     private static final Logger LOG = LoggerFactory.getLogger(ChmDirectoryListingSet.class);
 
     private List<DirectoryListingEntry> dlel;
-    private byte[] data;
+    private ChmData data;
     private int placeHolder = -1;
     private long dataOffset = -1;
     private int controlDataIndex = -1;
@@ -56,8 +56,27 @@ public class ChmDirectoryListingSet {
      */
     public ChmDirectoryListingSet(byte[] data, ChmItsfHeader chmItsHeader,
             ChmItspHeader chmItspHeader) throws TikaException {
-        setDirectoryListingEntryList(new ArrayList<DirectoryListingEntry>());
         ChmCommons.assertByteArrayNotNull(data);
+        init(ChmData.of(data), chmItsHeader, chmItspHeader);
+    }
+
+    /**
+     * Constructs chm directory listing set, reading only the directory chunks
+     *
+     * @param data
+     *            chm data
+     * @param chmItsHeader
+     * @param chmItspHeader
+     * @throws TikaException
+     */
+    ChmDirectoryListingSet(ChmData data, ChmItsfHeader chmItsHeader,
+            ChmItspHeader chmItspHeader) throws TikaException {
+        init(data, chmItsHeader, chmItspHeader);
+    }
+
+    private void init(ChmData data, ChmItsfHeader chmItsHeader,
+            ChmItspHeader chmItspHeader) throws TikaException {
+        setDirectoryListingEntryList(new ArrayList<DirectoryListingEntry>());
         setData(data);
         enumerateChmDirectoryListingList(chmItsHeader, chmItspHeader);
     }
@@ -130,19 +149,16 @@ public class ChmDirectoryListingSet {
         try {
             int startPmgl = chmItspHeader.getIndex_head();
             int stopPmgl = chmItspHeader.getUnknown_0024();
-            int dir_offset = (int) (chmItsHeader.getDirOffset() + chmItspHeader
-                    .getHeader_len());
+            long dir_offset = chmItsHeader.getDirOffset() + chmItspHeader
+                    .getHeader_len();
             setDataOffset(chmItsHeader.getDataOffset());
 
             /* loops over all pmgls */
             byte[] dir_chunk = null;
             Set<Integer> processed = new HashSet<>();
             for (int i = startPmgl; i>=0; ) {
-                dir_chunk = new byte[(int) chmItspHeader.getBlock_len()];
-                int start = i * (int) chmItspHeader.getBlock_len() + dir_offset;
-                dir_chunk = ChmCommons
-                        .copyOfRange(getData(), start,
-                                start +(int) chmItspHeader.getBlock_len());
+                long start = i * chmItspHeader.getBlock_len() + dir_offset;
+                dir_chunk = getData().read(start, (int) chmItspHeader.getBlock_len());
 
                 PMGLheader = new ChmPmglHeader();
                 PMGLheader.parse(dir_chunk, PMGLheader);
@@ -376,7 +392,7 @@ public class ChmDirectoryListingSet {
      * 
      * @param data
      */
-    private void setData(byte[] data) {
+    private void setData(ChmData data) {
         this.data = data;
     }
 
@@ -385,7 +401,7 @@ public class ChmDirectoryListingSet {
      * 
      * @return
      */
-    private byte[] getData() {
+    private ChmData getData() {
         return data;
     }
 
@@ -21,8 +21,11 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.tika.exception.TikaException;
@@ -32,19 +35,33 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Extracts text from chm file. Enumerates chm entries.
+ * <p>
+ * The chm file is either read into memory, see {@link #ChmExtractor(InputStream)},
+ * or read on demand from a channel, see {@link #ChmExtractor(SeekableByteChannel)}:
+ * only the headers, the directory listing, the control data and the reset table are
+ * read up front, and the compressed lzx blocks of an entry are read when it is extracted.
+ * Decoded blocks are kept in a bounded LRU cache, so that entries that share blocks,
+ * or a reset interval, don't decode them again.
  */
 public class ChmExtractor {
 
     private static final Logger LOG = LoggerFactory.getLogger(ChmExtractor.class);
 
+    /**
+     * Default number of decoded lzx blocks that are cached
+     */
+    public static final int DEFAULT_MAX_CACHED_BLOCKS = 64;
+
+    private static final int READ_CHUNK = 65536;
 
-    private List<ChmLzxBlock> lzxBlocksCache = null;
+    private Map<Integer, ChmLzxBlock> lzxBlocksCache = null;
+    private int maxCachedBlocks = DEFAULT_MAX_CACHED_BLOCKS;
     private ChmDirectoryListingSet chmDirList = null;
     private ChmItsfHeader chmItsfHeader = null;
     private ChmItspHeader chmItspHeader = null;
     private ChmLzxcResetTable chmLzxcResetTable = null;
     private ChmLzxcControlData chmLzxcControlData = null;
-    private byte[] data = null;
+    private ChmData data = null;
     private int indexOfContent;
     private long lzxBlockOffset;
     private long lzxBlockLength;
@@ -136,88 +153,133 @@ public class ChmExtractor {
         this.indexOfContent = indexOfContent;
     }
 
-    private byte[] getData() {
+    private ChmData getData() {
         return data;
     }
 
-    private void setData(byte[] data) {
+    private void setData(ChmData data) {
         this.data = data;
     }
 
+    /**
+     * Reads the whole chm file into memory.
+     *
+     * @param is chm file
+     */
     public ChmExtractor(InputStream is) throws TikaException, IOException {
         ChmAssert.assertInputStreamNotNull(is);
         try {
-            setData(IOUtils.toByteArray(is));
-
-            /* Creates and parses chm itsf header */
-            setChmItsfHeader(new ChmItsfHeader());
-            // getChmItsfHeader().parse(Arrays.copyOfRange(getData(), 0,
-            // ChmConstants.CHM_ITSF_V3_LEN - 1), getChmItsfHeader());
-            getChmItsfHeader().parse(ChmCommons.copyOfRange(getData(), 0,
-                            ChmConstants.CHM_ITSF_V3_LEN - 1), getChmItsfHeader());
-
-            /* Creates and parses chm itsp header */
-            setChmItspHeader(new ChmItspHeader());
-            // getChmItspHeader().parse(Arrays.copyOfRange( getData(), (int)
-            // getChmItsfHeader().getDirOffset(),
-            // (int) getChmItsfHeader().getDirOffset() +
-            // ChmConstants.CHM_ITSP_V1_LEN), getChmItspHeader());
-            getChmItspHeader().parse(
-                    ChmCommons.copyOfRange(getData(), (int) getChmItsfHeader()
-                            .getDirOffset(), (int) getChmItsfHeader().getDirOffset() + 
-                            ChmConstants.CHM_ITSP_V1_LEN), getChmItspHeader());
-
-            /* Creates instance of ChmDirListingContainer */
-            setChmDirList(new ChmDirectoryListingSet(getData(),
-                    getChmItsfHeader(), getChmItspHeader()));
-
-            int indexOfControlData = getChmDirList().getControlDataIndex();
-            int indexOfResetData = ChmCommons.indexOfResetTableBlock(getData(),
-                    ChmConstants.LZXC.getBytes(UTF_8));
-            byte[] dir_chunk = null;
-            if (indexOfResetData > 0)
-                dir_chunk = ChmCommons.copyOfRange( getData(), indexOfResetData, indexOfResetData  
-                        + getChmDirList().getDirectoryListingEntryList().get(indexOfControlData).getLength());
-            // dir_chunk = Arrays.copyOfRange(getData(), indexOfResetData,
-            // indexOfResetData
-            // +
-            // getChmDirList().getDirectoryListingEntryList().get(indexOfControlData).getLength());
-
-            /* Creates and parses chm control data */
-            setChmLzxcControlData(new ChmLzxcControlData());
-            getChmLzxcControlData().parse(dir_chunk, getChmLzxcControlData());
-
-            int indexOfResetTable = getChmDirList().getResetTableIndex();
-            setChmLzxcResetTable(new ChmLzxcResetTable());
-
-            int startIndex = (int) getChmDirList().getDataOffset()
-                    + getChmDirList().getDirectoryListingEntryList()
-                            .get(indexOfResetTable).getOffset();
-
-            // assert startIndex < data.length
-            ChmAssert.assertCopyingDataIndex(startIndex, getData().length);
-
-            // dir_chunk = Arrays.copyOfRange(getData(), startIndex, startIndex
-            // +
-            // getChmDirList().getDirectoryListingEntryList().get(indexOfResetTable).getLength());
-            dir_chunk = ChmCommons.copyOfRange(getData(), startIndex, startIndex
-                            + getChmDirList().getDirectoryListingEntryList().get(indexOfResetTable).getLength());
-
-            getChmLzxcResetTable().parse(dir_chunk, getChmLzxcResetTable());
-
-            setIndexOfContent(ChmCommons.indexOf(getChmDirList().getDirectoryListingEntryList(), 
-                    ChmConstants.CONTENT));
-            setLzxBlockOffset((getChmDirList().getDirectoryListingEntryList().get(getIndexOfContent()).getOffset() 
-                    + getChmItsfHeader().getDataOffset()));
-            setLzxBlockLength(getChmDirList().getDirectoryListingEntryList().get(getIndexOfContent()).getLength());
-
-            setLzxBlocksCache(new ArrayList<ChmLzxBlock>());
-
+            init(ChmData.of(IOUtils.toByteArray(is)));
         } catch (IOException e) {
             LOG.warn("IOException parsing chm file", e);
         }
     }
 
+    /**
+     * Reads the chm file from the channel on demand.  The channel
+     * must stay open while entries are extracted; it is not closed.
+     *
+     * @param channel chm file
+     */
+    public ChmExtractor(SeekableByteChannel channel) throws TikaException, IOException {
+        if (channel == null) {
+            throw new ChmParsingException("channel is null");
+        }
+        init(ChmData.of(channel));
+    }
+
+    private void init(ChmData chmData) throws TikaException {
+        setData(chmData);
+
+        /* Creates and parses chm itsf header */
+        setChmItsfHeader(new ChmItsfHeader());
+        getChmItsfHeader().parse(getData().read(0,
+                        ChmConstants.CHM_ITSF_V3_LEN - 1), getChmItsfHeader());
+
+        /* Creates and parses chm itsp header */
+        setChmItspHeader(new ChmItspHeader());
+        getChmItspHeader().parse(getData().read(getChmItsfHeader().getDirOffset(),
+                        ChmConstants.CHM_ITSP_V1_LEN), getChmItspHeader());
+
+        /* Creates instance of ChmDirListingContainer */
+        setChmDirList(new ChmDirectoryListingSet(getData(),
+                getChmItsfHeader(), getChmItspHeader()));
+
+        int indexOfControlData = getChmDirList().getControlDataIndex();
+        long indexOfResetData = indexOfControlData(indexOfControlData);
+        byte[] dir_chunk = null;
+        if (indexOfResetData > 0)
+            dir_chunk = getData().read(indexOfResetData,
+                    getChmDirList().getDirectoryListingEntryList().get(indexOfControlData).getLength());
+
+        /* Creates and parses chm control data */
+        setChmLzxcControlData(new ChmLzxcControlData());
+        getChmLzxcControlData().parse(dir_chunk, getChmLzxcControlData());
+
+        int indexOfResetTable = getChmDirList().getResetTableIndex();
+        setChmLzxcResetTable(new ChmLzxcResetTable());
+
+        long startIndex = getChmDirList().getDataOffset()
+                + getChmDirList().getDirectoryListingEntryList()
+                        .get(indexOfResetTable).getOffset();
+
+        // assert startIndex < data.length
+        if (startIndex >= getData().length())
+            throw new ChmParsingException("cannot parse chm file index > data.length");
+
+        dir_chunk = getData().read(startIndex,
+                getChmDirList().getDirectoryListingEntryList().get(indexOfResetTable).getLength());
+
+        getChmLzxcResetTable().parse(dir_chunk, getChmLzxcResetTable());
+
+        setIndexOfContent(ChmCommons.indexOf(getChmDirList().getDirectoryListingEntryList(), 
+                ChmConstants.CONTENT));
+        setLzxBlockOffset((getChmDirList().getDirectoryListingEntryList().get(getIndexOfContent()).getOffset() 
+                + getChmItsfHeader().getDataOffset()));
+        setLzxBlockLength(getChmDirList().getDirectoryListingEntryList().get(getIndexOfContent()).getLength());
+
+        setLzxBlocksCache(new LinkedHashMap<Integer, ChmLzxBlock>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ChmLzxBlock> eldest) {
+                return size() > maxCachedBlocks;
+            }
+        });
+    }
+
+    /**
+     * Returns the offset of the lzxc control data: where its directory
+     * entry points, if the signature is found there, or else the first
+     * occurrence of the signature in the file.
+     */
+    private long indexOfControlData(int indexOfControlData) throws TikaException {
+        byte[] signature = ChmConstants.LZXC.getBytes(UTF_8);
+        if (indexOfControlData >= 0) {
+            long offset = getChmDirList().getDataOffset() + getChmDirList()
+                    .getDirectoryListingEntryList().get(indexOfControlData).getOffset();
+            if (offset > 0 && offset + 4 + signature.length <= getData().length()) {
+                byte[] bytes = getData().read(offset + 4, signature.length);
+                if (ChmCommons.indexOf(bytes, signature) == 0) {
+                    return offset;
+                }
+            }
+        }
+        return getData().indexOf(signature) - 4;
+    }
+
+    /**
+     * Sets the number of decoded lzx blocks that are cached.
+     * Default is {@link #DEFAULT_MAX_CACHED_BLOCKS}.
+     *
+     * @param maxCachedBlocks maximum number of blocks
+     */
+    public void setMaxCachedBlocks(int maxCachedBlocks) {
+        this.maxCachedBlocks = maxCachedBlocks;
+    }
+
+    public int getMaxCachedBlocks() {
+        return maxCachedBlocks;
+    }
+
     /**
      * Enumerates chm entities
      * 
@@ -241,134 +303,246 @@ public class ChmExtractor {
      */
     public byte[] extractChmEntry(DirectoryListingEntry directoryListingEntry) throws TikaException {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        ChmLzxBlock lzxBlock = null;
-        try {
-            /* UNCOMPRESSED type is easiest one */
-            if (directoryListingEntry.getEntryType() == EntryType.UNCOMPRESSED
-                    && directoryListingEntry.getLength() > 0
-                    && !ChmCommons.hasSkip(directoryListingEntry)) {
-                int dataOffset = (int) (getChmItsfHeader().getDataOffset() + directoryListingEntry
-                        .getOffset());
-                // dataSegment = Arrays.copyOfRange(getData(), dataOffset,
-                // dataOffset + directoryListingEntry.getLength());
-                buffer.write(ChmCommons.copyOfRange(
-                        getData(), dataOffset,
-                        dataOffset + directoryListingEntry.getLength()));
-            } else if (directoryListingEntry.getEntryType() == EntryType.COMPRESSED
-                    && !ChmCommons.hasSkip(directoryListingEntry)) {
-                /* Gets a chm hit_cache info */
-                chmBlockInfo = ChmBlockInfo.getChmBlockInfoInstance(
-                        directoryListingEntry, (int) getChmLzxcResetTable()
-                                .getBlockLen(), getChmLzxcControlData(), chmBlockInfo);
-
-                int i = 0, start = 0, hit_cache = 0;
-
-                if ((getLzxBlockLength() < Integer.MAX_VALUE)
-                        && (getLzxBlockOffset() < Integer.MAX_VALUE)) {
-                    // TODO: Improve the caching
-                    // caching ... = O(n^2) - depends on startBlock and endBlock
-                    start = -1;
-                    if (!getLzxBlocksCache().isEmpty()) {
-                        for (i = 0; i < getLzxBlocksCache().size(); i++) {
-                            //lzxBlock = getLzxBlocksCache().get(i);
-                            int bn = getLzxBlocksCache().get(i).getBlockNumber();
-                            for (int j = chmBlockInfo.getIniBlock(); j <= chmBlockInfo.getStartBlock(); j++) {
-                                if (bn == j) {
-                                    if (j > start) {
-                                        start = j;
-                                        hit_cache = i;
-                                    }
-                                }
-                            }
-                            if (start == chmBlockInfo.getStartBlock())
-                                break;
-                        }
-                    }
-
-//                    if (i == getLzxBlocksCache().size() && i == 0) {
-                    if (start<0) {
-                        start = chmBlockInfo.getIniBlock();
+        try (InputStream is = openChmEntry(directoryListingEntry)) {
+            IOUtils.copy(is, buffer);
+        } catch (Exception e) {
+            if (e.getCause() instanceof TikaException) {
+                throw new TikaException(e.getCause().getMessage());
+            }
+            throw new TikaException(e.getMessage());
+        }
 
-                        byte[] dataSegment = ChmCommons.getChmBlockSegment(
-                                getData(),
-                                getChmLzxcResetTable(), start,
-                                (int) getLzxBlockOffset(),
-                                (int) getLzxBlockLength());
+        return buffer.toByteArray();
+    }
 
-                        lzxBlock = new ChmLzxBlock(start, dataSegment,
-                                getChmLzxcResetTable().getBlockLen(), null);
+    /**
+     * Opens a stream of the decompressed bytes of a chm entry.  Compressed
+     * blocks are read and decoded as the stream is read.  The declared
+     * offset and length of the entry are checked against the bounds of the
+     * file or of the LZX section before the stream is returned; if the
+     * entry's blocks turn out to be corrupt nonetheless, the stream throws
+     * an IOException caused by a TikaException.
+     * <p>
+     * Streams of the same extractor must not be read concurrently.
+     *
+     * @param directoryListingEntry entry
+     * @return decompressed data
+     * @throws TikaException if the entry can't be located
+     */
+    public InputStream openChmEntry(DirectoryListingEntry directoryListingEntry) throws TikaException {
+        /* UNCOMPRESSED type is easiest one */
+        if (directoryListingEntry.getEntryType() == EntryType.UNCOMPRESSED
+                && directoryListingEntry.getLength() > 0
+                && !ChmCommons.hasSkip(directoryListingEntry)) {
+            long start = getChmItsfHeader().getDataOffset() + directoryListingEntry.getOffset();
+            if (directoryListingEntry.getOffset() < 0
+                    || start + directoryListingEntry.getLength() > getData().length()) {
+                throw new ChmParsingException("CHM file extract error: "
+                        + directoryListingEntry.getName() + " is beyond the end of the file");
+            }
+            return new UncompressedEntryInputStream(getChmItsfHeader().getDataOffset()
+                    + directoryListingEntry.getOffset(), directoryListingEntry.getLength());
+        } else if (directoryListingEntry.getEntryType() == EntryType.COMPRESSED
+                && !ChmCommons.hasSkip(directoryListingEntry)) {
+            checkLzxBounds(directoryListingEntry);
+            /* Gets a chm hit_cache info */
+            chmBlockInfo = ChmBlockInfo.getChmBlockInfoInstance(
+                    directoryListingEntry, (int) getChmLzxcResetTable()
+                            .getBlockLen(), getChmLzxcControlData(), chmBlockInfo);
+            return new CompressedEntryInputStream(chmBlockInfo, directoryListingEntry.getLength());
+        }
+        return new UncompressedEntryInputStream(0, 0);
+    }
 
-                        getLzxBlocksCache().add(lzxBlock);
-                    } else {
-                        lzxBlock = getLzxBlocksCache().get(hit_cache);
-                    }
+    /**
+     * Checks that a compressed entry lies within the uncompressed length of
+     * the LZX section and within the blocks of its reset table, so that a
+     * corrupt length is reported before any of the entry is read.
+     */
+    private void checkLzxBounds(DirectoryListingEntry directoryListingEntry)
+            throws ChmParsingException {
+        ChmLzxcResetTable resetTable = getChmLzxcResetTable();
+        long end = (long) directoryListingEntry.getOffset() + directoryListingEntry.getLength();
+        long[] blockAddresses = resetTable.getBlockAddress();
+        if (directoryListingEntry.getOffset() < 0 || directoryListingEntry.getLength() < 0
+                || (resetTable.getUncompressedLen() > 0 && end > resetTable.getUncompressedLen())
+                || (blockAddresses != null && resetTable.getBlockLen() > 0
+                        && end > blockAddresses.length * resetTable.getBlockLen())) {
+            throw new ChmParsingException("CHM file extract error: "
+                    + directoryListingEntry.getName() + " is beyond the LZX section");
+        }
+    }
 
-                    for (i = start; i <= chmBlockInfo.getEndBlock();) {
-                        if (i == chmBlockInfo.getStartBlock() && i == chmBlockInfo.getEndBlock()) {
-                            buffer.write(lzxBlock.getContent(
-                                    chmBlockInfo.getStartOffset(), chmBlockInfo.getEndOffset()));
-                            break;
-                        }
+    /**
+     * Returns a decoded lzx block, from the cache or by decoding it and the
+     * blocks before it since the nearest cached block or start of its reset interval.
+     */
+    private ChmLzxBlock getLzxBlock(int blockNumber) throws TikaException {
+        ChmLzxBlock lzxBlock = getLzxBlocksCache().get(blockNumber);
+        if (lzxBlock != null) {
+            return lzxBlock;
+        }
+        int resetInterval = (int) getChmLzxcControlData().getResetInterval();
+        int iniBlock = blockNumber - blockNumber % resetInterval;
+        int start = blockNumber - 1;
+        while (start >= iniBlock && (lzxBlock = getLzxBlocksCache().get(start)) == null) {
+            start--;
+        }
+        for (int i = start + 1; i <= blockNumber; i++) {
+            lzxBlock = new ChmLzxBlock(i,
+                    getData().getBlockSegment(getChmLzxcResetTable(), i,
+                            getLzxBlockOffset(), getLzxBlockLength()),
+                    getChmLzxcResetTable().getBlockLen(),
+                    (i % resetInterval == 0) ? null : lzxBlock);
+            getLzxBlocksCache().put(i, lzxBlock);
+        }
+        return lzxBlock;
+    }
 
-                        if (i == chmBlockInfo.getStartBlock()) {
-                            buffer.write(lzxBlock.getContent(
-                                    chmBlockInfo.getStartOffset()));
-                        }
+    /**
+     * Bytes of an uncompressed entry, read in chunks
+     */
+    private class UncompressedEntryInputStream extends InputStream {
+        private final long end;
+        private long position;
+        private byte[] chunk = new byte[0];
+        private int chunkPosition = 0;
+
+        private UncompressedEntryInputStream(long offset, long length) {
+            this.position = offset;
+            this.end = offset + length;
+        }
 
-                        if (i > chmBlockInfo.getStartBlock() && i < chmBlockInfo.getEndBlock()) {
-                            buffer.write(lzxBlock.getContent());
-                        }
+        private boolean fill() throws IOException {
+            while (chunkPosition >= chunk.length) {
+                if (position >= end) {
+                    return false;
+                }
+                int len = (int) Math.min(READ_CHUNK, end - position);
+                try {
+                    chunk = getData().read(position, len);
+                } catch (TikaException e) {
+                    throw new IOException(e);
+                }
+                chunkPosition = 0;
+                position += len;
+            }
+            return true;
+        }
 
-                        if (i == chmBlockInfo.getEndBlock()) {
-                            buffer.write(lzxBlock.getContent(
-                                    0, chmBlockInfo.getEndOffset()));
-                            break;
-                        }
+        @Override
+        public int read() throws IOException {
+            return fill() ? chunk[chunkPosition++] & 0xFF : -1;
+        }
 
-                        i++;
-
-                        if (i % getChmLzxcControlData().getResetInterval() == 0) {
-                            lzxBlock = new ChmLzxBlock(i,
-                                    ChmCommons.getChmBlockSegment(getData(),
-                                            getChmLzxcResetTable(), i,
-                                            (int) getLzxBlockOffset(),
-                                            (int) getLzxBlockLength()),
-                                    getChmLzxcResetTable().getBlockLen(), null);
-                        } else {
-                            lzxBlock = new ChmLzxBlock(i,
-                                    ChmCommons.getChmBlockSegment(getData(),
-                                            getChmLzxcResetTable(), i,
-                                            (int) getLzxBlockOffset(),
-                                            (int) getLzxBlockLength()),
-                                    getChmLzxcResetTable().getBlockLen(),
-                                    lzxBlock);
-                        }
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - chunkPosition);
+            System.arraycopy(chunk, chunkPosition, b, off, n);
+            chunkPosition += n;
+            return n;
+        }
+    }
 
-                        getLzxBlocksCache().add(lzxBlock);
-                    }
+    /**
+     * Bytes of a compressed entry, decoded block by block
+     */
+    private class CompressedEntryInputStream extends InputStream {
+        private final int startBlock;
+        private final int endBlock;
+        private final int startOffset;
+        private final int endOffset;
+        private final long length;
+        private int nextBlock;
+        private byte[] content = new byte[0];
+        private int contentPosition = 0;
+        private int contentEnd = 0;
+        private long total = 0;
+        private boolean done = false;
+
+        private CompressedEntryInputStream(ChmBlockInfo blockInfo, long length) {
+            this.startBlock = blockInfo.getStartBlock();
+            this.endBlock = blockInfo.getEndBlock();
+            this.startOffset = blockInfo.getStartOffset();
+            this.endOffset = blockInfo.getEndOffset();
+            this.length = length;
+            this.nextBlock = startBlock;
+            if ((getLzxBlockLength() >= Integer.MAX_VALUE)
+                    || (getLzxBlockOffset() >= Integer.MAX_VALUE)) {
+                nextBlock = endBlock + 1;
+            }
+        }
 
-                    if (getLzxBlocksCache().size() > getChmLzxcResetTable()
-                            .getBlockCount()) {
-                        getLzxBlocksCache().clear();
+        private boolean fill() throws IOException {
+            while (contentPosition >= contentEnd) {
+                if (nextBlock > endBlock) {
+                    if (!done) {
+                        done = true;
+                        if (total != length) {
+                            throw new IOException(new TikaException(
+                                    "CHM file extract error: extracted Length is wrong."));
+                        }
                     }
-                } //end of if
-                
-                if (buffer.size() != directoryListingEntry.getLength()) {
-                    throw new TikaException("CHM file extract error: extracted Length is wrong.");
+                    return false;
                 }
-            } //end of if compressed
-        } catch (Exception e) {
-            throw new TikaException(e.getMessage());
+                int i = nextBlock++;
+                try {
+                    content = getLzxBlock(i).getContent();
+                } catch (TikaException e) {
+                    throw new IOException(e);
+                } catch (RuntimeException e) {
+                    throw new IOException(new TikaException(e.getMessage(), e));
+                }
+                int from = 0;
+                int to = 1;
+                if (content == null) {
+                    //as ChmLzxBlock.getContent(int, int)
+                    content = new byte[1];
+                } else {
+                    from = (i == startBlock) ? startOffset : 0;
+                    to = (i == endBlock) ? endOffset : content.length;
+                }
+                if (from < 0 || to < from || to > content.length) {
+                    throw new IOException(new TikaException("can't copy beyond array length"));
+                }
+                contentPosition = from;
+                contentEnd = to;
+                total += to - from;
+            }
+            return true;
         }
 
-        return buffer.toByteArray();
+        @Override
+        public int read() throws IOException {
+            return fill() ? content[contentPosition++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, contentEnd - contentPosition);
+            System.arraycopy(content, contentPosition, b, off, n);
+            contentPosition += n;
+            return n;
+        }
     }
 
-    private void setLzxBlocksCache(List<ChmLzxBlock> lzxBlocksCache) {
+    private void setLzxBlocksCache(Map<Integer, ChmLzxBlock> lzxBlocksCache) {
         this.lzxBlocksCache = lzxBlocksCache;
     }
 
-    private List<ChmLzxBlock> getLzxBlocksCache() {
+    private Map<Integer, ChmLzxBlock> getLzxBlocksCache() {
         return lzxBlocksCache;
     }
 
@@ -16,7 +16,6 @@
  */
 package org.apache.tika.parser.microsoft.chm;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -26,6 +25,8 @@ import java.util.Set;
 
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.extractor.EmbeddedDocumentUtil;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
@@ -58,7 +59,19 @@ public class ChmParser extends AbstractParser {
     public void parse(InputStream stream, ContentHandler handler,
             Metadata metadata, ParseContext context) throws IOException,
             SAXException, TikaException {
-        ChmExtractor chmExtractor = new ChmExtractor(stream);
+        TemporaryResources tmp = new TemporaryResources();
+        try {
+            //read the chm file on demand, rather than copying it into memory
+            TikaInputStream tis = TikaInputStream.get(stream, tmp);
+            parse(new ChmExtractor(tis.getSeekableByteChannel()), handler, metadata, context);
+        } finally {
+            tmp.dispose();
+        }
+    }
+
+    private void parse(ChmExtractor chmExtractor, ContentHandler handler,
+            Metadata metadata, ParseContext context) throws IOException,
+            SAXException, TikaException {
 
         // metadata
         metadata.set(Metadata.CONTENT_TYPE, "application/vnd.ms-htmlhelp");
@@ -82,9 +95,7 @@ public class ChmParser extends AbstractParser {
 //                attrs.addAttribute("", "name", "name", "String", entryName);
 //                xhtml.startElement("", "document", "document", attrs);
                 
-                byte[] data = chmExtractor.extractChmEntry(entry);
-
-                parsePage(data, htmlParser, xhtml, context);
+                parsePage(chmExtractor.openChmEntry(entry), htmlParser, xhtml, context);
                 
 //                xhtml.endElement("", "", "document");
             }
@@ -94,17 +105,19 @@ public class ChmParser extends AbstractParser {
     }
 
 
-    private void parsePage(byte[] byteObject, Parser htmlParser,
+    private void parsePage(InputStream stream, Parser htmlParser,
                            ContentHandler xhtml, ParseContext context) throws TikaException {// throws IOException
-        InputStream stream = null;
         Metadata metadata = new Metadata();
         ContentHandler handler = new EmbeddedContentHandler(new BodyContentHandler(xhtml));// -1
         try {
-            stream = new ByteArrayInputStream(byteObject);
             htmlParser.parse(stream, handler, metadata, context);
         } catch (SAXException e) {
             throw new RuntimeException(e);
         } catch (IOException e) {
+            if (e.getCause() instanceof TikaException) {
+                //the entry couldn't be extracted
+                throw (TikaException) e.getCause();
+            }
             // Pushback overflow from tagsoup
         }
     }
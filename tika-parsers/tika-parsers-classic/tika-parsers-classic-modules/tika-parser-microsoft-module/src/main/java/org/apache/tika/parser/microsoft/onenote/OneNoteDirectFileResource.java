@@ -22,12 +22,22 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.tika.io.MappedBufferCleaner;
 
 /**
  * This is copied mostly from the {@link org.apache.tika.parser.mp4.DirectFileReadDataSource}.
  * <p>
  * Implements a simple way to encapsulate a {@link org.apache.tika.io.TikaInputStream} that you will have to seek,read,repeat
  * while parsing OneNote contents.
+ * <p>
+ * The file is memory-mapped, so that the many small reads of the OneNote structures
+ * don't each cost a system call, and the little endian primitives can be read straight
+ * from the mapped buffer.  The buffer is unmapped on {@link #close()}, where supported.
+ * Files that are too large to be mapped as one buffer are read through a {@link RandomAccessFile}.
  */
 class OneNoteDirectFileResource implements Closeable {
 
@@ -35,15 +45,44 @@ class OneNoteDirectFileResource implements Closeable {
 
     private RandomAccessFile raf;
 
+    private MappedByteBuffer buffer;
+
+    private final long size;
+
+    private boolean closed = false;
+
     public OneNoteDirectFileResource(File f) throws IOException {
         this.raf = new RandomAccessFile(f, "r");
+        this.size = raf.length();
+        if (size <= Integer.MAX_VALUE) {
+            try {
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+            } catch (IOException e) {
+                //fall back to reading the file
+                buffer = null;
+            }
+        }
+        if (buffer != null) {
+            //the mapping stays valid after the file is closed
+            raf.close();
+            raf = null;
+        }
     }
 
     public int read() throws IOException {
-        return raf.read();
+        ensureOpen();
+        if (buffer == null) {
+            return raf.read();
+        }
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
     }
 
     public int read(ByteBuffer byteBuffer) throws IOException {
+        ensureOpen();
+        if (buffer != null) {
+            return readMapped(byteBuffer);
+        }
         int len = byteBuffer.remaining();
         int totalRead = 0;
         int bytesRead = 0;
@@ -64,24 +103,109 @@ class OneNoteDirectFileResource implements Closeable {
         return ((bytesRead < 0) && (totalRead == 0)) ? -1 : totalRead;
     }
 
+    private int readMapped(ByteBuffer byteBuffer) throws IOException {
+        int len = byteBuffer.remaining();
+        int n = Math.min(len, buffer.remaining());
+        if (n > 0) {
+            ByteBuffer slice = buffer.slice();
+            slice.limit(n);
+            byteBuffer.put(slice);
+            buffer.position(buffer.position() + n);
+        }
+        if (n < len) {
+            throw new IOException("End of stream reached earlier than expected");
+        }
+        return n;
+    }
+
+    /**
+     * Reads an unsigned little endian 16 bit value.  As with two calls to
+     * {@link #read()}, a byte past the end of the file is read as 0xFF.
+     */
+    public int readUnsignedShortLE() throws IOException {
+        ensureOpen();
+        if (buffer != null && buffer.remaining() >= 2) {
+            return buffer.getShort() & 0xFFFF;
+        }
+        int c1 = read();
+        int c2 = read();
+        return (c1 & 0xff) + ((c2 & 0xff) << 8);
+    }
+
+    /**
+     * Reads an unsigned little endian 32 bit value.
+     *
+     * @throws IOException if the end of the file is reached
+     */
+    public long readUnsignedIntLE() throws IOException {
+        ensureOpen();
+        if (buffer != null && buffer.remaining() >= 4) {
+            return buffer.getInt() & 0xFFFFFFFFL;
+        }
+        ByteBuffer byteBuffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        read(byteBuffer);
+        return byteBuffer.getInt(0) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reads a little endian 64 bit value.
+     *
+     * @throws IOException if the end of the file is reached
+     */
+    public long readLongLE() throws IOException {
+        ensureOpen();
+        if (buffer != null && buffer.remaining() >= 8) {
+            return buffer.getLong();
+        }
+        ByteBuffer byteBuffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        read(byteBuffer);
+        return byteBuffer.getLong(0);
+    }
+
     public long size() throws IOException {
-        return raf.length();
+        return size;
     }
 
     public long position() throws IOException {
+        ensureOpen();
+        if (buffer != null) {
+            return buffer.position();
+        }
         return raf.getFilePointer();
     }
 
     public void position(long nuPos) throws IOException {
-        if (nuPos > raf.length()) {
+        ensureOpen();
+        if (nuPos > size) {
             throw new IOException("requesting seek past end of stream");
         }
-        raf.seek(nuPos);
+        if (buffer != null) {
+            buffer.position((int) nuPos);
+        } else {
+            raf.seek(nuPos);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
     }
 
     @Override
     public void close() throws IOException {
-        raf.close();
+        closed = true;
+        if (buffer != null) {
+            MappedByteBuffer b = buffer;
+            buffer = null;
+            if (MappedBufferCleaner.UNMAP_SUPPORTED) {
+                MappedBufferCleaner.freeBuffer(b);
+            }
+        }
+        if (raf != null) {
+            raf.close();
+            raf = null;
+        }
     }
 
-}
\ No newline at end of file
+}
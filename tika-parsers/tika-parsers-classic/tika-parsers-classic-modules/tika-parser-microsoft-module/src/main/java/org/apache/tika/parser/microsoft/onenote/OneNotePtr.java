@@ -18,7 +18,6 @@
 package org.apache.tika.parser.microsoft.onenote;
 
 import org.apache.commons.codec.binary.Hex;
-import org.apache.commons.io.EndianUtils;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.TikaMemoryLimitException;
 import org.slf4j.Logger;
@@ -226,9 +225,7 @@ class OneNotePtr {
         if (dif.position() != offset) {
             dif.position(offset);
         }
-        ByteBuffer byteBuffer = ByteBuffer.allocate(4);
-        dif.read(byteBuffer);
-        long res = EndianUtils.readSwappedUnsignedInteger(byteBuffer.array(), 0);
+        long res = dif.readUnsignedIntLE();
         offset = dif.position();
         return res;
     }
@@ -237,9 +234,7 @@ class OneNotePtr {
         if (dif.position() != offset) {
             dif.position(offset);
         }
-        ByteBuffer byteBuffer = ByteBuffer.allocate(8);
-        dif.read(byteBuffer);
-        long res = EndianUtils.readSwappedLong(byteBuffer.array(), 0);
+        long res = dif.readLongLE();
         offset = dif.position();
         return res;
     }
@@ -248,10 +243,7 @@ class OneNotePtr {
         if (dif.position() != offset) {
             dif.position(offset);
         }
-        int c1 = dif.read();
-        int c2 = dif.read();
-        long res = (((c1 & 0xff) << 0) +
-            ((c2 & 0xff) << 8));
+        long res = dif.readUnsignedShortLE();
         offset = dif.position();
         return res;
     }
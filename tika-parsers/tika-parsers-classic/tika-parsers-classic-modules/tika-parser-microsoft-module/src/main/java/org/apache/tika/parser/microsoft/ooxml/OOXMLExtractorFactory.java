@@ -50,11 +50,13 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.EmptyParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.parser.microsoft.OfficeParserConfig;
 import org.apache.tika.parser.microsoft.ooxml.xps.XPSExtractorDecorator;
 import org.apache.tika.parser.microsoft.ooxml.xps.XPSTextExtractor;
 import org.apache.tika.parser.microsoft.ooxml.xslf.XSLFEventBasedPowerPointExtractor;
 import org.apache.tika.parser.microsoft.ooxml.xwpf.XWPFEventBasedWordExtractor;
+import org.apache.tika.sax.XHTMLContentHandler;
 import org.apache.tika.utils.RereadableInputStream;
 import org.apache.tika.zip.utils.ZipSalvager;
 import org.apache.xmlbeans.XmlException;
@@ -205,8 +207,15 @@ public class OOXMLExtractorFactory {
             //  parsing if desired by the client (see TIKA-1109)
             extractor.getMetadataExtractor().extract(metadata);
 
-            // Extract the text, along with any in-document metadata
-            extractor.getXHTML(baseHandler, metadata, context);
+            // Extract the text, along with any in-document metadata,
+            //  unless only the core metadata was requested and it is complete
+            if (RequestedOutputs.get(context).isBodyRequested(metadata)) {
+                extractor.getXHTML(baseHandler, metadata, context);
+            } else {
+                XHTMLContentHandler xhtml = new XHTMLContentHandler(baseHandler, metadata);
+                xhtml.startDocument();
+                xhtml.endDocument();
+            }
         } catch (IllegalArgumentException e) {
             if (e.getMessage() != null &&
                     e.getMessage().startsWith("No supported documents found")) {
@@ -58,6 +58,7 @@ import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseDeadline;
 import org.apache.tika.parser.microsoft.OfficeParserConfig;
 import org.apache.tika.parser.microsoft.TikaExcelDataFormatter;
 import org.apache.tika.sax.OfflineContentHandler;
@@ -351,7 +352,8 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
 
             XSSFSheetInterestingPartsCapturer handler =
                     new XSSFSheetInterestingPartsCapturer(new XSSFSheetXMLHandler(
-                            styles, comments, strings, sheetContentsExtractor, formatter, false));
+                            styles, comments, strings, sheetContentsExtractor, formatter, false),
+                            parseContext.get(ParseDeadline.class));
             XMLReaderUtils.parseSAX(sheetInputStream, handler, parseContext);
             sheetInputStream.close();
 
@@ -525,14 +527,27 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
      */
     protected static class XSSFSheetInterestingPartsCapturer extends DefaultHandler {
         private ContentHandler delegate;
+        private final ParseDeadline deadline;
         private boolean hasProtection = false;
 
         protected XSSFSheetInterestingPartsCapturer(ContentHandler delegate) {
+            this(delegate, null);
+        }
+
+        /**
+         * @param deadline checked at the start of each row, may be <code>null</code>
+         */
+        protected XSSFSheetInterestingPartsCapturer(ContentHandler delegate,
+                                                    ParseDeadline deadline) {
             this.delegate = delegate;
+            this.deadline = deadline;
         }
 
         public void startElement(String uri, String localName, String qName,
                                  Attributes atts) throws SAXException {
+            if (deadline != null && "row".equals(qName)) {
+                deadline.checkSAX();
+            }
             if ("sheetProtection".equals(qName)) {
                 hasProtection = true;
             }
@@ -21,13 +21,23 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.singleton;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.tika.config.Field;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.extractor.EmbeddedDocumentExtractor;
 import org.apache.tika.extractor.EmbeddedDocumentUtil;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Message;
 import org.apache.tika.metadata.Metadata;
@@ -35,8 +45,14 @@ import org.apache.tika.metadata.Office;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.CompositeParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseDeadline;
+import org.apache.tika.parser.ParseTask;
+import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.microsoft.OutlookExtractor;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.RecordingContentHandler;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -47,10 +63,25 @@ import com.pff.PSTException;
 import com.pff.PSTFile;
 import com.pff.PSTFolder;
 import com.pff.PSTMessage;
+import com.pff.PSTObject;
 import com.pff.PSTRecipient;
 
 /**
  * Parser for MS Outlook PST email storage files
+ * <p>
+ * If {@link #setParseThreads(int)} is greater than 1, and the embedded documents are
+ * parsed by the default {@link ParsingEmbeddedDocumentExtractor} with a
+ * {@link CompositeParser} (e.g. the AutoDetectParser) in the ParseContext, the folder
+ * tree and the descriptor ids of its messages are listed first, and the messages are
+ * then loaded and parsed concurrently as {@link ParseTask}s, each with a reader of the PST
+ * file that no other task is using at the time.  The output is written in the same order
+ * as when messages are parsed one at a time.  A PST within a message is parsed one message
+ * at a time.
+ * <p>
+ * As each folder's messages have been written, its path, number of messages and number
+ * of messages parsed are added to {@link #PST_FOLDER_PATH}, {@link #PST_FOLDER_MESSAGES}
+ * and {@link #PST_FOLDER_MESSAGES_PARSED} in the PST's metadata, so that the progress of
+ * a parse that was stopped can be told.
  */
 public class OutlookPSTParser extends AbstractParser {
 
@@ -59,6 +90,32 @@ public class OutlookPSTParser extends AbstractParser {
     public static final MediaType MS_OUTLOOK_PST_MIMETYPE = MediaType.application("vnd.ms-outlook-pst");
     private static final Set<MediaType> SUPPORTED_TYPES = singleton(MS_OUTLOOK_PST_MIMETYPE);
 
+    private static final String PST_PREFIX =
+            TikaCoreProperties.TIKA_META_PREFIX + "pst" + TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER;
+
+    /**
+     * Path of each folder whose messages have been written, "/" separated
+     */
+    public static final String PST_FOLDER_PATH = PST_PREFIX + "folder_path";
+
+    /**
+     * Number of messages in each folder of {@link #PST_FOLDER_PATH}
+     */
+    public static final String PST_FOLDER_MESSAGES = PST_PREFIX + "folder_messages";
+
+    /**
+     * Number of messages parsed in each folder of {@link #PST_FOLDER_PATH}
+     */
+    public static final String PST_FOLDER_MESSAGES_PARSED = PST_PREFIX + "folder_messages_parsed";
+
+    /**
+     * Maximum time to wait for the messages that are being parsed when the
+     * parse of the PST stops early, before its readers are closed.
+     */
+    private static final long STOP_TIMEOUT_MILLIS = 30000;
+
+    private int parseThreads = 1;
+
     private static AttributesImpl createAttribute(String attName, String attValue) {
         AttributesImpl attributes = new AttributesImpl();
         attributes.addAttribute("", attName, attName, "CDATA", attValue);
@@ -92,7 +149,13 @@ public class OutlookPSTParser extends AbstractParser {
                 throw new TikaException("OST 2013 support not added yet. It will be when https://github.com/rjohnsondev/java-libpst/issues/60 is fixed.");
             }
             if (isValid) {
-                parseFolder(xhtml, pstFile.getRootFolder(), embeddedExtractor);
+                if (parseThreads > 1 && canParseConcurrently(embeddedExtractor, context)
+                        && !ParseTask.isRunningInTask()) {
+                    parseConcurrently(xhtml, handler, pstFile, in.getFile(), metadata, context);
+                } else {
+                    parseFolder(xhtml, pstFile.getRootFolder(), "", metadata, embeddedExtractor,
+                            context);
+                }
             }
         } catch (TikaException e) {
             throw e;
@@ -111,26 +174,310 @@ public class OutlookPSTParser extends AbstractParser {
         xhtml.endDocument();
     }
 
-    private void parseFolder(XHTMLContentHandler handler, PSTFolder pstFolder, EmbeddedDocumentExtractor embeddedExtractor)
-            throws Exception {
+    /**
+     * Number of threads to parse messages with, see the class documentation.
+     * Default is 1.
+     *
+     * @param parseThreads number of threads
+     */
+    @Field
+    public void setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+    }
+
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    private static boolean canParseConcurrently(EmbeddedDocumentExtractor extractor,
+                                                ParseContext context) {
+        return extractor.getClass() == ParsingEmbeddedDocumentExtractor.class &&
+                context.get(Parser.class) instanceof CompositeParser;
+    }
+
+    private void parseFolder(XHTMLContentHandler handler, PSTFolder pstFolder, String path,
+                             Metadata metadata, EmbeddedDocumentExtractor embeddedExtractor,
+                             ParseContext context) throws Exception {
+        int parsed = 0;
         if (pstFolder.getContentCount() > 0) {
             PSTMessage pstMail = (PSTMessage) pstFolder.getNextChild();
             while (pstMail != null) {
+                ParseDeadline.check(context);
                 parseMailAndAttachments(handler, pstMail, embeddedExtractor);
+                parsed++;
                 pstMail = (PSTMessage) pstFolder.getNextChild();
             }
         }
+        recordFolderProgress(metadata, path, pstFolder.getContentCount(), parsed);
 
         if (pstFolder.hasSubfolders()) {
             for (PSTFolder pstSubFolder : pstFolder.getSubFolders()) {
                 handler.startElement("div", createAttribute("class", "email-folder"));
                 handler.element("h1", pstSubFolder.getDisplayName());
-                parseFolder(handler, pstSubFolder, embeddedExtractor);
+                parseFolder(handler, pstSubFolder, path + "/" + pstSubFolder.getDisplayName(),
+                        metadata, embeddedExtractor, context);
                 handler.endElement("div");
             }
         }
     }
 
+    private static void recordFolderProgress(Metadata metadata, String path, int messages,
+                                             int parsed) {
+        metadata.add(PST_FOLDER_PATH, path.isEmpty() ? "/" : path);
+        metadata.add(PST_FOLDER_MESSAGES, Integer.toString(messages));
+        metadata.add(PST_FOLDER_MESSAGES_PARSED, Integer.toString(parsed));
+    }
+
+    /**
+     * Lists the folders and message ids, then parses the messages as tasks,
+     * and writes their output in the order of the list.
+     */
+    private void parseConcurrently(XHTMLContentHandler xhtml, ContentHandler handler,
+                                   PSTFile pstFile, File file, Metadata metadata,
+                                   ParseContext context) throws Exception {
+        List<Step> steps = new ArrayList<>();
+        listFolder(pstFile.getRootFolder(), "", true, steps);
+        //write the head and start the body before any message is replayed to the handler
+        xhtml.characters(new char[0], 0, 0);
+
+        Readers readers = new Readers(file);
+        //steps whose output hasn't been written yet, in order
+        Queue<Step> pending = new ArrayDeque<>();
+        try {
+            int submitted = 0;
+            for (Step step : steps) {
+                if (step.descriptorId > -1) {
+                    ParseDeadline.check(context);
+                    step.task = new MessageTask(readers, step.descriptorId, context);
+                    step.task.submit();
+                    submitted++;
+                }
+                pending.add(step);
+                while (submitted >= 2 * parseThreads && !pending.isEmpty()) {
+                    if (pending.poll().write(xhtml, handler, metadata)) {
+                        submitted--;
+                    }
+                }
+            }
+            while (!pending.isEmpty()) {
+                pending.poll().write(xhtml, handler, metadata);
+            }
+        } finally {
+            //no task may use a reader once it is closed
+            long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+            try {
+                for (Step step : pending) {
+                    if (step.task != null) {
+                        step.task.stop(Math.max(0, deadline - System.currentTimeMillis()),
+                                TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            readers.close();
+        }
+    }
+
+    /**
+     * Readers of the PST file for the tasks of one parse.  A reader is used by
+     * one task at a time, and no reader is handed out once they are closed.
+     */
+    private static class Readers {
+        private final File file;
+        private final Queue<PSTFile> idle = new ArrayDeque<>();
+        private final List<PSTFile> all = new ArrayList<>();
+        private boolean closed = false;
+
+        Readers(File file) {
+            this.file = file;
+        }
+
+        PSTFile take() throws IOException, PSTException {
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("closed");
+                }
+                PSTFile reader = idle.poll();
+                if (reader != null) {
+                    return reader;
+                }
+            }
+            PSTFile reader = new PSTFile(file);
+            synchronized (this) {
+                if (!closed) {
+                    all.add(reader);
+                    return reader;
+                }
+            }
+            reader.close();
+            throw new IOException("closed");
+        }
+
+        synchronized void release(PSTFile reader) {
+            if (!closed) {
+                idle.add(reader);
+            }
+        }
+
+        void close() {
+            List<PSTFile> toClose;
+            synchronized (this) {
+                closed = true;
+                toClose = new ArrayList<>(all);
+                idle.clear();
+            }
+            for (PSTFile reader : toClose) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    //swallow closing exception
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a message with a reader of the PST file and parses it into a
+     * recording handler.
+     */
+    private class MessageTask extends ParseTask<RecordingContentHandler> {
+        private final Readers readers;
+        private final long descriptorId;
+
+        MessageTask(Readers readers, long descriptorId, ParseContext context) {
+            super(context);
+            this.readers = readers;
+            this.descriptorId = descriptorId;
+        }
+
+        @Override
+        protected RecordingContentHandler call(ParseContext context) throws Exception {
+            PSTFile reader = readers.take();
+            try {
+                return parseRecorded(reader, descriptorId,
+                        EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context));
+            } finally {
+                readers.release(reader);
+            }
+        }
+    }
+
+    private static void listFolder(PSTFolder pstFolder, String path, boolean root,
+                                   List<Step> steps) throws Exception {
+        Step start = new Step();
+        if (!root) {
+            start.startFolder = pstFolder.getDisplayName();
+        }
+        steps.add(start);
+        Step done = new Step();
+        done.folderPath = path;
+        if (pstFolder.getContentCount() > 0) {
+            for (Integer id : pstFolder.getChildDescriptorNodes()) {
+                Step message = new Step();
+                message.descriptorId = id;
+                message.folder = done;
+                steps.add(message);
+                done.messages++;
+            }
+        }
+        steps.add(done);
+        if (pstFolder.hasSubfolders()) {
+            for (PSTFolder pstSubFolder : pstFolder.getSubFolders()) {
+                listFolder(pstSubFolder, path + "/" + pstSubFolder.getDisplayName(), false, steps);
+            }
+        }
+        if (!root) {
+            Step end = new Step();
+            end.endFolder = true;
+            steps.add(end);
+        }
+    }
+
+    /**
+     * @return the recorded body of the message, or <code>null</code> if the
+     * descriptor isn't a message
+     */
+    private RecordingContentHandler parseRecorded(PSTFile pstFile, long descriptorId,
+                                                  EmbeddedDocumentExtractor embeddedExtractor)
+            throws Exception {
+        PSTObject pstObject = PSTObject.detectAndLoadPSTObject(pstFile, descriptorId);
+        if (!(pstObject instanceof PSTMessage)) {
+            return null;
+        }
+        RecordingContentHandler recorder = new RecordingContentHandler();
+        //only the body is recorded; it is already formatted, so it is
+        //replayed to the handler below the caller's XHTMLContentHandler
+        XHTMLContentHandler xhtml = new XHTMLContentHandler(
+                new BodyContentHandler(recorder), new Metadata());
+        xhtml.startDocument();
+        parseMailAndAttachments(xhtml, (PSTMessage) pstObject, embeddedExtractor);
+        xhtml.endDocument();
+        return recorder;
+    }
+
+    /**
+     * One piece of the output of a concurrent parse: the start or end of
+     * a folder, a message, or the end of a folder's messages.
+     */
+    private static class Step {
+        private String startFolder;
+        private boolean endFolder;
+        private long descriptorId = -1;
+        private MessageTask task;
+        //for a message, the step that ends its folder's messages
+        private Step folder;
+        //for the end of a folder's messages
+        private String folderPath;
+        private int messages;
+        private int parsed;
+
+        /**
+         * @return whether this was a message
+         */
+        boolean write(XHTMLContentHandler xhtml, ContentHandler handler, Metadata metadata)
+                throws IOException, SAXException, TikaException {
+            if (startFolder != null) {
+                xhtml.startElement("div", createAttribute("class", "email-folder"));
+                xhtml.element("h1", startFolder);
+            } else if (endFolder) {
+                xhtml.endElement("div");
+            } else if (task != null) {
+                RecordingContentHandler recorded = get(task.getFuture());
+                if (recorded != null) {
+                    recorded.replay(handler);
+                    folder.parsed++;
+                }
+                return true;
+            } else if (folderPath != null) {
+                recordFolderProgress(metadata, folderPath, messages, parsed);
+            }
+            return false;
+        }
+
+        private static RecordingContentHandler get(Future<RecordingContentHandler> future)
+                throws IOException, SAXException, TikaException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TikaException("interrupted while parsing messages", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof SAXException) {
+                    throw (SAXException) cause;
+                } else if (cause instanceof TikaException) {
+                    throw (TikaException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new TikaException("failed to parse message", cause);
+            }
+        }
+    }
+
     private void parseMailAndAttachments(XHTMLContentHandler handler, PSTMessage pstMail,
             EmbeddedDocumentExtractor embeddedExtractor) throws SAXException, IOException, TikaException {
         AttributesImpl attributes = new AttributesImpl();
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft.rtf;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Buffers the bytes of one embedded object or pict.  The bytes are held
+ * in memory up to a threshold and spilled to a temporary file after that.
+ * <p/>
+ * Bytes beyond the maximum size are counted but not stored, so that
+ * pathological objects can be skipped without buffering them.
+ */
+class RTFEmbObjBuffer extends OutputStream {
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private final long memoryThreshold;
+    private final long maxBytes;
+
+    private byte[] buffer = new byte[0];
+    //number of bytes written, including any that weren't stored
+    private long size = 0;
+
+    private TemporaryResources tmp;
+    private Path path;
+    private OutputStream fileOutput;
+
+    /**
+     * @param memoryThreshold objects up to this size are held in memory
+     * @param maxBytes        maximum size of an object, or -1 for no maximum
+     */
+    RTFEmbObjBuffer(long memoryThreshold, long maxBytes) {
+        this.memoryThreshold = Math.min(memoryThreshold, Integer.MAX_VALUE - 8);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (isFull()) {
+            size++;
+            return;
+        }
+        if (fileOutput == null && size >= memoryThreshold) {
+            spill();
+        }
+        if (fileOutput != null) {
+            fileOutput.write(b);
+        } else {
+            ensureCapacity(size + 1);
+            buffer[(int) size] = (byte) b;
+        }
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int toStore = maxBytes < 0 ? len : (int) Math.max(0, Math.min(len, maxBytes - size));
+        if (toStore > 0) {
+            if (fileOutput == null && size + toStore > memoryThreshold) {
+                spill();
+            }
+            if (fileOutput != null) {
+                fileOutput.write(b, off, toStore);
+            } else {
+                ensureCapacity(size + toStore);
+                System.arraycopy(b, off, buffer, (int) size, toStore);
+            }
+        }
+        size += len;
+    }
+
+    /**
+     * Copies <code>len</code> bytes from the stream; once the maximum
+     * size has been reached, the rest is skipped.
+     */
+    void copyFrom(InputStream is, long len) throws IOException {
+        byte[] bytes = new byte[(int) Math.min(len, COPY_BUFFER_SIZE)];
+        long remaining = len;
+        while (remaining > 0 && !isFull()) {
+            int n = is.read(bytes, 0, (int) Math.min(remaining, bytes.length));
+            if (n < 0) {
+                throw new IOException("Hit end of stream before reading " + len + " bytes");
+            }
+            write(bytes, 0, n);
+            remaining -= n;
+        }
+        if (remaining > 0) {
+            IOUtils.skipFully(is, remaining);
+            size += remaining;
+        }
+    }
+
+    /**
+     * @return number of bytes written, including any beyond the maximum size
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * @return whether bytes beyond the maximum size were written and dropped
+     */
+    boolean isTruncated() {
+        return maxBytes > -1 && size > maxBytes;
+    }
+
+    /**
+     * @return whether the maximum size has been stored, so that further bytes are dropped
+     */
+    private boolean isFull() {
+        return maxBytes > -1 && size >= maxBytes;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    boolean isSpilled() {
+        return fileOutput != null;
+    }
+
+    /**
+     * @return a stream of the stored bytes from <code>offset</code> on
+     */
+    InputStream openStream(long offset, long length) throws IOException {
+        long stored = getStoredSize();
+        if (offset < 0 || length < 0 || offset + length > stored) {
+            throw new IOException("Requested " + length + " bytes at offset " + offset +
+                    ", but only " + stored + " bytes are available");
+        }
+        if (fileOutput == null) {
+            return new ByteArrayInputStream(buffer, (int) offset, (int) length);
+        }
+        fileOutput.flush();
+        InputStream is = Files.newInputStream(path);
+        try {
+            IOUtils.skipFully(is, offset);
+        } catch (IOException e) {
+            is.close();
+            throw e;
+        }
+        return new BoundedInputStream(is, length);
+    }
+
+    /**
+     * @return a stream of the stored bytes that is backed by the temporary
+     * file if the object has been spilled and the range covers all of it
+     */
+    TikaInputStream openTikaInputStream(long offset, long length) throws IOException {
+        Path file = getTemporaryFile(offset, length);
+        if (file != null) {
+            return TikaInputStream.get(file);
+        }
+        return TikaInputStream.get(openStream(offset, length));
+    }
+
+    /**
+     * @return the temporary file, flushed, if the object has been spilled and
+     * the range covers all of it, or <code>null</code>.  The file is deleted
+     * when this buffer is reset.
+     */
+    Path getTemporaryFile(long offset, long length) throws IOException {
+        if (fileOutput != null && offset == 0 && length == getStoredSize()) {
+            fileOutput.flush();
+            return path;
+        }
+        return null;
+    }
+
+    /**
+     * Discards the stored bytes and deletes the temporary file, if any.
+     */
+    void reset() throws IOException {
+        size = 0;
+        if (buffer.length > memoryThreshold) {
+            buffer = new byte[0];
+        }
+        closeTemporaryFile();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reset();
+    }
+
+    private long getStoredSize() {
+        return maxBytes < 0 ? size : Math.min(size, maxBytes);
+    }
+
+    private void ensureCapacity(long capacity) {
+        if (capacity > buffer.length) {
+            long newLength = Math.max(capacity, Math.max(64, 2L * buffer.length));
+            buffer = Arrays.copyOf(buffer,
+                    (int) Math.min(newLength, Math.max(capacity, memoryThreshold)));
+        }
+    }
+
+    private void spill() throws IOException {
+        tmp = new TemporaryResources();
+        path = tmp.createTempFile();
+        fileOutput = new BufferedOutputStream(Files.newOutputStream(path));
+        fileOutput.write(buffer, 0, (int) size);
+    }
+
+    private void closeTemporaryFile() throws IOException {
+        if (tmp == null) {
+            return;
+        }
+        try {
+            fileOutput.close();
+        } finally {
+            fileOutput = null;
+            path = null;
+            tmp.close();
+            tmp = null;
+        }
+    }
+}
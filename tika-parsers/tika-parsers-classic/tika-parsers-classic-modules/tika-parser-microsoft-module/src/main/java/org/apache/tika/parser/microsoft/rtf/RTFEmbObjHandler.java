@@ -17,10 +17,11 @@ package org.apache.tika.parser.microsoft.rtf;
  */
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.TikaMemoryLimitException;
 import org.apache.tika.extractor.EmbeddedDocumentUtil;
+import org.apache.tika.io.SpoolingStrategy;
+import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.RTFMetadata;
@@ -30,13 +31,16 @@ import org.apache.tika.sax.EmbeddedContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class buffers data from embedded objects and pictures.
+ * Hex pairs and binary data are decoded straight into a
+ * {@link RTFEmbObjBuffer}, which spills large objects to a temporary
+ * file; objects larger than the memory limit are skipped.
  * <p/>
  * <p/>
  * <p/>
@@ -55,12 +59,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  * with {sp {sn} {sv}} types of data.  This information
  * sometimes contains the name and even full file path of the original file.
  */
-class RTFEmbObjHandler {
+class RTFEmbObjHandler implements Closeable {
 
     private static final String EMPTY_STRING = "";
     private final ContentHandler handler;
     private final EmbeddedDocumentUtil embeddedDocumentUtil;
-    private final ByteArrayOutputStream os;
+    private final RTFEmbObjBuffer os;
+    private final Metadata parentMetadata;
     //high hex cached for writing hexpair chars (data)
     private int hi = -1;
     private int thumbCount = 0;
@@ -72,13 +77,18 @@ class RTFEmbObjHandler {
     private StringBuilder sb = new StringBuilder();
     private Metadata metadata;
     private EMB_STATE state = EMB_STATE.NADA;
-    private final int memoryLimitInKb;
 
+    /**
+     * @param memoryLimitInKb maximum size of an embedded object or pict, or -1 for no limit
+     */
     protected RTFEmbObjHandler(ContentHandler handler, Metadata metadata, ParseContext context, int memoryLimitInKb) {
         this.handler = handler;
+        this.parentMetadata = metadata;
         this.embeddedDocumentUtil = new EmbeddedDocumentUtil(context);
-        os = new ByteArrayOutputStream();
-        this.memoryLimitInKb = memoryLimitInKb;
+        SpoolingStrategy spoolingStrategy = context.get(SpoolingStrategy.class);
+        long memoryThreshold = spoolingStrategy == null ?
+                SpoolingStrategy.DEFAULT_MEMORY_THRESHOLD : spoolingStrategy.getMemoryThreshold();
+        os = new RTFEmbObjBuffer(memoryThreshold, memoryLimitInKb < 0 ? -1 : memoryLimitInKb * 1024L);
     }
 
     protected void startPict() {
@@ -152,13 +162,8 @@ class RTFEmbObjHandler {
         if (len < 0) {
             throw new TikaException("Requesting I read < 0 bytes ?!");
         }
-        if (len > memoryLimitInKb*1024) {
-            throw new TikaMemoryLimitException(len, (memoryLimitInKb*1024));
-        }
-
-        byte[] bytes = new byte[len];
-        IOUtils.readFully(is, bytes);
-        os.write(bytes);
+        //bytes beyond the memory limit are skipped
+        os.copyFrom(is, len);
     }
 
     /**
@@ -169,13 +174,25 @@ class RTFEmbObjHandler {
      * @throws TikaException
      */
     protected void handleCompletedObject() throws IOException, SAXException, TikaException {
+        try {
+            if (state != EMB_STATE.NADA && os.isTruncated()) {
+                //don't try to parse a partial object
+                EmbeddedDocumentUtil.recordEmbeddedStreamException(
+                        new TikaMemoryLimitException(os.getSize(), os.getMaxBytes()), parentMetadata);
+            } else {
+                extractCompletedObject();
+            }
+        } finally {
+            reset();
+        }
+    }
 
-        byte[] bytes = os.toByteArray();
+    private void extractCompletedObject() throws IOException, SAXException, TikaException {
         if (state == EMB_STATE.OBJDATA) {
-            RTFObjDataParser objParser = new RTFObjDataParser(memoryLimitInKb);
-            try {
-                byte[] objBytes = objParser.parse(bytes, metadata, unknownFilenameCount);
-                extractObj(objBytes, handler, metadata);
+            RTFObjDataParser objParser = new RTFObjDataParser(os.getMaxBytes());
+            try (TemporaryResources tmp = new TemporaryResources()) {
+                TikaInputStream stream = objParser.parse(os, metadata, unknownFilenameCount, tmp);
+                extractObj(stream, handler, metadata);
             } catch (IOException e) {
                 EmbeddedDocumentUtil.recordException(e, metadata);
             }
@@ -187,25 +204,25 @@ class RTFEmbObjHandler {
                 metadata.set(TikaCoreProperties.ORIGINAL_RESOURCE_NAME, filePath);
             }
             metadata.set(RTFMetadata.THUMBNAIL, Boolean.toString(inObject));
-            extractObj(bytes, handler, metadata);
+            metadata.set(Metadata.CONTENT_LENGTH, Long.toString(os.getSize()));
+            extractObj(os.openTikaInputStream(0, os.getSize()), handler, metadata);
 
         } else if (state == EMB_STATE.NADA) {
             //swallow...no start for pict or embed?!
         }
-        reset();
     }
 
-    private void extractObj(byte[] bytes, ContentHandler handler, Metadata metadata)
+    private void extractObj(TikaInputStream stream, ContentHandler handler, Metadata metadata)
             throws SAXException, IOException, TikaException {
 
-        if (bytes == null) {
+        if (stream == null) {
             return;
         }
 
-        metadata.set(Metadata.CONTENT_LENGTH, Integer.toString(bytes.length));
-
-        if (embeddedDocumentUtil.shouldParseEmbedded(metadata)) {
-            TikaInputStream stream = TikaInputStream.get(bytes);
+        try {
+            if (!embeddedDocumentUtil.shouldParseEmbedded(metadata)) {
+                return;
+            }
             if (metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY) == null) {
                 String extension = embeddedDocumentUtil.getExtension(stream, metadata);
                 if (inObject && state == EMB_STATE.PICT) {
@@ -223,9 +240,9 @@ class RTFEmbObjHandler {
                         metadata, false);
             } catch (IOException e) {
                 EmbeddedDocumentUtil.recordEmbeddedStreamException(e, metadata);
-            } finally {
-                stream.close();
             }
+        } finally {
+            stream.close();
         }
     }
 
@@ -233,7 +250,7 @@ class RTFEmbObjHandler {
      * reset state after each object.
      * Do not reset unknown file number.
      */
-    protected void reset() {
+    protected void reset() throws IOException {
         state = EMB_STATE.NADA;
         os.reset();
         metadata = new Metadata();
@@ -243,6 +260,14 @@ class RTFEmbObjHandler {
         sb.setLength(0);
     }
 
+    /**
+     * Deletes the temporary file of the current object, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        os.close();
+    }
+
     private enum EMB_STATE {
         PICT, //recording pict data
         OBJDATA, //recording objdata
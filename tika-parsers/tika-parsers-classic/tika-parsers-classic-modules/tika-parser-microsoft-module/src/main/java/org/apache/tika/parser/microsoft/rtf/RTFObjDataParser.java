@@ -27,23 +27,27 @@ import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.poifs.filesystem.Ole10Native;
 import org.apache.poi.poifs.filesystem.Ole10NativeException;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
-import org.apache.poi.util.IOUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.TikaMemoryLimitException;
 import org.apache.tika.extractor.EmbeddedDocumentUtil;
-import org.apache.tika.io.BoundedInputStream;
 import org.apache.tika.io.EndianUtils;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.RTFMetadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.microsoft.OfficeParser.POIFSDocumentType;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -55,151 +59,154 @@ import java.util.concurrent.atomic.AtomicInteger;
 class RTFObjDataParser {
 
     private final static String WIN_ASCII = "WINDOWS-1252";
-    private final int memoryLimitInKb;
+    private final long maxBytes;
 
-    RTFObjDataParser(int memoryLimitInKb) {
-        this.memoryLimitInKb = memoryLimitInKb;
-    }
     /**
-     * Parses the embedded object/pict string
-     *
-     * @param bytes actual bytes (already converted from the 
-     *  hex pair string stored in the embedded object data into actual bytes or read
-     *  as raw binary bytes)
-     * @return a SimpleRTFEmbObj or null
-     * @throws IOException if there are any surprise surprises during parsing
+     * @param maxBytes maximum size of an embedded object, or -1 for no maximum
      */
+    RTFObjDataParser(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
 
     /**
-     * @param bytes
+     * Parses the OLE1 header of the embedded object data.  The header is
+     * read incrementally from the buffer, and the returned stream reads the
+     * object from the buffer, or from the OLE2 file system that wraps it,
+     * without copying it.
+     *
+     * @param data                 actual bytes (already converted from the
+     *                             hex pair string stored in the embedded object data into
+     *                             actual bytes or read as raw binary bytes)
      * @param metadata             incoming metadata
      * @param unknownFilenameCount
-     * @return byte[] for contents of obj data
-     * @throws IOException
+     * @param tmp                  resources that must stay open while the returned
+     *                             stream is read
+     * @return stream of the contents of the obj data, or null if there is a linked
+     * object instead of an embedded file
+     * @throws IOException if there are any surprise surprises during parsing
      */
-    protected byte[] parse(byte[] bytes, Metadata metadata, AtomicInteger unknownFilenameCount)
+    protected TikaInputStream parse(RTFEmbObjBuffer data, Metadata metadata,
+                                    AtomicInteger unknownFilenameCount, TemporaryResources tmp)
             throws IOException, TikaException {
-        ByteArrayInputStream is = new ByteArrayInputStream(bytes);
-        long version = readUInt(is);
-        metadata.add(RTFMetadata.EMB_APP_VERSION, Long.toString(version));
+        String className;
+        long dataOffset;
+        long dataSz;
+        try (CountingInputStream is = new CountingInputStream(data.openStream(0, data.getSize()))) {
+            long version = readUInt(is);
+            metadata.add(RTFMetadata.EMB_APP_VERSION, Long.toString(version));
+
+            long formatId = readUInt(is);
+            //2 is an embedded object. 1 is a link.
+            if (formatId != 2L) {
+                return null;
+            }
+            className = readLengthPrefixedAnsiString(is).trim();
+            String topicName = readLengthPrefixedAnsiString(is).trim();
+            String itemName = readLengthPrefixedAnsiString(is).trim();
 
-        long formatId = readUInt(is);
-        //2 is an embedded object. 1 is a link.
-        if (formatId != 2L) {
-            return null;
-        }
-        String className = readLengthPrefixedAnsiString(is).trim();
-        String topicName = readLengthPrefixedAnsiString(is).trim();
-        String itemName = readLengthPrefixedAnsiString(is).trim();
+            if (className != null && className.length() > 0) {
+                metadata.add(RTFMetadata.EMB_CLASS, className);
+            }
+            if (topicName != null && topicName.length() > 0) {
+                metadata.add(RTFMetadata.EMB_TOPIC, topicName);
+            }
+            if (itemName != null && itemName.length() > 0) {
+                metadata.add(RTFMetadata.EMB_ITEM, itemName);
+            }
 
-        if (className != null && className.length() > 0) {
-            metadata.add(RTFMetadata.EMB_CLASS, className);
+            dataSz = readUInt(is);
+            dataOffset = is.getByteCount();
         }
-        if (topicName != null && topicName.length() > 0) {
-            metadata.add(RTFMetadata.EMB_TOPIC, topicName);
-        }
-        if (itemName != null && itemName.length() > 0) {
-            metadata.add(RTFMetadata.EMB_ITEM, itemName);
-        }
-
-        long dataSz = readUInt(is);
-
-        //readBytes tests for reading too many bytes
-        byte[] embObjBytes = readBytes(is, dataSz);
+        //checkLength tests for reading too many bytes
+        dataSz = checkLength(dataSz, data.getSize() - dataOffset);
 
         if (className.toLowerCase(Locale.ROOT).equals("package")) {
-            return handlePackage(embObjBytes, metadata);
+            return handlePackage(data, dataOffset, dataSz, metadata);
         } else if (className.toLowerCase(Locale.ROOT).equals("pbrush")) {
             //simple bitmap bytes
-            return embObjBytes;
+            return open(data, dataOffset, dataSz, metadata);
         } else {
-            ByteArrayInputStream embIs = new ByteArrayInputStream(embObjBytes);
             boolean hasPoifs = false;
-            try {
-                hasPoifs = hasPOIFSHeader(embIs);
+            try (InputStream is = new BufferedInputStream(data.openStream(dataOffset, dataSz))) {
+                hasPoifs = hasPOIFSHeader(is);
             } catch (IOException e) {
                 EmbeddedDocumentUtil.recordEmbeddedStreamException(e, metadata);
-                return embObjBytes;
+                return open(data, dataOffset, dataSz, metadata);
             }
             if (hasPoifs) {
                 try {
-                    return handleEmbeddedPOIFS(embIs, metadata, unknownFilenameCount);
+                    return handleEmbeddedPOIFS(data, dataOffset, dataSz, metadata,
+                            unknownFilenameCount, tmp);
                 } catch (Exception e) {
                     EmbeddedDocumentUtil.recordEmbeddedStreamException(e, metadata);
                 }
             }
         }
-        return embObjBytes;
+        return open(data, dataOffset, dataSz, metadata);
     }
 
 
     //will throw IOException if not actually POIFS
-    //can return null byte[]
-    private byte[] handleEmbeddedPOIFS(InputStream is, Metadata metadata,
-                                       AtomicInteger unknownFilenameCount)
+    //can return null
+    private TikaInputStream handleEmbeddedPOIFS(RTFEmbObjBuffer data, long offset, long length,
+                                                Metadata metadata,
+                                                AtomicInteger unknownFilenameCount,
+                                                TemporaryResources tmp)
             throws TikaException, IOException {
 
-        byte[] ret = null;
-        try (POIFSFileSystem fs = new POIFSFileSystem(is)) {
+        POIFSFileSystem fs;
+        if (data.isSpilled()) {
+            //read the file system from a file rather than loading it into memory
+            Path path = data.getTemporaryFile(offset, length);
+            if (path == null) {
+                path = tmp.createTempFile();
+                try (InputStream is = data.openStream(offset, length)) {
+                    Files.copy(is, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            fs = new POIFSFileSystem(path.toFile(), true);
+        } else {
+            fs = new POIFSFileSystem(data.openStream(offset, length));
+        }
+        //the file system backs the returned streams, so it's closed with them
+        tmp.addResource(fs);
 
-            DirectoryNode root = fs.getRoot();
+        DirectoryNode root = fs.getRoot();
 
-            if (root == null) {
-                return ret;
-            }
+        if (root == null) {
+            return null;
+        }
 
-            if (root.hasEntry("Package")) {
-                Entry ooxml = root.getEntry("Package");
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                try (BoundedInputStream bis = new BoundedInputStream(memoryLimitInKb*1024,
-                            new DocumentInputStream((DocumentEntry)ooxml))) {
-                    IOUtils.copy(bis, out);
-                    if (bis.hasHitBound()) {
-                        throw new TikaMemoryLimitException(
-                                (memoryLimitInKb*1024+1), (memoryLimitInKb*1024));
-                    }
+        if (root.hasEntry("Package")) {
+            DocumentEntry ooxml = (DocumentEntry) root.getEntry("Package");
+            return open(ooxml, metadata);
+        } else {
+            //try poifs
+            POIFSDocumentType type = POIFSDocumentType.detectType(root);
+            if (type == POIFSDocumentType.OLE10_NATIVE) {
+                try {
+                    // Try to un-wrap the OLE10Native record:
+                    Ole10Native ole = Ole10Native.createFromEmbeddedOleObject(root);
+                    return TikaInputStream.get(ole.getDataBuffer(), metadata);
+                } catch (Ole10NativeException ex) {
+                    // Not a valid OLE10Native record, skip it
                 }
-                ret = out.toByteArray();
-            } else {
-                //try poifs
-                POIFSDocumentType type = POIFSDocumentType.detectType(root);
-                if (type == POIFSDocumentType.OLE10_NATIVE) {
-                    try {
-                        // Try to un-wrap the OLE10Native record:
-                        Ole10Native ole = Ole10Native.createFromEmbeddedOleObject(root);
-                        ret = ole.getDataBuffer();
-                    } catch (Ole10NativeException ex) {
-                        // Not a valid OLE10Native record, skip it
-                    }
-                } else if (type == POIFSDocumentType.COMP_OBJ) {
-
-                    DocumentEntry contentsEntry;
-                    try {
-                        contentsEntry = (DocumentEntry) root.getEntry("CONTENTS");
-                    } catch (FileNotFoundException ioe) {
-                        contentsEntry = (DocumentEntry) root.getEntry("Contents");
-                    }
+            } else if (type == POIFSDocumentType.COMP_OBJ) {
 
-                    try (DocumentInputStream inp = new DocumentInputStream(contentsEntry)) {
-                        ret = new byte[contentsEntry.getSize()];
-                        inp.readFully(ret);
-                    }
-                } else {
-
-                    ByteArrayOutputStream out = new ByteArrayOutputStream();
-                    is.reset();
-                    BoundedInputStream bis = new BoundedInputStream(memoryLimitInKb*1024, is);
-                    IOUtils.copy(is, out);
-                    if (bis.hasHitBound()) {
-                        throw new TikaMemoryLimitException(memoryLimitInKb*1024+1, memoryLimitInKb*1024);
-                    }
-                    ret = out.toByteArray();
-                    metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, "file_" + unknownFilenameCount.getAndIncrement() + "." + type.getExtension());
-                    metadata.set(Metadata.CONTENT_TYPE, type.getType().toString());
+                DocumentEntry contentsEntry;
+                try {
+                    contentsEntry = (DocumentEntry) root.getEntry("CONTENTS");
+                } catch (FileNotFoundException ioe) {
+                    contentsEntry = (DocumentEntry) root.getEntry("Contents");
                 }
+                return open(contentsEntry, metadata);
+            } else {
+                metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, "file_" + unknownFilenameCount.getAndIncrement() + "." + type.getExtension());
+                metadata.set(Metadata.CONTENT_TYPE, type.getType().toString());
+                return open(data, offset, length, metadata);
             }
         }
-        return ret;
+        return null;
     }
 
 
@@ -207,54 +214,62 @@ class RTFObjDataParser {
      * can return null if there is a linked object
      * instead of an embedded file
      */
-    private byte[] handlePackage(byte[] pkgBytes, Metadata metadata) throws IOException, TikaException {
+    private TikaInputStream handlePackage(RTFEmbObjBuffer data, long offset, long length,
+                                          Metadata metadata) throws IOException, TikaException {
+        String displayName;
+        String ansiFilePath;
+        long objOffset;
+        long bytesLen;
+        StringBuilder unicodeFilePath = new StringBuilder();
         //now parse the package header
-        ByteArrayInputStream is = new ByteArrayInputStream(pkgBytes);
-        readUShort(is);
+        try (CountingInputStream is = new CountingInputStream(data.openStream(offset, length))) {
+            readUShort(is);
 
-        String displayName = readAnsiString(is);
+            displayName = readAnsiString(is);
 
-        //should we add this to the metadata?
-        readAnsiString(is); //iconFilePath
-        try {
-            //iconIndex
-            EndianUtils.readUShortBE(is);
-        } catch (EndianUtils.BufferUnderrunException e) {
-            throw new IOException(e);
-        }
-        int type = readUShort(is); //type
+            //should we add this to the metadata?
+            readAnsiString(is); //iconFilePath
+            try {
+                //iconIndex
+                EndianUtils.readUShortBE(is);
+            } catch (EndianUtils.BufferUnderrunException e) {
+                throw new IOException(e);
+            }
+            int type = readUShort(is); //type
 
-        //1 is link, 3 is embedded object
-        //this only handles embedded objects
-        if (type != 3) {
-            return null;
-        }
-        //should we really be ignoring this filePathLen?
-        readUInt(is); //filePathLen
+            //1 is link, 3 is embedded object
+            //this only handles embedded objects
+            if (type != 3) {
+                return null;
+            }
+            //should we really be ignoring this filePathLen?
+            readUInt(is); //filePathLen
 
-        String ansiFilePath = readAnsiString(is); //filePath
-        long bytesLen = readUInt(is);
-        byte[] objBytes = initByteArray(bytesLen);
-        IOUtils.readFully(is, objBytes);
-        StringBuilder unicodeFilePath = new StringBuilder();
+            ansiFilePath = readAnsiString(is); //filePath
+            bytesLen = readUInt(is);
+            bytesLen = checkLength(bytesLen, length - is.getByteCount());
+            objOffset = offset + is.getByteCount();
+            //the object comes before the unicode file path
+            IOUtils.skipFully(is, bytesLen);
 
-        try {
-            long unicodeLen = readUInt(is);
-
-            for (int i = 0; i < unicodeLen; i++) {
-                int lo = is.read();
-                int hi = is.read();
-                int sum = lo + 256 * hi;
-                if (hi == -1 || lo == -1) {
-                    //stream ran out; empty SB and stop
-                    unicodeFilePath.setLength(0);
-                    break;
+            try {
+                long unicodeLen = readUInt(is);
+
+                for (int i = 0; i < unicodeLen; i++) {
+                    int lo = is.read();
+                    int hi = is.read();
+                    int sum = lo + 256 * hi;
+                    if (hi == -1 || lo == -1) {
+                        //stream ran out; empty SB and stop
+                        unicodeFilePath.setLength(0);
+                        break;
+                    }
+                    unicodeFilePath.append((char) sum);
                 }
-                unicodeFilePath.append((char) sum);
+            } catch (IOException e) {
+                //swallow; the unicode file path is optional and might not happen
+                unicodeFilePath.setLength(0);
             }
-        } catch (IOException e) {
-            //swallow; the unicode file path is optional and might not happen
-            unicodeFilePath.setLength(0);
         }
         String fileNameToUse = "";
         String pathToUse = "";
@@ -270,7 +285,20 @@ class RTFObjDataParser {
         metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, FilenameUtils.getName(fileNameToUse));
         metadata.set(TikaCoreProperties.EMBEDDED_RELATIONSHIP_ID, pathToUse);
 
-        return objBytes;
+        return open(data, objOffset, bytesLen, metadata);
+    }
+
+    private TikaInputStream open(RTFEmbObjBuffer data, long offset, long length, Metadata metadata)
+            throws IOException {
+        metadata.set(Metadata.CONTENT_LENGTH, Long.toString(length));
+        return data.openTikaInputStream(offset, length);
+    }
+
+    private TikaInputStream open(DocumentEntry entry, Metadata metadata)
+            throws IOException, TikaException {
+        checkLength(entry.getSize(), entry.getSize());
+        metadata.set(Metadata.CONTENT_LENGTH, Integer.toString(entry.getSize()));
+        return TikaInputStream.get(new DocumentInputStream(entry));
     }
 
 
@@ -316,27 +344,31 @@ class RTFObjDataParser {
 
 
     private byte[] readBytes(InputStream is, long len) throws IOException, TikaException {
-        //initByteArray tests for "reading of too many bytes"
-        byte[] bytes = initByteArray(len);
+        //checkLength tests for "reading of too many bytes"
+        checkLength(len, len);
+        if (len > Integer.MAX_VALUE) {
+            throw new TikaMemoryLimitException(len, Integer.MAX_VALUE);
+        }
+        byte[] bytes = new byte[(int) len];
         IOUtils.readFully(is, bytes);
         return bytes;
     }
 
-    private byte[] initByteArray(long len) throws IOException, TikaException {
+    /**
+     * @param len       length read from the object
+     * @param available number of bytes that are left
+     * @return the length, or the number of bytes that are left if the object is truncated
+     */
+    private long checkLength(long len, long available) throws IOException, TikaException {
         if (len < 0) {
             throw new IOException("Requested length for reading bytes < 0?!: " + len);
-        } else if (memoryLimitInKb > -1 && len > memoryLimitInKb*1024) {
-            throw new TikaMemoryLimitException(len, memoryLimitInKb*1024);
-        } else if (len > Integer.MAX_VALUE) {
-            throw new TikaMemoryLimitException(len, Integer.MAX_VALUE);
+        } else if (maxBytes > -1 && len > maxBytes) {
+            throw new TikaMemoryLimitException(len, maxBytes);
         }
-
-        return new byte[(int) len];
-
+        return Math.min(len, available);
     }
 
     private static boolean hasPOIFSHeader(InputStream is) throws IOException {
         return FileMagic.valueOf(is) == FileMagic.OLE2;
     }
 }
-
@@ -60,10 +60,10 @@ public class RTFParser extends AbstractParser {
     }
 
     /**
-     * Bytes for embedded objects are currently cached in memory.
-     * If something goes wrong during the parsing of an embedded object,
-     * it is possible that a read length may be crazily too long
-     * and cause a heap crash.
+     * Bytes for embedded objects are buffered in memory up to the
+     * {@link org.apache.tika.io.SpoolingStrategy} threshold and in a temporary
+     * file after that.  If something goes wrong during the parsing of an embedded object,
+     * it is possible that a read length may be crazily too long.
      *
      * @param max maximum number of bytes to allow for embedded objects.  If
      *            the embedded object has more than this number of bytes, skip it.
@@ -94,9 +94,9 @@ public class RTFParser extends AbstractParser {
             throws IOException, SAXException, TikaException {
         metadata.set(Metadata.CONTENT_TYPE, "application/rtf");
         TaggedInputStream tagged = new TaggedInputStream(stream);
-        try {
-            XHTMLContentHandler xhtmlHandler = new XHTMLContentHandler(handler, metadata);
-            RTFEmbObjHandler embObjHandler = new RTFEmbObjHandler(xhtmlHandler, metadata, context, getMemoryLimitInKb());
+        XHTMLContentHandler xhtmlHandler = new XHTMLContentHandler(handler, metadata);
+        try (RTFEmbObjHandler embObjHandler = new RTFEmbObjHandler(
+                xhtmlHandler, metadata, context, getMemoryLimitInKb())) {
             final TextExtractor ert = new TextExtractor(xhtmlHandler, metadata, embObjHandler);
             ert.setIgnoreListMarkup(ignoreListMarkup);
             ert.extract(stream);
@@ -106,6 +106,12 @@ public class RTFParser extends AbstractParser {
         }
     }
 
+    /**
+     * @param memoryLimitInKb maximum size of an embedded object or pict; larger
+     *                        objects are skipped without buffering them, and a
+     *                        {@link org.apache.tika.exception.TikaMemoryLimitException}
+     *                        is recorded in the metadata.  -1 for no limit.
+     */
     @Field
     public void setMemoryLimitInKb(int memoryLimitInKb) {
         this.memoryLimitInKb = memoryLimitInKb;
@@ -16,14 +16,19 @@
  */
 package org.apache.tika.parser.microsoft;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
+import java.util.List;
 
 import org.apache.tika.TikaTest;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.parser.microsoft.ooxml.OOXMLParserTest;
 import org.junit.Test;
 
@@ -40,6 +45,50 @@ public class OfficeParserTest extends TikaTest {
         assertTrue(xml.contains("test"));
     }
 
+    @Test
+    public void testPoifsLoading() throws Exception {
+        Parser parser = new OfficeParser();
+        Metadata inMemory = new Metadata();
+        String expected = getText(getTestDocument("testWORD.doc"), parser, inMemory);
+        assertEquals(OfficeParser.POIFS_LOADING_MEMORY, inMemory.get(OfficeParser.POIFS_LOADING));
+
+        OfficeParserConfig config = new OfficeParserConfig();
+        config.setPoifsMemoryThreshold(0);
+        ParseContext context = new ParseContext();
+        context.set(OfficeParserConfig.class, config);
+        Metadata spooled = new Metadata();
+        String text = getText(getTestDocument("testWORD.doc"), parser, context, spooled);
+        assertEquals(OfficeParser.POIFS_LOADING_CHANNEL, spooled.get(OfficeParser.POIFS_LOADING));
+        assertEquals(expected, text);
+
+        Metadata file = new Metadata();
+        try (TikaInputStream tis = TikaInputStream.get(
+                getResourceAsFile("/test-documents/testWORD.doc").toPath())) {
+            getXML(tis, parser, file);
+        }
+        assertEquals(OfficeParser.POIFS_LOADING_FILE, file.get(OfficeParser.POIFS_LOADING));
+    }
+
+    @Test
+    public void testRequestedOutputs() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(RequestedOutputs.class, RequestedOutputs.METADATA_ONLY);
+        for (String name : new String[]{"testEXCEL_embeded.xls", "testEXCEL_embeded.xlsx"}) {
+            List<Metadata> metadataList = getRecursiveMetadata(name);
+            assertTrue(name, metadataList.size() > 1);
+            String content = metadataList.get(0).get(TikaCoreProperties.TIKA_CONTENT);
+            assertContains("<td>", content);
+
+            List<Metadata> metadataOnly = getRecursiveMetadata(name, context);
+            assertEquals(name, 1, metadataOnly.size());
+            assertEquals(metadataList.get(0).get(Metadata.CONTENT_TYPE),
+                    metadataOnly.get(0).get(Metadata.CONTENT_TYPE));
+            assertEquals(metadataList.get(0).get(TikaCoreProperties.CREATOR),
+                    metadataOnly.get(0).get(TikaCoreProperties.CREATOR));
+            assertNotContained("<td>", metadataOnly.get(0).get(TikaCoreProperties.TIKA_CONTENT));
+        }
+    }
+
     private InputStream getTestDocument(String name) {
         return TikaInputStream.get(getResourceAsStream("/test-documents/" + name));
     }
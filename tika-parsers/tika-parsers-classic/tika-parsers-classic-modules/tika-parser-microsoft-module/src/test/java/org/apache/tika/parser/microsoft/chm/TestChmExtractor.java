@@ -16,12 +16,15 @@
  */
 package org.apache.tika.parser.microsoft.chm;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
 import java.util.List;
 
 import org.apache.tika.TikaTest;
@@ -63,6 +66,51 @@ public class TestChmExtractor extends TikaTest {
         assertEquals(TestParameters.VP_CHM_ENTITIES_NUMBER, count);
     }
 
+    @Test
+    public void testEntryBeyondLzxSection() throws Exception {
+        for (DirectoryListingEntry entry : chmExtractor.getChmDirList().getDirectoryListingEntryList()) {
+            if (entry.getEntryType() != ChmCommons.EntryType.COMPRESSED
+                    || ChmCommons.hasSkip(entry)) {
+                continue;
+            }
+            DirectoryListingEntry corrupt = new DirectoryListingEntry(entry.getNameLength(),
+                    entry.getName(), entry.getEntryType(), entry.getOffset(),
+                    Integer.MAX_VALUE - entry.getOffset());
+            try {
+                chmExtractor.openChmEntry(corrupt);
+                fail("should have thrown TikaException");
+            } catch (TikaException e) {
+                assertTrue(e.getMessage().contains("beyond the LZX section"));
+            }
+            return;
+        }
+        fail("no compressed entry");
+    }
+
+    @Test
+    public void testChannel() throws Exception {
+        for (String name : new String[]{"testChm.chm", "testChm3.chm", "chm/admin.chm"}) {
+            File file = getResourceAsFile("/test-documents/" + name);
+            ChmExtractor inMemory = new ChmExtractor(
+                    getResourceAsStream("/test-documents/" + name));
+            try (FileChannel channel = FileChannel.open(file.toPath())) {
+                ChmExtractor onDemand = new ChmExtractor(channel);
+                //evict blocks, so that they have to be decoded again
+                onDemand.setMaxCachedBlocks(2);
+                List<DirectoryListingEntry> entries =
+                        inMemory.getChmDirList().getDirectoryListingEntryList();
+                assertEquals(entries.size(),
+                        onDemand.getChmDirList().getDirectoryListingEntryList().size());
+                for (int i = entries.size() - 1; i >= 0; i--) {
+                    assertArrayEquals(name + ": " + entries.get(i).getName(),
+                            inMemory.extractChmEntry(entries.get(i)),
+                            onDemand.extractChmEntry(
+                                    onDemand.getChmDirList().getDirectoryListingEntryList().get(i)));
+                }
+            }
+        }
+    }
+
     @Test
     public void testOOMOnCorruptCHM() throws Exception {
         try {
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft.onenote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+public class OneNoteDirectFileResourceTest {
+
+    @Test
+    public void testLittleEndianReads() throws Exception {
+        File file = Files.createTempFile("tika-onenote-", ".bin").toFile();
+        try {
+            Files.write(file.toPath(), new byte[]{
+                    0x01, 0x02,
+                    0x01, 0x02, 0x03, (byte) 0xF4,
+                    0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, (byte) 0x88,
+                    0x41, 0x42, 0x43});
+            try (OneNoteDirectFileResource dif = new OneNoteDirectFileResource(file)) {
+                assertEquals(17, dif.size());
+                assertEquals(0x0201, dif.readUnsignedShortLE());
+                assertEquals(0xF4030201L, dif.readUnsignedIntLE());
+                assertEquals(0x8807060504030201L, dif.readLongLE());
+                assertEquals(14, dif.position());
+                assertEquals('A', dif.read());
+
+                ByteBuffer buffer = ByteBuffer.allocate(2);
+                assertEquals(2, dif.read(buffer));
+                assertEquals('C', buffer.get(1));
+                assertEquals(-1, dif.read());
+
+                dif.position(15);
+                try {
+                    dif.readUnsignedIntLE();
+                    fail("should have thrown IOException");
+                } catch (IOException e) {
+                    //expected
+                }
+                dif.position(16);
+                assertEquals(0xFF43, dif.readUnsignedShortLE());
+                try {
+                    dif.position(18);
+                    fail("should have thrown IOException");
+                } catch (IOException e) {
+                    //expected
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadAfterClose() throws Exception {
+        File file = Files.createTempFile("tika-onenote-", ".bin").toFile();
+        try {
+            Files.write(file.toPath(), new byte[]{0x01, 0x02});
+            OneNoteDirectFileResource dif = new OneNoteDirectFileResource(file);
+            dif.close();
+            try {
+                dif.read();
+                fail("should have thrown IOException");
+            } catch (IOException e) {
+                assertEquals("closed", e.getMessage());
+            }
+            try {
+                dif.position();
+                fail("should have thrown IOException");
+            } catch (IOException e) {
+                assertEquals("closed", e.getMessage());
+            }
+            //closing again is a no-op
+            dif.close();
+        } finally {
+            file.delete();
+        }
+    }
+}
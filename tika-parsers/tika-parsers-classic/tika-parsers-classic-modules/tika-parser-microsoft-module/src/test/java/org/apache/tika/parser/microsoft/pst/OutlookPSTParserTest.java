@@ -16,6 +16,7 @@
  */
 package org.apache.tika.parser.microsoft.pst;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -37,6 +38,7 @@ import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.ToHTMLContentHandler;
 import org.junit.Test;
 import org.xml.sax.ContentHandler;
@@ -111,6 +113,40 @@ public class OutlookPSTParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testParseThreads() throws Exception {
+        Metadata sequentialMetadata = new Metadata();
+        String sequential = parsePST(new OutlookPSTParser(), sequentialMetadata);
+
+        OutlookPSTParser parallelParser = new OutlookPSTParser();
+        parallelParser.setParseThreads(3);
+        Metadata parallelMetadata = new Metadata();
+        String parallel = parsePST(parallelParser, parallelMetadata);
+
+        assertEquals(sequential, parallel);
+        assertContains("Gary Murphy commented on TIKA-1250:", parallel);
+        for (String name : new String[]{OutlookPSTParser.PST_FOLDER_PATH,
+                OutlookPSTParser.PST_FOLDER_MESSAGES,
+                OutlookPSTParser.PST_FOLDER_MESSAGES_PARSED}) {
+            assertArrayEquals(sequentialMetadata.getValues(name),
+                    parallelMetadata.getValues(name));
+        }
+        String[] paths = parallelMetadata.getValues(OutlookPSTParser.PST_FOLDER_PATH);
+        assertEquals("/", paths[0]);
+        assertEquals(parallelMetadata.getValues(OutlookPSTParser.PST_FOLDER_MESSAGES)[1],
+                parallelMetadata.getValues(OutlookPSTParser.PST_FOLDER_MESSAGES_PARSED)[1]);
+    }
+
+    private String parsePST(Parser pstParser, Metadata metadata) throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, AUTO_DETECT_PARSER);
+        ContentHandler handler = new BodyContentHandler(-1);
+        try (InputStream stream = getResourceAsStream("/test-documents/testPST.pst")) {
+            pstParser.parse(stream, handler, metadata, context);
+        }
+        return handler.toString();
+    }
+
     @Test
     public void testExtendedMetadata() throws Exception {
         List<Metadata> metadataList = getRecursiveMetadata("testPST.pst");
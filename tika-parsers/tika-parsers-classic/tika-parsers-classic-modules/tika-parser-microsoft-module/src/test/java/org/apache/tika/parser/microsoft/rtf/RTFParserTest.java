@@ -23,6 +23,9 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -33,6 +36,7 @@ import org.apache.tika.TikaTest;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.extractor.ContainerExtractor;
 import org.apache.tika.extractor.ParserContainerExtractor;
+import org.apache.tika.io.SpoolingStrategy;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.Office;
@@ -40,6 +44,7 @@ import org.apache.tika.metadata.OfficeOpenXMLCore;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.junit.Test;
 
@@ -447,6 +452,40 @@ public class RTFParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testSpilledEmbeddedObjects() throws Exception {
+        //objects that are spilled to temporary files are extracted as from memory
+        SpoolingStrategy spoolingStrategy = new SpoolingStrategy();
+        spoolingStrategy.setMemoryThreshold(0);
+        ParseContext context = new ParseContext();
+        context.set(SpoolingStrategy.class, spoolingStrategy);
+        for (String name : new String[]{"testRTFEmbeddedFiles.rtf", "testRTFRegularImages.rtf"}) {
+            List<Metadata> inMemory = getRecursiveMetadata(name);
+            List<Metadata> spilled = getRecursiveMetadata(name, context);
+            assertTrue(name, inMemory.size() > 2);
+            assertEquals(name, inMemory.size(), spilled.size());
+            for (int i = 0; i < inMemory.size(); i++) {
+                for (String key : new String[]{TikaCoreProperties.RESOURCE_NAME_KEY,
+                        Metadata.CONTENT_TYPE, Metadata.CONTENT_LENGTH}) {
+                    assertEquals(name + " " + i + " " + key,
+                            inMemory.get(i).get(key), spilled.get(i).get(key));
+                }
+                assertEquals(inMemory.get(i).get(TikaCoreProperties.TIKA_CONTENT),
+                        spilled.get(i).get(TikaCoreProperties.TIKA_CONTENT));
+            }
+        }
+    }
+
+    @Test
+    public void testEmbeddedObjectSizeLimit() throws Exception {
+        RTFParser parser = new RTFParser();
+        parser.setMemoryLimitInKb(1);
+        List<Metadata> metadataList = getRecursiveMetadata("testRTFRegularImages.rtf", parser);
+        assertEquals(1, metadataList.size());
+        assertContains("TikaMemoryLimitException",
+                metadataList.get(0).get(TikaCoreProperties.TIKA_META_EXCEPTION_EMBEDDED_STREAM));
+    }
+
     @Test
     public void testBoldPlain() throws Exception {
         //TIKA-2410 -- bold should be turned off by "plain"
@@ -482,6 +521,24 @@ public class RTFParserTest extends TikaTest {
                 getXML("testRTFTIKA_2883.rtf").xml);
     }
 
+    @Test
+    public void testEmbObjBufferMaxBytes() throws Exception {
+        //spilled to a file after 2 bytes
+        RTFEmbObjBuffer buffer = new RTFEmbObjBuffer(2, 4);
+        try {
+            for (int i = 0; i < 6; i++) {
+                buffer.write('a' + i);
+            }
+            assertEquals(6, buffer.getSize());
+            assertTrue(buffer.isTruncated());
+            Path file = buffer.getTemporaryFile(0, 4);
+            assertNotNull(file);
+            assertEquals("abcd", new String(Files.readAllBytes(file), StandardCharsets.US_ASCII));
+        } finally {
+            buffer.reset();
+        }
+    }
+
     @Test
     public void testTIKA2899() throws Exception {
         assertContains("this Agreement on today",
@@ -30,6 +30,8 @@ import org.apache.tika.metadata.Property;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseInstrumentation;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.parser.external.ExternalParser;
 import org.apache.tika.sax.OfflineContentHandler;
 import org.apache.tika.sax.XHTMLContentHandler;
@@ -207,6 +209,11 @@ public class TesseractOCRParser extends AbstractParser {
         if (! hasTesseract(config))
             return;
 
+        // OCR only produces text, so don't run it if the text wasn't requested
+        if (!RequestedOutputs.get(parseContext).isContentRequested()) {
+            return;
+        }
+
         TemporaryResources tmp = new TemporaryResources();
         try {
             TikaInputStream tikaStream = TikaInputStream.get(stream, tmp);
@@ -238,25 +245,9 @@ public class TesseractOCRParser extends AbstractParser {
 
             if (size >= config.getMinFileSizeToOcr() && size <= config.getMaxFileSizeToOcr()) {
 
-            	// Process image
-            	if (config.isEnableImageProcessing() || config.isApplyRotation()) {
-                    if (! ImagePreprocessor.hasImageMagick(config)) {
-                        LOG.warn("User has selected to preprocess images, but I can't find ImageMagick." +
-                                "Backing off to original file.");
-                        doOCR(input.toFile(), tmpOCROutputFile, config);
-                    } else {
-                        // copy the contents of the original input file into a temporary file
-                        // which will be preprocessed for OCR
-
-                        try (TemporaryResources tmp = new TemporaryResources()) {
-                            Path tmpFile = tmp.createTempFile();
-                            Files.copy(input, tmpFile, StandardCopyOption.REPLACE_EXISTING);
-                            IMAGE_PREPROCESSOR.process(tmpFile, tmpFile, metadata, config);
-                            doOCR(tmpFile.toFile(), tmpOCROutputFile, config);
-                        }
-                    }
-            	} else {
-                    doOCR(input.toFile(), tmpOCROutputFile, config);
+                try (ParseInstrumentation.Span span = ParseInstrumentation.start(
+                        parseContext, ParseInstrumentation.OCR, metadata)) {
+                    processAndOCR(input, tmpOCROutputFile, metadata, config);
                 }
 
                 // Tesseract appends the output type (.txt or .hocr) to output file name
@@ -280,6 +271,30 @@ public class TesseractOCRParser extends AbstractParser {
         }
     }
 
+    private void processAndOCR(Path input, File tmpOCROutputFile, Metadata metadata,
+                               TesseractOCRConfig config) throws IOException, TikaException {
+        // Process image
+        if (config.isEnableImageProcessing() || config.isApplyRotation()) {
+            if (! ImagePreprocessor.hasImageMagick(config)) {
+                LOG.warn("User has selected to preprocess images, but I can't find ImageMagick." +
+                        "Backing off to original file.");
+                doOCR(input.toFile(), tmpOCROutputFile, config);
+            } else {
+                // copy the contents of the original input file into a temporary file
+                // which will be preprocessed for OCR
+
+                try (TemporaryResources tmp = new TemporaryResources()) {
+                    Path tmpFile = tmp.createTempFile();
+                    Files.copy(input, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+                    IMAGE_PREPROCESSOR.process(tmpFile, tmpFile, metadata, config);
+                    doOCR(tmpFile.toFile(), tmpOCROutputFile, config);
+                }
+            }
+        } else {
+            doOCR(input.toFile(), tmpOCROutputFile, config);
+        }
+    }
+
     private void warnOnFirstParse() {
         if (!hasWarned()) {
             warn();
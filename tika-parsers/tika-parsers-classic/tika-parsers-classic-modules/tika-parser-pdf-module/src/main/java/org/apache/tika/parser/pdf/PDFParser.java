@@ -63,6 +63,7 @@ import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.PasswordProvider;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -154,11 +155,17 @@ public class PDFParser extends AbstractParser implements Initializable {
             AccessChecker checker = localConfig.getAccessChecker();
             checker.check(metadata);
             if (handler != null) {
+                //cheap checks of the document catalog
                 boolean hasXFA = hasXFA(pdfDocument);
                 metadata.set(PDF.HAS_XFA, Boolean.toString(hasXFA));
                 boolean hasMarkedContent = hasMarkedContent(pdfDocument);
                 metadata.set(PDF.HAS_MARKED_CONTENT, Boolean.toString(hasMarkedContent));
-                if (shouldHandleXFAOnly(hasXFA, localConfig)) {
+                if (!RequestedOutputs.get(context).isBodyRequested(metadata)) {
+                    //only the metadata was requested; skip the text, OCR and attachments
+                    XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+                    xhtml.startDocument();
+                    xhtml.endDocument();
+                } else if (shouldHandleXFAOnly(hasXFA, localConfig)) {
                     handleXFAOnly(pdfDocument, handler, metadata, context);
                 } else if (localConfig.getOcrStrategy().equals(PDFParserConfig.OCR_STRATEGY.OCR_ONLY)) {
                     OCR2XHTML.process(pdfDocument, handler, context, metadata, localConfig);
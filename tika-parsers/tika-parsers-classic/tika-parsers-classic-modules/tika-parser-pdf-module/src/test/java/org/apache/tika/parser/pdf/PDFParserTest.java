@@ -61,6 +61,7 @@ import org.apache.tika.parser.CompositeParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.PasswordProvider;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.ContentHandlerDecorator;
 import org.junit.AfterClass;
@@ -150,6 +151,28 @@ public class PDFParserTest extends TikaTest {
         assertEquals("Apache Tika - Apache Tika", metadata.get(TikaCoreProperties.TITLE));
     }
 
+    @Test
+    public void testRequestedOutputs() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(RequestedOutputs.class, RequestedOutputs.METADATA_ONLY);
+        XMLResult r = getXML("testPDF.pdf", context);
+        assertEquals("Apache Tika - Apache Tika", r.metadata.get(TikaCoreProperties.TITLE));
+        assertEquals("Firefox", r.metadata.get(TikaCoreProperties.CREATOR_TOOL));
+        //cheap checks are still made
+        assertEquals("false", r.metadata.get(PDF.HAS_XFA));
+        assertNotContained("Tika is a toolkit", r.xml);
+
+        List<Metadata> metadataList = getRecursiveMetadata("testPDF_childAttachments.pdf", context);
+        assertEquals(1, metadataList.size());
+        assertNotContained("<div class=\"page\">", metadataList.get(0).get(TikaCoreProperties.TIKA_CONTENT));
+
+        //text but no attachments
+        context.set(RequestedOutputs.class, new RequestedOutputs(true, null, 0));
+        metadataList = getRecursiveMetadata("testPDF_childAttachments.pdf", context);
+        assertEquals(1, metadataList.size());
+        assertContains("<div class=\"page\">", metadataList.get(0).get(TikaCoreProperties.TIKA_CONTENT));
+    }
+
     @Test
     public void testCustomMetadata() throws Exception {
 
@@ -55,7 +55,9 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseDeadline;
 import org.apache.tika.parser.PasswordProvider;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -242,10 +244,12 @@ public class PackageParser extends AbstractParser {
                 
                 SevenZFile sevenz;
                 try{
+                    //small archives are held in memory rather than spooled to a file
                     if (password == null) {
-                        sevenz = new SevenZFile(tstream.getFile());
+                        sevenz = new SevenZFile(tstream.getSeekableByteChannel());
                     } else {
-                        sevenz = new SevenZFile(tstream.getFile(), password.toCharArray());
+                        sevenz = new SevenZFile(tstream.getSeekableByteChannel(),
+                                password.toCharArray());
                     }
                 }catch(PasswordRequiredException e){
                     throw new EncryptedDocumentException(e);
@@ -275,7 +279,12 @@ public class PackageParser extends AbstractParser {
         //this keeps track of how many entries were processed.
         AtomicInteger entryCnt = new AtomicInteger();
         try {
-            parseEntries(ais, metadata, extractor, xhtml, false, entryCnt);
+            if (!RequestedOutputs.get(context).isBodyRequested(metadata)) {
+                //only the metadata was requested; don't read the entries
+                xhtml.endDocument();
+                return;
+            }
+            parseEntries(ais, metadata, extractor, xhtml, false, entryCnt, context);
         } catch (UnsupportedZipFeatureException zfe) {
             // If this is a zip archive which requires a data descriptor, parse it again
             if (zfe.getFeature() == Feature.DATA_DESCRIPTOR) {
@@ -285,7 +294,7 @@ public class PackageParser extends AbstractParser {
                 stream.reset();
                 ais = new ZipArchiveInputStream(new CloseShieldInputStream(stream), encoding,
                         true, true);
-                parseEntries(ais, metadata, extractor, xhtml, true, entryCnt);
+                parseEntries(ais, metadata, extractor, xhtml, true, entryCnt, context);
             }
         } finally {
             ais.close();
@@ -304,17 +313,20 @@ public class PackageParser extends AbstractParser {
      * @param xhtml the xhtml handler
      * @param shouldUseDataDescriptor indicates if a data descriptor is required or not
      * @param entryCnt index of the entry
+     * @param context parse context, checked for a {@link ParseDeadline} before each entry
      * @throws TikaException if the document could not be parsed
      * @throws IOException if a UnsupportedZipFeatureException is met
      * @throws SAXException if the SAX events could not be processed
      */
     private void parseEntries(ArchiveInputStream ais, Metadata metadata,
                               EmbeddedDocumentExtractor extractor, XHTMLContentHandler xhtml,
-                              boolean shouldUseDataDescriptor, AtomicInteger entryCnt)
+                              boolean shouldUseDataDescriptor, AtomicInteger entryCnt,
+                              ParseContext context)
             throws TikaException, IOException, SAXException {
         try {
             ArchiveEntry entry = ais.getNextEntry();
             while (entry != null) {
+                ParseDeadline.check(context);
                 if (shouldUseDataDescriptor && entryCnt.get() > 0) {
                     // With shouldUseDataDescriptor being true, we are reading
                     // the zip once again. The number of entryCnt entries have
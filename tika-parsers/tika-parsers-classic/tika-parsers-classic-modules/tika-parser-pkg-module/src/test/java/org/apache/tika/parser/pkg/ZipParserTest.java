@@ -29,6 +29,7 @@ import org.apache.tika.Tika;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.RequestedOutputs;
 import org.apache.tika.sax.BodyContentHandler;
 import org.junit.Assume;
 import org.junit.Test;
@@ -40,6 +41,34 @@ import org.xml.sax.helpers.DefaultHandler;
  */
 public class ZipParserTest extends AbstractPkgTest {
 
+    @Test
+    public void testRequestedOutputs() throws Exception {
+        //the entries aren't parsed below the requested depth
+        trackingContext.set(RequestedOutputs.class, new RequestedOutputs(true, null, 0));
+        try (InputStream stream = getResourceAsStream("/test-documents/test-documents.zip")) {
+            AUTO_DETECT_PARSER.parse(stream, new BodyContentHandler(), new Metadata(), trackingContext);
+        }
+        assertEquals(0, tracker.filenames.size());
+
+        trackingContext.set(RequestedOutputs.class, new RequestedOutputs(true, null, 1));
+        try (InputStream stream = getResourceAsStream("/test-documents/test-documents.zip")) {
+            AUTO_DETECT_PARSER.parse(stream, new BodyContentHandler(), new Metadata(), trackingContext);
+        }
+        assertEquals(9, tracker.filenames.size());
+        tracker.reset();
+
+        //just the metadata
+        trackingContext.set(RequestedOutputs.class, RequestedOutputs.METADATA_ONLY);
+        ContentHandler handler = new BodyContentHandler();
+        Metadata metadata = new Metadata();
+        try (InputStream stream = getResourceAsStream("/test-documents/test-documents.zip")) {
+            AUTO_DETECT_PARSER.parse(stream, handler, metadata, trackingContext);
+        }
+        assertEquals(0, tracker.filenames.size());
+        assertEquals("", handler.toString().trim());
+        assertEquals("application/zip", metadata.get(Metadata.CONTENT_TYPE));
+    }
+
     /**
      * Tests that the ParseContext parser is correctly
      *  fired for all the embedded entries.
@@ -23,6 +23,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -43,6 +44,7 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractEncodingDetectorParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.txt.ParallelDecodingReader;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -64,6 +66,12 @@ import org.xml.sax.SAXException;
  *     an exception.  As of this writing, the content that was buffered by the underlying
  *     {@link org.apache.commons.csv.CSVParser} is lost.
  * </p>
+ * <p>
+ *     If parseThreads is greater than 1 and the stream is backed by a file of more
+ *     than one chunk in UTF-8 or a single byte charset, the text is decoded in chunks
+ *     concurrently (see {@link ParallelDecodingReader}).  The records are still
+ *     parsed in a single thread.
+ * </p>
  */
 public class TextAndCSVParser extends AbstractEncodingDetectorParser {
 
@@ -123,6 +131,19 @@ public class TextAndCSVParser extends AbstractEncodingDetectorParser {
     @Field
     private double minConfidence = 0.50;
 
+    /**
+     * number of threads to decode large files with
+     */
+    @Field
+    private int parseThreads = 1;
+
+    /**
+     * nominal number of bytes each thread decodes at a time
+     * if parseThreads is greater than 1
+     */
+    @Field
+    private int chunkSize = ParallelDecodingReader.DEFAULT_CHUNK_SIZE;
+
     public TextAndCSVParser() {
         super();
     }
@@ -140,6 +161,7 @@ public class TextAndCSVParser extends AbstractEncodingDetectorParser {
     public void parse(InputStream stream, ContentHandler handler,
                       Metadata metadata, ParseContext context) throws IOException, SAXException, TikaException {
 
+        Path file = ParallelDecodingReader.getFile(stream);
         CSVParams params = getOverride(metadata);
         Reader reader = null;
         Charset charset = null;
@@ -157,6 +179,20 @@ public class TextAndCSVParser extends AbstractEncodingDetectorParser {
 
         updateMetadata(params, metadata);
 
+        //the sequential reader isn't closed because it may not shield the stream
+        Reader text = ParallelDecodingReader.open(file, charset, reader, chunkSize, parseThreads);
+        try {
+            parse(text, charset, params, handler, metadata);
+        } finally {
+            if (text != reader) {
+                text.close();
+            }
+        }
+    }
+
+    private void parse(Reader reader, Charset charset, CSVParams params,
+                       ContentHandler handler, Metadata metadata)
+            throws IOException, SAXException, TikaException {
         //if text or a non-csv/tsv category of text
         //treat this as text and be done
         //TODO -- if it was detected as a non-csv subtype of text
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.txt;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.tika.io.TikaInputStream;
+
+/**
+ * Reader that decodes a text file in chunks on several threads and returns
+ * the characters in file order.
+ * <p>
+ * Chunks are split after a line feed if there is one near the nominal chunk
+ * end, otherwise before a UTF-8 lead byte, so no character is split between
+ * chunks.  This only works for charsets without state in which a chunk can
+ * be decoded without knowing its predecessor: UTF-8 and single byte
+ * charsets (see {@link #isSplittable(Charset)}).  Malformed input is replaced
+ * as by an {@link java.io.InputStreamReader}, and a leading byte order mark
+ * is dropped as by the {@link org.apache.tika.detect.AutoDetectReader}.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @since Apache Tika 2.0
+ */
+public class ParallelDecodingReader extends Reader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    //how far past the nominal end of a chunk to look for a line feed
+    private static final int MAX_LINE_SEARCH = 64 * 1024;
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final boolean utf8;
+    private final long length;
+    private final int chunkSize;
+    private final int threads;
+    private final ExecutorService executor;
+    //chunks being decoded, in file order
+    private final Queue<Future<CharBuffer>> pending = new ArrayDeque<>();
+    private long nextStart = 0;
+    private CharBuffer current;
+    private boolean first = true;
+
+    /**
+     * @param path      text file
+     * @param charset   charset of the file, see {@link #isSplittable(Charset)}
+     * @param chunkSize nominal number of bytes per chunk
+     * @param threads   number of threads to decode with
+     */
+    public ParallelDecodingReader(Path path, Charset charset, int chunkSize, int threads)
+            throws IOException {
+        if (!isSplittable(charset)) {
+            throw new IllegalArgumentException("Can't split " + charset.name() + " into chunks");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.charset = charset;
+        this.utf8 = charset.equals(StandardCharsets.UTF_8);
+        this.length = channel.size();
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * @param charset charset of a text
+     * @return whether a text in this charset can be decoded in independent chunks
+     */
+    public static boolean isSplittable(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            return true;
+        }
+        if (!charset.canEncode()) {
+            return false;
+        }
+        CharsetEncoder encoder = charset.newEncoder();
+        return encoder.maxBytesPerChar() == 1.0f && encoder.averageBytesPerChar() == 1.0f;
+    }
+
+    /**
+     * Call this before the stream is read.
+     *
+     * @param stream stream of a document
+     * @return the file of the stream if the stream is backed by a file and
+     * hasn't been read, or <code>null</code>
+     */
+    public static Path getFile(InputStream stream) throws IOException {
+        TikaInputStream tis = TikaInputStream.cast(stream);
+        if (tis == null || !tis.hasFile() || tis.getPosition() != 0) {
+            return null;
+        }
+        return tis.getPath();
+    }
+
+    /**
+     * @param file       file from {@link #getFile(InputStream)}, or <code>null</code>
+     * @param charset    charset of the text
+     * @param sequential reader of the text, to use if the text can't be decoded in parallel
+     * @param chunkSize  nominal number of bytes per chunk
+     * @param threads    number of threads to decode with
+     * @return a parallel reader of the file if there are several threads and chunks
+     * and the charset can be split, otherwise the sequential reader
+     */
+    public static Reader open(Path file, Charset charset, Reader sequential,
+                              int chunkSize, int threads) throws IOException {
+        if (file == null || threads < 2 || chunkSize < 1 || !isSplittable(charset)) {
+            return sequential;
+        }
+        if (Files.size(file) <= chunkSize) {
+            return sequential;
+        }
+        return new ParallelDecodingReader(file, charset, chunkSize, threads);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (current == null || !current.hasRemaining()) {
+            current = nextChunk();
+            if (current == null) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, current.remaining());
+        current.get(cbuf, off, n);
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<CharBuffer> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        executor.shutdownNow();
+        channel.close();
+    }
+
+    private CharBuffer nextChunk() throws IOException {
+        fill();
+        Future<CharBuffer> future = pending.poll();
+        if (future == null) {
+            return null;
+        }
+        CharBuffer chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while decoding");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        //keep the threads busy while this chunk is read
+        fill();
+        if (first) {
+            first = false;
+            if (chunk.hasRemaining() && chunk.get(chunk.position()) == '\ufeff') {
+                chunk.get();
+            }
+        }
+        return chunk;
+    }
+
+    private void fill() throws IOException {
+        while (pending.size() < 2 * threads && nextStart < length) {
+            long start = nextStart;
+            long end = findBoundary(start + chunkSize);
+            pending.add(executor.submit(() -> decode(start, end)));
+            nextStart = end;
+        }
+    }
+
+    private long findBoundary(long nominal) throws IOException {
+        if (nominal >= length) {
+            return length;
+        }
+        ByteBuffer window = ByteBuffer.allocate((int) Math.min(MAX_LINE_SEARCH, length - nominal));
+        readFully(window, nominal);
+        for (int i = 0; i < window.limit(); i++) {
+            if (window.get(i) == '\n') {
+                return nominal + i + 1;
+            }
+        }
+        if (utf8) {
+            for (int i = 0; i < window.limit(); i++) {
+                //not a continuation byte
+                if ((window.get(i) & 0xC0) != 0x80) {
+                    return nominal + i;
+                }
+            }
+        }
+        return nominal;
+    }
+
+    private CharBuffer decode(long start, long end) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        readFully(bytes, start);
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        return decoder.decode(bytes);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new EOFException("file was truncated while it was decoded");
+            }
+        }
+        buffer.flip();
+    }
+}
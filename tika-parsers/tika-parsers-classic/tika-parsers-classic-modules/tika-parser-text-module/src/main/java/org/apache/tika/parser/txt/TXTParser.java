@@ -18,11 +18,14 @@ package org.apache.tika.parser.txt;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Set;
 
 import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.tika.config.Field;
 import org.apache.tika.detect.AutoDetectReader;
 import org.apache.tika.detect.EncodingDetector;
 import org.apache.tika.exception.TikaException;
@@ -46,6 +49,10 @@ import org.xml.sax.SAXException;
  * <dt>{@link org.apache.tika.metadata.HttpHeaders#CONTENT_TYPE}</dt>
  * <dd><code>text/plain; charset=...</code></dd>
  * </dl>
+ * <p>
+ * If {@link #setParseThreads(int)} is greater than 1 and the stream is backed by
+ * a file of more than one chunk in UTF-8 or a single byte charset, the text is
+ * decoded in chunks concurrently (see {@link ParallelDecodingReader}).
  */
 public class TXTParser extends AbstractEncodingDetectorParser {
 
@@ -57,6 +64,10 @@ public class TXTParser extends AbstractEncodingDetectorParser {
     private static final Set<MediaType> SUPPORTED_TYPES =
             Collections.singleton(MediaType.TEXT_PLAIN);
 
+    private int parseThreads = 1;
+
+    private int chunkSize = ParallelDecodingReader.DEFAULT_CHUNK_SIZE;
+
     public Set<MediaType> getSupportedTypes(ParseContext context) {
         return SUPPORTED_TYPES;
     }
@@ -74,6 +85,7 @@ public class TXTParser extends AbstractEncodingDetectorParser {
             Metadata metadata, ParseContext context)
             throws IOException, SAXException, TikaException {
 
+        Path file = ParallelDecodingReader.getFile(stream);
         // Automatically detect the character encoding
         try (AutoDetectReader reader = new AutoDetectReader(
                 new CloseShieldInputStream(stream), metadata, getEncodingDetector(context))) {
@@ -98,11 +110,14 @@ public class TXTParser extends AbstractEncodingDetectorParser {
             xhtml.startDocument();
 
             xhtml.startElement("p");
-            char[] buffer = new char[4096];
-            int n = reader.read(buffer);
-            while (n != -1) {
-                xhtml.characters(buffer, 0, n);
-                n = reader.read(buffer);
+            try (Reader text = ParallelDecodingReader.open(
+                    file, charset, reader, chunkSize, parseThreads)) {
+                char[] buffer = new char[4096];
+                int n = text.read(buffer);
+                while (n != -1) {
+                    xhtml.characters(buffer, 0, n);
+                    n = text.read(buffer);
+                }
             }
             xhtml.endElement("p");
 
@@ -110,4 +125,34 @@ public class TXTParser extends AbstractEncodingDetectorParser {
         }
     }
 
+    /**
+     * Number of threads to decode large files with, see the class documentation.
+     * Default is 1.
+     *
+     * @param parseThreads number of threads
+     */
+    @Field
+    public void setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+    }
+
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    /**
+     * Nominal number of bytes each thread decodes at a time if
+     * {@link #setParseThreads(int)} is greater than 1. Default is 4MB.
+     *
+     * @param chunkSize number of bytes
+     */
+    @Field
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
 }
@@ -22,9 +22,16 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 import java.io.ByteArrayInputStream;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.IOUtils;
 
 import org.apache.tika.TikaTest;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
@@ -299,4 +306,58 @@ public class TXTParserTest extends TikaTest {
         assertEquals("text/x-vcalendar; charset=ISO-8859-1", r.metadata.get(Metadata.CONTENT_TYPE));
     }
 
+    @Test
+    public void testParallelDecoding() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("line ").append(i).append(" caf\u00e9 na\u00efve r\u00e9sum\u00e9");
+            //some lines are longer than a chunk
+            if (i % 100 != 0) {
+                sb.append('\n');
+            }
+        }
+        String text = sb.toString();
+        assertParallelDecoding(text, UTF_8, "\ufeff" + text);
+        assertParallelDecoding(text, ISO_8859_1, text);
+    }
+
+    @Test
+    public void testParallelDecodingWithoutLineFeeds() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("\u20ac\u00e9a\ud83d\ude00");
+        }
+        String text = sb.toString();
+        Path file = Files.createTempFile("tika-parallel-", ".txt");
+        try {
+            Files.write(file, ("\ufeff" + text).getBytes(UTF_8));
+            try (Reader reader = new ParallelDecodingReader(file, UTF_8, 1001, 3)) {
+                assertEquals(text, IOUtils.toString(reader));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void assertParallelDecoding(String text, Charset charset, String written)
+            throws Exception {
+        Path file = Files.createTempFile("tika-parallel-", ".txt");
+        try {
+            Files.write(file, written.getBytes(charset));
+            TXTParser parallel = new TXTParser();
+            parallel.setParseThreads(4);
+            parallel.setChunkSize(1000);
+            Metadata sequentialMetadata = new Metadata();
+            Metadata parallelMetadata = new Metadata();
+            String expected = getText(TikaInputStream.get(file), new TXTParser(), sequentialMetadata);
+            String actual = getText(TikaInputStream.get(file), parallel, parallelMetadata);
+            assertEquals(expected, actual);
+            assertContains(text.substring(text.length() - 100), actual);
+            assertEquals(sequentialMetadata.get(Metadata.CONTENT_TYPE),
+                    parallelMetadata.get(Metadata.CONTENT_TYPE));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
 }
@@ -117,6 +117,22 @@ public class DigestingParserTest extends TikaTest {
         assertNull(m.get(P+CommonsDigester.DigestAlgorithm.MD2.toString()));
     }
 
+    @Test
+    public void testDigestWhileParsing() throws Exception {
+        Metadata m = new Metadata();
+        CommonsDigester digester = new CommonsDigester(100, "md5,sha256,sha1:32");
+        assertTrue(digester.isSinglePass());
+        //plain stream, so that the digests are computed as the parser reads it
+        try (InputStream is = getResourceAsStream("/test-documents/test_recursive_embedded.docx")) {
+            XMLResult xml = getXML(is, new DigestingParser(AUTO_DETECT_PARSER, digester, true), m);
+            assertContains("embed_0", xml.xml);
+        }
+        assertEquals("59f626e09a8c16ab6dbc2800c685f772", m.get(P + "MD5"));
+        assertEquals("c4b7fab030a8b6a9d6691f6699ac8e6f" +
+                "82bc53764a0f1430d134ae3b70c32654", m.get(P + "SHA256"));
+        assertEquals("PIPQAHIWHLEQ3DVFJQCQ7L22HADZPCFG", m.get(P + "SHA1"));
+    }
+
     @Test
     public void testReset() throws Exception {
         String expectedMD5 = "59f626e09a8c16ab6dbc2800c685f772";
@@ -49,6 +49,7 @@ class SQLite3DBParser extends AbstractDBParser {
     protected static final String SQLITE_CLASS_NAME = "org.sqlite.JDBC";
     //If the InputStream wasn't a TikaInputStream, copy to this tmp file
     Path tmpFile = null;
+    private String connectionString = null;
 
     /**
      * @param context context
@@ -61,14 +62,19 @@ class SQLite3DBParser extends AbstractDBParser {
 
     @Override
     protected Connection getConnection(InputStream stream, Metadata metadata, ParseContext context) throws IOException {
-        String connectionString = getConnectionString(stream, metadata, context);
+        connectionString = getConnectionString(stream, metadata, context);
 
-        Connection connection = null;
         try {
             Class.forName(getJDBCClassName());
         } catch (ClassNotFoundException e) {
             throw new IOException(e);
         }
+        return getReadOnlyConnection(metadata, context);
+    }
+
+    @Override
+    protected Connection getReadOnlyConnection(Metadata metadata, ParseContext context) throws IOException {
+        Connection connection = null;
         try {
             SQLiteConfig config = new SQLiteConfig();
 
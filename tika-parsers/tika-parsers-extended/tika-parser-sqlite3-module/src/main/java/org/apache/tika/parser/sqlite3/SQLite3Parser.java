@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.tika.config.Field;
 import org.apache.tika.config.Initializable;
 import org.apache.tika.config.InitializableProblemHandler;
 import org.apache.tika.config.Param;
@@ -62,6 +63,11 @@ public class SQLite3Parser extends AbstractParser implements Initializable {
     private static final MediaType MEDIA_TYPE = MediaType.application("x-sqlite3");
 
     private static final Set<MediaType> SUPPORTED_TYPES;
+
+    private int parseThreads = 1;
+    private int fetchSize = 0;
+    private int maxRowsPerTable = -1;
+
     static {
         Set<MediaType> tmp;
         try {
@@ -89,9 +95,54 @@ public class SQLite3Parser extends AbstractParser implements Initializable {
     @Override
     public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context) throws IOException, SAXException, TikaException {
         SQLite3DBParser p = new SQLite3DBParser();
+        p.setParseThreads(parseThreads);
+        p.setFetchSize(fetchSize);
+        p.setMaxRowsPerTable(maxRowsPerTable);
         p.parse(stream, handler, metadata, context);
     }
 
+    /**
+     * Number of threads to read tables with, each over its own read-only
+     * connection, if {@link #setMaxRowsPerTable(int)} is set.  Default is 1.
+     *
+     * @param parseThreads number of threads
+     * @see org.apache.tika.parser.jdbc.AbstractDBParser#setParseThreads(int)
+     */
+    @Field
+    public void setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+    }
+
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    /**
+     * @param fetchSize number of rows to fetch at a time
+     * @see org.apache.tika.parser.jdbc.AbstractDBParser#setFetchSize(int)
+     */
+    @Field
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * @param maxRowsPerTable maximum number of rows to extract from each table
+     * @see org.apache.tika.parser.jdbc.AbstractDBParser#setMaxRowsPerTable(int)
+     */
+    @Field
+    public void setMaxRowsPerTable(int maxRowsPerTable) {
+        this.maxRowsPerTable = maxRowsPerTable;
+    }
+
+    public int getMaxRowsPerTable() {
+        return maxRowsPerTable;
+    }
+
     /**
      * No-op
      * @param params params to use for initialization
@@ -19,6 +19,7 @@ package org.apache.tika.parser.sqlite3;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -75,6 +76,43 @@ public class SQLite3ParserTest extends TikaTest {
         TikaTest.assertContains("<tr><td>2</td><td/><td/><td/><td/><td/><td/><td/><td/><td/></tr>", xml);
     }
 
+    @Test
+    public void testParallelTables() throws Exception {
+        SQLite3Parser parallel = new SQLite3Parser();
+        parallel.setParseThreads(2);
+        parallel.setFetchSize(1);
+        parallel.setMaxRowsPerTable(100);
+        assertEquals(parse(new SQLite3Parser(), new Metadata()),
+                parse(parallel, new Metadata()));
+    }
+
+    @Test
+    public void testMaxRowsPerTable() throws Exception {
+        SQLite3Parser parser = new SQLite3Parser();
+        parser.setMaxRowsPerTable(1);
+        Metadata metadata = new Metadata();
+        String xml = parse(parser, metadata);
+        TikaTest.assertContains("sed, do eiusmod tempor", xml);
+        assertFalse(xml.contains("incididunt"));
+        assertEquals(2, metadata.getValues(Database.TRUNCATED_TABLE_NAME).length);
+
+        parser.setMaxRowsPerTable(3);
+        metadata = new Metadata();
+        xml = parse(parser, metadata);
+        TikaTest.assertContains("incididunt", xml);
+        assertEquals(0, metadata.getValues(Database.TRUNCATED_TABLE_NAME).length);
+    }
+
+    private String parse(Parser parser, Metadata metadata) throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, TikaTest.AUTO_DETECT_PARSER);
+        ContentHandler handler = new ToXMLContentHandler();
+        try (InputStream stream = TikaInputStream.get(getResourceAsStream(TEST_FILE1))) {
+            parser.parse(stream, handler, metadata, context);
+        }
+        return handler.toString();
+    }
+
     //code used for creating the test file
 /*
     private Connection getConnection(String dbFileName) throws Exception {
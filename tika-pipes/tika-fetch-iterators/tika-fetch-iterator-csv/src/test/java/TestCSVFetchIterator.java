@@ -22,6 +22,7 @@ import org.apache.tika.pipes.fetchiterator.csv.CSVFetchIterator;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -81,6 +82,46 @@ public class TestCSVFetchIterator {
         }
     }
 
+    @Test
+    public void testCheckpoint() throws Exception {
+        Path p = get("test-simple.csv");
+        Path dir = Files.createTempDirectory("tika-csv-checkpoint");
+        Path checkpoint = dir.resolve("checkpoint.log");
+        try {
+            CSVFetchIterator it = newIterator(p, checkpoint);
+            ArrayBlockingQueue<FetchIdMetadataPair> queue = it.init(1);
+            assertEquals(5, (int) it.call());
+            int marked = 0;
+            FetchIdMetadataPair pair = queue.poll();
+            while (pair != FetchIterator.COMPLETED_SEMAPHORE) {
+                if (marked++ < 4) {
+                    it.markCompleted(pair.getFetchId());
+                }
+                pair = queue.poll();
+            }
+            it.closeCheckpointLog();
+
+            //restart and make sure the completed ids are skipped
+            it = newIterator(p, checkpoint);
+            queue = it.init(1);
+            assertEquals(1, (int) it.call());
+            assertEquals(4, it.getSkippedCompleted());
+            it.closeCheckpointLog();
+        } finally {
+            Files.deleteIfExists(checkpoint);
+            Files.delete(dir);
+        }
+    }
+
+    private CSVFetchIterator newIterator(Path csv, Path checkpoint) {
+        CSVFetchIterator it = new CSVFetchIterator();
+        it.setFetcherName("fs");
+        it.setCsvPath(csv);
+        it.setFetchKeyColumn("fetchKey");
+        it.setCheckpointPath(checkpoint.toString());
+        return it;
+    }
+
     @Test(expected = ExecutionException.class)
     public void testBadFetchKeyCol() throws Exception {
         Path p = get("test-simple.csv");
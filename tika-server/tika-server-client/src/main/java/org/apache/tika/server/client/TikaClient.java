@@ -21,36 +21,67 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.pipes.fetcher.FetchId;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
 
-public class TikaClient {
+/**
+ * Client for one or more tika-servers.
+ * <p>
+ * Requests are sent to the server with the fewest outstanding requests
+ * weighted by its recent latency (see TikaServerBalancer), and
+ * all servers share a single pooled connection manager.  If a server can't be
+ * reached, the (idempotent) request is retried on another server.  If no server
+ * can be reached, this falls back to waiting for a server to come back up.
+ * <p>
+ * Close the client to release its pooled connections.
+ */
+public class TikaClient implements Closeable {
 
     private static final Gson GSON = new GsonBuilder().create();
 
-    private final Random random = new Random();
+    //maximum number of connections per tika-server
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_SERVER = 20;
+
     private final TikaConfig tikaConfig;
-    private List<TikaHttpClient> clients;
+    private final List<TikaHttpClient> clients;
+    private final TikaServerBalancer balancer;
+    private final CloseableHttpClient httpClient;
 
 
     public static TikaClient get(TikaConfig tikaConfig, List<String> tikaServers) throws TikaClientConfigException {
-        List clients = new ArrayList<>();
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(DEFAULT_MAX_CONNECTIONS_PER_SERVER);
+        connectionManager.setMaxTotal(DEFAULT_MAX_CONNECTIONS_PER_SERVER *
+                Math.max(1, tikaServers.size()));
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager).build();
+        List<TikaHttpClient> clients = new ArrayList<>();
         for (String url : tikaServers) {
-            clients.add(TikaHttpClient.get(url));
+            clients.add(TikaHttpClient.get(url, httpClient));
         }
-        return new TikaClient(tikaConfig, clients);
+        return new TikaClient(tikaConfig, clients, httpClient);
     }
 
-    private TikaClient(TikaConfig tikaConfig, List<TikaHttpClient> clients) {
+    private TikaClient(TikaConfig tikaConfig, List<TikaHttpClient> clients,
+                       CloseableHttpClient httpClient) {
         this.tikaConfig = tikaConfig;
         this.clients = clients;
+        this.balancer = new TikaServerBalancer(clients);
+        this.httpClient = httpClient;
     }
 
     /*public List<Metadata> parse(InputStream is, Metadata metadata) throws IOException, TikaException {
@@ -59,10 +90,39 @@ public class TikaClient {
 
     public TikaEmitterResult parse(FetchId fetchId, Metadata metadata, String emitter)
             throws IOException, TikaException {
-        TikaHttpClient client = getHttpClient();
         String jsonRequest = jsonifyRequest(fetchId, metadata, emitter);
-        return client.postJson(jsonRequest);
-
+        Set<TikaHttpClient> tried = new HashSet<>();
+        TikaEmitterResult result = null;
+        for (int i = 0; i < clients.size(); i++) {
+            TikaHttpClient client = balancer.acquire(tried);
+            if (client == null) {
+                break;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                result = client.postJsonOnce(jsonRequest);
+            } finally {
+                boolean reached = result != null &&
+                        result.getStatus() != TikaEmitterResult.STATUS.SERVER_UNAVAILABLE;
+                balancer.release(client, System.currentTimeMillis() - start, reached);
+            }
+            if (result.getStatus() != TikaEmitterResult.STATUS.SERVER_UNAVAILABLE) {
+                return result;
+            }
+            tried.add(client);
+        }
+        //none of the servers could be reached; wait for one to come back
+        TikaHttpClient client = balancer.acquire(Collections.emptySet());
+        long start = System.currentTimeMillis();
+        try {
+            result = client.postJson(jsonRequest);
+        } finally {
+            boolean reached = result != null &&
+                    result.getStatus() != TikaEmitterResult.STATUS.TIMED_OUT_WAITING_FOR_TIKA &&
+                    result.getStatus() != TikaEmitterResult.STATUS.EXCEEDED_MAX_RETRIES;
+            balancer.release(client, System.currentTimeMillis() - start, reached);
+        }
+        return result;
     }
 
     private String jsonifyRequest(FetchId fetchId, Metadata metadata, String emitter) {
@@ -89,11 +149,15 @@ public class TikaClient {
         return GSON.toJson(root);
     }
 
-    private TikaHttpClient getHttpClient() {
-        if (clients.size() == 1) {
-            return clients.get(0);
-        }
-        int index = random.nextInt(clients.size());
-        return clients.get(index);
+    /**
+     * Closes the http client and its pooled connection manager.
+     */
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    TikaServerBalancer getBalancer() {
+        return balancer;
     }
 }
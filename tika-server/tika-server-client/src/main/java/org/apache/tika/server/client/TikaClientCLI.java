@@ -29,7 +29,6 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
@@ -70,20 +69,25 @@ public class TikaClientCLI {
         ArrayBlockingQueue<FetchIdMetadataPair> queue = fetchIterator.init(numThreads);
 
         completionService.submit(fetchIterator);
-        if (tikaServerUrls.size() == numThreads) {
-            logDiffSizes(tikaServerUrls.size(), numThreads);
+        //one client for all workers, so that they share the balancer's outstanding
+        //requests and latencies, and the pooled connections
+        try (TikaClient client = TikaClient.get(config, tikaServerUrls)) {
+            logBalancing(tikaServerUrls.size(), numThreads);
             for (int i = 0; i < numThreads; i++) {
-                TikaClient client = TikaClient.get(config,
-                        Collections.singletonList(tikaServerUrls.get(i)));
-                completionService.submit(new FetchWorker(queue, client, fetcherString));
-            }
-        } else {
-            for (int i = 0; i < numThreads; i++) {
-                TikaClient client = TikaClient.get(config, tikaServerUrls);
-                completionService.submit(new FetchWorker(queue, client, fetcherString));
+                completionService.submit(new FetchWorker(queue, client, fetcherString, fetchIterator));
             }
+            waitForWorkers(completionService);
+        } finally {
+            executorService.shutdownNow();
         }
+        fetchIterator.closeCheckpointLog();
+        if (fetchIterator.getSkippedCompleted() > 0) {
+            LOGGER.info("skipped {} fetch ids that were completed in an earlier run",
+                    fetchIterator.getSkippedCompleted());
+        }
+    }
 
+    private void waitForWorkers(ExecutorCompletionService<Integer> completionService) {
         int finished = 0;
         while (finished < numThreads+1) {
             Future<Integer> future = null;
@@ -107,21 +111,24 @@ public class TikaClientCLI {
         }
     }
 
-    private void logDiffSizes(int servers, int numThreads) {
-        LOGGER.info("tika server count ({}) != numThreads ({}). " +
-                        "Each client will randomly select a server from this list",
-                servers, numThreads);
+    private void logBalancing(int servers, int numThreads) {
+        LOGGER.info("{} threads share one client for {} tika servers. " +
+                        "Each request goes to the server with the fewest outstanding " +
+                        "requests, weighted by its recent latency",
+                numThreads, servers);
     }
 
     private class FetchWorker implements Callable<Integer> {
         private final ArrayBlockingQueue<FetchIdMetadataPair> queue;
         private final TikaClient client;
         private final String emitterString;
+        private final FetchIterator fetchIterator;
         public FetchWorker(ArrayBlockingQueue<FetchIdMetadataPair> queue, TikaClient client,
-                           String emitterString) {
+                           String emitterString, FetchIterator fetchIterator) {
             this.queue = queue;
             this.client = client;
             this.emitterString = emitterString;
+            this.fetchIterator = fetchIterator;
         }
 
         @Override
@@ -138,7 +145,11 @@ public class TikaClientCLI {
                 }
                 try {
                     LOGGER.debug("about to parse: {}", p.getFetchId());
-                    client.parse(p.getFetchId(), p.getMetadata(), emitterString);
+                    TikaEmitterResult result =
+                            client.parse(p.getFetchId(), p.getMetadata(), emitterString);
+                    if (result.getStatus() == TikaEmitterResult.STATUS.OK) {
+                        fetchIterator.markCompleted(p.getFetchId());
+                    }
                 } catch (IOException e) {
                     LOGGER.warn(p.getFetchId().toString(), e);
                 } catch (TikaException e) {
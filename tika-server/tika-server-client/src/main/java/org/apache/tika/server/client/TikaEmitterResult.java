@@ -23,7 +23,8 @@ public class TikaEmitterResult {
         OK,
         NOT_OK,
         EXCEEDED_MAX_RETRIES,
-        TIMED_OUT_WAITING_FOR_TIKA
+        TIMED_OUT_WAITING_FOR_TIKA,
+        SERVER_UNAVAILABLE
     }
 
     private STATUS status;
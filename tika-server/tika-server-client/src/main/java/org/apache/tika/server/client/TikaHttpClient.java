@@ -42,6 +42,7 @@ class TikaHttpClient {
     private static final String ENDPOINT = "emit";
     private static final String TIKA_ENDPOINT = "tika";
     private static final Logger LOGGER = LoggerFactory.getLogger(TikaHttpClient.class);
+    private final String baseUrl;
     private final HttpHost httpHost;
     private final HttpClient httpClient;
     private final String endPointUrl;
@@ -53,6 +54,18 @@ class TikaHttpClient {
     private long pulseWaitForTikaMs = 1000;
 
     static TikaHttpClient get(String baseUrl) throws TikaClientConfigException {
+        //TODO: need to add other configuration stuff? proxy, username, password, timeouts...
+        return get(baseUrl, HttpClients.createDefault());
+    }
+
+    /**
+     *
+     * @param baseUrl base url of the tika-server
+     * @param client http client, which may be shared with other TikaHttpClients
+     * @return client for the tika-server at the baseUrl
+     * @throws TikaClientConfigException
+     */
+    static TikaHttpClient get(String baseUrl, HttpClient client) throws TikaClientConfigException {
         String endPointUrl = baseUrl.endsWith("/") ? baseUrl+ENDPOINT : baseUrl+"/"+ENDPOINT;
         String tikaUrl = baseUrl.endsWith("/") ? baseUrl+TIKA_ENDPOINT : baseUrl+"/"+TIKA_ENDPOINT;
         URI uri;
@@ -62,19 +75,20 @@ class TikaHttpClient {
             throw new TikaClientConfigException("bad URI", e);
         }
         HttpHost httpHost = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
-        //TODO: need to add other configuration stuff? proxy, username, password, timeouts...
-        HttpClient client = HttpClients.createDefault();
-        return new TikaHttpClient(endPointUrl, tikaUrl, httpHost, client);
+        return new TikaHttpClient(baseUrl, endPointUrl, tikaUrl, httpHost, client);
     }
 
     /**
      *
+     * @param baseUrl base url of the tika-server
      * @param endPointUrl full url to the tika-server including endpoint
      * @param tikaUrl url to /tika endpoint to use to check on server status
      * @param httpHost
      * @param httpClient
      */
-    private TikaHttpClient(String endPointUrl, String tikaUrl, HttpHost httpHost, HttpClient httpClient) {
+    private TikaHttpClient(String baseUrl, String endPointUrl, String tikaUrl,
+                           HttpHost httpHost, HttpClient httpClient) {
+        this.baseUrl = baseUrl;
         this.endPointUrl = endPointUrl;
         this.tikaUrl = tikaUrl;
         this.httpHost = httpHost;
@@ -130,6 +144,49 @@ class TikaHttpClient {
     }
 
 
+    /**
+     * Makes a single attempt to post the request.  Unlike {@link #postJson(String)},
+     * this does not wait for an unreachable server to come back up.
+     *
+     * @param jsonRequest request
+     * @return result, with status SERVER_UNAVAILABLE if the server could
+     * not be reached or reported that it is unavailable
+     */
+    public TikaEmitterResult postJsonOnce(String jsonRequest) {
+        HttpPost post = new HttpPost(endPointUrl);
+        ByteArrayEntity entity = new ByteArrayEntity(jsonRequest.getBytes(StandardCharsets.UTF_8));
+        post.setEntity(entity);
+        post.setHeader("Content-Type", "application/json");
+        long start = System.currentTimeMillis();
+        HttpResponse response = null;
+        try {
+            response = httpClient.execute(httpHost, post);
+        } catch (IOException e) {
+            LOGGER.debug("couldn't reach {}", endPointUrl, e);
+            return new TikaEmitterResult(TikaEmitterResult.STATUS.SERVER_UNAVAILABLE,
+                    System.currentTimeMillis() - start, e.getMessage());
+        }
+        String msg = "";
+        try {
+            msg = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            //swallow
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        int code = response.getStatusLine().getStatusCode();
+        TikaEmitterResult.STATUS status = TikaEmitterResult.STATUS.OK;
+        if (code == 503) {
+            status = TikaEmitterResult.STATUS.SERVER_UNAVAILABLE;
+        } else if (code != 200) {
+            status = TikaEmitterResult.STATUS.NOT_OK;
+        }
+        return new TikaEmitterResult(status, elapsed, msg);
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
     private void waitForServer() throws TimeoutWaitingForTikaException {
         long start = System.currentTimeMillis();
         long elapsed = System.currentTimeMillis() - start;
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Chooses which tika-server should handle the next request.
+ * <p>
+ * Servers are scored by (outstanding requests + 1) * EWMA of their latency,
+ * and the server with the lowest score is chosen.  Servers that haven't
+ * handled a request yet have the lowest possible latency so that each server is tried early.
+ * <p>
+ * After {@link #setEjectAfterFailures(int)} consecutive failures to reach a server
+ * (e.g. while the watchdog is restarting it), the server is ejected for
+ * {@link #setEjectMillis(long)} and only chosen if all other servers are ejected too.
+ * <p>
+ * This class is thread safe.
+ */
+class TikaServerBalancer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TikaServerBalancer.class);
+
+    //weight of the newest latency in the moving average
+    private static final double ALPHA = 0.3;
+
+    private final List<ServerState> servers = new ArrayList<>();
+    private int ejectAfterFailures = 2;
+    private long ejectMillis = 10000;
+
+    TikaServerBalancer(List<TikaHttpClient> clients) {
+        if (clients.size() == 0) {
+            throw new IllegalArgumentException("Must specify at least one tika-server");
+        }
+        for (TikaHttpClient client : clients) {
+            servers.add(new ServerState(client));
+        }
+    }
+
+    /**
+     * Chooses a server and counts the request as outstanding against it.
+     * Callers must call {@link #release(TikaHttpClient, long, boolean)} when
+     * the request has completed.
+     *
+     * @param exclude servers that should not be chosen, e.g. because they
+     *                have already failed this request
+     * @return the chosen server or <code>null</code> if all servers are excluded
+     */
+    synchronized TikaHttpClient acquire(Collection<TikaHttpClient> exclude) {
+        long now = System.currentTimeMillis();
+        ServerState best = null;
+        double bestScore = Double.MAX_VALUE;
+        ServerState bestEjected = null;
+        for (ServerState s : servers) {
+            if (exclude.contains(s.client)) {
+                continue;
+            }
+            if (s.ejectedUntil > now) {
+                if (bestEjected == null || s.ejectedUntil < bestEjected.ejectedUntil) {
+                    bestEjected = s;
+                }
+                continue;
+            }
+            double score = (s.outstanding + 1) * Math.max(1.0, s.ewmaLatencyMs);
+            if (best == null || score < bestScore) {
+                best = s;
+                bestScore = score;
+            }
+        }
+        if (best == null) {
+            best = bestEjected;
+        }
+        if (best == null) {
+            return null;
+        }
+        best.outstanding++;
+        return best.client;
+    }
+
+    /**
+     * @param client    server that handled the request
+     * @param elapsedMs how long the request took
+     * @param reached   whether the server could be reached and responded
+     */
+    synchronized void release(TikaHttpClient client, long elapsedMs, boolean reached) {
+        ServerState s = get(client);
+        s.outstanding--;
+        if (reached) {
+            s.consecutiveFailures = 0;
+            s.ejectedUntil = 0;
+            s.ewmaLatencyMs = (s.requests == 0) ? elapsedMs :
+                    ALPHA * elapsedMs + (1 - ALPHA) * s.ewmaLatencyMs;
+            s.requests++;
+        } else {
+            s.consecutiveFailures++;
+            if (s.consecutiveFailures >= ejectAfterFailures) {
+                LOGGER.warn("ejecting {} for {} ms after {} consecutive failures",
+                        client.getBaseUrl(), ejectMillis, s.consecutiveFailures);
+                s.ejectedUntil = System.currentTimeMillis() + ejectMillis;
+            }
+        }
+    }
+
+    synchronized int getOutstanding(TikaHttpClient client) {
+        return get(client).outstanding;
+    }
+
+    synchronized boolean isEjected(TikaHttpClient client) {
+        return get(client).ejectedUntil > System.currentTimeMillis();
+    }
+
+    int size() {
+        return servers.size();
+    }
+
+    void setEjectAfterFailures(int ejectAfterFailures) {
+        this.ejectAfterFailures = ejectAfterFailures;
+    }
+
+    void setEjectMillis(long ejectMillis) {
+        this.ejectMillis = ejectMillis;
+    }
+
+    private ServerState get(TikaHttpClient client) {
+        for (ServerState s : servers) {
+            if (s.client == client) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("unknown server: " + client.getBaseUrl());
+    }
+
+    private static class ServerState {
+        private final TikaHttpClient client;
+        private int outstanding = 0;
+        private long requests = 0;
+        private double ewmaLatencyMs = 0;
+        private int consecutiveFailures = 0;
+        private long ejectedUntil = 0;
+
+        private ServerState(TikaHttpClient client) {
+            this.client = client;
+        }
+    }
+}
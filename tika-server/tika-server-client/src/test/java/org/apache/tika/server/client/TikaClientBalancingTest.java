@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.client;
+
+import org.apache.cxf.binding.BindingFactoryManager;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSBindingFactory;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.pipes.fetcher.FetchId;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TikaClientBalancingTest {
+
+    private final List<Server> servers = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (Server server : servers) {
+            server.stop();
+            server.destroy();
+        }
+    }
+
+    @Test
+    public void testPreferFastServerAndSkipDeadServer() throws Exception {
+        AtomicInteger fastCount = new AtomicInteger();
+        AtomicInteger slowCount = new AtomicInteger();
+        String fast = startServer(fastCount, 0);
+        String slow = startServer(slowCount, 200);
+        String dead = "http://localhost:" + getUnusedPort();
+
+        try (TikaClient client = TikaClient.get(TikaConfig.getDefaultConfig(),
+                Arrays.asList(dead, slow, fast))) {
+            int numRequests = 20;
+            for (int i = 0; i < numRequests; i++) {
+                TikaEmitterResult result = client.parse(new FetchId("fs", "file" + i),
+                        new Metadata(), "fs");
+                assertEquals(TikaEmitterResult.STATUS.OK, result.getStatus());
+            }
+            assertEquals(numRequests, fastCount.get() + slowCount.get());
+            assertTrue("fast: " + fastCount.get() + " slow: " + slowCount.get(),
+                    fastCount.get() > slowCount.get() * 3);
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsAreSpread() throws Exception {
+        FakeEmitResource first = new FakeEmitResource(new AtomicInteger(), 100);
+        FakeEmitResource second = new FakeEmitResource(new AtomicInteger(), 100);
+        String firstUrl = startServer(first);
+        String secondUrl = startServer(second);
+
+        int numThreads = 8;
+        int requestsPerThread = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try (TikaClient client = TikaClient.get(TikaConfig.getDefaultConfig(),
+                Arrays.asList(firstUrl, secondUrl))) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < requestsPerThread; i++) {
+                        TikaEmitterResult result = client.parse(
+                                new FetchId("fs", "file" + thread + "-" + i), new Metadata(), "fs");
+                        assertEquals(TikaEmitterResult.STATUS.OK, result.getStatus());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        int total = numThreads * requestsPerThread;
+        assertEquals(total, first.count.get() + second.count.get());
+        String counts = "first: " + first.count.get() + " second: " + second.count.get() +
+                " max in flight: " + first.maxInFlight.get() + "/" + second.maxInFlight.get();
+        //with the fewest outstanding requests first, neither server gets
+        //all of the concurrent requests
+        assertTrue(counts, first.count.get() >= total / 4);
+        assertTrue(counts, second.count.get() >= total / 4);
+        assertTrue(counts, first.maxInFlight.get() < numThreads);
+        assertTrue(counts, second.maxInFlight.get() < numThreads);
+    }
+
+    @Test
+    public void testEjection() throws Exception {
+        String dead = "http://localhost:" + getUnusedPort();
+        AtomicInteger count = new AtomicInteger();
+        String live = startServer(count, 0);
+        try (TikaClient client = TikaClient.get(TikaConfig.getDefaultConfig(),
+                Arrays.asList(dead, live))) {
+            TikaServerBalancer balancer = client.getBalancer();
+            for (int i = 0; i < 10; i++) {
+                client.parse(new FetchId("fs", "file" + i), new Metadata(), "fs");
+            }
+            assertEquals(10, count.get());
+            //the live server is preferred; the dead server is only chosen
+            //once the live server is excluded, and it has been ejected
+            List<TikaHttpClient> tried = new ArrayList<>();
+            TikaHttpClient first = balancer.acquire(tried);
+            tried.add(first);
+            TikaHttpClient second = balancer.acquire(tried);
+            assertFalse(balancer.isEjected(first));
+            assertTrue(balancer.isEjected(second));
+            balancer.release(first, 1, true);
+            balancer.release(second, 1, false);
+        }
+    }
+
+    private String startServer(AtomicInteger count, long sleepMs) throws IOException {
+        return startServer(new FakeEmitResource(count, sleepMs));
+    }
+
+    private String startServer(FakeEmitResource resource) throws IOException {
+        String url = "http://localhost:" + getUnusedPort();
+        JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
+        sf.setResourceClasses(FakeEmitResource.class);
+        sf.setResourceProvider(FakeEmitResource.class, new SingletonResourceProvider(resource));
+        sf.setAddress(url + "/");
+        BindingFactoryManager manager = sf.getBus().getExtension(BindingFactoryManager.class);
+        JAXRSBindingFactory factory = new JAXRSBindingFactory();
+        factory.setBus(sf.getBus());
+        manager.registerBindingFactory(JAXRSBindingFactory.JAXRS_BINDING_ID, factory);
+        servers.add(sf.create());
+        return url;
+    }
+
+    private static int getUnusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Stands in for a tika-server's emit endpoint.
+     */
+    @Path("/emit")
+    public static class FakeEmitResource {
+        private final AtomicInteger count;
+        private final long sleepMs;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        public FakeEmitResource(AtomicInteger count, long sleepMs) {
+            this.count = count;
+            this.sleepMs = sleepMs;
+        }
+
+        @POST
+        @Produces("application/json")
+        public String emit(InputStream is) throws IOException {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                while (is.read() > -1) {
+                    //drain
+                }
+                if (sleepMs > 0) {
+                    try {
+                        Thread.sleep(sleepMs);
+                    } catch (InterruptedException e) {
+                        //swallow
+                    }
+                }
+                count.incrementAndGet();
+                return "{\"status\":\"ok\"}";
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
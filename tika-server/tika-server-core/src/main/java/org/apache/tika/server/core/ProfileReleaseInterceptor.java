@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Releases the config profiles that a request used once its response has
+ * been written, so that an unloaded profile can be closed.  Add this to both
+ * the out and the out fault interceptors; a response that is streamed is only
+ * written after the resource method returned.
+ */
+public class ProfileReleaseInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    private static final String PROFILES = ProfileReleaseInterceptor.class.getName() + ".profiles";
+
+    public ProfileReleaseInterceptor() {
+        super(Phase.SETUP_ENDING);
+    }
+
+    /**
+     * Has the profile released when the response of the current request has
+     * been written.  Outside of a request, the profile isn't released.
+     *
+     * @param profile profile that the current request got
+     */
+    public static void releaseAfterResponse(TikaConfigProfiles.Profile profile) {
+        Message message = PhaseInterceptorChain.getCurrentMessage();
+        if (message == null || message.getExchange() == null) {
+            return;
+        }
+        Exchange exchange = message.getExchange();
+        synchronized (exchange) {
+            @SuppressWarnings("unchecked")
+            List<TikaConfigProfiles.Profile> profiles =
+                    (List<TikaConfigProfiles.Profile>) exchange.get(PROFILES);
+            if (profiles == null) {
+                profiles = new ArrayList<>();
+                exchange.put(PROFILES, profiles);
+            }
+            profiles.add(profile);
+        }
+    }
+
+    @Override
+    public void handleMessage(Message message) throws Fault {
+        Exchange exchange = message.getExchange();
+        if (exchange == null) {
+            return;
+        }
+        List<?> profiles;
+        synchronized (exchange) {
+            //release once, even if both the out and the out fault chain run
+            profiles = (List<?>) exchange.remove(PROFILES);
+        }
+        if (profiles != null) {
+            for (Object profile : profiles) {
+                ((TikaConfigProfiles.Profile) profile).release();
+            }
+        }
+    }
+}
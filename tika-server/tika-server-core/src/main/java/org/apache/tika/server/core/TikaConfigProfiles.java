@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.detect.CompositeDetector;
+import org.apache.tika.detect.Detector;
+import org.apache.tika.detect.FileCommandDetector;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.CompositeParser;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.ParserDecorator;
+import org.apache.tika.parser.external.ExternalParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named TikaConfigs that a request can select with the
+ * {@link #PROFILE_HEADER} header, so that one server can serve clients that
+ * need different parsers, detectors or limits.
+ * <p>
+ * Each profile is loaded from its config file when it is first requested,
+ * and its config and AutoDetectParser are then shared by all requests
+ * for the profile.  A background sweep that runs every maxIdleMillis / 2
+ * (at least every second) unloads the profiles that haven't been requested
+ * for maxIdleMillis; when a profile is loaded, the least recently used one
+ * is unloaded if more than maxLoaded profiles are loaded.  Requests that are
+ * in progress keep using the profile they started with; each request
+ * {@link Profile#release() releases} its profile when it is done, and once an
+ * unloaded profile isn't used by any request, the external processes of its
+ * parsers and detectors are stopped.  {@link #close()} stops the sweep.
+ * <p>
+ * This class is thread safe.
+ */
+public class TikaConfigProfiles implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TikaConfigProfiles.class);
+
+    public static final String PROFILE_HEADER = "X-Tika-Config-Profile";
+
+    public static final int DEFAULT_MAX_LOADED = 8;
+
+    public static final long DEFAULT_MAX_IDLE_MILLIS = 600000;
+
+    private final Map<String, ProfileState> states = new TreeMap<>();
+    //loaded profiles from least to most recently used
+    private final LinkedHashMap<String, ProfileState> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxLoaded;
+    private final long maxIdleMillis;
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * @param configs       config file by profile name
+     * @param maxLoaded     maximum number of profiles to keep loaded
+     * @param maxIdleMillis how long to keep a profile loaded after its last request
+     */
+    public TikaConfigProfiles(Map<String, Path> configs, int maxLoaded, long maxIdleMillis) {
+        if (maxLoaded < 1) {
+            throw new IllegalArgumentException("maxLoaded must be > 0");
+        }
+        for (Map.Entry<String, Path> e : configs.entrySet()) {
+            states.put(e.getKey(), new ProfileState(e.getKey(), e.getValue()));
+        }
+        this.maxLoaded = maxLoaded;
+        this.maxIdleMillis = maxIdleMillis;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tika-config-profiles-sweep");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, maxIdleMillis / 2);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a profile for each <code>.xml</code> file in the directory,
+     * named after the file without the extension.
+     */
+    public static TikaConfigProfiles load(Path directory, int maxLoaded, long maxIdleMillis)
+            throws IOException {
+        Map<String, Path> configs = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.xml")) {
+            for (Path p : stream) {
+                String fileName = p.getFileName().toString();
+                configs.put(fileName.substring(0, fileName.length() - 4), p);
+            }
+        }
+        LOG.info("Config profiles in {}: {}", directory, configs.keySet());
+        return new TikaConfigProfiles(configs, maxLoaded, maxIdleMillis);
+    }
+
+    /**
+     * Loads the profile if it isn't loaded yet, and counts a request for it.
+     * The request must {@link Profile#release() release} the profile when it
+     * is done with it.
+     *
+     * @param name name of the profile
+     * @return the profile
+     * @throws IllegalArgumentException if there is no profile with this name
+     * @throws TikaException            if the profile's config can't be loaded
+     */
+    public Profile get(String name) throws TikaException, IOException {
+        ProfileState state = states.get(name);
+        if (state == null) {
+            throw new IllegalArgumentException("unknown config profile: " + name);
+        }
+        long now = System.currentTimeMillis();
+        //the sweep can't unload the profile between loading and acquiring it
+        synchronized (loaded) {
+            Profile profile = state.acquire(now);
+            loaded.put(name, state);
+            evict(state, now);
+            return profile;
+        }
+    }
+
+    /**
+     * Unloads the profiles that haven't been requested for maxIdleMillis.
+     * Called by the background sweep.
+     */
+    public void evictIdle() {
+        synchronized (loaded) {
+            evict(null, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Stops the background sweep and unloads the profiles.  Requests that are
+     * in progress keep using their profile until they release it.
+     */
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        synchronized (loaded) {
+            for (ProfileState state : loaded.values()) {
+                state.unload();
+            }
+            loaded.clear();
+        }
+    }
+
+    public boolean hasProfile(String name) {
+        return states.containsKey(name);
+    }
+
+    public List<String> getProfileNames() {
+        return Collections.unmodifiableList(new ArrayList<>(states.keySet()));
+    }
+
+    /**
+     * @return metrics by profile name: whether the profile is loaded, and the numbers
+     * of requests, loads and evictions
+     */
+    public Map<String, Object> getMetrics() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (ProfileState state : states.values()) {
+            metrics.put(state.name, state.getMetrics(now));
+        }
+        return metrics;
+    }
+
+    //must hold the lock on loaded
+    private void evict(ProfileState current, long now) {
+        Iterator<ProfileState> it = loaded.values().iterator();
+        while (it.hasNext()) {
+            ProfileState state = it.next();
+            if (state == current) {
+                continue;
+            }
+            if (loaded.size() > maxLoaded || state.isIdle(now, maxIdleMillis)) {
+                it.remove();
+                state.unload();
+            }
+        }
+    }
+
+    /**
+     * A loaded profile.
+     */
+    public static class Profile {
+        private final String name;
+        private final TikaConfig config;
+        private final Parser parser;
+        //requests that use this profile
+        private int references = 0;
+        private boolean unloaded = false;
+        private boolean closed = false;
+
+        private Profile(String name, TikaConfig config) {
+            this.name = name;
+            this.config = config;
+            this.parser = new AutoDetectParser(config);
+        }
+
+        /**
+         * Called by a request that got this profile from
+         * {@link TikaConfigProfiles#get(String)} once it is done with it.
+         */
+        public void release() {
+            synchronized (this) {
+                if (references > 0) {
+                    references--;
+                }
+                if (!unloaded || references > 0 || closed) {
+                    return;
+                }
+                closed = true;
+            }
+            closeComponents();
+        }
+
+        synchronized void retain() {
+            references++;
+        }
+
+        void unload() {
+            synchronized (this) {
+                unloaded = true;
+                if (references > 0 || closed) {
+                    return;
+                }
+                closed = true;
+            }
+            closeComponents();
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Stops the external processes of the parsers and detectors,
+         * which would otherwise stay alive as long as the server.
+         */
+        private void closeComponents() {
+            LOG.info("Closing config profile {}", name);
+            closeParser(config.getParser());
+            closeDetector(config.getDetector());
+        }
+
+        private static void closeParser(Parser parser) {
+            if (parser instanceof CompositeParser) {
+                for (Parser child : ((CompositeParser) parser).getAllComponentParsers()) {
+                    closeParser(child);
+                }
+            } else if (parser instanceof ParserDecorator) {
+                closeParser(((ParserDecorator) parser).getWrappedParser());
+            } else if (parser instanceof ExternalParser) {
+                ((ExternalParser) parser).close();
+            }
+            if (parser instanceof Closeable) {
+                closeQuietly((Closeable) parser);
+            }
+        }
+
+        private static void closeDetector(Detector detector) {
+            if (detector instanceof CompositeDetector) {
+                for (Detector child : ((CompositeDetector) detector).getDetectors()) {
+                    closeDetector(child);
+                }
+            } else if (detector instanceof FileCommandDetector) {
+                ((FileCommandDetector) detector).close();
+            }
+            if (detector instanceof Closeable) {
+                closeQuietly((Closeable) detector);
+            }
+        }
+
+        private static void closeQuietly(Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOG.warn("couldn't close {}", closeable, e);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public TikaConfig getConfig() {
+            return config;
+        }
+
+        /**
+         * @return AutoDetectParser of the config, shared by all requests for this profile
+         */
+        public Parser getParser() {
+            return parser;
+        }
+    }
+
+    private static class ProfileState {
+        private final String name;
+        private final Path path;
+        private Profile profile;
+        private long lastUsed = 0;
+        private long requests = 0;
+        private int loads = 0;
+        private int evictions = 0;
+        private long loadMillis = -1;
+
+        private ProfileState(String name, Path path) {
+            this.name = name;
+            this.path = path;
+        }
+
+        synchronized Profile acquire(long now) throws TikaException, IOException {
+            if (profile == null) {
+                long start = System.currentTimeMillis();
+                try {
+                    profile = new Profile(name, new TikaConfig(path));
+                } catch (SAXException e) {
+                    throw new TikaException("couldn't load config profile " + name, e);
+                }
+                loads++;
+                loadMillis = System.currentTimeMillis() - start;
+                LOG.info("Loaded config profile {} from {} in {} ms", name, path, loadMillis);
+            }
+            lastUsed = now;
+            requests++;
+            profile.retain();
+            return profile;
+        }
+
+        synchronized boolean isIdle(long now, long maxIdleMillis) {
+            return now - lastUsed > maxIdleMillis;
+        }
+
+        synchronized void unload() {
+            if (profile != null) {
+                LOG.info("Unloading config profile {}", name);
+                profile.unload();
+                profile = null;
+                evictions++;
+            }
+        }
+
+        synchronized Map<String, Object> getMetrics(long now) {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("loaded", profile != null);
+            metrics.put("requests", requests);
+            metrics.put("loads", loads);
+            metrics.put("evictions", evictions);
+            metrics.put("last_load_millis", loadMillis);
+            metrics.put("millis_since_last_request", lastUsed == 0 ? -1 : now - lastUsed);
+            return metrics;
+        }
+    }
+}
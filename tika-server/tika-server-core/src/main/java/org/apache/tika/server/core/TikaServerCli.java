@@ -46,6 +46,7 @@ import org.apache.tika.Tika;
 import org.apache.tika.config.ServiceLoader;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.parser.DigestingParser;
+import org.apache.tika.parser.TimingHistogramExporter;
 import org.apache.tika.parser.digestutils.BouncyCastleDigester;
 import org.apache.tika.parser.digestutils.CommonsDigester;
 import org.apache.tika.server.core.resource.DetectorResource;
@@ -59,6 +60,7 @@ import org.apache.tika.server.core.resource.TikaParsers;
 import org.apache.tika.server.core.resource.TikaResource;
 import org.apache.tika.server.core.resource.TikaServerResource;
 import org.apache.tika.server.core.resource.TikaServerStatus;
+import org.apache.tika.server.core.resource.TikaServerTimings;
 import org.apache.tika.server.core.resource.TikaVersion;
 import org.apache.tika.server.core.resource.TikaWelcome;
 import org.apache.tika.server.core.resource.TranslateResource;
@@ -107,12 +109,20 @@ public class TikaServerCli {
         options.addOption("h", "host", true, "host name (default = " + DEFAULT_HOST + ", use * for all)");
         options.addOption("p", "port", true, "listen port (default = " + DEFAULT_PORT + ')');
         options.addOption("c", "config", true, "Tika Configuration file to override default config with.");
+        options.addOption("configProfiles", true, "directory of Tika Configuration files that requests can select " +
+                "by file name without '.xml' in the " + TikaConfigProfiles.PROFILE_HEADER + " header");
+        options.addOption("maxConfigProfiles", true, "maximum number of config profiles to keep loaded (default = " +
+                TikaConfigProfiles.DEFAULT_MAX_LOADED + ")");
+        options.addOption("configProfileIdleMillis", true, "unload a config profile if it hasn't been requested " +
+                "for this many millis (default = " + TikaConfigProfiles.DEFAULT_MAX_IDLE_MILLIS + ")");
         options.addOption("d", "digest", true, "include digest in metadata, e.g. md5,sha1:32,sha256");
         options.addOption("dml", "digestMarkLimit", true, "max number of bytes to mark on stream for digest");
         options.addOption("l", "log", true, "request URI log level ('debug' or 'info')");
         options.addOption("s", "includeStack", false, "whether or not to return a stack trace\nif there is an exception during 'parse'");
         options.addOption("i", "id", true, "id to use for server in server status endpoint");
         options.addOption("status", false, "enable the status endpoint");
+        options.addOption("timings", false, "record the time of each stage of a parse in the metadata " +
+                "and enable the timings endpoint");
         options.addOption("?", "help", false, "this help message");
         options.addOption("enableUnsecureFeatures", false, "this is required to enable fetchers and emitters. "+
             " The user acknowledges that fetchers and emitters introduce potential security vulnerabilities.");
@@ -311,6 +321,21 @@ public class TikaServerCli {
                 serverThread.start();
             }
             TikaResource.init(tika, digester, inputStreamFactory, serverStatus);
+            if (line.hasOption("configProfiles")) {
+                int maxProfiles = line.hasOption("maxConfigProfiles") ?
+                        Integer.parseInt(line.getOptionValue("maxConfigProfiles")) :
+                        TikaConfigProfiles.DEFAULT_MAX_LOADED;
+                long profileIdleMillis = line.hasOption("configProfileIdleMillis") ?
+                        Long.parseLong(line.getOptionValue("configProfileIdleMillis")) :
+                        TikaConfigProfiles.DEFAULT_MAX_IDLE_MILLIS;
+                TikaResource.setConfigProfiles(TikaConfigProfiles.load(
+                        Paths.get(line.getOptionValue("configProfiles")), maxProfiles, profileIdleMillis));
+            }
+            TimingHistogramExporter timingExporter = null;
+            if (line.hasOption("timings")) {
+                timingExporter = new TimingHistogramExporter();
+                TikaResource.setTimingExporter(timingExporter);
+            }
             JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
 
             List<ResourceProvider> rCoreProviders = new ArrayList<>();
@@ -332,6 +357,9 @@ public class TikaServerCli {
             if (line.hasOption("status")) {
                 rCoreProviders.add(new SingletonResourceProvider(new TikaServerStatus(serverStatus)));
             }
+            if (timingExporter != null) {
+                rCoreProviders.add(new SingletonResourceProvider(new TikaServerTimings(timingExporter)));
+            }
             List<ResourceProvider> rAllProviders = new ArrayList<>(rCoreProviders);
             rAllProviders.add(new SingletonResourceProvider(new TikaWelcome(rCoreProviders)));
             sf.setResourceProviders(rAllProviders);
@@ -357,7 +385,10 @@ public class TikaServerCli {
 
             //set compression interceptors
             sf.setOutInterceptors(
-                    Collections.singletonList(new GZIPOutInterceptor())
+                    Arrays.asList(new GZIPOutInterceptor(), new ProfileReleaseInterceptor())
+            );
+            sf.setOutFaultInterceptors(
+                    Collections.singletonList(new ProfileReleaseInterceptor())
             );
             sf.setInInterceptors(
                     Collections.singletonList(new GZIPInInterceptor()));
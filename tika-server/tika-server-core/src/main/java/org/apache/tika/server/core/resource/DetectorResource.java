@@ -57,7 +57,7 @@ public class DetectorResource {
         long taskId = serverStatus.start(ServerStatus.TASK.DETECT, filename);
 
         try (TikaInputStream tis = TikaInputStream.get(TikaResource.getInputStream(is, met, httpHeaders))) {
-            return TikaResource.getConfig().getDetector().detect(tis, met).toString();
+            return TikaResource.getConfig(httpHeaders.getRequestHeaders()).getDetector().detect(tis, met).toString();
         } catch (IOException e) {
             LOG.warn("Unable to detect MIME type for file. Reason: {} ({})",
                     e.getMessage(), filename, e);
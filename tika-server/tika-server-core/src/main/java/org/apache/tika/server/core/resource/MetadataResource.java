@@ -30,6 +30,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.tika.extractor.DocumentSelector;
@@ -37,8 +38,11 @@ import org.apache.tika.language.detect.LanguageHandler;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.RequestedOutputs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.helpers.DefaultHandler;
 
 import static org.apache.tika.server.core.resource.TikaResource.fillMetadata;
 import static org.apache.tika.server.core.resource.TikaResource.fillParseContext;
@@ -48,6 +52,8 @@ import static org.apache.tika.server.core.resource.TikaResource.fillParseContext
 public class MetadataResource {
     private static final Logger LOG = LoggerFactory.getLogger(MetadataResource.class);
 
+    private static final String LANGUAGE = "language";
+
     @POST
     @Consumes("multipart/form-data")
     @Produces({"text/csv", "application/json"})
@@ -101,7 +107,7 @@ public class MetadataResource {
         boolean success = false;
         try {
             parseMetadata(TikaResource.getInputStream(is, metadata, httpHeaders),
-                    metadata, httpHeaders.getRequestHeaders(), info);
+                    metadata, httpHeaders.getRequestHeaders(), info, getRequestedOutputs(field));
             // once we've parsed the document successfully, we should use NOT_FOUND
             // if we did not see the field
             defaultErrorResponse = Response.Status.NOT_FOUND;
@@ -125,20 +131,42 @@ public class MetadataResource {
 
     protected Metadata parseMetadata(InputStream is, Metadata metadata,
                                      MultivaluedMap<String, String> httpHeaders, UriInfo info) throws IOException {
+        //the content is still needed to detect the language
+        return parseMetadata(is, metadata, httpHeaders, info,
+                new RequestedOutputs(true, null, 0));
+    }
+
+    protected Metadata parseMetadata(InputStream is, Metadata metadata,
+                                     MultivaluedMap<String, String> httpHeaders, UriInfo info,
+                                     RequestedOutputs requested) throws IOException {
         final ParseContext context = new ParseContext();
-        Parser parser = TikaResource.createParser();
+        Parser parser = TikaResource.createParser(httpHeaders);
         fillMetadata(parser, metadata, httpHeaders);
         fillParseContext(httpHeaders, metadata, context);
         //no need to parse embedded docs
         context.set(DocumentSelector.class, metadata1 -> false);
+        //let the parsers skip what we won't return
+        context.set(RequestedOutputs.class, requested);
 
         TikaResource.logRequest(LOG, info, metadata);
-        TikaResource.parse(parser, LOG, info.getPath(), is,
-                new LanguageHandler() {
-                    public void endDocument() {
-                        metadata.set("language", getLanguage().getLanguage());
-                    }},
-                metadata, context);
+        ContentHandler handler;
+        if (requested.isContentRequested()) {
+            handler = new LanguageHandler() {
+                public void endDocument() {
+                    metadata.set(LANGUAGE, getLanguage().getLanguage());
+                }};
+        } else {
+            handler = new DefaultHandler();
+        }
+        TikaResource.parse(parser, LOG, info.getPath(), is, handler, metadata, context);
         return metadata;
     }
+
+    /**
+     * @param field the requested metadata field
+     * @return outputs of the parse that are needed to return the field
+     */
+    static RequestedOutputs getRequestedOutputs(String field) {
+        return new RequestedOutputs(LANGUAGE.equals(field), Collections.singleton(field), 0);
+    }
 }
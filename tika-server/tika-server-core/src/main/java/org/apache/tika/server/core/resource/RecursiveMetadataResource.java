@@ -39,6 +39,7 @@ import org.apache.tika.parser.RecursiveParserWrapper;
 import org.apache.tika.sax.BasicContentHandlerFactory;
 import org.apache.tika.sax.RecursiveParserWrapperHandler;
 import org.apache.tika.server.core.MetadataList;
+import org.apache.tika.server.core.TikaConfigProfiles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -135,7 +136,8 @@ public class RecursiveMetadataResource {
             throws Exception {
 
 		final ParseContext context = new ParseContext();
-		Parser parser = TikaResource.createParser();
+		TikaConfigProfiles.Profile profile = TikaResource.getProfile(httpHeaders);
+		Parser parser = TikaResource.createParser(profile);
 		// TODO: parameterize choice of max chars/max embedded attachments
 		RecursiveParserWrapper wrapper = new RecursiveParserWrapper(parser);
 
@@ -158,7 +160,7 @@ public class RecursiveMetadataResource {
                 BasicContentHandlerFactory.parseHandlerType(handlerTypeName, DEFAULT_HANDLER_TYPE);
 		RecursiveParserWrapperHandler handler = new RecursiveParserWrapperHandler(
 		        new BasicContentHandlerFactory(type, writeLimit), maxEmbeddedResources,
-                TikaResource.getConfig().getMetadataFilter());
+                TikaResource.getConfig(profile).getMetadataFilter());
 		try {
             TikaResource.parse(wrapper, LOG, info.getPath(), is, handler, metadata, context);
         } catch (SecurityException e) {
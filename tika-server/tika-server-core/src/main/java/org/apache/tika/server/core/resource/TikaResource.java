@@ -25,14 +25,18 @@ import org.apache.tika.Tika;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.detect.Detector;
 import org.apache.tika.exception.EncryptedDocumentException;
+import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.DigestingParser;
+import org.apache.tika.parser.MetadataTimingInstrumentation;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseInstrumentation;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.ParserDecorator;
+import org.apache.tika.parser.TimingHistogramExporter;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.ExpandedTitleContentHandler;
 import org.apache.tika.sax.RichTextContentHandler;
@@ -40,7 +44,9 @@ import org.apache.tika.sax.boilerpipe.BoilerpipeContentHandler;
 import org.apache.tika.server.core.CompositeParseContextConfig;
 import org.apache.tika.server.core.InputStreamFactory;
 import org.apache.tika.server.core.ParseContextConfig;
+import org.apache.tika.server.core.ProfileReleaseInterceptor;
 import org.apache.tika.server.core.ServerStatus;
+import org.apache.tika.server.core.TikaConfigProfiles;
 import org.apache.tika.server.core.TikaServerParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -94,6 +100,8 @@ public class TikaResource {
     private static DigestingParser.Digester digester = null;
     private static InputStreamFactory inputStreamFactory = null;
     private static ServerStatus SERVER_STATUS = null;
+    private static TimingHistogramExporter TIMING_EXPORTER = null;
+    private static TikaConfigProfiles CONFIG_PROFILES = null;
 
     private static ParseContextConfig PARSE_CONTEXT_CONFIG = new CompositeParseContextConfig();
 
@@ -106,6 +114,35 @@ public class TikaResource {
         SERVER_STATUS = serverStatus;
     }
 
+    /**
+     * Records the timings of the stages of each parse in the metadata
+     * and in the given exporter.
+     *
+     * @param exporter exporter, or <code>null</code> to stop recording timings
+     */
+    public static void setTimingExporter(TimingHistogramExporter exporter) {
+        TIMING_EXPORTER = exporter;
+    }
+
+    /**
+     * Lets requests select a config with the
+     * {@link TikaConfigProfiles#PROFILE_HEADER} header.
+     *
+     * @param profiles profiles, or <code>null</code> to always use the server's config;
+     *                 the previous profiles, if any, are closed
+     */
+    public static void setConfigProfiles(TikaConfigProfiles profiles) {
+        TikaConfigProfiles previous = CONFIG_PROFILES;
+        CONFIG_PROFILES = profiles;
+        if (previous != null && previous != profiles) {
+            previous.close();
+        }
+    }
+
+    public static TikaConfigProfiles getConfigProfiles() {
+        return CONFIG_PROFILES;
+    }
+
 
 
     @SuppressWarnings("serial")
@@ -118,10 +155,79 @@ public class TikaResource {
         return parser;
     }
 
+    /**
+     * @param httpHeaders request headers
+     * @return the parser of the config profile selected by the request,
+     * or of the server's config if the request doesn't select a profile
+     */
+    public static Parser createParser(MultivaluedMap<String, String> httpHeaders) {
+        return createParser(getProfile(httpHeaders));
+    }
+
+    /**
+     * @param profile config profile of the request, or <code>null</code> for the server's config
+     * @return the parser of the profile
+     */
+    public static Parser createParser(TikaConfigProfiles.Profile profile) {
+        if (profile == null) {
+            return createParser();
+        }
+        if (digester != null) {
+            return new DigestingParser(profile.getParser(), digester);
+        }
+        return profile.getParser();
+    }
+
     public static TikaConfig getConfig() {
         return tikaConfig;
     }
 
+    /**
+     * @param httpHeaders request headers
+     * @return the config profile selected by the request,
+     * or the server's config if the request doesn't select a profile
+     */
+    public static TikaConfig getConfig(MultivaluedMap<String, String> httpHeaders) {
+        return getConfig(getProfile(httpHeaders));
+    }
+
+    /**
+     * @param profile config profile of the request, or <code>null</code> for the server's config
+     * @return the config of the profile
+     */
+    public static TikaConfig getConfig(TikaConfigProfiles.Profile profile) {
+        return profile == null ? tikaConfig : profile.getConfig();
+    }
+
+    /**
+     * Resolves the config profile selected by the request, and counts the request
+     * for it.  Call this once per request and pass the profile on, so that the
+     * parser and the config of a request come from the same profile.  The
+     * profile is released when the response has been written.
+     *
+     * @param httpHeaders request headers
+     * @return the profile, or <code>null</code> if the request doesn't select one
+     */
+    public static TikaConfigProfiles.Profile getProfile(MultivaluedMap<String, String> httpHeaders) {
+        String name = httpHeaders.getFirst(TikaConfigProfiles.PROFILE_HEADER);
+        if (StringUtils.isBlank(name)) {
+            return null;
+        }
+        if (CONFIG_PROFILES == null || ! CONFIG_PROFILES.hasProfile(name.trim())) {
+            throw new WebApplicationException(
+                    String.format(Locale.ROOT, "Unknown config profile '%s' in %s",
+                            name, TikaConfigProfiles.PROFILE_HEADER), Response.Status.BAD_REQUEST);
+        }
+        try {
+            TikaConfigProfiles.Profile profile = CONFIG_PROFILES.get(name.trim());
+            ProfileReleaseInterceptor.releaseAfterResponse(profile);
+            return profile;
+        } catch (TikaException | IOException e) {
+            LOG.warn("couldn't load config profile {}", name, e);
+            throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     public static String detectFilename(MultivaluedMap<String, String> httpHeaders) {
 
         String disposition = httpHeaders.getFirst("Content-Disposition");
@@ -327,6 +433,12 @@ public class TikaResource {
         String fileName = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
         long taskId = SERVER_STATUS.start(ServerStatus.TASK.PARSE,
                 fileName);
+        if (TIMING_EXPORTER != null && parseContext.get(ParseInstrumentation.class) == null) {
+            parseContext.set(ParseInstrumentation.class,
+                    new MetadataTimingInstrumentation(TIMING_EXPORTER));
+        }
+        ParseInstrumentation.Span span =
+                ParseInstrumentation.start(parseContext, ParseInstrumentation.SERVER, metadata);
         try {
             parser.parse(inputStream, handler, metadata, parseContext);
         } catch (SAXException e) {
@@ -342,6 +454,7 @@ public class TikaResource {
             SERVER_STATUS.setStatus(ServerStatus.STATUS.ERROR);
             throw e;
         } finally {
+            span.stop();
             SERVER_STATUS.complete(taskId);
             inputStream.close();
         }
@@ -396,7 +509,7 @@ public class TikaResource {
     }
 
     public StreamingOutput produceTextMain(final InputStream is, MultivaluedMap<String, String> httpHeaders, final UriInfo info) {
-        final Parser parser = createParser();
+        final Parser parser = createParser(httpHeaders);
         final Metadata metadata = new Metadata();
         final ParseContext context = new ParseContext();
 
@@ -426,7 +539,7 @@ public class TikaResource {
     }
 
     public StreamingOutput produceText(final InputStream is, final Metadata metadata, MultivaluedMap<String, String> httpHeaders, final UriInfo info) {
-        final Parser parser = createParser();
+        final Parser parser = createParser(httpHeaders);
         final ParseContext context = new ParseContext();
 
         fillMetadata(parser, metadata, httpHeaders);
@@ -482,7 +595,7 @@ public class TikaResource {
 
     private StreamingOutput produceOutput(final InputStream is, Metadata metadata, final MultivaluedMap<String, String> httpHeaders,
                                           final UriInfo info, final String format) {
-        final Parser parser = createParser();
+        final Parser parser = createParser(httpHeaders);
         final ParseContext context = new ParseContext();
 
         fillMetadata(parser, metadata, httpHeaders);
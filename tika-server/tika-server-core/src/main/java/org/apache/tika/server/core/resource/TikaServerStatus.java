@@ -41,6 +41,9 @@ public class TikaServerStatus {
         map.put("millis_since_last_parse_started", serverStatus.getMillisSinceLastParseStarted());
         map.put("files_processed", serverStatus.getFilesProcessed());
         map.put("num_restarts", serverStatus.getNumRestarts());
+        if (TikaResource.getConfigProfiles() != null) {
+            map.put("config_profiles", TikaResource.getConfigProfiles().getMetrics());
+        }
         return map;
     }
 }
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core.resource;
+
+import org.apache.tika.parser.TimingHistogramExporter;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Histograms of the time taken by each stage of the parses, by media type,
+ * in the Prometheus text format.  Enabled with the <code>-timings</code> option.
+ */
+@Path("/timings")
+public class TikaServerTimings {
+    private final TimingHistogramExporter exporter;
+
+    public TikaServerTimings(TimingHistogramExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    @GET
+    @Produces("text/plain")
+    public String getTimings() throws IOException {
+        StringWriter writer = new StringWriter();
+        exporter.write(writer);
+        return writer.toString();
+    }
+}
@@ -29,6 +29,7 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -97,7 +98,10 @@ public abstract class CXFTestBase {
         JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
         //set compression interceptors
         sf.setOutInterceptors(
-                Collections.singletonList(new GZIPOutInterceptor())
+                Arrays.asList(new GZIPOutInterceptor(), new ProfileReleaseInterceptor())
+        );
+        sf.setOutFaultInterceptors(
+                Collections.singletonList(new ProfileReleaseInterceptor())
         );
         sf.setInInterceptors(
                 Collections.singletonList(new GZIPInInterceptor()));
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.lifecycle.ResourceProvider;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.commons.io.FileUtils;
+import org.apache.tika.server.core.resource.TikaResource;
+import org.apache.tika.server.core.resource.TikaServerStatus;
+import org.apache.tika.server.core.writer.JSONObjWriter;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TikaConfigProfilesTest extends CXFTestBase {
+
+    private static final String TEST_HELLO_WORLD = "test-documents/mock/hello_world.xml";
+
+    private Path profileDir;
+
+    @Override
+    protected void setUpResources(JAXRSServerFactoryBean sf) {
+        try {
+            profileDir = Files.createTempDirectory("tika-config-profiles-");
+            writeConfig("default", "org.apache.tika.parser.DefaultParser");
+            writeConfig("empty", "org.apache.tika.parser.EmptyParser");
+            TikaResource.setConfigProfiles(TikaConfigProfiles.load(profileDir, 1, 60000));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        List<ResourceProvider> rCoreProviders = new ArrayList<>();
+        rCoreProviders.add(new SingletonResourceProvider(new TikaResource()));
+        rCoreProviders.add(new SingletonResourceProvider(
+                new TikaServerStatus(new ServerStatus("", 0, true))));
+        sf.setResourceProviders(rCoreProviders);
+    }
+
+    @Override
+    protected void setUpProviders(JAXRSServerFactoryBean sf) {
+        List<Object> providers = new ArrayList<>();
+        providers.add(new JSONObjWriter());
+        sf.setProviders(providers);
+    }
+
+    @After
+    public void tearDownProfiles() throws IOException {
+        TikaResource.setConfigProfiles(null);
+        FileUtils.deleteDirectory(profileDir.toFile());
+    }
+
+    @Test
+    public void testProfiles() throws Exception {
+        assertContains("hello world", getText(null));
+        assertFalse(getText("empty").contains("hello world"));
+        assertContains("hello world", getText("default"));
+        assertContains("hello world", getText("default"));
+
+        JsonObject profiles = getStatus().getAsJsonObject("config_profiles");
+        JsonObject empty = profiles.getAsJsonObject("empty");
+        JsonObject dflt = profiles.getAsJsonObject("default");
+        //only one profile may be loaded
+        assertFalse(empty.get("loaded").getAsBoolean());
+        assertEquals(1, empty.get("requests").getAsInt());
+        assertEquals(1, empty.get("evictions").getAsInt());
+        assertTrue(dflt.get("loaded").getAsBoolean());
+        assertEquals(2, dflt.get("requests").getAsInt());
+        assertEquals(1, dflt.get("loads").getAsInt());
+
+        //reloaded on the next request
+        assertFalse(getText("empty").contains("hello world"));
+        empty = getStatus().getAsJsonObject("config_profiles").getAsJsonObject("empty");
+        assertTrue(empty.get("loaded").getAsBoolean());
+        assertEquals(2, empty.get("loads").getAsInt());
+    }
+
+    @Test
+    public void testIdleProfilesAreSwept() throws Exception {
+        try (TikaConfigProfiles profiles = TikaConfigProfiles.load(profileDir, 8, 100)) {
+            profiles.get("default");
+            assertTrue(isLoaded(profiles, "default"));
+            long start = System.currentTimeMillis();
+            while (isLoaded(profiles, "default") && System.currentTimeMillis() - start < 10000) {
+                Thread.sleep(100);
+            }
+            //unloaded by the sweep, without another request
+            assertFalse(isLoaded(profiles, "default"));
+        }
+    }
+
+    @Test
+    public void testUnloadedProfileIsClosedAfterRelease() throws Exception {
+        try (TikaConfigProfiles profiles = TikaConfigProfiles.load(profileDir, 1, 60000)) {
+            TikaConfigProfiles.Profile dflt = profiles.get("default");
+            //unloads default, which is still in use
+            profiles.get("empty").release();
+            assertFalse(isLoaded(profiles, "default"));
+            assertFalse(dflt.isClosed());
+            dflt.release();
+            assertTrue(dflt.isClosed());
+        }
+    }
+
+    @Test
+    public void testRequestsReleaseTheirProfile() throws Exception {
+        assertContains("hello world", getText("default"));
+        TikaConfigProfiles.Profile dflt = TikaResource.getConfigProfiles().get("default");
+        dflt.release();
+        assertFalse(dflt.isClosed());
+        //unloads default, which only the first request has used
+        assertFalse(getText("empty").contains("hello world"));
+        //the client can get the response before the server is done with the request
+        long start = System.currentTimeMillis();
+        while (!dflt.isClosed() && System.currentTimeMillis() - start < 10000) {
+            Thread.sleep(100);
+        }
+        assertTrue(dflt.isClosed());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean isLoaded(TikaConfigProfiles profiles, String name) {
+        return (Boolean) ((Map<String, Object>) profiles.getMetrics().get(name)).get("loaded");
+    }
+
+    @Test
+    public void testUnknownProfile() throws Exception {
+        Response response = WebClient.create(endPoint + "/tika")
+                .header(TikaConfigProfiles.PROFILE_HEADER, "unknown")
+                .accept("text/plain")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_HELLO_WORLD));
+        assertEquals(400, response.getStatus());
+    }
+
+    private String getText(String profile) throws Exception {
+        WebClient client = WebClient.create(endPoint + "/tika").accept("text/plain");
+        if (profile != null) {
+            client.header(TikaConfigProfiles.PROFILE_HEADER, profile);
+        }
+        Response response = client.put(ClassLoader.getSystemResourceAsStream(TEST_HELLO_WORLD));
+        assertEquals(200, response.getStatus());
+        return getStringFromInputStream((InputStream) response.getEntity());
+    }
+
+    private JsonObject getStatus() throws Exception {
+        Response response = WebClient.create(endPoint + "/status").get();
+        return JsonParser.parseString(getStringFromInputStream(
+                (InputStream) response.getEntity())).getAsJsonObject();
+    }
+
+    private void writeConfig(String name, String parserClass) throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<properties>\n" +
+                "    <parsers>\n" +
+                "        <parser class=\"" + parserClass + "\"/>\n" +
+                "    </parsers>\n" +
+                "</properties>";
+        Files.write(profileDir.resolve(name + ".xml"), xml.getBytes(UTF_8));
+    }
+}
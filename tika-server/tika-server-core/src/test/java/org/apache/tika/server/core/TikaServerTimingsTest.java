@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server.core;
+
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.lifecycle.ResourceProvider;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.tika.parser.TimingHistogramExporter;
+import org.apache.tika.server.core.resource.MetadataResource;
+import org.apache.tika.server.core.resource.TikaResource;
+import org.apache.tika.server.core.resource.TikaServerTimings;
+import org.apache.tika.server.core.writer.JSONMessageBodyWriter;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TikaServerTimingsTest extends CXFTestBase {
+
+    private static final String TEST_HELLO_WORLD = "test-documents/mock/hello_world.xml";
+
+    private final TimingHistogramExporter exporter = new TimingHistogramExporter();
+
+    @Override
+    protected void setUpResources(JAXRSServerFactoryBean sf) {
+        TikaResource.setTimingExporter(exporter);
+        List<ResourceProvider> rCoreProviders = new ArrayList<>();
+        rCoreProviders.add(new SingletonResourceProvider(new MetadataResource()));
+        rCoreProviders.add(new SingletonResourceProvider(new TikaServerTimings(exporter)));
+        sf.setResourceProviders(rCoreProviders);
+    }
+
+    @Override
+    protected void setUpProviders(JAXRSServerFactoryBean sf) {
+        List<Object> providers = new ArrayList<>();
+        providers.add(new JSONMessageBodyWriter());
+        sf.setProviders(providers);
+    }
+
+    @After
+    public void tearDownTimings() {
+        TikaResource.setTimingExporter(null);
+    }
+
+    @Test
+    public void testTimings() throws Exception {
+        Response response = WebClient.create(endPoint + "/meta")
+                .accept("application/json")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_HELLO_WORLD));
+        assertEquals(200, response.getStatus());
+        String json = getStringFromInputStream((InputStream) response.getEntity());
+        assertTrue(json, json.contains("\"X-TIKA:timing:parse\""));
+        assertTrue(json, json.contains("\"X-TIKA:timing:detect\""));
+
+        response = WebClient.create(endPoint + "/timings").get();
+        String timings = getStringFromInputStream((InputStream) response.getEntity());
+        assertTrue(timings, timings.contains(
+                "tika_parse_stage_seconds_count{media_type=\"application/mock+xml\",stage=\"parse\"} 1"));
+        assertTrue(timings, timings.contains(
+                "tika_parse_stage_seconds_count{media_type=\"application/mock+xml\",stage=\"server\"} 1"));
+    }
+}